@@ -0,0 +1,80 @@
+package com.mxfz.weatherservice.codec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a SimpleDateFormat per call (the previous request path), a shared java.time formatter and
+ * {@link DateCodec} for parsing yyyy-MM-dd to epoch seconds and back. Runs on several threads because the
+ * old path also contended on TimeZone and calendar caches. Run with the gc profiler to see allocation per
+ * call (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class DateCodecBenchmark {
+
+    private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    private String date;
+    private long epochSecond;
+
+    @Setup
+    public void setup() {
+        date = "2020-10-15";
+        epochSecond = LocalDate.parse(date).toEpochDay() * 86_400L + 43_200L;
+    }
+
+    @Benchmark
+    public long parseSimpleDateFormat() throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.parse(date).getTime() / 1000;
+    }
+
+    @Benchmark
+    public long parseJavaTime() {
+        return LocalDate.parse(date, ISO_DATE).toEpochDay() * 86_400L;
+    }
+
+    @Benchmark
+    public long parseDateCodec() {
+        return DateCodec.toEpochSecond(date);
+    }
+
+    @Benchmark
+    public String formatSimpleDateFormat() {
+        return new SimpleDateFormat("yyyy-MM-dd").format(new Date(epochSecond * 1000L));
+    }
+
+    @Benchmark
+    public String formatJavaTime() {
+        return LocalDate.ofEpochDay(Math.floorDiv(epochSecond, 86_400L)).format(ISO_DATE);
+    }
+
+    @Benchmark
+    public String formatDateCodec() {
+        return DateCodec.formatEpochSecond(epochSecond);
+    }
+}
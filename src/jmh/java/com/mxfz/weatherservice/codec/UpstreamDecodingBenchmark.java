@@ -0,0 +1,105 @@
+package com.mxfz.weatherservice.codec;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mxfz.weatherservice.config.JacksonConfig;
+import com.mxfz.weatherservice.executor.ExecutorMetrics;
+import com.mxfz.weatherservice.executor.TaskRouter;
+import com.mxfz.weatherservice.model.PincodeLocation;
+import com.mxfz.weatherservice.model.geocode.AddressComponent;
+import com.mxfz.weatherservice.model.geocode.GeocodeResponse;
+import com.mxfz.weatherservice.model.geocode.Result;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import com.mxfz.weatherservice.model.weather.WeatherResponse;
+import com.mxfz.weatherservice.service.WeatherServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares full databind of upstream responses followed by first-element mapping (the previous request path)
+ * against the streaming decoders. Run with the gc profiler to see allocation per call (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpstreamDecodingBenchmark {
+
+    private static final String PINCODE = "560001";
+
+    private ObjectMapper objectMapper;
+    private WeatherServiceImpl weatherService;
+    private byte[] weatherPayload;
+    private byte[] geocodePayload;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = JacksonConfig.sharedObjectMapper();
+        // Only mapWeatherData is benchmarked; the collaborators are never used
+        TaskRouter taskRouter = new TaskRouter(ForkJoinPool.commonPool(), ForkJoinPool.commonPool(), new ExecutorMetrics());
+        weatherService = new WeatherServiceImpl(null, null, null, null, null, taskRouter, null, "http://localhost");
+        weatherPayload = readResource("/upstream/openweather-timemachine.json");
+        geocodePayload = readResource("/upstream/google-geocode.json");
+    }
+
+    @Benchmark
+    public WeatherInfo weatherDatabind() throws IOException {
+        WeatherResponse response = objectMapper.readValue(weatherPayload, WeatherResponse.class);
+        return weatherService.mapWeatherData(response, PINCODE);
+    }
+
+    @Benchmark
+    public WeatherInfo weatherStreaming() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(weatherPayload)) {
+            return OpenWeatherResponseDecoder.decode(parser, PINCODE);
+        }
+    }
+
+    @Benchmark
+    public PincodeLocation geocodeDatabind() throws IOException {
+        GeocodeResponse response = objectMapper.readValue(geocodePayload, GeocodeResponse.class);
+        Result firstResult = response.getResults().get(0);
+        String pincode = null;
+        for (AddressComponent component : firstResult.getAddressComponents()) {
+            if (component.getTypes().contains("postal_code")) {
+                pincode = component.getLongName();
+                break;
+            }
+        }
+        return new PincodeLocation(pincode,
+                firstResult.getGeometry().getLocation().getLat(),
+                firstResult.getGeometry().getLocation().getLng(),
+                firstResult.getFormattedAddress());
+    }
+
+    @Benchmark
+    public PincodeLocation geocodeStreaming() throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(geocodePayload)) {
+            return GeocodeResponseDecoder.decode(parser);
+        }
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream in = UpstreamDecodingBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Missing benchmark resource " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+}
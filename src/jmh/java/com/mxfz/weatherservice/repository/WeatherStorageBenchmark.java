@@ -0,0 +1,126 @@
+package com.mxfz.weatherservice.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import com.mxfz.weatherservice.model.weather.WeatherObservation;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a one-month range query per pincode on the document store (weather_info) and the
+ * time-series store (weather_observations). Both collections are filled with the same data and their
+ * storage and index sizes are printed during setup.
+ * Needs a running MongoDB 5.0+, e.g. -Dbenchmark.mongo.uri=mongodb://localhost:27017; the
+ * weather_benchmark database is dropped and recreated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherStorageBenchmark {
+
+    private static final String DATABASE = "weather_benchmark";
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 365;
+    private static final int RANGE_DAYS = 30;
+
+    @Param({"200"})
+    private int pincodes;
+
+    private MongoClient mongoClient;
+    private WeatherStore documentStore;
+    private WeatherStore timeSeriesStore;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String uri = System.getProperty("benchmark.mongo.uri", "mongodb://localhost:27017");
+        mongoClient = MongoClients.create(uri);
+        MongoTemplate template = new MongoTemplate(mongoClient, DATABASE);
+        template.getDb().drop();
+
+        WeatherRepository repository = new MongoRepositoryFactory(template).getRepository(WeatherRepository.class);
+        DocumentWeatherStore document = new DocumentWeatherStore(repository, template);
+        document.ensureIndexes();
+        TimeSeriesWeatherStore timeSeries = new TimeSeriesWeatherStore(template);
+        timeSeries.ensureCollection();
+        documentStore = document;
+        timeSeriesStore = timeSeries;
+
+        for (int p = 0; p < pincodes; p++) {
+            List<WeatherInfo> batch = new ArrayList<>(DAYS);
+            for (int day = 0; day < DAYS; day++) {
+                batch.add(sample(pincode(p), FIRST_DAY.plusDays(day)));
+            }
+            template.insert(batch, WeatherInfo.class);
+            template.insert(batch.stream().map(WeatherObservation::from).toList(), WeatherObservation.class);
+        }
+
+        printCollectionStats(template, "weather_info");
+        printCollectionStats(template, WeatherObservation.COLLECTION);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public List<WeatherInfo> documentRange() {
+        return range(documentStore);
+    }
+
+    @Benchmark
+    public List<WeatherInfo> timeSeriesRange() {
+        return range(timeSeriesStore);
+    }
+
+    private List<WeatherInfo> range(WeatherStore store) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate from = FIRST_DAY.plusDays(random.nextInt(DAYS - RANGE_DAYS));
+        return store.findByPincodeAndDateRange(pincode(random.nextInt(pincodes)),
+                from.toString(), from.plusDays(RANGE_DAYS - 1).toString(), Set.of());
+    }
+
+    private static String pincode(int index) {
+        return String.valueOf(500000 + index);
+    }
+
+    private static WeatherInfo sample(String pincode, LocalDate date) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long epochSecond = date.toEpochDay() * 86_400L;
+        return new WeatherInfo(pincode, 12.97, 77.59, date.toString(), epochSecond + 21_600, epochSecond + 64_800,
+                290 + random.nextDouble(20), 291 + random.nextDouble(20), 1000 + random.nextInt(30),
+                random.nextInt(100), 285 + random.nextDouble(10), random.nextInt(100), 10_000,
+                random.nextDouble(10), random.nextInt(360), "scattered clouds");
+    }
+
+    private static void printCollectionStats(MongoTemplate template, String collection) {
+        Document stats = template.getDb().runCommand(new Document("collStats", collection));
+        System.out.printf("%n%s: size=%s storageSize=%s totalIndexSize=%s%n", collection,
+                stats.get("size"), stats.get("storageSize"), stats.get("totalIndexSize"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.mxfz.weatherservice.tracing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of one traced stage, which must stay well under a microsecond: outside a request (histogram only)
+ * and inside one (histogram plus the request's span list, with the request's own overhead spread over its
+ * stages). Runs on several threads so the shared histograms are contended like under load.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class TracerBenchmark {
+
+    private static final Supplier<String> WORK = () -> "weather";
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        private final Tracer tracer = new Tracer();
+    }
+
+    @Benchmark
+    public String untracedBaseline() {
+        return WORK.get();
+    }
+
+    @Benchmark
+    public String spanOutsideRequest(Shared shared) {
+        return shared.tracer.trace(TraceStage.CACHE_LOOKUP, WORK);
+    }
+
+    /**
+     * A whole traced cache-miss request: begin, the six stages, Server-Timing and end, reported per stage
+     */
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public String spansOfRequest(Shared shared) {
+        Tracer tracer = shared.tracer;
+        RequestTrace trace = tracer.begin("GET /api/weather/weather-for-date-pincode", null);
+        tracer.trace(TraceStage.CACHE_LOOKUP, WORK);
+        tracer.trace(TraceStage.PINCODE_LOOKUP, WORK);
+        tracer.trace(TraceStage.GEOCODE, WORK);
+        tracer.trace(TraceStage.PINCODE_SAVE, WORK);
+        tracer.trace(TraceStage.OPEN_WEATHER, WORK);
+        tracer.trace(TraceStage.SAVE, WORK);
+        String serverTiming = trace.serverTiming();
+        tracer.end(trace, 200);
+        return serverTiming;
+    }
+}
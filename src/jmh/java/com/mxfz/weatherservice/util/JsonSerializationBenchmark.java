@@ -0,0 +1,155 @@
+package com.mxfz.weatherservice.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mxfz.weatherservice.config.JacksonConfig;
+import com.mxfz.weatherservice.model.ResourceMetrics;
+import com.mxfz.weatherservice.model.ResourcePrediction;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous untuned mapper setup (JSONUtil-style ObjectMapper with module scanning)
+ * against the shared tuned mapper used the way Spring MVC's Jackson converter writes a response body,
+ * on /all-weather and /api/resource/* payloads.
+ * The Smile and CBOR variants show the cost of the binary formats served to bulk consumers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "1000"})
+    private int weatherRecords;
+
+    private ObjectMapper untunedMapper;
+    private ObjectMapper mvcMapper;
+    private JavaType weatherListType;
+    private JavaType predictionType;
+    private ObjectWriter smileListWriter;
+    private ObjectWriter cborListWriter;
+    private List<WeatherInfo> allWeather;
+    private ResourcePrediction prediction;
+
+    @Setup
+    public void setup() {
+        untunedMapper = new ObjectMapper();
+        untunedMapper.findAndRegisterModules();
+        untunedMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        untunedMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        // The ObjectMapper bean, which the MVC message converter writes with
+        mvcMapper = JacksonConfig.sharedObjectMapper();
+        weatherListType = mvcMapper.getTypeFactory().constructType(new TypeReference<List<WeatherInfo>>() {
+        });
+        predictionType = mvcMapper.getTypeFactory().constructType(ResourcePrediction.class);
+
+        smileListWriter = JacksonConfig.sharedSmileMapper().writerFor(new TypeReference<List<WeatherInfo>>() {
+        });
+        cborListWriter = JacksonConfig.sharedCborMapper().writerFor(new TypeReference<List<WeatherInfo>>() {
+        });
+
+        allWeather = new ArrayList<>(weatherRecords);
+        for (int i = 0; i < weatherRecords; i++) {
+            allWeather.add(new WeatherInfo(String.valueOf(560001 + i), 12.97 + i * 0.001, 77.59 + i * 0.001,
+                    "2020-10-15", 1602721955L, 1602764620L, 294.31, 295.42, 1012, 88, 292.21,
+                    75, 6000, 2.1, 250, "broken clouds"));
+        }
+
+        ResourceMetrics metrics = ResourceMetrics.builder()
+                .timestamp(LocalDateTime.now())
+                .heapUsed(512L << 20)
+                .heapMax(2048L << 20)
+                .heapCommitted(1024L << 20)
+                .nonHeapUsed(128L << 20)
+                .heapUsagePercentage(25.0)
+                .gcCollectionCount(42)
+                .gcCollectionTime(310)
+                .threadCount(48)
+                .peakThreadCount(64)
+                .daemonThreadCount(30)
+                .processCpuLoad(35.5)
+                .systemCpuLoad(41.2)
+                .build();
+        prediction = ResourcePrediction.builder()
+                .timestamp(LocalDateTime.now())
+                .level(ResourcePrediction.PredictionLevel.WARNING)
+                .riskScore(0.4)
+                .warnings(List.of("CPU usage at 72.00% - Monitoring"))
+                .criticalIssues(List.of())
+                .currentMetrics(metrics)
+                .projectedMetrics(metrics)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] allWeatherUntuned() throws Exception {
+        return writeLikeMvc(untunedMapper, allWeather, weatherListType);
+    }
+
+    @Benchmark
+    public byte[] allWeatherShared() throws Exception {
+        return writeLikeMvc(mvcMapper, allWeather, weatherListType);
+    }
+
+    @Benchmark
+    public byte[] allWeatherSmile() throws Exception {
+        return smileListWriter.writeValueAsBytes(allWeather);
+    }
+
+    @Benchmark
+    public byte[] allWeatherCbor() throws Exception {
+        return cborListWriter.writeValueAsBytes(allWeather);
+    }
+
+    @Benchmark
+    public byte[] predictionUntuned() throws Exception {
+        return writeLikeMvc(untunedMapper, prediction, predictionType);
+    }
+
+    @Benchmark
+    public byte[] predictionShared() throws Exception {
+        return writeLikeMvc(mvcMapper, prediction, predictionType);
+    }
+
+    /**
+     * Writes as MappingJackson2HttpMessageConverter does: the mapper's writer, typed only for containers,
+     * into a generator over the response stream
+     */
+    private static byte[] writeLikeMvc(ObjectMapper mapper, Object value, JavaType type) throws IOException {
+        ObjectWriter writer = type.isContainerType() ? mapper.writer().forType(type) : mapper.writer();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            writer.writeValue(generator, value);
+        }
+        return out.toByteArray();
+    }
+}
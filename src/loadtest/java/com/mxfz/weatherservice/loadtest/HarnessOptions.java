@@ -0,0 +1,114 @@
+package com.mxfz.weatherservice.loadtest;
+
+import com.mxfz.weatherservice.simulator.LatencyDistribution;
+import com.mxfz.weatherservice.simulator.SimulatedUpstream;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command line options of {@link LoadHarness}, given as --name=value. Durations accept ms, s or m suffixes.
+ *
+ * @param mode                fixed (one rate) or saturation (step the rate up until the SLO breaks)
+ * @param rate                target requests per second in fixed mode
+ * @param mongoUri            external MongoDB to use instead of the embedded one, or null
+ * @param upstreamLatency     stub upstream latency distribution: fixed, uniform, exponential or lognormal
+ * @param upstreamErrorRate   fraction of stub upstream calls answered with 503
+ * @param upstreamRateLimit   stub upstream calls per second before answering 429, 0 for no limit
+ * @param maxInFlight         requests outstanding before new ones are counted as dropped instead of sent
+ */
+public record HarnessOptions(String mode,
+                             double rate,
+                             Duration duration,
+                             Duration warmup,
+                             Duration reportInterval,
+                             int pincodes,
+                             int days,
+                             long seed,
+                             String mongoUri,
+                             String upstreamLatency,
+                             double upstreamMedianMs,
+                             double upstreamP99Ms,
+                             double upstreamErrorRate,
+                             int upstreamRateLimit,
+                             int maxInFlight,
+                             double startRate,
+                             double stepFactor,
+                             double maxRate,
+                             Duration stageDuration,
+                             int refineSteps,
+                             long sloP99Ms,
+                             double maxErrorRate) {
+
+    private static final Set<String> NAMES = Set.of("mode", "rate", "duration", "warmup", "report-interval",
+            "pincodes", "days", "seed", "mongo-uri", "upstream-latency", "upstream-median-ms", "upstream-p99-ms",
+            "upstream-error-rate", "upstream-rate-limit", "max-in-flight", "start-rate", "step-factor", "max-rate",
+            "stage-duration", "refine-steps", "slo-p99-ms", "max-error-rate");
+
+    public boolean saturationMode() {
+        return "saturation".equals(mode);
+    }
+
+    public SimulatedUpstream.Settings upstreamSettings() {
+        return new SimulatedUpstream.Settings(
+                LatencyDistribution.of(upstreamLatency, upstreamMedianMs, upstreamP99Ms),
+                upstreamErrorRate, upstreamRateLimit, seed);
+    }
+
+    public static HarnessOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name + ", expected one of " + NAMES);
+            }
+            values.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+
+        String mode = values.getOrDefault("mode", "fixed");
+        if (!mode.equals("fixed") && !mode.equals("saturation")) {
+            throw new IllegalArgumentException("--mode must be fixed or saturation");
+        }
+        return new HarnessOptions(
+                mode,
+                Double.parseDouble(values.getOrDefault("rate", "100")),
+                parseDuration(values.getOrDefault("duration", "30s")),
+                parseDuration(values.getOrDefault("warmup", "10s")),
+                parseDuration(values.getOrDefault("report-interval", "1s")),
+                Integer.parseInt(values.getOrDefault("pincodes", "500")),
+                Integer.parseInt(values.getOrDefault("days", "30")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.get("mongo-uri"),
+                values.getOrDefault("upstream-latency", "lognormal"),
+                Double.parseDouble(values.getOrDefault("upstream-median-ms", "80")),
+                Double.parseDouble(values.getOrDefault("upstream-p99-ms", "400")),
+                Double.parseDouble(values.getOrDefault("upstream-error-rate", "0")),
+                Integer.parseInt(values.getOrDefault("upstream-rate-limit", "0")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "20000")),
+                Double.parseDouble(values.getOrDefault("start-rate", "50")),
+                Double.parseDouble(values.getOrDefault("step-factor", "1.5")),
+                Double.parseDouble(values.getOrDefault("max-rate", "20000")),
+                parseDuration(values.getOrDefault("stage-duration", "20s")),
+                Integer.parseInt(values.getOrDefault("refine-steps", "2")),
+                Long.parseLong(values.getOrDefault("slo-p99-ms", "500")),
+                Double.parseDouble(values.getOrDefault("max-error-rate", "0.01")));
+    }
+
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofMillis(Long.parseLong(value));
+    }
+}
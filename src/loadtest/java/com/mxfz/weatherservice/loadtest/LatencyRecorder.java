@@ -0,0 +1,116 @@
+package com.mxfz.weatherservice.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Outcome of every request of one stage, indexed by request sequence number. Each request writes only its
+ * own slot, so no locking is needed; read the results only after the stage has finished.
+ *
+ * Latency is measured from the intended send time of the open-loop schedule, not the actual send time,
+ * so time a request spent waiting behind a stalled system is counted (no coordinated omission).
+ */
+final class LatencyRecorder {
+
+    static final byte PENDING = 0;
+    static final byte OK = 1;
+    static final byte ERROR = 2;
+    static final byte DROPPED = 3;
+
+    private final long startNanos;
+    private final long[] intendedNanos;
+    private final long[] latencyNanos;
+    private final byte[] outcomes;
+
+    LatencyRecorder(long startNanos, int requests) {
+        this.startNanos = startNanos;
+        this.intendedNanos = new long[requests];
+        this.latencyNanos = new long[requests];
+        this.outcomes = new byte[requests];
+    }
+
+    int size() {
+        return outcomes.length;
+    }
+
+    /**
+     * Called by the dispatching thread before the request is sent (or dropped)
+     */
+    void schedule(int index, long intendedNanos) {
+        this.intendedNanos[index] = intendedNanos;
+    }
+
+    void record(int index, long completedNanos, byte outcome) {
+        this.latencyNanos[index] = completedNanos - intendedNanos[index];
+        this.outcomes[index] = outcome;
+    }
+
+    /**
+     * Summarises requests whose intended send time falls in [fromNanos, toNanos) relative to the stage start
+     */
+    Summary summarize(long fromNanos, long toNanos) {
+        long[] latencies = new long[outcomes.length];
+        int ok = 0;
+        int errors = 0;
+        int dropped = 0;
+        int pending = 0;
+        long lastCompletion = 0;
+        for (int i = 0; i < outcomes.length; i++) {
+            long offset = intendedNanos[i] - startNanos;
+            if (offset < fromNanos || offset >= toNanos) {
+                continue;
+            }
+            switch (outcomes[i]) {
+                case OK -> {
+                    latencies[ok++] = latencyNanos[i];
+                    lastCompletion = Math.max(lastCompletion, offset + latencyNanos[i]);
+                }
+                case ERROR -> errors++;
+                case DROPPED -> dropped++;
+                default -> pending++;
+            }
+        }
+        long[] sorted = Arrays.copyOf(latencies, ok);
+        Arrays.sort(sorted);
+        double seconds = Math.max(lastCompletion - fromNanos, toNanos - fromNanos) / 1e9;
+        return new Summary(ok, errors, dropped, pending, ok / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    /**
+     * Splits the stage into windows of the given length, by intended send time
+     */
+    List<Summary> timeline(long stageNanos, long windowNanos) {
+        List<Summary> windows = new ArrayList<>();
+        for (long from = 0; from < stageNanos; from += windowNanos) {
+            windows.add(summarize(from, Math.min(from + windowNanos, stageNanos)));
+        }
+        return windows;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    /**
+     * Latencies in milliseconds. Pending requests never completed before the stage was abandoned and are
+     * counted as errors by {@link #errorRate()}.
+     */
+    record Summary(int ok, int errors, int dropped, int pending, double throughput,
+                   double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        int total() {
+            return ok + errors + dropped + pending;
+        }
+
+        double errorRate() {
+            return total() == 0 ? 0 : (double) (errors + dropped + pending) / total();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.mxfz.weatherservice.loadtest;
+
+import com.mxfz.weatherservice.WeatherServiceApplication;
+import com.mxfz.weatherservice.model.ResourcePrediction;
+import com.mxfz.weatherservice.service.ResourcePredictionService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * In-process load harness: starts the service against embedded MongoDB and {@link StubUpstreamServer},
+ * then drives /api/weather/weather-for-date-pincode at an open-loop rate.
+ *
+ * - fixed mode runs one rate and prints a per-interval timeline (throughput, latency percentiles,
+ *   errors and the service's own prediction level) followed by a summary
+ * - saturation mode steps the rate up by step-factor until p99 exceeds the SLO, the error rate exceeds
+ *   max-error-rate or throughput falls behind the target, then bisects between the last passing and the
+ *   first failing rate
+ *
+ * Run with ./gradlew loadTest -PloadArgs="--mode=saturation --slo-p99-ms=250"; see {@link HarnessOptions}.
+ */
+public final class LoadHarness {
+
+    private static final String WEATHER_PATH = "/api/weather/weather-for-date-pincode";
+    private static final double MIN_THROUGHPUT_RATIO = 0.95;
+
+    private final HarnessOptions options;
+    private final OpenLoopLoadGenerator generator;
+    private final PredictionSampler sampler;
+    private final Supplier<URI> traffic;
+
+    private LoadHarness(HarnessOptions options, String serviceUrl, ResourcePredictionService predictionService) {
+        this.options = options;
+        this.generator = new OpenLoopLoadGenerator(options.maxInFlight());
+        this.sampler = new PredictionSampler(predictionService, options.reportInterval());
+        this.traffic = weatherTraffic(serviceUrl, options);
+    }
+
+    public static void main(String[] args) throws Exception {
+        HarnessOptions options = HarnessOptions.parse(args);
+        try (StubUpstreamServer upstream = StubUpstreamServer.start(options.upstreamSettings());
+             ConfigurableApplicationContext context = startService(options, upstream)) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadHarness harness = new LoadHarness(options, "http://127.0.0.1:" + port,
+                    context.getBean(ResourcePredictionService.class));
+            try {
+                if (options.saturationMode()) {
+                    harness.findSaturation();
+                } else {
+                    harness.runFixed();
+                }
+            } finally {
+                harness.generator.close();
+                harness.sampler.close();
+            }
+            System.out.printf("Upstream calls: weather %s, geocoding %s%n",
+                    upstream.weatherStats(), upstream.geocodingStats());
+        }
+    }
+
+    private static ConfigurableApplicationContext startService(HarnessOptions options, StubUpstreamServer upstream) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("upstream.open-weather.base-url", upstream.baseUrl());
+        properties.put("upstream.google-geocoding.base-url", upstream.baseUrl());
+        // Background prefetch would add load the harness does not control
+        properties.put("weather.prefetch.enabled", false);
+        properties.put("logging.level.com.mxfz.weatherservice", "WARN");
+        if (options.mongoUri() != null) {
+            properties.put("spring.data.mongodb.uri", options.mongoUri());
+            properties.put("spring.autoconfigure.exclude",
+                    "de.flapdoodle.embed.mongo.spring.autoconfigure.EmbeddedMongoAutoConfiguration");
+        } else {
+            properties.put("spring.data.mongodb.port", 0);
+            properties.put("de.flapdoodle.mongodb.embedded.version", "7.0.12");
+        }
+        return new SpringApplicationBuilder(WeatherServiceApplication.class).properties(properties).run();
+    }
+
+    /**
+     * Random pincode out of the configured pool and a random past date, so repeated keys hit the store.
+     * Only the generator's dispatching thread draws requests, so one random source is enough.
+     */
+    private static Supplier<URI> weatherTraffic(String serviceUrl, HarnessOptions options) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SplittableRandom random = new SplittableRandom(options.seed());
+        return () -> {
+            String pincode = Integer.toString(110_001 + random.nextInt(options.pincodes()));
+            LocalDate date = today.minusDays(1 + random.nextInt(options.days()));
+            return URI.create(serviceUrl + WEATHER_PATH + "?pincode=" + pincode + "&date=" + date);
+        };
+    }
+
+    private void runFixed() throws InterruptedException {
+        warmUp(options.rate());
+        LatencyRecorder.Summary summary = runStage(options.rate(), options.duration(), true);
+        printSummaryHeader();
+        printSummary("total", options.rate(), summary, sampler.worstLevel(0, Long.MAX_VALUE));
+    }
+
+    private void findSaturation() throws InterruptedException {
+        warmUp(options.startRate());
+        System.out.printf("Saturation search: p99 <= %d ms, error rate <= %.2f%%, throughput >= %.0f%% of target%n",
+                options.sloP99Ms(), options.maxErrorRate() * 100, MIN_THROUGHPUT_RATIO * 100);
+        printSummaryHeader();
+
+        double passing = 0;
+        double failing = 0;
+        for (double rate = options.startRate(); rate <= options.maxRate(); rate *= options.stepFactor()) {
+            if (runSaturationStage(rate)) {
+                passing = rate;
+            } else {
+                failing = rate;
+                break;
+            }
+        }
+        for (int step = 0; step < options.refineSteps() && passing > 0 && failing > 0; step++) {
+            double rate = (passing + failing) / 2;
+            if (runSaturationStage(rate)) {
+                passing = rate;
+            } else {
+                failing = rate;
+            }
+        }
+
+        if (failing == 0) {
+            System.out.printf("No saturation up to %.0f req/s%n", passing);
+        } else if (passing == 0) {
+            System.out.printf("Saturated already at the start rate of %.0f req/s%n", options.startRate());
+        } else {
+            System.out.printf("Saturation point: %.0f req/s sustained, %.0f req/s breaks the SLO%n", passing, failing);
+        }
+    }
+
+    private boolean runSaturationStage(double rate) throws InterruptedException {
+        LatencyRecorder.Summary summary = runStage(rate, options.stageDuration(), false);
+        boolean passed = summary.p99Ms() <= options.sloP99Ms()
+                && summary.errorRate() <= options.maxErrorRate()
+                && summary.throughput() >= rate * MIN_THROUGHPUT_RATIO * (1 - summary.errorRate());
+        printSummary(passed ? "pass" : "FAIL", rate, summary, sampler.worstLevel(0, Long.MAX_VALUE));
+        return passed;
+    }
+
+    private void warmUp(double rate) throws InterruptedException {
+        if (!options.warmup().isZero()) {
+            System.out.printf("Warming up at %.0f req/s for %s%n", rate, options.warmup());
+            generator.run(rate, options.warmup(), traffic);
+        }
+    }
+
+    private LatencyRecorder.Summary runStage(double rate, Duration duration, boolean printTimeline)
+            throws InterruptedException {
+        sampler.reset(System.nanoTime());
+        LatencyRecorder recorder = generator.run(rate, duration, traffic);
+        long stageNanos = duration.toNanos();
+        if (printTimeline) {
+            long windowNanos = options.reportInterval().toNanos();
+            List<LatencyRecorder.Summary> timeline = recorder.timeline(stageNanos, windowNanos);
+            System.out.printf("%8s %10s %8s %8s %8s %8s %7s %10s%n",
+                    "t(s)", "req/s", "p50", "p90", "p99", "max", "errors", "prediction");
+            for (int i = 0; i < timeline.size(); i++) {
+                LatencyRecorder.Summary window = timeline.get(i);
+                ResourcePrediction.PredictionLevel level =
+                        sampler.worstLevel(i * windowNanos, (i + 1) * windowNanos);
+                System.out.printf(Locale.ROOT, "%8.1f %10.1f %8.1f %8.1f %8.1f %8.1f %7d %10s%n",
+                        (i + 1) * windowNanos / 1e9, window.throughput(), window.p50Ms(), window.p90Ms(),
+                        window.p99Ms(), window.maxMs(), window.errors() + window.dropped() + window.pending(),
+                        level == null ? "-" : level);
+            }
+        }
+        return recorder.summarize(0, stageNanos);
+    }
+
+    private static void printSummaryHeader() {
+        System.out.printf("%6s %9s %10s %8s %8s %8s %8s %8s %7s %10s%n",
+                "", "target", "req/s", "p50", "p90", "p99", "p99.9", "max", "errors", "prediction");
+    }
+
+    private void printSummary(String label, double rate, LatencyRecorder.Summary summary,
+                              ResourcePrediction.PredictionLevel level) {
+        System.out.printf(Locale.ROOT, "%6s %9.0f %10.1f %8.1f %8.1f %8.1f %8.1f %8.1f %6.2f%% %10s%n",
+                label, rate, summary.throughput(), summary.p50Ms(), summary.p90Ms(), summary.p99Ms(),
+                summary.p999Ms(), summary.maxMs(), summary.errorRate() * 100, level == null ? "-" : level);
+        System.out.printf(Locale.ROOT, "       ok=%d errors=%d dropped=%d unfinished=%d, max risk score %.2f%n",
+                summary.ok(), summary.errors(), summary.dropped(), summary.pending(), sampler.maxRiskScore());
+    }
+}
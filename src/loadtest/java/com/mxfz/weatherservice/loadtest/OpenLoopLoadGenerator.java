@@ -0,0 +1,90 @@
+package com.mxfz.weatherservice.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests on a fixed open-loop schedule: request i is due at start + i / rate, whether or not
+ * earlier requests have completed. A slow system therefore builds up outstanding requests instead of
+ * slowing the generator down, which is what real users do.
+ */
+final class OpenLoopLoadGenerator implements AutoCloseable {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    // A Phaser tracks at most 65535 unarrived parties
+    private static final int MAX_IN_FLIGHT_LIMIT = 65_000;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(executor)
+            .build();
+    private final int maxInFlight;
+
+    OpenLoopLoadGenerator(int maxInFlight) {
+        this.maxInFlight = Math.min(maxInFlight, MAX_IN_FLIGHT_LIMIT);
+    }
+
+    /**
+     * Runs one stage and waits for its outstanding requests (up to the request timeout)
+     */
+    LatencyRecorder run(double rate, Duration duration, Supplier<URI> requests) throws InterruptedException {
+        int total = (int) Math.max(1, Math.round(rate * duration.toNanos() / 1e9));
+        double intervalNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        LatencyRecorder recorder = new LatencyRecorder(start, total);
+        AtomicInteger inFlight = new AtomicInteger();
+        Phaser outstanding = new Phaser(1);
+
+        for (int i = 0; i < total; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            recorder.schedule(i, intended);
+            if (inFlight.get() >= maxInFlight) {
+                recorder.record(i, System.nanoTime(), LatencyRecorder.DROPPED);
+                continue;
+            }
+
+            int index = i;
+            inFlight.incrementAndGet();
+            outstanding.register();
+            HttpRequest request = HttpRequest.newBuilder(requests.get()).timeout(REQUEST_TIMEOUT).GET().build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        byte outcome = error == null && response.statusCode() == 200
+                                ? LatencyRecorder.OK : LatencyRecorder.ERROR;
+                        recorder.record(index, System.nanoTime(), outcome);
+                        inFlight.decrementAndGet();
+                        outstanding.arriveAndDeregister();
+                    });
+        }
+
+        try {
+            outstanding.awaitAdvanceInterruptibly(outstanding.arrive(),
+                    REQUEST_TIMEOUT.toMillis() + 1_000, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Whatever is still outstanding stays PENDING and counts as failed
+        }
+        return recorder;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,75 @@
+package com.mxfz.weatherservice.loadtest;
+
+import com.mxfz.weatherservice.model.ResourcePrediction;
+import com.mxfz.weatherservice.service.ResourcePredictionService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the service's own {@link ResourcePrediction} while a stage runs, so the timeline shows when the
+ * prediction reacted to the load
+ */
+final class PredictionSampler implements AutoCloseable {
+
+    private final ResourcePredictionService predictionService;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "prediction-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Sample> samples = new CopyOnWriteArrayList<>();
+    private volatile long startNanos;
+
+    PredictionSampler(ResourcePredictionService predictionService, Duration interval) {
+        this.predictionService = predictionService;
+        scheduler.scheduleAtFixedRate(this::sample, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a new stage: earlier samples are dropped and offsets are measured from now
+     */
+    void reset(long stageStartNanos) {
+        samples.clear();
+        startNanos = stageStartNanos;
+    }
+
+    /**
+     * Returns the highest level sampled in [fromNanos, toNanos) of the current stage, or null if none
+     */
+    ResourcePrediction.PredictionLevel worstLevel(long fromNanos, long toNanos) {
+        ResourcePrediction.PredictionLevel worst = null;
+        for (Sample sample : samples) {
+            if (sample.offsetNanos() >= fromNanos && sample.offsetNanos() < toNanos
+                    && (worst == null || sample.level().ordinal() > worst.ordinal())) {
+                worst = sample.level();
+            }
+        }
+        return worst;
+    }
+
+    double maxRiskScore() {
+        return samples.stream().mapToDouble(Sample::riskScore).max().orElse(0);
+    }
+
+    private void sample() {
+        try {
+            ResourcePrediction prediction = predictionService.predict();
+            samples.add(new Sample(System.nanoTime() - startNanos, prediction.getLevel(), prediction.getRiskScore()));
+        } catch (RuntimeException e) {
+            // A failed sample leaves a gap in the timeline, the load run goes on
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private record Sample(long offsetNanos, ResourcePrediction.PredictionLevel level, double riskScore) {
+    }
+}
@@ -0,0 +1,220 @@
+package com.mxfz.weatherservice.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start as an autoscaler sees it: the time from launching a new process until the service answers its first
+ * request successfully, and its resident memory at that point, for each startup variant and several runs each.
+ *
+ * - jit: a plain JVM start
+ * - cds: with the AppCDS archive trained by ./gradlew cdsArchive
+ * - aot: with the AOT-processed context (-Dspring.aot.enabled=true)
+ * - fast: cds and aot together with the fast-start profile, as ./gradlew bootRunFast runs the service
+ * - native: the GraalVM native executable from ./gradlew nativeCompile, with the fast-start profile
+ *
+ * Every JVM variant runs from the same classpath, so only the startup options differ. Resident memory is read
+ * from /proc and shown as -1 on systems without it. Upstream calls go to a {@link StubUpstreamServer}; MongoDB
+ * is only needed when --path is a weather lookup (then give --mongo-uri).
+ *
+ * Run with ./gradlew startupBenchmark -PstartupArgs="--runs=5 --variants=jit,fast", or ./gradlew nativeSmokeTest
+ * to build the native executable and compare it with the JVM variants. A variant that never answers fails the run.
+ */
+public final class StartupBenchmark {
+
+    private static final String MAIN_CLASS = "com.mxfz.weatherservice.WeatherServiceApplication";
+    private static final Set<String> NAMES = Set.of("runs", "variants", "path", "timeout", "mongo-uri");
+    private static final Set<String> VARIANTS = Set.of("jit", "cds", "aot", "fast", "native");
+    private static final long POLL_INTERVAL_MS = 5;
+
+    private final String classpath;
+    private final String cdsArchive;
+    private final String nativeExecutable;
+    private final String path;
+    private final Duration timeout;
+    private final String mongoUri;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+    private StartupBenchmark(String classpath, String cdsArchive, String nativeExecutable, String path,
+                             Duration timeout, String mongoUri) {
+        this.classpath = classpath;
+        this.cdsArchive = cdsArchive;
+        this.nativeExecutable = nativeExecutable;
+        this.path = path;
+        this.timeout = timeout;
+        this.mongoUri = mongoUri;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String classpath = System.getProperty("startup.classpath");
+        String cdsArchive = System.getProperty("startup.cds-archive");
+        String nativeExecutable = System.getProperty("startup.native-executable");
+        if (classpath == null || cdsArchive == null) {
+            throw new IllegalStateException("Run through ./gradlew startupBenchmark, which sets startup.classpath "
+                    + "and startup.cds-archive");
+        }
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        List<String> variants = Arrays.asList(options.getOrDefault("variants", "jit,cds,aot,fast").split(","));
+        for (String variant : variants) {
+            if (!VARIANTS.contains(variant)) {
+                throw new IllegalArgumentException("Unknown variant " + variant + ", expected some of " + VARIANTS);
+            }
+        }
+        if (variants.stream().anyMatch(v -> v.equals("cds") || v.equals("fast")) && !new File(cdsArchive).isFile()) {
+            throw new IllegalStateException("No CDS archive at " + cdsArchive + ", run ./gradlew cdsArchive first");
+        }
+        if (variants.contains("native") && (nativeExecutable == null || !new File(nativeExecutable).canExecute())) {
+            throw new IllegalStateException("No native executable at " + nativeExecutable
+                    + ", run ./gradlew nativeCompile first");
+        }
+
+        StartupBenchmark benchmark = new StartupBenchmark(classpath, cdsArchive, nativeExecutable,
+                options.getOrDefault("path", "/api/resource/health"),
+                HarnessOptions.parseDuration(options.getOrDefault("timeout", "60s")), options.get("mongo-uri"));
+        try (StubUpstreamServer upstream = StubUpstreamServer.start(HarnessOptions.parse(new String[0]).upstreamSettings())) {
+            System.out.printf("Time to first successful GET %s, %d runs per variant%n", benchmark.path, runs);
+            System.out.printf("%-8s %10s %10s %10s %14s%n", "variant", "min ms", "median ms", "max ms", "median RSS MB");
+            for (String variant : variants) {
+                long[] millis = new long[runs];
+                long[] rssMb = new long[runs];
+                for (int run = 0; run < runs; run++) {
+                    Result result = benchmark.measure(variant, upstream.baseUrl());
+                    millis[run] = result.millis();
+                    rssMb[run] = result.rssMb();
+                }
+                Arrays.sort(millis);
+                Arrays.sort(rssMb);
+                System.out.printf("%-8s %10d %10d %10d %14d%n", variant, millis[0], millis[runs / 2], millis[runs - 1],
+                        rssMb[runs / 2]);
+            }
+        }
+    }
+
+    /**
+     * Starts the service in a new process and polls until the first 2xx response, then stops it
+     */
+    private Result measure(String variant, String upstreamUrl) throws IOException, InterruptedException {
+        int port = freePort();
+        Path log = Files.createTempFile("startup-" + variant + "-", ".log");
+        Process process = new ProcessBuilder(command(variant, port, upstreamUrl))
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        long startNanos = System.nanoTime();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path))
+                    .timeout(timeout)
+                    .build();
+            long deadline = startNanos + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(variant + " exited with " + process.exitValue() + ", see " + log);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2) {
+                        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                        long rssMb = residentMegabytes(process.pid());
+                        Files.deleteIfExists(log);
+                        return new Result(millis, rssMb);
+                    }
+                } catch (IOException notListeningYet) {
+                    // The port opens late in startup
+                }
+                Thread.sleep(POLL_INTERVAL_MS);
+            }
+            throw new IllegalStateException(variant + " gave no successful response within " + timeout + ", see " + log);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private List<String> command(String variant, int port, String upstreamUrl) {
+        List<String> command = new ArrayList<>();
+        if (variant.equals("native")) {
+            command.add(nativeExecutable);
+        } else {
+            command.add(ProcessHandle.current().info().command().orElse("java"));
+        }
+        if (variant.equals("cds") || variant.equals("fast")) {
+            command.add("-XX:SharedArchiveFile=" + cdsArchive);
+            command.add("-Xshare:auto");
+        }
+        if (variant.equals("aot") || variant.equals("fast")) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        if (!variant.equals("native")) {
+            command.add("-cp");
+            command.add(classpath);
+            command.add(MAIN_CLASS);
+        }
+        command.add("--server.port=" + port);
+        command.add("--upstream.open-weather.base-url=" + upstreamUrl);
+        command.add("--upstream.google-geocoding.base-url=" + upstreamUrl);
+        if (mongoUri != null) {
+            command.add("--spring.data.mongodb.uri=" + mongoUri);
+        }
+        if (variant.equals("fast") || variant.equals("native")) {
+            command.add("--spring.profiles.active=fast-start");
+        }
+        return command;
+    }
+
+    /**
+     * VmRSS of the process from /proc, or -1 where /proc is not available
+     */
+    private static long residentMegabytes(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring(6).trim().split("\\s+")[0]) / 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux, or the process is already gone
+        }
+        return -1;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            if (!NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name + ", expected one of " + NAMES);
+            }
+            values.put(name, arg.substring(arg.indexOf('=') + 1));
+        }
+        return values;
+    }
+
+    private record Result(long millis, long rssMb) {
+    }
+}
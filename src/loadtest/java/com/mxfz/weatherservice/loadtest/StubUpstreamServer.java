@@ -0,0 +1,111 @@
+package com.mxfz.weatherservice.loadtest;
+
+import com.mxfz.weatherservice.simulator.SimulatedUpstream;
+import com.mxfz.weatherservice.simulator.UpstreamPayloads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Serves OpenWeather timemachine and Google Geocoding responses on a local port, with the behaviour and
+ * payloads of the bundled upstream simulator. It runs on its own server rather than the simulator profile,
+ * so stub traffic does not compete with the service under test for Tomcat's connections.
+ */
+public final class StubUpstreamServer implements AutoCloseable {
+
+    static final String OPEN_WEATHER_PATH = "/data/3.0/onecall/timemachine";
+    static final String GEOCODING_PATH = "/maps/api/geocode/json";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimulatedUpstream weather;
+    private final SimulatedUpstream geocoding;
+
+    private StubUpstreamServer(SimulatedUpstream.Settings settings) throws IOException {
+        this.weather = new SimulatedUpstream(settings);
+        this.geocoding = new SimulatedUpstream(settings);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.setExecutor(executor);
+        server.createContext(OPEN_WEATHER_PATH, exchange -> handle(exchange, weather, query ->
+                UpstreamPayloads.weather(Double.parseDouble(query.getOrDefault("lat", "0")),
+                        Double.parseDouble(query.getOrDefault("lon", "0")),
+                        Long.parseLong(query.getOrDefault("dt", "0")))));
+        server.createContext(GEOCODING_PATH, exchange -> handle(exchange, geocoding, query ->
+                UpstreamPayloads.geocode(query.getOrDefault("address", "000000"))));
+    }
+
+    public static StubUpstreamServer start(SimulatedUpstream.Settings settings) throws IOException {
+        StubUpstreamServer stub = new StubUpstreamServer(settings);
+        stub.server.start();
+        return stub;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public SimulatedUpstream.Stats weatherStats() {
+        return weather.stats();
+    }
+
+    public SimulatedUpstream.Stats geocodingStats() {
+        return geocoding.stats();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, SimulatedUpstream upstream,
+                        Function<Map<String, String>, Object> payload) throws IOException {
+        try (exchange) {
+            SimulatedUpstream.Decision decision = upstream.nextCall();
+            if (decision.delayMs() > 0) {
+                Thread.sleep(decision.delayMs());
+            }
+            if (!decision.ok()) {
+                if (decision.retryAfterSeconds() > 0) {
+                    exchange.getResponseHeaders().set("Retry-After", Integer.toString(decision.retryAfterSeconds()));
+                }
+                exchange.sendResponseHeaders(decision.status(), -1);
+                return;
+            }
+            byte[] body = UpstreamPayloads.toJson(payload.apply(query(exchange)));
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> values = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return values;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+}
@@ -1,11 +1,14 @@
 package com.mxfz.weatherservice;
 
+import com.mxfz.weatherservice.config.NativeImageHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@ImportRuntimeHints(NativeImageHints.class)
 public class WeatherServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,140 @@
+package com.mxfz.weatherservice.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts ISO yyyy-MM-dd dates to and from epoch days and seconds, always in UTC.
+ *
+ * Parsing checks the exact format and the calendar (month lengths, leap years) and allocates nothing;
+ * formatting allocates only the resulting string. Dates are limited to years 0000-9999, which is all the
+ * four-digit format can express.
+ */
+public final class DateCodec {
+
+    public static final int LENGTH = 10;
+
+    private static final long SECONDS_PER_DAY = 86_400L;
+    // Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar
+    private static final long DAYS_0000_TO_1970 = 719_468L;
+    private static final int DAYS_PER_ERA = 146_097;
+
+    private DateCodec() {
+    }
+
+    /**
+     * Returns whether the value is a valid yyyy-MM-dd date
+     */
+    public static boolean isValid(CharSequence date) {
+        return date != null && parseEpochDay(date) != Long.MIN_VALUE;
+    }
+
+    /**
+     * Parses yyyy-MM-dd into days since 1970-01-01
+     *
+     * @throws IllegalArgumentException if the value is not a valid yyyy-MM-dd date
+     */
+    public static long toEpochDay(CharSequence date) {
+        long epochDay = date == null ? Long.MIN_VALUE : parseEpochDay(date);
+        if (epochDay == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Invalid date '" + date + "', expected yyyy-MM-dd");
+        }
+        return epochDay;
+    }
+
+    /**
+     * Parses yyyy-MM-dd into the epoch second of its start in UTC
+     *
+     * @throws IllegalArgumentException if the value is not a valid yyyy-MM-dd date
+     */
+    public static long toEpochSecond(CharSequence date) {
+        return toEpochDay(date) * SECONDS_PER_DAY;
+    }
+
+    /**
+     * Formats the UTC day containing the epoch second as yyyy-MM-dd
+     */
+    public static String formatEpochSecond(long epochSecond) {
+        return formatEpochDay(Math.floorDiv(epochSecond, SECONDS_PER_DAY));
+    }
+
+    /**
+     * Formats days since 1970-01-01 as yyyy-MM-dd
+     *
+     * @throws IllegalArgumentException if the year is outside 0000-9999
+     */
+    public static String formatEpochDay(long epochDay) {
+        // Civil date from day count (H. Hinnant), with years starting on March 1st so leap days come last
+        long days = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(days, DAYS_PER_ERA);
+        long dayOfEra = days - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("Epoch day " + epochDay + " is outside years 0000-9999");
+        }
+
+        byte[] chars = new byte[LENGTH];
+        int y = (int) year;
+        chars[0] = (byte) ('0' + y / 1000);
+        chars[1] = (byte) ('0' + y / 100 % 10);
+        chars[2] = (byte) ('0' + y / 10 % 10);
+        chars[3] = (byte) ('0' + y % 10);
+        chars[4] = '-';
+        chars[5] = (byte) ('0' + month / 10);
+        chars[6] = (byte) ('0' + month % 10);
+        chars[7] = '-';
+        chars[8] = (byte) ('0' + day / 10);
+        chars[9] = (byte) ('0' + day % 10);
+        return new String(chars, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns the epoch day, or Long.MIN_VALUE if the value is not a valid date
+     */
+    private static long parseEpochDay(CharSequence date) {
+        if (date.length() != LENGTH || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 2);
+        int day = digits(date, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return Long.MIN_VALUE;
+        }
+
+        // Day count from civil date (H. Hinnant), the inverse of formatEpochDay
+        int shiftedYear = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(shiftedYear, 400);
+        int yearOfEra = shiftedYear - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (long) era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Reads count ASCII digits, or returns -1 if any of them is not a digit
+     */
+    private static int digits(CharSequence value, int offset, int count) {
+        int result = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package com.mxfz.weatherservice.codec;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mxfz.weatherservice.model.PincodeLocation;
+
+import java.io.IOException;
+
+/**
+ * Streaming decoder for the Google Geocoding response.
+ * Reads the postal code, formatted address and location of the first result only,
+ * and stops reading as soon as the first result is complete.
+ */
+public final class GeocodeResponseDecoder {
+
+    private static final String POSTAL_CODE_TYPE = "postal_code";
+
+    private GeocodeResponseDecoder() {
+    }
+
+    /**
+     * Decodes the first result into a {@link PincodeLocation}, or returns null if there is no
+     * result, or the first result has no postal code or location
+     */
+    public static PincodeLocation decode(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected geocode response object");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("results".equals(field)) {
+                return decodeFirstResult(parser);
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    private static PincodeLocation decodeFirstResult(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY || parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+
+        String pincode = null;
+        String address = null;
+        double[] location = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "address_components" -> pincode = decodePostalCode(parser);
+                case "formatted_address" -> address = parser.getValueAsString();
+                case "geometry" -> location = decodeLocation(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (pincode == null || location == null) {
+            return null;
+        }
+        return new PincodeLocation(pincode, location[0], location[1], address);
+    }
+
+    /**
+     * Returns the long name of the first address component typed "postal_code"
+     */
+    private static String decodePostalCode(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+
+        String postalCode = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                // Tolerate non-object entries
+                parser.skipChildren();
+                continue;
+            }
+            String longName = null;
+            boolean postal = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("long_name".equals(field)) {
+                    longName = parser.getValueAsString();
+                } else if ("types".equals(field)) {
+                    postal = containsPostalCodeType(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (postalCode == null && postal) {
+                postalCode = longName;
+            }
+        }
+        return postalCode;
+    }
+
+    private static boolean containsPostalCodeType(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return false;
+        }
+        boolean found = false;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_STRING && POSTAL_CODE_TYPE.equals(parser.getText())) {
+                found = true;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns {lat, lng} of geometry.location, or null if absent
+     */
+    private static double[] decodeLocation(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        double[] location = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("location".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                location = new double[2];
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String coordinate = parser.currentName();
+                    parser.nextToken();
+                    if ("lat".equals(coordinate)) {
+                        location[0] = parser.getValueAsDouble();
+                    } else if ("lng".equals(coordinate)) {
+                        location[1] = parser.getValueAsDouble();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return location;
+    }
+}
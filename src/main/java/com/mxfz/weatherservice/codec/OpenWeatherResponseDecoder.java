@@ -0,0 +1,160 @@
+package com.mxfz.weatherservice.codec;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+
+import java.io.IOException;
+
+/**
+ * Streaming decoder for the OpenWeather One Call timemachine response.
+ * Reads only the fields persisted in {@link WeatherInfo} from the first data entry,
+ * and stops reading as soon as that entry and the coordinates are known.
+ */
+public final class OpenWeatherResponseDecoder {
+
+    private OpenWeatherResponseDecoder() {
+    }
+
+    /**
+     * Returns a decoder producing a {@link WeatherInfo} for the given pincode
+     */
+    public static ResponseDecoder<WeatherInfo> forPincode(String pincode) {
+        return parser -> decode(parser, pincode);
+    }
+
+    /**
+     * Decodes the response into a {@link WeatherInfo}, or returns null if it has no data entries
+     */
+    public static WeatherInfo decode(JsonParser parser, String pincode) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected OpenWeather response object");
+        }
+
+        Double latitude = null;
+        Double longitude = null;
+        WeatherInfo weatherInfo = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("lat".equals(field)) {
+                latitude = parser.getValueAsDouble();
+            } else if ("lon".equals(field)) {
+                longitude = parser.getValueAsDouble();
+            } else if ("data".equals(field)) {
+                weatherInfo = decodeFirstDataEntry(parser, pincode);
+                if (weatherInfo == null || (latitude != null && longitude != null)) {
+                    // Everything we persist is known, leave the rest of the payload unread
+                    break;
+                }
+                if (parser.currentToken() != JsonToken.END_ARRAY) {
+                    skipRemainingArray(parser);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (weatherInfo != null) {
+            weatherInfo.setLatitude(latitude);
+            weatherInfo.setLongitude(longitude);
+        }
+        return weatherInfo;
+    }
+
+    private static WeatherInfo decodeFirstDataEntry(JsonParser parser, String pincode) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            skipRemainingArray(parser);
+            return null;
+        }
+        return decodeDataEntry(parser, pincode);
+    }
+
+    private static WeatherInfo decodeDataEntry(JsonParser parser, String pincode) throws IOException {
+        Long dt = null;
+        Long sunrise = null;
+        Long sunset = null;
+        Double temp = null;
+        Double feelsLike = null;
+        Integer pressure = null;
+        Integer humidity = null;
+        Double dewPoint = null;
+        Integer clouds = null;
+        Integer visibility = null;
+        Double windSpeed = null;
+        Integer windDeg = null;
+        String weatherDescription = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "dt" -> dt = parser.getValueAsLong();
+                case "sunrise" -> sunrise = parser.getValueAsLong();
+                case "sunset" -> sunset = parser.getValueAsLong();
+                case "temp" -> temp = parser.getValueAsDouble();
+                case "feels_like", "feelsLike" -> feelsLike = parser.getValueAsDouble();
+                case "pressure" -> pressure = parser.getValueAsInt();
+                case "humidity" -> humidity = parser.getValueAsInt();
+                case "dew_point", "dewPoint" -> dewPoint = parser.getValueAsDouble();
+                case "clouds" -> clouds = parser.getValueAsInt();
+                case "visibility" -> visibility = parser.getValueAsInt();
+                case "wind_speed", "windSpeed" -> windSpeed = parser.getValueAsDouble();
+                case "wind_deg", "windDeg" -> windDeg = parser.getValueAsInt();
+                case "weather" -> weatherDescription = decodeFirstDescription(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        String date = dt == null ? null : DateCodec.formatEpochSecond(dt);
+        return new WeatherInfo(pincode, null, null, date, sunrise, sunset, temp, feelsLike, pressure, humidity,
+                dewPoint, clouds, visibility, windSpeed, windDeg, weatherDescription);
+    }
+
+    private static String decodeFirstDescription(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        String description = null;
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("description".equals(field)) {
+                    description = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            token = parser.nextToken();
+        }
+        while (token != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+            token = parser.nextToken();
+        }
+        return description;
+    }
+
+    private static void skipRemainingArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        while (token != null && token != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+            token = parser.nextToken();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.mxfz.weatherservice.codec;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Decodes an upstream response body straight from a streaming JSON parser,
+ * without materializing the full response object graph.
+ *
+ * @param <T> the domain type produced
+ */
+@FunctionalInterface
+public interface ResponseDecoder<T> {
+
+    /**
+     * @param parser parser positioned before the first token of the response body
+     */
+    T decode(JsonParser parser) throws IOException;
+}
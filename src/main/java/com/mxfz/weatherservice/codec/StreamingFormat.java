@@ -0,0 +1,69 @@
+package com.mxfz.weatherservice.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mxfz.weatherservice.config.JacksonConfig;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Wire formats supported for weather responses, for endpoints that write their body directly
+ * (streaming) rather than through the negotiated HttpMessageConverter.
+ */
+public enum StreamingFormat {
+
+    JSON("json", MediaType.APPLICATION_JSON, JacksonConfig.sharedObjectMapper()),
+    SMILE("smile", MediaType.parseMediaType(StreamingFormat.SMILE_VALUE), JacksonConfig.sharedSmileMapper()),
+    CBOR("cbor", MediaType.APPLICATION_CBOR, JacksonConfig.sharedCborMapper());
+
+    public static final String FORMAT_PARAMETER = "format";
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private final String parameterValue;
+    private final MediaType mediaType;
+    private final ObjectMapper objectMapper;
+
+    StreamingFormat(String parameterValue, MediaType mediaType, ObjectMapper objectMapper) {
+        this.parameterValue = parameterValue;
+        this.mediaType = mediaType;
+        this.objectMapper = objectMapper;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public ObjectWriter writerFor(Class<?> type) {
+        return objectMapper.writerFor(type);
+    }
+
+    /**
+     * Picks the format from the ?format parameter if present, otherwise from the Accept header
+     * (most preferred first), falling back to JSON
+     */
+    public static StreamingFormat negotiate(String format, List<MediaType> acceptedMediaTypes) {
+        if (format != null) {
+            for (StreamingFormat candidate : values()) {
+                if (candidate.parameterValue.equalsIgnoreCase(format)) {
+                    return candidate;
+                }
+            }
+        }
+        if (acceptedMediaTypes != null) {
+            List<MediaType> sorted = new ArrayList<>(acceptedMediaTypes);
+            sorted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+            for (MediaType accepted : sorted) {
+                for (StreamingFormat candidate : values()) {
+                    // Wildcards match JSON first because it is declared first
+                    if (accepted.includes(candidate.mediaType)) {
+                        return candidate;
+                    }
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,129 @@
+package com.mxfz.weatherservice.component;
+
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import com.mxfz.weatherservice.model.weather.WeatherObservation;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Copies existing weather_info documents into the weather_observations time-series collection.
+ * Runs once after startup when weather.storage.mode=timeseries and migrate-on-startup is set.
+ * The id of the last copied document is kept in weather_migrations after every batch, and a repeated run resumes
+ * after it. The time-series collection has no _id index, so only the first batch after a resume is checked for
+ * documents already copied (a run that stopped between inserting a batch and recording it); probing every batch
+ * would scan the whole collection each time.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.storage.mode", havingValue = "timeseries")
+@Slf4j
+public class WeatherTimeSeriesMigration {
+
+    private static final String ID_FIELD = "_id";
+    private static final String PROGRESS_COLLECTION = "weather_migrations";
+    private static final String PROGRESS_ID = "weather_info-to-weather_observations";
+    private static final String LAST_ID_FIELD = "lastId";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${weather.storage.timeseries.migrate-on-startup:false}")
+    private boolean migrateOnStartup;
+
+    @Value("${weather.storage.timeseries.migration-batch-size:1000}")
+    private int batchSize;
+
+    public WeatherTimeSeriesMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            migrate();
+        }
+    }
+
+    /**
+     * Copies documents in id order, one batch at a time, and returns the number of observations inserted
+     */
+    public long migrate() {
+        if (!mongoTemplate.collectionExists(WeatherInfo.class)) {
+            log.info("No weather_info collection, nothing to migrate");
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        long inserted = 0;
+        long skipped = 0;
+        String lastId = readProgress();
+        boolean checkExisting = lastId != null;
+        if (lastId != null) {
+            log.info("Resuming time-series migration after id {}", lastId);
+        }
+
+        while (true) {
+            Query page = new Query().with(Sort.by(Sort.Direction.ASC, ID_FIELD)).limit(batchSize);
+            if (lastId != null) {
+                page.addCriteria(Criteria.where(ID_FIELD).gt(lastId));
+            }
+            List<WeatherInfo> batch = mongoTemplate.find(page, WeatherInfo.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+
+            Set<String> existing = checkExisting ? findExistingIds(batch) : Set.of();
+            checkExisting = false;
+            List<WeatherObservation> observations = batch.stream()
+                    .filter(info -> info.getDate() != null && !existing.contains(info.getId()))
+                    .map(WeatherObservation::from)
+                    .toList();
+            if (!observations.isEmpty()) {
+                mongoTemplate.insertAll(observations);
+            }
+            recordProgress(lastId);
+            inserted += observations.size();
+            skipped += batch.size() - observations.size();
+        }
+
+        log.info("Time-series migration completed in {} ms: {} observations inserted, {} skipped",
+                System.currentTimeMillis() - start, inserted, skipped);
+        return inserted;
+    }
+
+    private String readProgress() {
+        Document progress = mongoTemplate.findById(PROGRESS_ID, Document.class, PROGRESS_COLLECTION);
+        return progress == null ? null : progress.getString(LAST_ID_FIELD);
+    }
+
+    private void recordProgress(String lastId) {
+        mongoTemplate.upsert(new Query(Criteria.where(ID_FIELD).is(PROGRESS_ID)),
+                new Update().set(LAST_ID_FIELD, lastId).set("updatedAt", Instant.now()), PROGRESS_COLLECTION);
+    }
+
+    private Set<String> findExistingIds(List<WeatherInfo> batch) {
+        List<String> ids = batch.stream().map(WeatherInfo::getId).toList();
+        Query query = new Query(Criteria.where(ID_FIELD).in(ids));
+        query.fields().include(ID_FIELD);
+
+        Set<String> existing = new HashSet<>();
+        for (WeatherObservation observation : mongoTemplate.find(query, WeatherObservation.class)) {
+            existing.add(observation.getId());
+        }
+        return existing;
+    }
+}
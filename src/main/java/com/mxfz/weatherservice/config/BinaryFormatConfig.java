@@ -0,0 +1,25 @@
+package com.mxfz.weatherservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Serves Smile and CBOR in addition to JSON, using the shared Jackson configuration.
+ * Clients opt in with an Accept header (application/x-jackson-smile, application/cbor) on the weather
+ * endpoints that declare those types; everything else keeps getting JSON.
+ */
+@Configuration
+public class BinaryFormatConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Appended after the JSON converter so "Accept: */*" still resolves to JSON
+        converters.add(new MappingJackson2SmileHttpMessageConverter(JacksonConfig.sharedSmileMapper()));
+        converters.add(new MappingJackson2CborHttpMessageConverter(JacksonConfig.sharedCborMapper()));
+    }
+}
@@ -1,26 +1,40 @@
 package com.mxfz.weatherservice.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
+/**
+ * CPU-bound and blocking work get separate executors so they never compete for the same threads.
+ * Prefer {@link com.mxfz.weatherservice.executor.TaskRouter} over injecting these directly.
+ * The CPU pool is lazy: no request path routes CPU-bound work today, so it is only sized and started
+ * when something first asks TaskRouter for it.
+ */
 @Configuration
 public class ExecutorConfig {
 
-    @Bean(name = "taskExecutor")
-    public ExecutorService normalThreadPool() {
-        // Fixed thread pool (normal)
-        return Executors.newFixedThreadPool(
-                Runtime.getRuntime().availableProcessors() * 2
-        );
+    @Lazy
+    @Bean(name = "cpuTaskExecutor", destroyMethod = "shutdown")
+    public ForkJoinPool cpuTaskExecutor(@Value("${executor.cpu.parallelism:0}") int parallelism) {
+        // Work-stealing pool sized to the cores, for computation only (supports RecursiveTask and parallel streams)
+        int size = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("cpu-worker-" + thread.getPoolIndex());
+            return thread;
+        };
+        return new ForkJoinPool(size, threadFactory, null, false);
     }
 
     @Bean(name = "virtualTaskExecutor")
     public ExecutorService virtualThreadPool() {
-        // Virtual threads (Java 21 feature)
+        // Virtual threads (Java 21 feature), for blocking I/O
         return Executors.newVirtualThreadPerTaskExecutor();
     }
 }
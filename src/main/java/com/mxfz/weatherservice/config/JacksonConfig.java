@@ -1,21 +1,131 @@
 package com.mxfz.weatherservice.config;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.mxfz.weatherservice.model.weather.ProjectedWeatherInfo;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
 
+/**
+ * Owns the single ObjectMapper shared by Spring MVC, the upstream clients and {@link com.mxfz.weatherservice.util.JSONUtil},
+ * plus Smile and CBOR mappers with the same configuration for binary responses.
+ *
+ * Throughput tuning:
+ * - Buffers are recycled through a shared pool instead of per-thread, so reuse also works on virtual threads
+ * - Bean accessors are generated at runtime by the Blackbird module; disable with -Dweather.jackson.blackbird=false.
+ *   Native images cannot define classes at runtime, so there Jackson keeps its reflection-based accessors
+ *
+ * Projected reads ({@link ProjectedWeatherInfo}) leave their null fields out; full WeatherInfo keeps them.
+ * This is a property filter rather than @JsonInclude on the subclass, because MVC writes lists and maps
+ * with their declared element type, WeatherInfo, whose serializer would ignore subclass annotations.
+ */
 @Configuration
 public class JacksonConfig {
 
+    static final String WEATHER_INFO_FILTER = "weatherInfo";
+
+    private static final ObjectMapper SHARED_OBJECT_MAPPER = createObjectMapper();
+    private static final ObjectMapper SHARED_SMILE_MAPPER = createSmileMapper();
+    private static final ObjectMapper SHARED_CBOR_MAPPER = createCborMapper();
+
     @Bean
     public ObjectMapper objectMapper() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        return objectMapper;
+        return SHARED_OBJECT_MAPPER;
+    }
+
+    /**
+     * Returns the shared mapper for code outside the Spring context
+     */
+    public static ObjectMapper sharedObjectMapper() {
+        return SHARED_OBJECT_MAPPER;
+    }
+
+    /**
+     * Returns the shared Smile (binary JSON) mapper, configured like the JSON mapper
+     */
+    public static ObjectMapper sharedSmileMapper() {
+        return SHARED_SMILE_MAPPER;
+    }
+
+    /**
+     * Returns the shared CBOR mapper, configured like the JSON mapper
+     */
+    public static ObjectMapper sharedCborMapper() {
+        return SHARED_CBOR_MAPPER;
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        JsonFactory jsonFactory = JsonFactory.builder()
+                .recyclerPool(JsonRecyclerPools.sharedConcurrentDequePool())
+                .build();
+        return configure(JsonMapper.builder(jsonFactory)).build();
+    }
+
+    private static ObjectMapper createSmileMapper() {
+        SmileFactory smileFactory = SmileFactory.builder()
+                .recyclerPool(JsonRecyclerPools.sharedConcurrentDequePool())
+                .build();
+        return configure(SmileMapper.builder(smileFactory)).build();
+    }
+
+    private static ObjectMapper createCborMapper() {
+        CBORFactory cborFactory = CBORFactory.builder()
+                .recyclerPool(JsonRecyclerPools.sharedConcurrentDequePool())
+                .build();
+        return configure(CBORMapper.builder(cborFactory)).build();
+    }
+
+    private static <M extends ObjectMapper, B extends MapperBuilder<M, B>> B configure(B builder) {
+        builder.addModule(new JavaTimeModule())
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .addMixIn(WeatherInfo.class, WeatherInfoFilterMixIn.class)
+                .filterProvider(new SimpleFilterProvider().addFilter(WEATHER_INFO_FILTER, new ProjectedNullsFilter()));
+
+        if (!NativeDetector.inNativeImage()
+                && Boolean.parseBoolean(System.getProperty("weather.jackson.blackbird", "true"))) {
+            builder.addModule(new BlackbirdModule());
+        }
+        return builder;
+    }
+
+    @JsonFilter(WEATHER_INFO_FILTER)
+    private interface WeatherInfoFilterMixIn {
+    }
+
+    /**
+     * Skips null properties of projected weather info and writes everything else as is
+     */
+    private static final class ProjectedNullsFilter extends SimpleBeanPropertyFilter {
+
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator generator, SerializerProvider provider,
+                                     PropertyWriter writer) throws Exception {
+            if (pojo instanceof ProjectedWeatherInfo && writer instanceof BeanPropertyWriter property
+                    && property.get(pojo) == null) {
+                return;
+            }
+            writer.serializeAsField(pojo, generator, provider);
+        }
     }
 }
@@ -0,0 +1,43 @@
+package com.mxfz.weatherservice.config;
+
+import com.mxfz.weatherservice.repository.MongoDriverMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool, server selection and connect timeouts of the MongoDB client (mongo.* in application.yml),
+ * and the driver listener behind the pool and command metrics. Spring Boot applies customizers after the
+ * spring.data.mongodb settings, so these take precedence over pool options in a connection string.
+ */
+@Configuration
+public class MongoClientConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(
+            MongoDriverMetrics driverMetrics,
+            @Value("${mongo.pool.max-size:100}") int maxSize,
+            @Value("${mongo.pool.min-size:0}") int minSize,
+            @Value("${mongo.pool.max-wait-ms:120000}") long maxWaitMs,
+            @Value("${mongo.pool.max-connecting:2}") int maxConnecting,
+            @Value("${mongo.pool.max-idle-ms:0}") long maxIdleMs,
+            @Value("${mongo.server-selection-timeout-ms:30000}") long serverSelectionTimeoutMs,
+            @Value("${mongo.connect-timeout-ms:10000}") long connectTimeoutMs) {
+        return builder -> builder
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(maxSize)
+                        .minSize(minSize)
+                        .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS)
+                        .maxConnecting(maxConnecting)
+                        .maxConnectionIdleTime(maxIdleMs, TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(driverMetrics))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(serverSelectionTimeoutMs, TimeUnit.MILLISECONDS))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS))
+                .addCommandListener(driverMetrics);
+    }
+}
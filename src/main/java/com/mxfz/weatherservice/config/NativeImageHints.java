@@ -0,0 +1,53 @@
+package com.mxfz.weatherservice.config;
+
+import com.mxfz.weatherservice.logging.LogRateLimitFilter;
+import com.mxfz.weatherservice.model.GeoCodingLocationData;
+import com.mxfz.weatherservice.model.PincodeLocation;
+import com.mxfz.weatherservice.model.ResourceMetrics;
+import com.mxfz.weatherservice.model.ResourcePrediction;
+import com.mxfz.weatherservice.model.geocode.AddressComponent;
+import com.mxfz.weatherservice.model.geocode.Bounds;
+import com.mxfz.weatherservice.model.geocode.GeocodeResponse;
+import com.mxfz.weatherservice.model.geocode.Geometry;
+import com.mxfz.weatherservice.model.geocode.Location;
+import com.mxfz.weatherservice.model.geocode.Result;
+import com.mxfz.weatherservice.model.geocode.Viewport;
+import com.mxfz.weatherservice.model.weather.ProjectedWeatherInfo;
+import com.mxfz.weatherservice.model.weather.Weather;
+import com.mxfz.weatherservice.model.weather.WeatherData;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import com.mxfz.weatherservice.model.weather.WeatherObservation;
+import com.mxfz.weatherservice.model.weather.WeatherResponse;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Hints for the GraalVM native image (./gradlew nativeCompile). Spring's AOT processing already covers the beans,
+ * controller request and response types, the Mongo repositories and their entities. These are the rest:
+ * - the Lombok models Jackson binds outside Spring MVC: upstream responses, stored and cached JSON,
+ *   and {@link com.mxfz.weatherservice.util.JSONUtil}
+ * - {@link ProjectedWeatherInfo}, which Mongo projected reads bind and MVC writes as its runtime type only
+ * - the Logback turbo filter that logback-spring.xml creates by class name
+ */
+public class NativeImageHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] JSON_TYPES = {
+            GeoCodingLocationData.class, PincodeLocation.class, ResourceMetrics.class, ResourcePrediction.class,
+            GeocodeResponse.class, Result.class, AddressComponent.class, Geometry.class, Location.class, Bounds.class,
+            Viewport.class,
+            WeatherResponse.class, WeatherData.class, Weather.class, WeatherInfo.class, WeatherObservation.class,
+            ProjectedWeatherInfo.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Constructors, fields and accessors of each type and of the types of its properties
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JSON_TYPES);
+
+        hints.reflection().registerType(LogRateLimitFilter.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.resources().registerPattern("logback-spring.xml");
+    }
+}
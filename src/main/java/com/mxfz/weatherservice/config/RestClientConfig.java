@@ -1,15 +1,45 @@
 package com.mxfz.weatherservice.config;
 
+import com.mxfz.weatherservice.upstream.DeadlineBoundRequestFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
 
 @Configuration
 public class RestClientConfig {
 
+    /**
+     * Blocking HTTP client used for synchronous upstream calls. Connect and read timeouts are capped to the
+     * deadline of the call, so a stalled upstream fails the attempt instead of holding the caller.
+     */
+    @Bean
+    public RestClient restClient(RestClient.Builder restClientBuilder,
+                                 @Value("${rest.connect-timeout-ms:5000}") long connectTimeoutMs,
+                                 @Value("${rest.read-timeout-ms:10000}") long readTimeoutMs) {
+        return restClientBuilder
+                .requestFactory(new DeadlineBoundRequestFactory(Duration.ofMillis(connectTimeoutMs),
+                        Duration.ofMillis(readTimeoutMs)))
+                .build();
+    }
+
+    /**
+     * Non-blocking HTTP client used for asynchronous upstream calls.
+     * Response callbacks run on virtual threads, so blocking follow-up work (e.g. Mongo saves) is cheap.
+     */
     @Bean
-    public RestClient restClient(RestClient.Builder restClientBuilder) {
-        return restClientBuilder.build();
+    public HttpClient httpClient(@Qualifier("virtualTaskExecutor") ExecutorService virtualTaskExecutor,
+                                 @Value("${rest.connect-timeout-ms:5000}") long connectTimeoutMs) {
+        return HttpClient.newBuilder()
+                .executor(virtualTaskExecutor)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.mxfz.weatherservice.controller;
 
 import com.mxfz.weatherservice.service.ParallelTaskService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -10,8 +11,10 @@ import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for testing and learning multi-threading functionality.
+ * Lazy like the service behind it: neither is needed to serve weather, so both are created on first use.
  */
 @RestController
+@Lazy
 @RequestMapping("/api/parallel")
 @Slf4j
 public class ParallelTaskController {
@@ -34,7 +37,8 @@ public class ParallelTaskController {
         log.info("Executing {} tasks in parallel", tasks);
         parallelTaskService.logExecutorStats();
 
-        List<CompletableFuture<String>> futures = parallelTaskService.executeParallelTasks(tasks);
+        CompletableFuture<List<String>> results = parallelTaskService.executeParallelTasks(tasks);
+        results.thenAccept(completed -> log.info("Background run completed {} out of {} tasks", completed.size(), tasks));
 
         return ResponseEntity.ok(String.format(
                 "Started %d tasks in parallel. Check logs for progress. " +
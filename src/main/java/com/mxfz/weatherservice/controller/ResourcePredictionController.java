@@ -1,35 +1,95 @@
 package com.mxfz.weatherservice.controller;
 
+import com.mxfz.weatherservice.executor.ExecutorMetrics;
+import com.mxfz.weatherservice.logging.LoggingMetrics;
+import com.mxfz.weatherservice.metrics.MetricsRegistry;
 import com.mxfz.weatherservice.model.ResourceMetrics;
 import com.mxfz.weatherservice.model.ResourcePrediction;
+import com.mxfz.weatherservice.ratelimit.TokenBucket;
+import com.mxfz.weatherservice.ratelimit.UpstreamRateLimiter;
+import com.mxfz.weatherservice.repository.MongoDriverMetrics;
 import com.mxfz.weatherservice.service.ResourceMonitorService;
 import com.mxfz.weatherservice.service.ResourceMonitoringScheduler;
 import com.mxfz.weatherservice.service.ResourcePredictionService;
+import com.mxfz.weatherservice.service.VirtualThreadPinningMonitor;
+import com.mxfz.weatherservice.tracing.OtlpTraceExporter;
+import com.mxfz.weatherservice.tracing.StageHistogram;
+import com.mxfz.weatherservice.tracing.Tracer;
+import com.mxfz.weatherservice.upstream.UpstreamCallMetrics;
+import com.mxfz.weatherservice.upstream.UpstreamHedger;
+import com.mxfz.weatherservice.warmup.WarmupRunner;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 /**
- * Controller to expose resource prediction and monitoring endpoints
+ * Controller to expose resource prediction and monitoring endpoints; created on the first request to them
  */
 @RestController
+@Lazy
 @RequestMapping("/api/resource")
 @Slf4j
 public class ResourcePredictionController {
 
+    private static final MediaType OPENMETRICS = MediaType.parseMediaType(MetricsRegistry.CONTENT_TYPE);
+
     private final ResourcePredictionService predictionService;
     private final ResourceMonitorService monitorService;
     private final ResourceMonitoringScheduler monitoringScheduler;
+    private final ExecutorMetrics executorMetrics;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final UpstreamRateLimiter rateLimiter;
+    private final UpstreamHedger hedger;
+    private final UpstreamCallMetrics upstreamCallMetrics;
+    private final Tracer tracer;
+    private final OtlpTraceExporter traceExporter;
+    private final LoggingMetrics loggingMetrics;
+    private final MongoDriverMetrics mongoDriverMetrics;
+    private final MetricsRegistry metricsRegistry;
+    private final ApplicationAvailability availability;
+    private final WarmupRunner warmupRunner;
 
     public ResourcePredictionController(
             ResourcePredictionService predictionService,
             ResourceMonitorService monitorService,
-            ResourceMonitoringScheduler monitoringScheduler) {
+            ResourceMonitoringScheduler monitoringScheduler,
+            ExecutorMetrics executorMetrics,
+            VirtualThreadPinningMonitor pinningMonitor,
+            UpstreamRateLimiter rateLimiter,
+            UpstreamHedger hedger,
+            UpstreamCallMetrics upstreamCallMetrics,
+            Tracer tracer,
+            OtlpTraceExporter traceExporter,
+            LoggingMetrics loggingMetrics,
+            MongoDriverMetrics mongoDriverMetrics,
+            MetricsRegistry metricsRegistry,
+            ApplicationAvailability availability,
+            WarmupRunner warmupRunner) {
         this.predictionService = predictionService;
         this.monitorService = monitorService;
         this.monitoringScheduler = monitoringScheduler;
+        this.executorMetrics = executorMetrics;
+        this.pinningMonitor = pinningMonitor;
+        this.rateLimiter = rateLimiter;
+        this.hedger = hedger;
+        this.upstreamCallMetrics = upstreamCallMetrics;
+        this.tracer = tracer;
+        this.traceExporter = traceExporter;
+        this.loggingMetrics = loggingMetrics;
+        this.mongoDriverMetrics = mongoDriverMetrics;
+        this.metricsRegistry = metricsRegistry;
+        this.availability = availability;
+        this.warmupRunner = warmupRunner;
     }
 
     /**
@@ -65,6 +125,102 @@ public class ResourcePredictionController {
         return ResponseEntity.ok(metrics);
     }
 
+    /**
+     * Get per-class task statistics of the CPU and I/O executors, including suspected misuse
+     * GET /api/resource/executors
+     */
+    @GetMapping("/executors")
+    public ResponseEntity<List<ExecutorMetrics.ClassStats>> getExecutorStats() {
+        return ResponseEntity.ok(executorMetrics.snapshot());
+    }
+
+    /**
+     * Get virtual thread pinning totals and the call sites that pinned carrier threads the longest
+     * GET /api/resource/pinning?limit=10
+     */
+    @GetMapping("/pinning")
+    public ResponseEntity<VirtualThreadPinningMonitor.PinningReport> getPinningReport(
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(pinningMonitor.report(Math.max(1, limit)));
+    }
+
+    /**
+     * Get token levels, queue waits and rejections of the per-upstream rate limiters
+     * GET /api/resource/upstream-limits
+     */
+    @GetMapping("/upstream-limits")
+    public ResponseEntity<List<TokenBucket.Stats>> getUpstreamLimits() {
+        return ResponseEntity.ok(rateLimiter.snapshot());
+    }
+
+    /**
+     * Get hedged call counts, hedge wins, budget use and the current hedge delay per upstream
+     * GET /api/resource/upstream-hedging
+     */
+    @GetMapping("/upstream-hedging")
+    public ResponseEntity<List<UpstreamHedger.HedgeStats>> getUpstreamHedging() {
+        return ResponseEntity.ok(hedger.snapshot());
+    }
+
+    /**
+     * Get per-upstream call latency as callers see it, with attempts per call, retries and retry budget denials
+     * GET /api/resource/upstream-calls
+     */
+    @GetMapping("/upstream-calls")
+    public ResponseEntity<List<UpstreamCallMetrics.UpstreamCallStats>> getUpstreamCalls() {
+        return ResponseEntity.ok(upstreamCallMetrics.snapshot());
+    }
+
+    /**
+     * Get latency histograms of the weather lookup stages (store, pincode, geocoding, OpenWeather, saves) and
+     * OTLP trace export counts
+     * GET /api/resource/tracing
+     */
+    @GetMapping("/tracing")
+    public ResponseEntity<TracingStats> getTracing() {
+        return ResponseEntity.ok(new TracingStats(tracer.snapshot(), traceExporter.stats()));
+    }
+
+    /**
+     * Get async log queue depth and the messages let through or suppressed by each log rate limit
+     * GET /api/resource/logging
+     */
+    @GetMapping("/logging")
+    public ResponseEntity<LoggingMetrics.LoggingStats> getLogging() {
+        return ResponseEntity.ok(loggingMetrics.snapshot());
+    }
+
+    /**
+     * Get MongoDB connection pool usage, checkout latency and command latency by command name
+     * GET /api/resource/mongo
+     */
+    @GetMapping("/mongo")
+    public ResponseEntity<MongoDriverMetrics.MongoStats> getMongo() {
+        return ResponseEntity.ok(mongoDriverMetrics.snapshot());
+    }
+
+    /**
+     * Get all of the metrics above, plus the latest resource sample and prediction, as OpenMetrics text for
+     * Prometheus-style scrapers
+     * GET /api/resource/openmetrics
+     */
+    @GetMapping("/openmetrics")
+    public ResponseEntity<String> getOpenMetrics() {
+        return ResponseEntity.ok().contentType(OPENMETRICS).body(metricsRegistry.scrape());
+    }
+
+    /**
+     * Readiness probe: 200 once the instance accepts traffic, 503 while warm-up is still running
+     * GET /api/resource/readiness
+     */
+    @GetMapping("/readiness")
+    public ResponseEntity<Readiness> getReadiness() {
+        ReadinessState state = availability.getReadinessState();
+        HttpStatus status = state == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status)
+                .body(new Readiness(state.toString(), warmupRunner.report()));
+    }
+
     /**
      * Check if throttling is required
      * GET /api/resource/throttle-required
@@ -108,6 +264,16 @@ public class ResourcePredictionController {
             java.util.List<String> criticalIssues
     ) {}
 
+    public record TracingStats(
+            List<StageHistogram.StageStats> stages,
+            OtlpTraceExporter.ExportStats otlp
+    ) {}
+
+    public record Readiness(
+            String state,
+            WarmupRunner.WarmupReport warmup
+    ) {}
+
     public record ResourceHealth(
             String level,
             double riskScore,
@@ -1,38 +1,156 @@
 package com.mxfz.weatherservice.controller;
 
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.mxfz.weatherservice.codec.DateCodec;
+import com.mxfz.weatherservice.codec.StreamingFormat;
+import com.mxfz.weatherservice.model.weather.WeatherFields;
 import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import com.mxfz.weatherservice.service.PincodeRequestTracker;
+import com.mxfz.weatherservice.service.WeatherFreshnessMetrics;
 import com.mxfz.weatherservice.service.WeatherService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/weather")
 public class WeatherController {
 
     private final WeatherService weatherService;
+    private final PincodeRequestTracker pincodeRequestTracker;
+    private final WeatherFreshnessMetrics freshnessMetrics;
 
-    public WeatherController(WeatherService weatherService) {
+    @Value("${weather.batch.max-pincodes:100}")
+    private int maxBatchPincodes;
+
+    public WeatherController(WeatherService weatherService, PincodeRequestTracker pincodeRequestTracker,
+                             WeatherFreshnessMetrics freshnessMetrics) {
         this.weatherService = weatherService;
+        this.pincodeRequestTracker = pincodeRequestTracker;
+        this.freshnessMetrics = freshnessMetrics;
     }
 
-    @GetMapping("/weather-for-date-pincode")
+    /**
+     * Optional ?fields=temp,humidity returns only those fields (plus the id), read with a Mongo projection
+     */
+    @GetMapping(value = "/weather-for-date-pincode", produces = {MediaType.APPLICATION_JSON_VALUE,
+            StreamingFormat.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
     public ResponseEntity<WeatherInfo> getWeatherByPincodeAndDate(@RequestParam String pincode,
-                                                                  @RequestParam String date) {
+                                                                  @RequestParam String date,
+                                                                  @RequestParam(required = false) String fields) {
 //      Sample date format: 2020-10-15
-        WeatherInfo weatherResponse = weatherService.fetchWeather(pincode, date);
+        WeatherInfo weatherResponse = weatherService.fetchWeather(pincode, requireDate(date), parseFields(fields));
         if (weatherResponse == null) {
             return ResponseEntity.notFound().build();
         }
+        pincodeRequestTracker.record(pincode);
         return ResponseEntity.ok(weatherResponse);
     }
 
-    @GetMapping("/all-weather")
-    public ResponseEntity<List<WeatherInfo>> getAllWeatherInfo() {
-        return ResponseEntity.ok(weatherService.findAll());
+    @GetMapping(value = "/all-weather", produces = {MediaType.APPLICATION_JSON_VALUE,
+            StreamingFormat.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<WeatherInfo>> getAllWeatherInfo(@RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(weatherService.findAll(parseFields(fields)));
+    }
+
+    /**
+     * Fetches weather for several pincodes (?pincodes=560001,110001) on one date, in parallel with a deadline.
+     * Pincodes that fail or miss the deadline are left out of the response.
+     */
+    @GetMapping(value = "/weather-batch", produces = {MediaType.APPLICATION_JSON_VALUE,
+            StreamingFormat.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<Map<String, WeatherInfo>> getWeatherBatch(@RequestParam List<String> pincodes,
+                                                                    @RequestParam String date,
+                                                                    @RequestParam(required = false) String fields) {
+        if (pincodes.size() > maxBatchPincodes) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxBatchPincodes + " pincodes per batch");
+        }
+        Map<String, WeatherInfo> weather = weatherService.fetchWeatherBatch(pincodes, requireDate(date),
+                parseFields(fields));
+        weather.keySet().forEach(pincodeRequestTracker::record);
+        return ResponseEntity.ok(weather);
+    }
+
+    /**
+     * Returns stored weather info for a pincode between two dates (both inclusive), oldest first
+     */
+    @GetMapping(value = "/weather-range", produces = {MediaType.APPLICATION_JSON_VALUE,
+            StreamingFormat.SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<WeatherInfo>> getWeatherRange(@RequestParam String pincode,
+                                                             @RequestParam String from,
+                                                             @RequestParam String to,
+                                                             @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(weatherService.findRange(pincode, requireDate(from), requireDate(to),
+                parseFields(fields)));
+    }
+
+    /**
+     * Streams all weather info as one array, record by record, without materializing the list.
+     * Format follows ?format=json|smile|cbor or the Accept header, defaulting to JSON.
+     */
+    @GetMapping("/all-weather/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllWeatherInfo(
+            @RequestParam(name = StreamingFormat.FORMAT_PARAMETER, required = false) String format,
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        StreamingFormat streamingFormat = StreamingFormat.negotiate(format,
+                accept == null ? null : MediaType.parseMediaTypes(accept));
+
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<WeatherInfo> weather = weatherService.streamAll();
+                 SequenceWriter writer = streamingFormat.writerFor(WeatherInfo.class).writeValuesAsArray(outputStream)) {
+                Iterator<WeatherInfo> iterator = weather.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next());
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(streamingFormat.getMediaType())
+                .body(body);
+    }
+
+    /**
+     * Weather store hits and misses, stale entries served and background refreshes of today's and upcoming weather
+     * GET /api/weather/freshness-metrics
+     */
+    @GetMapping("/freshness-metrics")
+    public ResponseEntity<WeatherFreshnessMetrics.Snapshot> getFreshnessMetrics() {
+        return ResponseEntity.ok(freshnessMetrics.snapshot());
+    }
+
+    private static Set<String> parseFields(String fields) {
+        try {
+            return WeatherFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rejects anything but a real yyyy-MM-dd date, before it reaches the cache, Mongo or the upstreams
+     */
+    private static String requireDate(String date) {
+        try {
+            DateCodec.toEpochDay(date);
+            return date;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
     }
 }
@@ -0,0 +1,17 @@
+package com.mxfz.weatherservice.executor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class whose background work blocks on I/O. {@link TaskRouter#executorFor(Class)} routes it
+ * to virtual threads. This is also the default for classes without a routing annotation.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BlockingIo {
+}
@@ -0,0 +1,17 @@
+package com.mxfz.weatherservice.executor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class whose background work is CPU-bound. {@link TaskRouter#executorFor(Class)} routes it
+ * to the ForkJoinPool; blocking inside that work is reported as misuse.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CpuBound {
+}
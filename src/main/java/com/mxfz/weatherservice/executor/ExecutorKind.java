@@ -0,0 +1,17 @@
+package com.mxfz.weatherservice.executor;
+
+/**
+ * The two kinds of work the application schedules, each with its own executor
+ */
+public enum ExecutorKind {
+
+    /**
+     * Pure computation; runs on the cpuTaskExecutor ForkJoinPool sized to the cores
+     */
+    CPU,
+
+    /**
+     * Blocking I/O (HTTP, Mongo, sleeps); runs on virtual threads
+     */
+    IO
+}
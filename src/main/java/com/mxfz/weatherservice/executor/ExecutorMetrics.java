@@ -0,0 +1,114 @@
+package com.mxfz.weatherservice.executor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-class task statistics for the executors handed out by {@link TaskRouter}
+ */
+@Component
+public class ExecutorMetrics {
+
+    private final Map<Key, Counters> counters = new ConcurrentHashMap<>();
+
+    void recordSubmitted(Class<?> owner, ExecutorKind kind) {
+        countersFor(owner, kind).submitted.increment();
+    }
+
+    /**
+     * @param cpuNanos CPU time of the task, or -1 when the thread cannot report it (virtual threads)
+     */
+    void recordCompleted(Class<?> owner, ExecutorKind kind, long wallNanos, long cpuNanos, boolean failed) {
+        Counters c = countersFor(owner, kind);
+        c.completed.increment();
+        if (failed) {
+            c.failed.increment();
+        }
+        c.wallNanos.add(wallNanos);
+        if (cpuNanos >= 0) {
+            c.cpuNanos.add(cpuNanos);
+            c.cpuSamples.increment();
+        }
+    }
+
+    void recordBlockingOnCpuPool(Class<?> owner) {
+        countersFor(owner, ExecutorKind.CPU).blockingSuspected.increment();
+    }
+
+    void recordMisrouted(Class<?> owner, ExecutorKind kind) {
+        countersFor(owner, kind).misrouted.increment();
+    }
+
+    /**
+     * Returns the completed task count over all classes routed to the given kind
+     */
+    public long completedTasks(ExecutorKind kind) {
+        long total = 0;
+        for (Map.Entry<Key, Counters> entry : counters.entrySet()) {
+            if (entry.getKey().kind() == kind) {
+                total += entry.getValue().completed.sum();
+            }
+        }
+        return total;
+    }
+
+    public List<ClassStats> snapshot() {
+        List<ClassStats> stats = new ArrayList<>(counters.size());
+        counters.forEach((key, c) -> {
+            long completed = c.completed.sum();
+            long cpuSamples = c.cpuSamples.sum();
+            stats.add(new ClassStats(
+                    key.owner(),
+                    key.kind(),
+                    c.submitted.sum(),
+                    completed,
+                    c.failed.sum(),
+                    completed == 0 ? 0.0 : c.wallNanos.sum() / 1e6 / completed,
+                    cpuSamples == 0 ? -1.0 : c.cpuNanos.sum() / 1e6 / cpuSamples,
+                    c.blockingSuspected.sum(),
+                    c.misrouted.sum()));
+        });
+        stats.sort(Comparator.comparing(ClassStats::owner).thenComparing(ClassStats::kind));
+        return stats;
+    }
+
+    private Counters countersFor(Class<?> owner, ExecutorKind kind) {
+        return counters.computeIfAbsent(new Key(owner.getName(), kind), key -> new Counters());
+    }
+
+    private record Key(String owner, ExecutorKind kind) {
+    }
+
+    private static final class Counters {
+        final LongAdder submitted = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder wallNanos = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+        final LongAdder cpuSamples = new LongAdder();
+        final LongAdder blockingSuspected = new LongAdder();
+        final LongAdder misrouted = new LongAdder();
+    }
+
+    /**
+     * @param meanCpuMs           -1 when CPU time is not measured (tasks on virtual threads)
+     * @param blockingSuspected   CPU-pool tasks that spent most of their time off-CPU
+     * @param misrouted           executors requested for a kind that contradicts the class annotation
+     */
+    public record ClassStats(String owner,
+                             ExecutorKind kind,
+                             long submitted,
+                             long completed,
+                             long failed,
+                             double meanWallMs,
+                             double meanCpuMs,
+                             long blockingSuspected,
+                             long misrouted) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.mxfz.weatherservice.executor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor view handed out by {@link TaskRouter}: submits to the shared executor of its kind and
+ * records every task under the owning class. The shared executor's lifecycle belongs to Spring,
+ * so shutting the view down (or closing it) does nothing.
+ */
+@Slf4j
+class InstrumentedExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Class<?> owner;
+    private final ExecutorKind kind;
+    private final TaskRouter router;
+
+    InstrumentedExecutorService(ExecutorService delegate, Class<?> owner, ExecutorKind kind, TaskRouter router) {
+        this.delegate = delegate;
+        this.owner = owner;
+        this.kind = kind;
+        this.router = router;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(router.instrument(owner, kind, command));
+    }
+
+    @Override
+    public void shutdown() {
+        log.debug("Ignoring shutdown of {}, the shared executor is managed by the application context", this);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        log.debug("Ignoring shutdownNow of {}, the shared executor is managed by the application context", this);
+        return List.of();
+    }
+
+    /**
+     * Also a no-op: the default close() would shut down and then wait for the shared executor to terminate
+     */
+    @Override
+    public void close() {
+        log.debug("Ignoring close of {}, the shared executor is managed by the application context", this);
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return kind + " executor for " + owner.getSimpleName();
+    }
+}
@@ -0,0 +1,177 @@
+package com.mxfz.weatherservice.executor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Supplier;
+
+/**
+ * Hands out executors by kind of work: CPU-bound work to the cpuTaskExecutor ForkJoinPool,
+ * blocking I/O to virtual threads. Classes declare their kind with {@link CpuBound} or {@link BlockingIo}.
+ *
+ * Every executor handed out records per-class statistics in {@link ExecutorMetrics}, and misuse is logged once
+ * per class: asking for the kind the annotation contradicts, or CPU-pool tasks that mostly block.
+ *
+ * The CPU pool is created on first CPU use, so it costs nothing while no CPU-bound work is routed.
+ */
+@Component
+@Slf4j
+public class TaskRouter {
+
+    private final Supplier<ForkJoinPool> cpuPoolFactory;
+    private volatile ForkJoinPool cpuTaskExecutor;
+    private final ExecutorService virtualTaskExecutor;
+    private final ExecutorMetrics metrics;
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final Map<Class<?>, Map<ExecutorKind, ExecutorService>> views = new ConcurrentHashMap<>();
+    private final Set<String> reportedMisuse = ConcurrentHashMap.newKeySet();
+
+    @Value("${executor.cpu.blocking-ratio:0.5}")
+    private double blockingRatio;
+
+    @Value("${executor.cpu.blocking-min-ms:10}")
+    private long blockingMinMs;
+
+    @Autowired
+    public TaskRouter(@Qualifier("cpuTaskExecutor") ObjectProvider<ForkJoinPool> cpuTaskExecutor,
+                      @Qualifier("virtualTaskExecutor") ExecutorService virtualTaskExecutor,
+                      ExecutorMetrics metrics) {
+        this((Supplier<ForkJoinPool>) cpuTaskExecutor::getObject, virtualTaskExecutor, metrics);
+    }
+
+    public TaskRouter(ForkJoinPool cpuTaskExecutor, ExecutorService virtualTaskExecutor, ExecutorMetrics metrics) {
+        this((Supplier<ForkJoinPool>) () -> cpuTaskExecutor, virtualTaskExecutor, metrics);
+    }
+
+    TaskRouter(Supplier<ForkJoinPool> cpuPoolFactory, ExecutorService virtualTaskExecutor, ExecutorMetrics metrics) {
+        this.cpuPoolFactory = cpuPoolFactory;
+        this.virtualTaskExecutor = virtualTaskExecutor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the kind declared on the class; classes without a routing annotation are treated as I/O
+     */
+    public static ExecutorKind kindOf(Class<?> owner) {
+        return owner.isAnnotationPresent(CpuBound.class) ? ExecutorKind.CPU : ExecutorKind.IO;
+    }
+
+    /**
+     * Returns an executor for the owner's declared kind of work
+     */
+    public ExecutorService executorFor(Class<?> owner) {
+        return executorFor(owner, kindOf(owner));
+    }
+
+    /**
+     * Returns an executor of the given kind for the owner. Requesting a kind that contradicts the owner's
+     * routing annotation still works, but is counted as misrouted.
+     */
+    public ExecutorService executorFor(Class<?> owner, ExecutorKind kind) {
+        boolean annotated = owner.isAnnotationPresent(CpuBound.class) || owner.isAnnotationPresent(BlockingIo.class);
+        if (annotated && kind != kindOf(owner)) {
+            metrics.recordMisrouted(owner, kind);
+            reportOnce(owner, "misrouted-" + kind, "{} is annotated for {} work but requested the {} executor",
+                    owner.getSimpleName(), kindOf(owner), kind);
+        }
+        return views.computeIfAbsent(owner, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(kind, key -> new InstrumentedExecutorService(
+                        key == ExecutorKind.CPU ? cpuPool() : virtualTaskExecutor, owner, key, this));
+    }
+
+    /**
+     * Runs a fork/join computation (e.g. a RecursiveTask) on the CPU pool and waits for its result.
+     * Called from a worker of the pool, the task is forked in place instead of being resubmitted.
+     */
+    public <T> T invoke(Class<?> owner, ForkJoinTask<T> task) {
+        metrics.recordSubmitted(owner, ExecutorKind.CPU);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ForkJoinPool pool = cpuPool();
+            T result = Thread.currentThread() instanceof ForkJoinWorkerThread worker && worker.getPool() == pool
+                    ? task.invoke()
+                    : pool.invoke(task);
+            failed = false;
+            return result;
+        } finally {
+            // CPU time is spread over the workers, so only wall time is recorded here
+            metrics.recordCompleted(owner, ExecutorKind.CPU, System.nanoTime() - start, -1, failed);
+        }
+    }
+
+    /**
+     * Returns the CPU pool, creating it on first use
+     */
+    public ForkJoinPool cpuPool() {
+        ForkJoinPool pool = cpuTaskExecutor;
+        if (pool == null) {
+            // The factory returns the same singleton pool, so a racing first call is harmless
+            pool = cpuPoolFactory.get();
+            cpuTaskExecutor = pool;
+        }
+        return pool;
+    }
+
+    /**
+     * Returns the CPU pool if CPU work has created it, for monitoring that should not create it
+     */
+    public Optional<ForkJoinPool> startedCpuPool() {
+        return Optional.ofNullable(cpuTaskExecutor);
+    }
+
+    /**
+     * Wraps a task submitted through one of the handed out executors with timing and misuse detection
+     */
+    Runnable instrument(Class<?> owner, ExecutorKind kind, Runnable task) {
+        metrics.recordSubmitted(owner, kind);
+        return () -> {
+            long cpuStart = kind == ExecutorKind.CPU ? currentThreadCpuTime() : -1;
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                task.run();
+                failed = false;
+            } finally {
+                long wallNanos = System.nanoTime() - start;
+                long cpuNanos = cpuStart < 0 ? -1 : Math.max(0, currentThreadCpuTime() - cpuStart);
+                if (cpuNanos >= 0 && wallNanos >= blockingMinMs * 1_000_000 && cpuNanos < wallNanos * blockingRatio) {
+                    metrics.recordBlockingOnCpuPool(owner);
+                    reportOnce(owner, "blocking", "{} blocked on the CPU pool: {} ms on CPU out of {} ms; "
+                                    + "route blocking work to the I/O executor",
+                            owner.getSimpleName(), cpuNanos / 1_000_000, wallNanos / 1_000_000);
+                }
+                // Recorded last, so a completed task's other statistics are already visible
+                metrics.recordCompleted(owner, kind, wallNanos, cpuNanos, failed);
+            }
+        };
+    }
+
+    private long currentThreadCpuTime() {
+        try {
+            return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : -1;
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    private void reportOnce(Class<?> owner, String misuse, String message, Object... args) {
+        if (reportedMisuse.add(owner.getName() + '#' + misuse)) {
+            log.warn(message, args);
+        }
+    }
+}
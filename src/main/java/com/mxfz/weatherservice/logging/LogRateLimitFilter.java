@@ -0,0 +1,154 @@
+package com.mxfz.weatherservice.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate-limits hot-path log messages before a logging event is even created. Configured in logback-spring.xml
+ * with one &lt;limit&gt;logger-prefix=messages-per-second&lt;/limit&gt; per logger (or package); the longest
+ * matching prefix applies. Within a limited logger each message template gets its own budget per second,
+ * so one noisy message cannot crowd out the others. ERROR is never limited.
+ *
+ * Suppressed messages are counted per limit and reported by {@link LoggingMetrics}.
+ */
+public class LogRateLimitFilter extends TurboFilter {
+
+    /**
+     * Distinct message templates tracked per limit; beyond this they share one budget
+     */
+    static final int MAX_TEMPLATES = 1024;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final List<Limit> limits = new ArrayList<>();
+    private final Map<String, Limit> limitsByLogger = new ConcurrentHashMap<>();
+    private final Limit unlimited = new Limit("", 0);
+    private final LongSupplier nanoClock;
+
+    public LogRateLimitFilter() {
+        this(System::nanoTime);
+    }
+
+    LogRateLimitFilter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Adds a limit given as logger-prefix=messages-per-second, e.g. com.mxfz.weatherservice.upstream=10
+     */
+    public void addLimit(String limit) {
+        int separator = limit.lastIndexOf('=');
+        if (separator <= 0) {
+            addError("Log rate limit '" + limit + "' is not logger-prefix=messages-per-second");
+            return;
+        }
+        try {
+            int perSecond = Integer.parseInt(limit.substring(separator + 1).trim());
+            limits.add(new Limit(limit.substring(0, separator).trim(), Math.max(0, perSecond)));
+            limitsByLogger.clear();
+        } catch (NumberFormatException e) {
+            addError("Log rate limit '" + limit + "' has no valid messages-per-second", e);
+        }
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        // Turbo filters also run for isXxxEnabled() checks (no format) and for levels the logger drops anyway
+        if (format == null || level.levelInt >= Level.ERROR_INT
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Limit limit = limitsByLogger.get(logger.getName());
+        if (limit == null) {
+            limit = limitsByLogger.computeIfAbsent(logger.getName(), this::limitFor);
+        }
+        if (limit == unlimited || limit.tryAcquire(format, nanoClock.getAsLong() / NANOS_PER_SECOND)) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    private Limit limitFor(String loggerName) {
+        Limit match = unlimited;
+        for (Limit limit : limits) {
+            if (isPrefix(limit.prefix, loggerName) && limit.prefix.length() >= match.prefix.length()) {
+                match = limit;
+            }
+        }
+        return match;
+    }
+
+    private static boolean isPrefix(String prefix, String loggerName) {
+        return loggerName.startsWith(prefix)
+                && (loggerName.length() == prefix.length() || loggerName.charAt(prefix.length()) == '.');
+    }
+
+    public List<LimitStats> stats() {
+        return limits.stream().map(Limit::stats).toList();
+    }
+
+    private static final class Limit {
+        private final String prefix;
+        private final int perSecond;
+        private final Map<String, Window> windows = new ConcurrentHashMap<>();
+        private final Window overflow = new Window();
+        private final LongAdder passed = new LongAdder();
+        private final LongAdder suppressed = new LongAdder();
+
+        private Limit(String prefix, int perSecond) {
+            this.prefix = prefix;
+            this.perSecond = perSecond;
+        }
+
+        private boolean tryAcquire(String template, long second) {
+            Window window = windows.get(template);
+            if (window == null) {
+                window = windows.size() < MAX_TEMPLATES
+                        ? windows.computeIfAbsent(template, key -> new Window())
+                        : overflow;
+            }
+            if (window.tryAcquire(second, perSecond)) {
+                passed.increment();
+                return true;
+            }
+            suppressed.increment();
+            return false;
+        }
+
+        private LimitStats stats() {
+            return new LimitStats(prefix, perSecond, passed.sum(), suppressed.sum());
+        }
+    }
+
+    /**
+     * Messages counted in fixed one-second windows; approximate at window edges, which is fine for logs
+     */
+    private static final class Window {
+        private final AtomicLong second = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicInteger count = new AtomicInteger();
+
+        private boolean tryAcquire(long now, int perSecond) {
+            long current = second.get();
+            if (current != now && second.compareAndSet(current, now)) {
+                count.set(0);
+            }
+            return count.incrementAndGet() <= perSecond;
+        }
+    }
+
+    public record LimitStats(String logger, int perSecond, long passed, long suppressed) {
+    }
+}
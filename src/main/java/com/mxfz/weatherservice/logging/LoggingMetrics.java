@@ -0,0 +1,56 @@
+package com.mxfz.weatherservice.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AsyncAppenderBase;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the state of the logging pipeline configured in logback-spring.xml: how full the async appender
+ * queues are and how many messages each rate limit let through or suppressed
+ */
+@Component
+public class LoggingMetrics {
+
+    public LoggingStats snapshot() {
+        ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+        if (!(loggerFactory instanceof LoggerContext context)) {
+            return new LoggingStats(List.of(), List.of());
+        }
+
+        List<AppenderStats> appenders = new ArrayList<>();
+        Iterator<Appender<ILoggingEvent>> iterator = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)
+                .iteratorForAppenders();
+        while (iterator.hasNext()) {
+            if (iterator.next() instanceof AsyncAppenderBase<ILoggingEvent> async) {
+                appenders.add(new AppenderStats(async.getName(), async.getQueueSize(),
+                        async.getNumberOfElementsInQueue(), async.isNeverBlock()));
+            }
+        }
+
+        List<LogRateLimitFilter.LimitStats> limits = new ArrayList<>();
+        for (TurboFilter filter : context.getTurboFilterList()) {
+            if (filter instanceof LogRateLimitFilter rateLimit) {
+                limits.addAll(rateLimit.stats());
+            }
+        }
+        return new LoggingStats(appenders, limits);
+    }
+
+    /**
+     * @param neverBlock whether a full queue drops events (true) or makes the logging thread wait (false)
+     */
+    public record AppenderStats(String name, int queueSize, int queued, boolean neverBlock) {
+    }
+
+    public record LoggingStats(List<AppenderStats> asyncAppenders, List<LogRateLimitFilter.LimitStats> rateLimits) {
+    }
+}
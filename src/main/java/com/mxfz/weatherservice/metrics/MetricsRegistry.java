@@ -0,0 +1,358 @@
+package com.mxfz.weatherservice.metrics;
+
+import com.mxfz.weatherservice.executor.ExecutorMetrics;
+import com.mxfz.weatherservice.logging.LogRateLimitFilter;
+import com.mxfz.weatherservice.logging.LoggingMetrics;
+import com.mxfz.weatherservice.model.ResourceMetrics;
+import com.mxfz.weatherservice.model.ResourcePrediction;
+import com.mxfz.weatherservice.ratelimit.TokenBucket;
+import com.mxfz.weatherservice.ratelimit.UpstreamPriority;
+import com.mxfz.weatherservice.ratelimit.UpstreamRateLimiter;
+import com.mxfz.weatherservice.repository.MongoDriverMetrics;
+import com.mxfz.weatherservice.service.VirtualThreadPinningMonitor;
+import com.mxfz.weatherservice.service.WeatherFreshnessMetrics;
+import com.mxfz.weatherservice.tracing.OtlpTraceExporter;
+import com.mxfz.weatherservice.tracing.TraceStage;
+import com.mxfz.weatherservice.tracing.Tracer;
+import com.mxfz.weatherservice.upstream.UpstreamCallMetrics;
+import com.mxfz.weatherservice.upstream.UpstreamHedger;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the service measures as one OpenMetrics page for Prometheus-style scrapers.
+ *
+ * A scrape only reads counters that are kept up to date as the service runs. JVM and system figures and the
+ * prediction come from the last sample of {@link com.mxfz.weatherservice.service.ResourceMonitoringScheduler},
+ * so scraping never walks the MXBeans; resource_sample_timestamp_seconds tells how old that sample is.
+ */
+@Component
+public class MetricsRegistry {
+
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private final ExecutorMetrics executorMetrics;
+    private final UpstreamCallMetrics upstreamCallMetrics;
+    private final UpstreamRateLimiter rateLimiter;
+    private final UpstreamHedger hedger;
+    private final Tracer tracer;
+    private final OtlpTraceExporter traceExporter;
+    private final WeatherFreshnessMetrics freshnessMetrics;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final LoggingMetrics loggingMetrics;
+    private final MongoDriverMetrics mongoDriverMetrics;
+
+    private volatile Sample sample;
+    // Sizes the next page's buffer so a scrape does not grow it step by step
+    private volatile int lastPageLength = 16 * 1024;
+
+    public MetricsRegistry(ExecutorMetrics executorMetrics,
+                           UpstreamCallMetrics upstreamCallMetrics,
+                           UpstreamRateLimiter rateLimiter,
+                           UpstreamHedger hedger,
+                           Tracer tracer,
+                           OtlpTraceExporter traceExporter,
+                           WeatherFreshnessMetrics freshnessMetrics,
+                           VirtualThreadPinningMonitor pinningMonitor,
+                           LoggingMetrics loggingMetrics,
+                           MongoDriverMetrics mongoDriverMetrics) {
+        this.executorMetrics = executorMetrics;
+        this.upstreamCallMetrics = upstreamCallMetrics;
+        this.rateLimiter = rateLimiter;
+        this.hedger = hedger;
+        this.tracer = tracer;
+        this.traceExporter = traceExporter;
+        this.freshnessMetrics = freshnessMetrics;
+        this.pinningMonitor = pinningMonitor;
+        this.loggingMetrics = loggingMetrics;
+        this.mongoDriverMetrics = mongoDriverMetrics;
+    }
+
+    /**
+     * Keeps the latest resource metrics and prediction for scrapes, with the GC activity since the previous sample
+     *
+     * @param metrics null when resource monitoring is disabled
+     */
+    public void recordSample(ResourceMetrics metrics, ResourcePrediction prediction) {
+        Sample previous = sample;
+        long gcCollections = 0;
+        long gcMillis = 0;
+        if (metrics != null && previous != null && previous.metrics() != null) {
+            gcCollections = Math.max(0, metrics.getGcCollectionCount() - previous.metrics().getGcCollectionCount());
+            gcMillis = Math.max(0, metrics.getGcCollectionTime() - previous.metrics().getGcCollectionTime());
+        }
+        sample = new Sample(System.currentTimeMillis(), metrics, prediction, gcCollections, gcMillis);
+    }
+
+    public String scrape() {
+        OpenMetricsWriter out = new OpenMetricsWriter(lastPageLength + 1024);
+        Sample current = sample;
+        if (current != null) {
+            writeResources(out, current);
+        }
+        writeExecutors(out);
+        writePinning(out);
+        writeUpstreamCalls(out);
+        writeRateLimits(out);
+        writeHedging(out);
+        writeStages(out);
+        writeStore(out);
+        writeMongo(out);
+        writeLogging(out);
+        writeTraceExport(out);
+        String page = out.finish();
+        lastPageLength = page.length();
+        return page;
+    }
+
+    private void writeResources(OpenMetricsWriter out, Sample current) {
+        out.gauge("resource_sample_timestamp_seconds", "When the JVM and system figures below were sampled")
+                .sample(current.epochMillis() / 1e3);
+
+        ResourceMetrics m = current.metrics();
+        if (m != null) {
+            out.gauge("jvm_memory_heap_used_bytes", "Heap in use").sample(m.getHeapUsed());
+            out.gauge("jvm_memory_heap_committed_bytes", "Heap committed by the JVM").sample(m.getHeapCommitted());
+            out.gauge("jvm_memory_heap_max_bytes", "Maximum heap size").sample(m.getHeapMax());
+            out.gauge("jvm_memory_nonheap_used_bytes", "Non-heap memory in use").sample(m.getNonHeapUsed());
+            out.counter("jvm_gc_collections", "Garbage collections since startup").sample(m.getGcCollectionCount());
+            out.counter("jvm_gc_collection_seconds", "Time spent in garbage collection since startup")
+                    .sample(m.getGcCollectionTime() / 1e3);
+            out.gauge("jvm_gc_collections_last_interval", "Garbage collections between the last two samples")
+                    .sample(current.gcCollectionsDelta());
+            out.gauge("jvm_gc_collection_seconds_last_interval",
+                            "Time spent in garbage collection between the last two samples")
+                    .sample(current.gcMillisDelta() / 1e3);
+            out.gauge("jvm_threads_current", "Live platform threads").sample(m.getThreadCount());
+            out.gauge("jvm_threads_peak", "Most live platform threads since startup").sample(m.getPeakThreadCount());
+            out.gauge("jvm_threads_daemon", "Live daemon threads").sample(m.getDaemonThreadCount());
+            // The OS reports a negative load until it has a measurement
+            if (m.getProcessCpuLoad() >= 0) {
+                out.gauge("process_cpu_load_ratio", "CPU load of this process, 0 to 1")
+                        .sample(m.getProcessCpuLoad() / 100);
+            }
+            if (m.getSystemCpuLoad() >= 0) {
+                out.gauge("system_cpu_load_ratio", "CPU load of the whole machine, 0 to 1")
+                        .sample(m.getSystemCpuLoad() / 100);
+            }
+            if (m.getSystemMemoryTotal() > 0) {
+                out.gauge("system_memory_used_bytes", "Physical memory in use").sample(m.getSystemMemoryUsed());
+                out.gauge("system_memory_total_bytes", "Physical memory").sample(m.getSystemMemoryTotal());
+            }
+            if (m.getThreadPoolActiveCount() != null) {
+                out.gauge("executor_cpu_pool_active_threads", "Busy threads of the CPU pool")
+                        .sample(m.getThreadPoolActiveCount());
+                out.gauge("executor_cpu_pool_threads", "Threads of the CPU pool").sample(m.getThreadPoolPoolSize());
+                out.gauge("executor_cpu_pool_queued_tasks", "Tasks waiting for the CPU pool")
+                        .sample(m.getThreadPoolQueueSize());
+            }
+        }
+
+        ResourcePrediction prediction = current.prediction();
+        if (prediction != null && prediction.getLevel() != null) {
+            out.gauge("resource_risk_score", "Predicted risk of resource exhaustion, 0 to 1")
+                    .sample(prediction.getRiskScore());
+            out.stateset("resource_prediction_level", "Predicted resource exhaustion level");
+            for (ResourcePrediction.PredictionLevel level : ResourcePrediction.PredictionLevel.values()) {
+                out.state(level.name(), level == prediction.getLevel());
+            }
+            out.gauge("resource_warnings", "Warnings raised by the last prediction")
+                    .sample(prediction.getWarnings() == null ? 0 : prediction.getWarnings().size());
+            out.gauge("resource_critical_issues", "Critical issues raised by the last prediction")
+                    .sample(prediction.getCriticalIssues() == null ? 0 : prediction.getCriticalIssues().size());
+        }
+    }
+
+    private void writeExecutors(OpenMetricsWriter out) {
+        List<ExecutorMetrics.ClassStats> stats = executorMetrics.snapshot();
+        if (stats.isEmpty()) {
+            return;
+        }
+        out.counter("executor_tasks_submitted", "Tasks submitted, by owning class and executor kind");
+        stats.forEach(s -> out.sample(s.submitted(), "owner", s.owner(), "kind", s.kind().name()));
+        out.counter("executor_tasks_completed", "Tasks completed, by owning class and executor kind");
+        stats.forEach(s -> out.sample(s.completed(), "owner", s.owner(), "kind", s.kind().name()));
+        out.counter("executor_tasks_failed", "Tasks that threw, by owning class and executor kind");
+        stats.forEach(s -> out.sample(s.failed(), "owner", s.owner(), "kind", s.kind().name()));
+        out.counter("executor_tasks_blocking_suspected", "CPU-pool tasks that spent most of their time off-CPU");
+        stats.forEach(s -> out.sample(s.blockingSuspected(), "owner", s.owner(), "kind", s.kind().name()));
+        out.counter("executor_tasks_misrouted", "Executors requested for a kind the owning class is not annotated for");
+        stats.forEach(s -> out.sample(s.misrouted(), "owner", s.owner(), "kind", s.kind().name()));
+        out.gauge("executor_task_mean_wall_seconds", "Mean wall time of completed tasks");
+        stats.forEach(s -> out.sample(s.meanWallMs() / 1e3, "owner", s.owner(), "kind", s.kind().name()));
+        out.gauge("executor_task_mean_cpu_seconds", "Mean CPU time of completed tasks on platform threads");
+        stats.stream().filter(s -> s.meanCpuMs() >= 0)
+                .forEach(s -> out.sample(s.meanCpuMs() / 1e3, "owner", s.owner(), "kind", s.kind().name()));
+    }
+
+    private void writePinning(OpenMetricsWriter out) {
+        if (!pinningMonitor.isActive()) {
+            return;
+        }
+        out.counter("jvm_virtual_thread_pinned_events", "Virtual threads pinned to their carrier past the threshold")
+                .sample(pinningMonitor.totalEvents());
+        out.counter("jvm_virtual_thread_pinned_seconds", "Time virtual threads spent pinned")
+                .sample(pinningMonitor.totalPinnedMillis() / 1e3);
+        out.gauge("jvm_virtual_thread_pinned_max_seconds", "Longest single pin")
+                .sample(pinningMonitor.maxPinnedMillis() / 1e3);
+    }
+
+    private void writeUpstreamCalls(OpenMetricsWriter out) {
+        List<UpstreamCallMetrics.UpstreamCallStats> stats = upstreamCallMetrics.snapshot();
+        if (stats.isEmpty()) {
+            return;
+        }
+        out.histogram("upstream_call_duration_seconds",
+                "Upstream call latency as callers see it, including rate-limit waits, hedges and retries");
+        upstreamCallMetrics.histograms().forEach((upstream, histogram) ->
+                out.stageHistogram(histogram, "upstream", upstream));
+        out.counter("upstream_calls", "Upstream calls");
+        stats.forEach(s -> out.sample(s.calls(), "upstream", s.upstream()));
+        out.counter("upstream_call_failures", "Upstream calls that failed after all attempts");
+        stats.forEach(s -> out.sample(s.failures(), "upstream", s.upstream()));
+        out.counter("upstream_calls_by_attempts", "Upstream calls by attempts taken, the highest counting that many or more");
+        for (UpstreamCallMetrics.UpstreamCallStats s : stats) {
+            s.callsByAttempts().forEach((attempts, calls) ->
+                    out.sample(calls, "upstream", s.upstream(), "attempts", attempts.toString()));
+        }
+        out.counter("upstream_retries", "Upstream retries");
+        stats.forEach(s -> out.sample(s.retries(), "upstream", s.upstream()));
+        out.counter("upstream_retry_after_waits", "Retries whose backoff followed the upstream's Retry-After header");
+        stats.forEach(s -> out.sample(s.retryAfterWaits(), "upstream", s.upstream()));
+        out.counter("upstream_retry_budget_denied", "Retryable failures not retried because the retry budget was used up");
+        stats.forEach(s -> out.sample(s.budgetDenied(), "upstream", s.upstream()));
+    }
+
+    private void writeRateLimits(OpenMetricsWriter out) {
+        List<TokenBucket.Stats> stats = rateLimiter.snapshot();
+        if (stats.isEmpty()) {
+            return;
+        }
+        out.gauge("upstream_rate_limit_tokens", "Tokens available right now");
+        stats.forEach(s -> out.sample(s.tokens(), "upstream", s.upstream()));
+        out.gauge("upstream_rate_limit_queued", "Callers waiting for a token");
+        stats.forEach(s -> out.sample(s.queued(), "upstream", s.upstream()));
+        out.counter("upstream_rate_limit_granted", "Permits granted, by caller priority");
+        for (TokenBucket.Stats s : stats) {
+            for (Map.Entry<UpstreamPriority, Long> granted : s.granted().entrySet()) {
+                out.sample(granted.getValue(), "upstream", s.upstream(), "priority", granted.getKey().name());
+            }
+        }
+        out.counter("upstream_rate_limit_rejected", "Calls refused a permit, by reason");
+        for (TokenBucket.Stats s : stats) {
+            out.sample(s.rejectedDeadline(), "upstream", s.upstream(), "reason", "deadline");
+            out.sample(s.rejectedQuota(), "upstream", s.upstream(), "reason", "quota");
+        }
+        out.gauge("upstream_quota_used", "Calls counted against today's quota (UTC)");
+        stats.forEach(s -> out.sample(s.usedToday(), "upstream", s.upstream()));
+        out.gauge("upstream_quota_limit", "Calls allowed per UTC day");
+        stats.stream().filter(s -> s.dailyQuota() > 0).forEach(s -> out.sample(s.dailyQuota(), "upstream", s.upstream()));
+    }
+
+    private void writeHedging(OpenMetricsWriter out) {
+        List<UpstreamHedger.HedgeStats> stats = hedger.snapshot();
+        if (stats.isEmpty()) {
+            return;
+        }
+        out.counter("upstream_hedged_calls", "Calls eligible for hedging");
+        stats.forEach(s -> out.sample(s.calls(), "upstream", s.upstream()));
+        out.counter("upstream_hedges_sent", "Hedge requests sent");
+        stats.forEach(s -> out.sample(s.hedged(), "upstream", s.upstream()));
+        out.counter("upstream_hedge_wins", "Hedge requests that answered first");
+        stats.forEach(s -> out.sample(s.hedgeWins(), "upstream", s.upstream()));
+        out.counter("upstream_hedges_denied", "Hedges not sent, by reason");
+        for (UpstreamHedger.HedgeStats s : stats) {
+            out.sample(s.budgetDenied(), "upstream", s.upstream(), "reason", "budget");
+            out.sample(s.rateLimitDenied(), "upstream", s.upstream(), "reason", "rate_limit");
+        }
+        out.gauge("upstream_hedge_delay_seconds", "Current delay after which a hedge is sent");
+        stats.stream().filter(s -> s.hedgeDelayMs() != null)
+                .forEach(s -> out.sample(s.hedgeDelayMs() / 1e3, "upstream", s.upstream()));
+    }
+
+    private void writeStages(OpenMetricsWriter out) {
+        out.histogram("weather_stage_duration_seconds", "Duration of weather lookup stages");
+        for (TraceStage stage : TraceStage.values()) {
+            out.stageHistogram(tracer.histogram(stage), "stage", stage.metricName());
+        }
+        out.counter("weather_stage_failures", "Weather lookup stages that threw");
+        for (TraceStage stage : TraceStage.values()) {
+            out.sample(tracer.histogram(stage).failures(), "stage", stage.metricName());
+        }
+    }
+
+    private void writeStore(OpenMetricsWriter out) {
+        WeatherFreshnessMetrics.Snapshot s = freshnessMetrics.snapshot();
+        out.counter("weather_store_lookups", "Weather lookups answered from the store (hit) or the upstreams (miss)")
+                .sample(s.storeHits(), "result", "hit")
+                .sample(s.storeMisses(), "result", "miss");
+        out.counter("weather_stale_served", "Stale entries served while a refresh runs").sample(s.staleServed());
+        out.counter("weather_refreshes", "Background refreshes of stale entries, by outcome")
+                .sample(s.refreshesStarted(), "outcome", "started")
+                .sample(s.refreshesSucceeded(), "outcome", "succeeded")
+                .sample(s.refreshesFailed(), "outcome", "failed")
+                .sample(s.refreshesCoalesced(), "outcome", "coalesced");
+        if (s.maxRefreshAgeMs() >= 0) {
+            out.gauge("weather_refresh_age_max_seconds", "Oldest entry age at refresh").sample(s.maxRefreshAgeMs() / 1e3);
+            out.gauge("weather_refresh_age_mean_seconds", "Mean entry age at refresh").sample(s.meanRefreshAgeMs() / 1e3);
+        }
+    }
+
+    private void writeMongo(OpenMetricsWriter out) {
+        if (!mongoDriverMetrics.isActive()) {
+            return;
+        }
+        MongoDriverMetrics.PoolStats pool = mongoDriverMetrics.poolStats();
+        out.gauge("mongo_pool_max_connections", "Connection pool size limit, summed over servers")
+                .sample(pool.maxSize());
+        out.gauge("mongo_pool_connections", "Open pooled connections").sample(pool.size());
+        out.gauge("mongo_pool_checked_out_connections", "Connections in use").sample(pool.checkedOut());
+        out.gauge("mongo_pool_wait_queue_size", "Callers waiting for a connection").sample(pool.waitQueueSize());
+        out.counter("mongo_pool_checkout_timeouts", "Checkouts that gave up after the pool's max wait time")
+                .sample(pool.checkoutTimeouts());
+        out.histogram("mongo_pool_checkout_duration_seconds", "Time callers waited for a pooled connection")
+                .stageHistogram(mongoDriverMetrics.checkoutHistogram());
+        out.histogram("mongo_command_duration_seconds", "MongoDB command latency by command name");
+        mongoDriverMetrics.commandHistograms().forEach((command, histogram) ->
+                out.stageHistogram(histogram, "command", command));
+        out.counter("mongo_command_failures", "MongoDB commands that failed");
+        mongoDriverMetrics.commandHistograms().forEach((command, histogram) ->
+                out.sample(histogram.failures(), "command", command));
+    }
+
+    private void writeLogging(OpenMetricsWriter out) {
+        LoggingMetrics.LoggingStats stats = loggingMetrics.snapshot();
+        if (!stats.asyncAppenders().isEmpty()) {
+            out.gauge("log_async_queued_events", "Events waiting in the async appender queue");
+            stats.asyncAppenders().forEach(a -> out.sample(a.queued(), "appender", a.name()));
+            out.gauge("log_async_queue_capacity", "Capacity of the async appender queue");
+            stats.asyncAppenders().forEach(a -> out.sample(a.queueSize(), "appender", a.name()));
+        }
+        if (!stats.rateLimits().isEmpty()) {
+            out.counter("log_messages", "Messages seen by each log rate limit, by outcome");
+            for (LogRateLimitFilter.LimitStats limit : stats.rateLimits()) {
+                out.sample(limit.passed(), "logger", limit.logger(), "outcome", "passed");
+                out.sample(limit.suppressed(), "logger", limit.logger(), "outcome", "suppressed");
+            }
+        }
+    }
+
+    private void writeTraceExport(OpenMetricsWriter out) {
+        OtlpTraceExporter.ExportStats stats = traceExporter.stats();
+        if (!stats.enabled()) {
+            return;
+        }
+        out.gauge("tracing_otlp_queued_traces", "Traces waiting to be exported").sample(stats.queued());
+        out.counter("tracing_otlp_exported_traces", "Traces exported").sample(stats.exportedTraces());
+        out.counter("tracing_otlp_dropped_traces", "Traces lost to a full queue or a failed export")
+                .sample(stats.droppedTraces());
+        out.counter("tracing_otlp_failed_batches", "Export batches the collector did not accept")
+                .sample(stats.failedBatches());
+    }
+
+    private record Sample(long epochMillis, ResourceMetrics metrics, ResourcePrediction prediction,
+                          long gcCollectionsDelta, long gcMillisDelta) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.mxfz.weatherservice.metrics;
+
+import com.mxfz.weatherservice.tracing.StageHistogram;
+
+/**
+ * Writes the OpenMetrics text format: each metric family is opened with {@link #counter}, {@link #gauge},
+ * {@link #histogram} or {@link #stateset} and followed by its samples, and the page ends with {@link #finish}.
+ * Sample names get the suffix their family type requires (_total, _bucket, _count, _sum).
+ */
+final class OpenMetricsWriter {
+
+    // Bucket bounds of StageHistogram in seconds, formatted once
+    private static final String[] STAGE_BUCKET_BOUNDS = new String[StageHistogram.BUCKETS];
+
+    static {
+        for (int i = 0; i < StageHistogram.BUCKETS - 1; i++) {
+            STAGE_BUCKET_BOUNDS[i] = Double.toString(StageHistogram.upperBoundNanos(i) / 1e9);
+        }
+        STAGE_BUCKET_BOUNDS[StageHistogram.BUCKETS - 1] = "+Inf";
+    }
+
+    private final StringBuilder out;
+    private String family;
+    private String type;
+
+    OpenMetricsWriter(int capacity) {
+        this.out = new StringBuilder(capacity);
+    }
+
+    OpenMetricsWriter counter(String name, String help) {
+        return family(name, "counter", help);
+    }
+
+    OpenMetricsWriter gauge(String name, String help) {
+        return family(name, "gauge", help);
+    }
+
+    OpenMetricsWriter histogram(String name, String help) {
+        return family(name, "histogram", help);
+    }
+
+    /**
+     * A set of boolean states, one sample per state with the family name as label, e.g. the prediction level
+     */
+    OpenMetricsWriter stateset(String name, String help) {
+        return family(name, "stateset", help);
+    }
+
+    private OpenMetricsWriter family(String name, String type, String help) {
+        this.family = name;
+        this.type = type;
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        return this;
+    }
+
+    /**
+     * @param labels label names and values, alternating
+     */
+    OpenMetricsWriter sample(long value, String... labels) {
+        startSample(labels);
+        out.append(value).append('\n');
+        return this;
+    }
+
+    /**
+     * @param labels label names and values, alternating
+     */
+    OpenMetricsWriter sample(double value, String... labels) {
+        startSample(labels);
+        appendDouble(value);
+        out.append('\n');
+        return this;
+    }
+
+    OpenMetricsWriter state(String state, boolean set, String... labels) {
+        String[] withState = new String[labels.length + 2];
+        System.arraycopy(labels, 0, withState, 0, labels.length);
+        withState[labels.length] = family;
+        withState[labels.length + 1] = state;
+        return sample(set ? 1 : 0, withState);
+    }
+
+    /**
+     * Writes the cumulative buckets, count and sum of a stage histogram, in seconds
+     */
+    OpenMetricsWriter stageHistogram(StageHistogram histogram, String... labels) {
+        long[] counts = histogram.bucketCounts();
+        String[] withBound = new String[labels.length + 2];
+        System.arraycopy(labels, 0, withBound, 0, labels.length);
+        withBound[labels.length] = "le";
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            withBound[labels.length + 1] = STAGE_BUCKET_BOUNDS[i];
+            appendSample("_bucket", withBound);
+            out.append(cumulative).append('\n');
+        }
+        // Count and sum from the buckets' own snapshot, so +Inf and _count always agree
+        appendSample("_count", labels);
+        out.append(cumulative).append('\n');
+        appendSample("_sum", labels);
+        appendDouble(histogram.totalNanos() / 1e9);
+        out.append('\n');
+        return this;
+    }
+
+    String finish() {
+        out.append("# EOF\n");
+        return out.toString();
+    }
+
+    private void startSample(String[] labels) {
+        appendSample("counter".equals(type) ? "_total" : "", labels);
+    }
+
+    private void appendSample(String suffix, String[] labels) {
+        out.append(family).append(suffix);
+        if (labels.length > 0) {
+            out.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(labels[i]).append("=\"");
+                appendEscaped(labels[i + 1]);
+                out.append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ');
+    }
+
+    private void appendEscaped(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private void appendDouble(double value) {
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == (long) value && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+    }
+}
@@ -53,5 +53,22 @@ public class ResourceMetrics {
     private Integer threadPoolQueueSize;
     private Integer threadPoolPoolSize;
     private Long threadPoolCompletedTasks;
+
+    // Virtual Thread Pinning (cumulative since startup, null when detection is inactive)
+    private Long virtualThreadPinnedEvents;
+    private Long virtualThreadPinnedMillis;
+    private Long virtualThreadMaxPinnedMillis;
+    // Pins per minute and time held over the monitor's sliding rate window
+    private Double virtualThreadPinsPerMinute;
+    private Long virtualThreadRecentPinnedMillis;
+
+    // MongoDB Connection Pool (checkout counts and times cumulative since startup, null before the pool exists)
+    private Integer mongoPoolMaxSize;
+    private Integer mongoPoolSize;
+    private Integer mongoPoolCheckedOut;
+    private Integer mongoPoolWaitQueueSize;
+    private Long mongoPoolCheckouts;
+    private Long mongoPoolCheckoutMillis;
+    private Long mongoPoolCheckoutTimeouts;
 }
 
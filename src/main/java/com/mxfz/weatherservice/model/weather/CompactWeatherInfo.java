@@ -0,0 +1,178 @@
+package com.mxfz.weatherservice.model.weather;
+
+import com.mxfz.weatherservice.codec.DateCodec;
+import com.mxfz.weatherservice.util.StringDictionary;
+
+import java.util.UUID;
+
+/**
+ * Compact in-memory representation of {@link WeatherInfo} for batch pipelines and caches.
+ *
+ * Every measurement is a primitive with a sentinel for "missing" (NaN, Integer.MIN_VALUE, Long.MIN_VALUE),
+ * the UUID id is held as two longs, the date as an epoch day, a numeric pincode as an int and the description
+ * as a code into a {@link StringDictionary} owned by the caller. Values that don't fit (non-UUID ids,
+ * non-numeric pincodes, descriptions past the dictionary's capacity) are kept inline as Strings.
+ * Convert with {@link #from} and {@link #toWeatherInfo}, using the same dictionary both ways;
+ * the document/JSON shape stays WeatherInfo.
+ */
+public final class CompactWeatherInfo {
+
+    static final int MISSING_INT = Integer.MIN_VALUE;
+    static final long MISSING_LONG = Long.MIN_VALUE;
+
+    private final long idMostSignificantBits;
+    private final long idLeastSignificantBits;
+    private final String inlineId;          // only set when the id is not a canonical UUID
+
+    private final int pincode;
+    private final String inlinePincode;     // only set when the pincode doesn't fit an int
+    private final int epochDay;
+
+    private final double latitude;
+    private final double longitude;
+    private final long sunrise;
+    private final long sunset;
+    private final double temp;
+    private final double feelsLike;
+    private final int pressure;
+    private final int humidity;
+    private final double dewPoint;
+    private final int clouds;
+    private final int visibility;
+    private final double windSpeed;
+    private final int windDeg;
+    private final int descriptionCode;
+    private final String inlineDescription; // only set when the dictionary is full
+    private final long fetchedAt;
+
+    private CompactWeatherInfo(WeatherInfo info, StringDictionary descriptions) {
+        UUID uuid = parseUuid(info.getId());
+        this.idMostSignificantBits = uuid == null ? 0 : uuid.getMostSignificantBits();
+        this.idLeastSignificantBits = uuid == null ? 0 : uuid.getLeastSignificantBits();
+        this.inlineId = uuid == null ? info.getId() : null;
+
+        this.pincode = parsePincode(info.getPincode());
+        this.inlinePincode = pincode == MISSING_INT ? info.getPincode() : null;
+        this.epochDay = info.getDate() == null ? MISSING_INT : (int) DateCodec.toEpochDay(info.getDate());
+
+        this.latitude = toPrimitive(info.getLatitude());
+        this.longitude = toPrimitive(info.getLongitude());
+        this.sunrise = toPrimitive(info.getSunrise());
+        this.sunset = toPrimitive(info.getSunset());
+        this.temp = toPrimitive(info.getTemp());
+        this.feelsLike = toPrimitive(info.getFeelsLike());
+        this.pressure = toPrimitive(info.getPressure());
+        this.humidity = toPrimitive(info.getHumidity());
+        this.dewPoint = toPrimitive(info.getDewPoint());
+        this.clouds = toPrimitive(info.getClouds());
+        this.visibility = toPrimitive(info.getVisibility());
+        this.windSpeed = toPrimitive(info.getWindSpeed());
+        this.windDeg = toPrimitive(info.getWindDeg());
+        this.descriptionCode = descriptions.encode(info.getWeatherDescription());
+        this.inlineDescription = descriptionCode == StringDictionary.NO_CODE ? info.getWeatherDescription() : null;
+        this.fetchedAt = toPrimitive(info.getFetchedAt());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the date is set but is not a valid yyyy-MM-dd date
+     */
+    public static CompactWeatherInfo from(WeatherInfo info, StringDictionary descriptions) {
+        return new CompactWeatherInfo(info, descriptions);
+    }
+
+    /**
+     * Rebuilds the document/response form, decoding the description with the dictionary it was encoded with
+     */
+    public WeatherInfo toWeatherInfo(StringDictionary descriptions) {
+        WeatherInfo info = new WeatherInfo(getPincode(), toBoxed(latitude), toBoxed(longitude), getDate(),
+                toBoxed(sunrise), toBoxed(sunset), toBoxed(temp), toBoxed(feelsLike), toBoxed(pressure),
+                toBoxed(humidity), toBoxed(dewPoint), toBoxed(clouds), toBoxed(visibility), toBoxed(windSpeed),
+                toBoxed(windDeg), getWeatherDescription(descriptions));
+        info.setId(getId());
+        info.setFetchedAt(toBoxed(fetchedAt));
+        return info;
+    }
+
+    public String getId() {
+        return inlineId == null ? new UUID(idMostSignificantBits, idLeastSignificantBits).toString() : inlineId;
+    }
+
+    public String getPincode() {
+        return pincode == MISSING_INT ? inlinePincode : Integer.toString(pincode);
+    }
+
+    public String getDate() {
+        return epochDay == MISSING_INT ? null : DateCodec.formatEpochDay(epochDay);
+    }
+
+    public int getEpochDay() {
+        return epochDay;
+    }
+
+    public double getTemp() {
+        return temp;
+    }
+
+    public int getHumidity() {
+        return humidity;
+    }
+
+    public String getWeatherDescription(StringDictionary descriptions) {
+        return descriptionCode == StringDictionary.NO_CODE ? inlineDescription : descriptions.decode(descriptionCode);
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            // Only accept ids that round-trip exactly (canonical lower-case form)
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the pincode as an int if it round-trips exactly (digits only, no leading zero), else MISSING_INT
+     */
+    private static int parsePincode(String pincode) {
+        if (pincode == null || pincode.isEmpty() || pincode.length() > 9 || pincode.charAt(0) == '0') {
+            return MISSING_INT;
+        }
+        int value = 0;
+        for (int i = 0; i < pincode.length(); i++) {
+            int digit = pincode.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return MISSING_INT;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static double toPrimitive(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static long toPrimitive(Long value) {
+        return value == null ? MISSING_LONG : value;
+    }
+
+    private static int toPrimitive(Integer value) {
+        return value == null ? MISSING_INT : value;
+    }
+
+    private static Double toBoxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static Long toBoxed(long value) {
+        return value == MISSING_LONG ? null : value;
+    }
+
+    private static Integer toBoxed(int value) {
+        return value == MISSING_INT ? null : value;
+    }
+}
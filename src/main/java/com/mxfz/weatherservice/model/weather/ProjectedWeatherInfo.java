@@ -0,0 +1,9 @@
+package com.mxfz.weatherservice.model.weather;
+
+/**
+ * Result of a projected read (?fields=...). Unselected fields are left null, and the shared mappers
+ * (see {@link com.mxfz.weatherservice.config.JacksonConfig}) leave null fields of this type out of responses;
+ * full {@link WeatherInfo} responses keep theirs.
+ */
+public class ProjectedWeatherInfo extends WeatherInfo {
+}
@@ -0,0 +1,80 @@
+package com.mxfz.weatherservice.model.weather;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Field selection for weather reads, e.g. ?fields=temp,humidity.
+ * An empty selection means all fields; the id (and the internal fetchedAt) are always read.
+ */
+public final class WeatherFields {
+
+    public static final List<String> NAMES = List.of(
+            "pincode", "date", "latitude", "longitude", "sunrise", "sunset", "temp", "feelsLike",
+            "pressure", "humidity", "dewPoint", "clouds", "visibility", "windSpeed", "windDeg", "weatherDescription");
+
+    private static final Set<String> KNOWN = Set.copyOf(NAMES);
+
+    private WeatherFields() {
+    }
+
+    /**
+     * Parses a comma separated field list; null or blank selects all fields
+     *
+     * @throws IllegalArgumentException if a name is not a {@link WeatherInfo} field
+     */
+    public static Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Collections.emptySet();
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            String field = name.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!KNOWN.contains(field)) {
+                throw new IllegalArgumentException("Unknown weather field '" + field + "', expected one of " + NAMES);
+            }
+            selected.add(field);
+        }
+        return Collections.unmodifiableSet(selected);
+    }
+
+    /**
+     * Returns a {@link ProjectedWeatherInfo} holding only the selected fields (and the id),
+     * or the info itself if all are selected
+     */
+    public static WeatherInfo project(WeatherInfo info, Set<String> fields) {
+        if (info == null || fields.isEmpty()) {
+            return info;
+        }
+        WeatherInfo projected = new ProjectedWeatherInfo();
+        projected.setId(info.getId());
+        projected.setFetchedAt(info.getFetchedAt());
+        for (String field : fields) {
+            switch (field) {
+                case "pincode" -> projected.setPincode(info.getPincode());
+                case "date" -> projected.setDate(info.getDate());
+                case "latitude" -> projected.setLatitude(info.getLatitude());
+                case "longitude" -> projected.setLongitude(info.getLongitude());
+                case "sunrise" -> projected.setSunrise(info.getSunrise());
+                case "sunset" -> projected.setSunset(info.getSunset());
+                case "temp" -> projected.setTemp(info.getTemp());
+                case "feelsLike" -> projected.setFeelsLike(info.getFeelsLike());
+                case "pressure" -> projected.setPressure(info.getPressure());
+                case "humidity" -> projected.setHumidity(info.getHumidity());
+                case "dewPoint" -> projected.setDewPoint(info.getDewPoint());
+                case "clouds" -> projected.setClouds(info.getClouds());
+                case "visibility" -> projected.setVisibility(info.getVisibility());
+                case "windSpeed" -> projected.setWindSpeed(info.getWindSpeed());
+                case "windDeg" -> projected.setWindDeg(info.getWindDeg());
+                case "weatherDescription" -> projected.setWeatherDescription(info.getWeatherDescription());
+                default -> throw new IllegalArgumentException("Unknown weather field '" + field + "'");
+            }
+        }
+        return projected;
+    }
+}
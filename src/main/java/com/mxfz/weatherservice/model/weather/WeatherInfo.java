@@ -1,5 +1,6 @@
 package com.mxfz.weatherservice.model.weather;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -40,6 +41,9 @@ public class WeatherInfo {
 
     private String weatherDescription;  // Textual description of the weather conditions
 
+    @JsonIgnore
+    private Long fetchedAt;  // Epoch millis of the upstream fetch, drives freshness of today's and future dates
+
     public WeatherInfo(String pincode, Double latitude, Double longitude, String date, Long sunrise, Long sunset,
                        Double temp, Double feelsLike, Integer pressure, Integer humidity, Double dewPoint,
                        Integer clouds, Integer visibility, Double windSpeed, Integer windDeg, String weatherDescription) {
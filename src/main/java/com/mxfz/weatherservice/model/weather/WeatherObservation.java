@@ -0,0 +1,83 @@
+package com.mxfz.weatherservice.model.weather;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Time-series form of {@link WeatherInfo}: one measurement per pincode and day,
+ * with the location as metaField and the start of the UTC day as timeField.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = WeatherObservation.COLLECTION)
+@TimeSeries(timeField = "timestamp", metaField = "location", granularity = Granularity.HOURS)
+public class WeatherObservation {
+
+    public static final String COLLECTION = "weather_observations";
+
+    @Id
+    private String id;
+
+    private Instant timestamp;
+    private ObservationLocation location;
+
+    private Long sunrise;
+    private Long sunset;
+
+    private Double temp;
+    private Double feelsLike;
+
+    private Integer pressure;
+    private Integer humidity;
+    private Double dewPoint;
+
+    private Integer clouds;
+    private Integer visibility;
+    private Double windSpeed;
+    private Integer windDeg;
+
+    private String weatherDescription;
+
+    private Long fetchedAt;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ObservationLocation {
+        private String pincode;
+        private Double latitude;
+        private Double longitude;
+    }
+
+    public static WeatherObservation from(WeatherInfo info) {
+        Instant timestamp = LocalDate.parse(info.getDate()).atStartOfDay(ZoneOffset.UTC).toInstant();
+        return new WeatherObservation(info.getId(), timestamp,
+                new ObservationLocation(info.getPincode(), info.getLatitude(), info.getLongitude()),
+                info.getSunrise(), info.getSunset(), info.getTemp(), info.getFeelsLike(), info.getPressure(),
+                info.getHumidity(), info.getDewPoint(), info.getClouds(), info.getVisibility(), info.getWindSpeed(),
+                info.getWindDeg(), info.getWeatherDescription(), info.getFetchedAt());
+    }
+
+    public WeatherInfo toWeatherInfo() {
+        String date = timestamp == null ? null : LocalDate.ofInstant(timestamp, ZoneOffset.UTC).toString();
+        String pincode = location == null ? null : location.getPincode();
+        Double latitude = location == null ? null : location.getLatitude();
+        Double longitude = location == null ? null : location.getLongitude();
+
+        WeatherInfo info = new WeatherInfo(pincode, latitude, longitude, date, sunrise, sunset, temp, feelsLike,
+                pressure, humidity, dewPoint, clouds, visibility, windSpeed, windDeg, weatherDescription);
+        info.setId(id);
+        info.setFetchedAt(fetchedAt);
+        return info;
+    }
+}
@@ -0,0 +1,267 @@
+package com.mxfz.weatherservice.ratelimit;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket for one upstream: refills at ratePerSecond up to burst tokens, one token per call, plus an
+ * optional daily call quota that resets at midnight UTC.
+ *
+ * - Callers without a token queue until their deadline, served by priority and then arrival order
+ * - A caller whose turn cannot come before its deadline is rejected immediately instead of queueing
+ * - Once the quota is nearly used, the last interactiveReserve share is kept for interactive calls
+ */
+public final class TokenBucket {
+
+    private static final Comparator<Waiter> BY_PRIORITY_THEN_ARRIVAL =
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence);
+
+    private final String upstream;
+    private final Settings settings;
+    private final LongSupplier nanoClock;
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(BY_PRIORITY_THEN_ARRIVAL);
+    private double tokens;
+    private long lastRefillNanos;
+    private long sequence;
+    private LocalDate quotaDay;
+    private long usedToday;
+
+    private final Map<UpstreamPriority, LongAdder> granted = new EnumMap<>(UpstreamPriority.class);
+    private final Map<UpstreamPriority, LongAdder> waitNanos = new EnumMap<>(UpstreamPriority.class);
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder rejectedDeadline = new LongAdder();
+    private final LongAdder rejectedQuota = new LongAdder();
+
+    public TokenBucket(String upstream, Settings settings) {
+        this(upstream, settings, System::nanoTime, Clock.systemUTC());
+    }
+
+    TokenBucket(String upstream, Settings settings, LongSupplier nanoClock, Clock clock) {
+        if (settings.ratePerSecond() <= 0 || settings.burst() < 1) {
+            throw new IllegalArgumentException("Token bucket for " + upstream + " needs a positive rate and burst");
+        }
+        this.upstream = upstream;
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        this.clock = clock;
+        this.tokens = settings.burst();
+        this.lastRefillNanos = nanoClock.getAsLong();
+        this.quotaDay = LocalDate.now(clock);
+        for (UpstreamPriority priority : UpstreamPriority.values()) {
+            granted.put(priority, new LongAdder());
+            waitNanos.put(priority, new LongAdder());
+        }
+    }
+
+    public String upstream() {
+        return upstream;
+    }
+
+    public Settings settings() {
+        return settings;
+    }
+
+    /**
+     * Takes a token if one is available and nobody is queued; never waits
+     */
+    public boolean tryAcquire(UpstreamPriority priority) {
+        lock.lock();
+        try {
+            long now = nanoClock.getAsLong();
+            checkQuota(priority);
+            refill(now);
+            if (waiters.isEmpty() && tokens >= 1) {
+                take(priority, 0);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a token, waiting in the priority queue until deadlineNanos (a System.nanoTime value) at most
+     *
+     * @throws UpstreamRateLimitedException if the deadline passes first or the daily quota is used up
+     */
+    public void acquire(UpstreamPriority priority, long deadlineNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long start = nanoClock.getAsLong();
+            checkQuota(priority);
+            refill(start);
+            if (waiters.isEmpty() && tokens >= 1) {
+                take(priority, 0);
+                return;
+            }
+
+            // Everyone of the same or higher priority already queued is served first
+            long ahead = waiters.stream().filter(w -> w.priority().compareTo(priority) <= 0).count();
+            long expectedWaitNanos = nanosUntil(ahead + 1);
+            if (start + expectedWaitNanos > deadlineNanos) {
+                rejectedDeadline.increment();
+                throw new UpstreamRateLimitedException(upstream, UpstreamRateLimitedException.Reason.DEADLINE,
+                        String.format("%s rate limit: %d call(s) queued ahead, expected wait %d ms exceeds the deadline",
+                                upstream, ahead, TimeUnit.NANOSECONDS.toMillis(expectedWaitNanos)));
+            }
+
+            Waiter waiter = new Waiter(priority, sequence++);
+            waiters.add(waiter);
+            try {
+                while (true) {
+                    long now = nanoClock.getAsLong();
+                    checkQuota(priority);
+                    refill(now);
+                    boolean first = waiters.peek() == waiter;
+                    if (first && tokens >= 1) {
+                        waiters.poll();
+                        take(priority, now - start);
+                        changed.signalAll();
+                        return;
+                    }
+                    long remaining = deadlineNanos - now;
+                    if (remaining <= 0) {
+                        rejectedDeadline.increment();
+                        throw new UpstreamRateLimitedException(upstream, UpstreamRateLimitedException.Reason.DEADLINE,
+                                upstream + " rate limit: no permit before the deadline after waiting "
+                                        + TimeUnit.NANOSECONDS.toMillis(now - start) + " ms");
+                    }
+                    changed.awaitNanos(first ? Math.min(remaining, nanosUntil(1)) : remaining);
+                }
+            } finally {
+                if (waiters.remove(waiter)) {
+                    // Leaving early (deadline, quota, interrupt) may make someone else first
+                    changed.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a token that was granted but not used, e.g. because the caller was cancelled meanwhile
+     */
+    public void release() {
+        lock.lock();
+        try {
+            tokens = Math.min(settings.burst(), tokens + 1);
+            if (usedToday > 0) {
+                usedToday--;
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            refill(nanoClock.getAsLong());
+            rollQuotaDay();
+            Map<UpstreamPriority, Long> grantedByPriority = new EnumMap<>(UpstreamPriority.class);
+            Map<UpstreamPriority, Double> meanWaitMs = new EnumMap<>(UpstreamPriority.class);
+            for (UpstreamPriority priority : UpstreamPriority.values()) {
+                long count = granted.get(priority).sum();
+                grantedByPriority.put(priority, count);
+                meanWaitMs.put(priority, count == 0 ? 0.0 : waitNanos.get(priority).sum() / 1e6 / count);
+            }
+            return new Stats(upstream, settings.ratePerSecond(), settings.burst(), tokens, waiters.size(),
+                    grantedByPriority, meanWaitMs, maxWaitNanos.get() / 1e6, rejectedDeadline.sum(),
+                    rejectedQuota.sum(), settings.dailyQuota(), usedToday);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void take(UpstreamPriority priority, long waitedNanos) {
+        tokens -= 1;
+        usedToday++;
+        granted.get(priority).increment();
+        waitNanos.get(priority).add(waitedNanos);
+        maxWaitNanos.accumulate(waitedNanos);
+    }
+
+    private void refill(long now) {
+        if (now > lastRefillNanos) {
+            tokens = Math.min(settings.burst(), tokens + (now - lastRefillNanos) * settings.ratePerSecond() / 1e9);
+            lastRefillNanos = now;
+        }
+    }
+
+    private long nanosUntil(double neededTokens) {
+        double missing = neededTokens - tokens;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / settings.ratePerSecond() * 1e9);
+    }
+
+    private void checkQuota(UpstreamPriority priority) {
+        if (settings.dailyQuota() <= 0) {
+            return;
+        }
+        rollQuotaDay();
+        long limit = priority == UpstreamPriority.INTERACTIVE
+                ? settings.dailyQuota()
+                : (long) Math.floor(settings.dailyQuota() * (1 - settings.interactiveReserve()));
+        if (usedToday >= limit) {
+            rejectedQuota.increment();
+            throw new UpstreamRateLimitedException(upstream, UpstreamRateLimitedException.Reason.QUOTA,
+                    String.format("%s daily quota used: %d of %d calls (%s calls may use %d)",
+                            upstream, usedToday, settings.dailyQuota(), priority, limit));
+        }
+    }
+
+    private void rollQuotaDay() {
+        LocalDate today = LocalDate.now(clock);
+        if (!today.equals(quotaDay)) {
+            quotaDay = today;
+            usedToday = 0;
+        }
+    }
+
+    private record Waiter(UpstreamPriority priority, long sequence) {
+    }
+
+    /**
+     * @param dailyQuota         calls per UTC day, 0 for no quota
+     * @param interactiveReserve share of the daily quota only interactive calls may use
+     * @param maxWaitMs          longest queue wait for callers that bring no deadline of their own
+     */
+    public record Settings(double ratePerSecond, int burst, long dailyQuota, double interactiveReserve,
+                           long maxWaitMs) {
+    }
+
+    /**
+     * @param tokens      tokens available right now
+     * @param queued      callers currently waiting for a token
+     * @param meanWaitMs  mean queue wait of granted calls, by priority
+     */
+    public record Stats(String upstream,
+                        double ratePerSecond,
+                        int burst,
+                        double tokens,
+                        int queued,
+                        Map<UpstreamPriority, Long> granted,
+                        Map<UpstreamPriority, Double> meanWaitMs,
+                        double maxWaitMs,
+                        long rejectedDeadline,
+                        long rejectedQuota,
+                        long dailyQuota,
+                        long usedToday) {
+    }
+}
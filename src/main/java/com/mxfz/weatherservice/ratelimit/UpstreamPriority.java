@@ -0,0 +1,76 @@
+package com.mxfz.weatherservice.ratelimit;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Priority of upstream calls made by the current thread, highest first. Calls without an explicit
+ * priority are treated as user-facing.
+ *
+ * The priority is thread-local: work handed to another thread must carry it over with {@link #wrap}
+ * or {@link #supply}.
+ */
+public enum UpstreamPriority {
+
+    /**
+     * A user is waiting on a single lookup
+     */
+    INTERACTIVE,
+
+    /**
+     * Bulk lookups such as /weather-batch
+     */
+    BATCH,
+
+    /**
+     * Prefetch and stale-while-revalidate refreshes, which nobody waits on
+     */
+    BACKGROUND;
+
+    private static final ThreadLocal<UpstreamPriority> CURRENT = new ThreadLocal<>();
+
+    public static UpstreamPriority current() {
+        UpstreamPriority priority = CURRENT.get();
+        return priority == null ? INTERACTIVE : priority;
+    }
+
+    /**
+     * Runs the supplier with this priority on the current thread
+     */
+    public static <T> T supply(UpstreamPriority priority, Supplier<T> supplier) {
+        UpstreamPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+        try {
+            return supplier.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static <T> Callable<T> wrap(UpstreamPriority priority, Callable<T> task) {
+        return () -> {
+            UpstreamPriority previous = CURRENT.get();
+            CURRENT.set(priority);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public static Runnable wrap(UpstreamPriority priority, Runnable task) {
+        return () -> supply(priority, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private static void restore(UpstreamPriority previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
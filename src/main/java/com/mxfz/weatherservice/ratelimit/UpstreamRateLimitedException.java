@@ -0,0 +1,34 @@
+package com.mxfz.weatherservice.ratelimit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown instead of calling an upstream when no permit could be had in time, or the daily quota is used up.
+ * Surfaces as 503, since the service itself is healthy but cannot serve the miss right now.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class UpstreamRateLimitedException extends RestClientException {
+
+    public enum Reason {
+        DEADLINE, QUOTA
+    }
+
+    private final String upstream;
+    private final Reason reason;
+
+    public UpstreamRateLimitedException(String upstream, Reason reason, String message) {
+        super(message);
+        this.upstream = upstream;
+        this.reason = reason;
+    }
+
+    public String getUpstream() {
+        return upstream;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,151 @@
+package com.mxfz.weatherservice.ratelimit;
+
+import com.mxfz.weatherservice.executor.BlockingIo;
+import com.mxfz.weatherservice.executor.TaskRouter;
+import com.mxfz.weatherservice.upstream.UpstreamEndpoints;
+import com.mxfz.weatherservice.util.BoundedTaskScope;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Per-upstream token buckets in front of the paid APIs. A call is matched to its upstream by
+ * {@link UpstreamEndpoints}; calls to other hosts, and upstreams with rate-per-second 0, pass freely.
+ *
+ * Callers queue for a permit until the earliest of their own timeout, the enclosing task scope deadline and
+ * rate-limit.max-wait-ms, ordered by {@link UpstreamPriority#current()}.
+ */
+@Component
+@BlockingIo
+@Slf4j
+public class UpstreamRateLimiter {
+
+    private final Map<String, TokenBucket> buckets = new LinkedHashMap<>();
+    private final UpstreamEndpoints endpoints;
+    private final TaskRouter taskRouter;
+
+    public UpstreamRateLimiter(UpstreamEndpoints endpoints, Environment environment, TaskRouter taskRouter) {
+        this.endpoints = endpoints;
+        this.taskRouter = taskRouter;
+        for (String upstream : endpoints.names()) {
+            TokenBucket.Settings settings = settingsFrom(environment, upstream);
+            if (settings.ratePerSecond() <= 0) {
+                log.info("No rate limit for upstream {}", upstream);
+                continue;
+            }
+            buckets.put(upstream, new TokenBucket(upstream, settings));
+            log.info("Rate limiting upstream {} to {}/s (burst {}, daily quota {})", upstream,
+                    settings.ratePerSecond(), settings.burst(), settings.dailyQuota() > 0 ? settings.dailyQuota() : "none");
+        }
+    }
+
+    /**
+     * Blocks until the call to the endpoint may go out
+     *
+     * @param timeout the caller's own deadline, or null to use the upstream's max-wait-ms
+     * @throws UpstreamRateLimitedException if no permit is granted in time or the daily quota is used up
+     */
+    public void acquire(URI endpoint, Duration timeout) {
+        TokenBucket bucket = bucketFor(endpoint);
+        if (bucket == null) {
+            return;
+        }
+        try {
+            bucket.acquire(UpstreamPriority.current(), deadlineNanos(bucket, timeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while waiting for a " + bucket.upstream() + " permit", e);
+        }
+    }
+
+    /**
+     * Takes a permit only if one is free right now, for optional calls such as hedges that should not queue
+     */
+    public boolean tryAcquire(URI endpoint) {
+        TokenBucket bucket = bucketFor(endpoint);
+        try {
+            return bucket == null || bucket.tryAcquire(UpstreamPriority.current());
+        } catch (UpstreamRateLimitedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #acquire}: completes once the call may go out. When a permit is free it
+     * completes immediately; otherwise a virtual thread waits in the queue. Cancelling the returned future
+     * leaves the queue, and returns the permit if it was granted meanwhile.
+     */
+    public CompletableFuture<Void> acquireAsync(URI endpoint, Duration timeout) {
+        TokenBucket bucket = bucketFor(endpoint);
+        if (bucket == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Priority and scope deadline are thread-local, so both are read on the caller's thread
+        UpstreamPriority priority = UpstreamPriority.current();
+        try {
+            if (bucket.tryAcquire(priority)) {
+                return CompletableFuture.completedFuture(null);
+            }
+        } catch (UpstreamRateLimitedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long deadline = deadlineNanos(bucket, timeout);
+
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        Future<?> waiting = taskRouter.executorFor(UpstreamRateLimiter.class).submit(() -> {
+            try {
+                bucket.acquire(priority, deadline);
+            } catch (InterruptedException e) {
+                permit.cancel(false);
+                return;
+            } catch (RuntimeException e) {
+                permit.completeExceptionally(e);
+                return;
+            }
+            if (!permit.complete(null)) {
+                bucket.release();
+            }
+        });
+        permit.whenComplete((value, error) -> {
+            if (permit.isCancelled()) {
+                waiting.cancel(true);
+            }
+        });
+        return permit;
+    }
+
+    public List<TokenBucket.Stats> snapshot() {
+        return buckets.values().stream().map(TokenBucket::stats).toList();
+    }
+
+    TokenBucket bucketFor(URI endpoint) {
+        String upstream = endpoints.resolve(endpoint);
+        return upstream == null ? null : buckets.get(upstream);
+    }
+
+    private static long deadlineNanos(TokenBucket bucket, Duration timeout) {
+        Duration maxWait = Duration.ofMillis(bucket.settings().maxWaitMs());
+        Duration wait = timeout == null || timeout.compareTo(maxWait) > 0 ? maxWait : timeout;
+        return System.nanoTime() + BoundedTaskScope.capToDeadline(wait).toNanos();
+    }
+
+    private static TokenBucket.Settings settingsFrom(Environment environment, String upstream) {
+        String prefix = "upstream." + upstream + ".rate-limit.";
+        double rate = environment.getProperty(prefix + "rate-per-second", Double.class, 0.0);
+        return new TokenBucket.Settings(
+                rate,
+                environment.getProperty(prefix + "burst", Integer.class, (int) Math.max(1, Math.ceil(rate))),
+                environment.getProperty(prefix + "daily-quota", Long.class, 0L),
+                environment.getProperty(prefix + "interactive-reserve", Double.class, 0.1),
+                environment.getProperty(prefix + "max-wait-ms", Long.class, 2000L));
+    }
+}
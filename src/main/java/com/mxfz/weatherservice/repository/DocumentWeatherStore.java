@@ -0,0 +1,107 @@
+package com.mxfz.weatherservice.repository;
+
+import com.mxfz.weatherservice.model.weather.ProjectedWeatherInfo;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Stores weather info as ordinary documents in the weather_info collection
+ */
+@Repository
+@ConditionalOnProperty(name = "weather.storage.mode", havingValue = "document", matchIfMissing = true)
+public class DocumentWeatherStore implements WeatherStore {
+
+    private static final String FETCHED_AT_FIELD = "fetchedAt";
+
+    private final WeatherRepository weatherRepository;
+    private final MongoTemplate mongoTemplate;
+
+    public DocumentWeatherStore(WeatherRepository weatherRepository, MongoTemplate mongoTemplate) {
+        this.weatherRepository = weatherRepository;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Backs the (pincode, date) lookups and per-pincode range scans
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(WeatherInfo.class)
+                .ensureIndex(new Index().on("pincode", Sort.Direction.ASC).on("date", Sort.Direction.ASC));
+    }
+
+    @Override
+    public WeatherInfo findByPincodeAndDate(String pincode, String date) {
+        return weatherRepository.findByPincodeAndDate(pincode, date);
+    }
+
+    @Override
+    public WeatherInfo findByPincodeAndDate(String pincode, String date, Set<String> fields) {
+        if (fields.isEmpty()) {
+            return findByPincodeAndDate(pincode, date);
+        }
+        Query query = new Query(Criteria.where("pincode").is(pincode).and("date").is(date));
+        return mongoTemplate.findOne(project(query, fields), ProjectedWeatherInfo.class);
+    }
+
+    @Override
+    public List<WeatherInfo> findByPincodeAndDateRange(String pincode, String fromDate, String toDate,
+                                                       Set<String> fields) {
+        if (fields.isEmpty()) {
+            return weatherRepository.findByPincodeAndDateRange(pincode, fromDate, toDate);
+        }
+        Query query = new Query(Criteria.where("pincode").is(pincode).and("date").gte(fromDate).lte(toDate))
+                .with(Sort.by(Sort.Direction.ASC, "date"));
+        return findProjected(project(query, fields));
+    }
+
+    @Override
+    public List<WeatherInfo> findRecentlyFetched(int limit, Set<String> fields) {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, FETCHED_AT_FIELD)).limit(limit);
+        return fields.isEmpty() ? mongoTemplate.find(query, WeatherInfo.class) : findProjected(project(query, fields));
+    }
+
+    @Override
+    public WeatherInfo save(WeatherInfo weatherInfo) {
+        return weatherRepository.save(weatherInfo);
+    }
+
+    @Override
+    public List<WeatherInfo> findAll(Set<String> fields) {
+        if (fields.isEmpty()) {
+            return weatherRepository.findAll();
+        }
+        return findProjected(project(new Query(), fields));
+    }
+
+    @Override
+    public Stream<WeatherInfo> streamAll() {
+        return weatherRepository.streamAllBy();
+    }
+
+    /**
+     * Projected reads map to {@link ProjectedWeatherInfo}, so unselected fields are left out of responses
+     */
+    private List<WeatherInfo> findProjected(Query query) {
+        return Collections.unmodifiableList(mongoTemplate.find(query, ProjectedWeatherInfo.class));
+    }
+
+    private static Query project(Query query, Set<String> fields) {
+        fields.forEach(field -> query.fields().include(field));
+        // Needed to judge freshness of the projected entry
+        query.fields().include(FETCHED_AT_FIELD);
+        return query;
+    }
+}
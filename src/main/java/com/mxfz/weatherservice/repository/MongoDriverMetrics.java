@@ -0,0 +1,157 @@
+package com.mxfz.weatherservice.repository;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import com.mxfz.weatherservice.tracing.StageHistogram;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool and command events from the MongoDB driver, registered on the client by
+ * {@link com.mxfz.weatherservice.config.MongoClientConfig}. Pool figures are summed over all servers the client
+ * talks to; with many virtual threads calling the repositories, the wait queue and checkout latency show callers
+ * queueing for a connection that would otherwise be invisible.
+ */
+@Component
+public class MongoDriverMetrics implements ConnectionPoolListener, CommandListener {
+
+    private final Map<ServerId, Integer> maxPoolSizes = new ConcurrentHashMap<>();
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder checkedOut = new LongAdder();
+    private final LongAdder waiting = new LongAdder();
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder checkoutTimeouts = new LongAdder();
+    private final StageHistogram checkoutLatency = new StageHistogram();
+    private final Map<String, StageHistogram> commandLatency = new ConcurrentHashMap<>();
+    private volatile boolean poolCreated;
+
+    @Override
+    public void connectionPoolCreated(ConnectionPoolCreatedEvent event) {
+        maxPoolSizes.put(event.getServerId(), event.getSettings().getMaxSize());
+        poolCreated = true;
+    }
+
+    @Override
+    public void connectionPoolClosed(ConnectionPoolClosedEvent event) {
+        maxPoolSizes.remove(event.getServerId());
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        connections.increment();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        connections.decrement();
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        waiting.increment();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        waiting.decrement();
+        checkedOut.increment();
+        checkouts.increment();
+        checkoutLatency.record(event.getElapsedTime(TimeUnit.NANOSECONDS), false);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        waiting.decrement();
+        if (event.getReason() == ConnectionCheckOutFailedEvent.Reason.TIMEOUT) {
+            checkoutTimeouts.increment();
+        }
+        checkoutLatency.record(event.getElapsedTime(TimeUnit.NANOSECONDS), true);
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        checkedOut.decrement();
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        commandHistogram(event.getCommandName()).record(event.getElapsedTime(TimeUnit.NANOSECONDS), false);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        commandHistogram(event.getCommandName()).record(event.getElapsedTime(TimeUnit.NANOSECONDS), true);
+    }
+
+    /**
+     * Whether the driver has created a connection pool yet; before that every figure is zero
+     */
+    public boolean isActive() {
+        return poolCreated;
+    }
+
+    public PoolStats poolStats() {
+        int maxSize = maxPoolSizes.values().stream().mapToInt(Integer::intValue).sum();
+        return new PoolStats(maxSize, (int) connections.sum(), (int) checkedOut.sum(),
+                (int) waiting.sum(), checkouts.sum(), checkoutLatency.totalNanos(), checkoutTimeouts.sum());
+    }
+
+    public StageHistogram checkoutHistogram() {
+        return checkoutLatency;
+    }
+
+    /**
+     * Command latency histograms by command name (find, insert, update, getMore, ...)
+     */
+    public Map<String, StageHistogram> commandHistograms() {
+        return new TreeMap<>(commandLatency);
+    }
+
+    public MongoStats snapshot() {
+        return new MongoStats(poolStats(), checkoutLatency.stats("checkout"),
+                commandHistograms().entrySet().stream()
+                        .map(entry -> entry.getValue().stats(entry.getKey()))
+                        .toList());
+    }
+
+    private StageHistogram commandHistogram(String commandName) {
+        return commandLatency.computeIfAbsent(commandName, name -> new StageHistogram());
+    }
+
+    /**
+     * @param maxSize          pool size limit, summed over servers
+     * @param waitQueueSize    callers waiting for a connection right now
+     * @param checkoutNanos    total time callers waited for a connection, including failed checkouts
+     * @param checkoutTimeouts checkouts that gave up after the pool's max wait time
+     */
+    public record PoolStats(int maxSize,
+                            int size,
+                            int checkedOut,
+                            int waitQueueSize,
+                            long checkouts,
+                            long checkoutNanos,
+                            long checkoutTimeouts) {
+    }
+
+    public record MongoStats(PoolStats pool,
+                             StageHistogram.StageStats checkout,
+                             List<StageHistogram.StageStats> commands) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.mxfz.weatherservice.repository;
+
+import com.mxfz.weatherservice.model.weather.ProjectedWeatherInfo;
+import com.mxfz.weatherservice.model.weather.WeatherFields;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import com.mxfz.weatherservice.model.weather.WeatherObservation;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Stores weather info in a MongoDB time-series collection (MongoDB 5.0+).
+ * Measurements are bucketed per location, which compresses well and makes per-pincode range scans cheap.
+ * Time-series measurements are not updated in place: a refreshed entry is inserted again under the same id,
+ * and reads keep the most recently fetched measurement per id.
+ */
+@Repository
+@ConditionalOnProperty(name = "weather.storage.mode", havingValue = "timeseries")
+@Slf4j
+public class TimeSeriesWeatherStore implements WeatherStore {
+
+    static final String PINCODE_FIELD = "location.pincode";
+    static final String TIME_FIELD = "timestamp";
+    static final String FETCHED_AT_FIELD = "fetchedAt";
+    private static final String ID_FIELD = "_id";
+    private static final String LATEST_FIELD = "latest";
+
+    private final MongoTemplate mongoTemplate;
+
+    public TimeSeriesWeatherStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Creates the time-series collection on first start; inserting into a missing collection
+     * would silently create an ordinary one instead
+     */
+    @PostConstruct
+    public void ensureCollection() {
+        if (!mongoTemplate.collectionExists(WeatherObservation.class)) {
+            mongoTemplate.createCollection(WeatherObservation.class);
+            log.info("Created time-series collection {}", WeatherObservation.COLLECTION);
+        }
+        mongoTemplate.indexOps(WeatherObservation.class)
+                .ensureIndex(new Index().on(PINCODE_FIELD, Sort.Direction.ASC).on(TIME_FIELD, Sort.Direction.ASC));
+    }
+
+    @Override
+    public WeatherInfo findByPincodeAndDate(String pincode, String date) {
+        return findByPincodeAndDate(pincode, date, Set.of());
+    }
+
+    @Override
+    public WeatherInfo findByPincodeAndDate(String pincode, String date, Set<String> fields) {
+        Query query = rangeQuery(pincode, date, date)
+                .with(Sort.by(Sort.Direction.DESC, TIME_FIELD, FETCHED_AT_FIELD))
+                .limit(1);
+        WeatherObservation observation = mongoTemplate.findOne(project(query, fields), WeatherObservation.class);
+        return observation == null ? null : toWeatherInfo(observation, fields);
+    }
+
+    @Override
+    public List<WeatherInfo> findByPincodeAndDateRange(String pincode, String fromDate, String toDate,
+                                                       Set<String> fields) {
+        Query query = rangeQuery(pincode, fromDate, toDate)
+                .with(Sort.by(Sort.Direction.ASC, TIME_FIELD, FETCHED_AT_FIELD));
+        return latestPerId(mongoTemplate.find(project(query, fields), WeatherObservation.class), fields);
+    }
+
+    @Override
+    public List<WeatherInfo> findRecentlyFetched(int limit, Set<String> fields) {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, FETCHED_AT_FIELD)).limit(limit);
+        return mongoTemplate.find(project(query, fields), WeatherObservation.class).stream()
+                .map(observation -> toWeatherInfo(observation, fields))
+                .toList();
+    }
+
+    @Override
+    public WeatherInfo save(WeatherInfo weatherInfo) {
+        mongoTemplate.insert(WeatherObservation.from(weatherInfo));
+        return weatherInfo;
+    }
+
+    @Override
+    public List<WeatherInfo> findAll(Set<String> fields) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, TIME_FIELD, FETCHED_AT_FIELD));
+        return latestPerId(mongoTemplate.find(project(query, fields), WeatherObservation.class), fields);
+    }
+
+    /**
+     * Streams the most recently fetched measurement per id. The collection has no _id index, so the
+     * aggregation sorts with disk use allowed rather than being capped by the in-memory sort limit.
+     */
+    @Override
+    public Stream<WeatherInfo> streamAll() {
+        Aggregation latestPerId = Aggregation.newAggregation(
+                        Aggregation.sort(Sort.by(Sort.Direction.ASC, ID_FIELD, FETCHED_AT_FIELD)),
+                        Aggregation.group(ID_FIELD).last(Aggregation.ROOT).as(LATEST_FIELD),
+                        Aggregation.replaceRoot(LATEST_FIELD))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return mongoTemplate.aggregateStream(latestPerId, WeatherObservation.class, WeatherObservation.class)
+                .map(WeatherObservation::toWeatherInfo);
+    }
+
+    /**
+     * Includes the observation paths backing the selected {@link WeatherInfo} fields
+     */
+    private static Query project(Query query, Set<String> fields) {
+        if (fields.isEmpty()) {
+            return query;
+        }
+        for (String field : fields) {
+            query.fields().include(switch (field) {
+                case "date" -> TIME_FIELD;
+                case "pincode" -> PINCODE_FIELD;
+                case "latitude", "longitude" -> "location." + field;
+                default -> field;
+            });
+        }
+        // Needed to judge freshness of the projected entry
+        query.fields().include(FETCHED_AT_FIELD);
+        return query;
+    }
+
+    /**
+     * Keeps the last measurement per id from a list sorted by timestamp and fetchedAt, in that order
+     */
+    private static List<WeatherInfo> latestPerId(List<WeatherObservation> observations, Set<String> fields) {
+        Map<String, WeatherObservation> latest = new LinkedHashMap<>();
+        for (WeatherObservation observation : observations) {
+            latest.put(observation.getId(), observation);
+        }
+        List<WeatherInfo> result = new ArrayList<>(latest.size());
+        latest.values().forEach(observation -> result.add(toWeatherInfo(observation, fields)));
+        return result;
+    }
+
+    /**
+     * Projected reads come back as {@link ProjectedWeatherInfo}, so unselected fields are left out of responses
+     */
+    private static WeatherInfo toWeatherInfo(WeatherObservation observation, Set<String> fields) {
+        return WeatherFields.project(observation.toWeatherInfo(), fields);
+    }
+
+    /**
+     * Matches one pincode from the start of fromDate up to (excluding) the day after toDate, in UTC
+     */
+    private Query rangeQuery(String pincode, String fromDate, String toDate) {
+        Instant from = LocalDate.parse(fromDate).atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = LocalDate.parse(toDate).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        return new Query(Criteria.where(PINCODE_FIELD).is(pincode)
+                .and(TIME_FIELD).gte(from).lt(to));
+    }
+}
@@ -2,10 +2,23 @@ package com.mxfz.weatherservice.repository;
 
 import com.mxfz.weatherservice.model.weather.WeatherInfo;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface WeatherRepository extends MongoRepository<WeatherInfo, String> {
 
     WeatherInfo findByPincodeAndDate(String pincode, String date);
+
+    // yyyy-MM-dd strings sort chronologically, so a string range is a date range
+    @Query(value = "{ 'pincode': ?0, 'date': { $gte: ?1, $lte: ?2 } }", sort = "{ 'date': 1 }")
+    List<WeatherInfo> findByPincodeAndDateRange(String pincode, String fromDate, String toDate);
+
+    /**
+     * Streams all documents through a cursor instead of loading them into a list; close the stream when done
+     */
+    Stream<WeatherInfo> streamAllBy();
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.mxfz.weatherservice.repository;
+
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Storage for weather info. The implementation is selected with weather.storage.mode:
+ * "document" (default, weather_info collection) or "timeseries" (weather_observations time-series collection).
+ * Methods taking fields fetch only those {@link com.mxfz.weatherservice.model.weather.WeatherFields} (plus the id)
+ * from Mongo and leave the rest null; an empty set reads all fields.
+ */
+public interface WeatherStore {
+
+    WeatherInfo findByPincodeAndDate(String pincode, String date);
+
+    WeatherInfo findByPincodeAndDate(String pincode, String date, Set<String> fields);
+
+    /**
+     * Returns weather info for the pincode between the two dates (yyyy-MM-dd, both inclusive), oldest first
+     */
+    List<WeatherInfo> findByPincodeAndDateRange(String pincode, String fromDate, String toDate, Set<String> fields);
+
+    /**
+     * Returns the most recently fetched entries, newest first, with only the selected fields
+     */
+    List<WeatherInfo> findRecentlyFetched(int limit, Set<String> fields);
+
+    WeatherInfo save(WeatherInfo weatherInfo);
+
+    List<WeatherInfo> findAll(Set<String> fields);
+
+    /**
+     * Streams all stored weather info through a cursor; the caller must close the stream
+     */
+    Stream<WeatherInfo> streamAll();
+}
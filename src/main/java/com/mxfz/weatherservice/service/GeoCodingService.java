@@ -2,6 +2,10 @@ package com.mxfz.weatherservice.service;
 
 import com.mxfz.weatherservice.model.PincodeLocation;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface GeoCodingService {
     PincodeLocation fetchLocationDetails(String pincode);
+
+    CompletableFuture<PincodeLocation> fetchLocationDetailsAsync(String pincode);
 }
@@ -1,12 +1,12 @@
 package com.mxfz.weatherservice.service;
 
+import com.mxfz.weatherservice.codec.GeocodeResponseDecoder;
 import com.mxfz.weatherservice.model.PincodeLocation;
-import com.mxfz.weatherservice.model.geocode.AddressComponent;
-import com.mxfz.weatherservice.model.geocode.GeocodeResponse;
-import com.mxfz.weatherservice.model.geocode.Result;
+import com.mxfz.weatherservice.tracing.RequestTrace;
+import com.mxfz.weatherservice.tracing.TraceStage;
+import com.mxfz.weatherservice.tracing.Tracer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
@@ -14,61 +14,77 @@ import org.springframework.stereotype.Service;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Slf4j
 public class GeoCodingServiceImpl implements GeoCodingService {
 
+    private static final String GEOCODING_PATH = "/maps/api/geocode/json";
+
+    private final URI geocodingUri;
     private final PincodeService pincodeService;
     private final RestService restService;
+    private final Tracer tracer;
     @Value("${google.maps.api.key}")
     private String googleMapsApiKey;
 
-    public GeoCodingServiceImpl(PincodeService pincodeService, RestService restService) {
+    public GeoCodingServiceImpl(PincodeService pincodeService, RestService restService, Tracer tracer,
+                                @Value("${upstream.google-geocoding.base-url:https://maps.googleapis.com}")
+                                String geocodingBaseUrl) {
+        this.geocodingUri = URI.create(geocodingBaseUrl.replaceAll("/+$", "") + GEOCODING_PATH);
         this.pincodeService = pincodeService;
         this.restService = restService;
+        this.tracer = tracer;
     }
 
     @Override
     public PincodeLocation fetchLocationDetails(String pincode) {
-        PincodeLocation savedPincodeInfo = pincodeService.findByPincode(pincode);
+        PincodeLocation savedPincodeInfo = tracer.trace(TraceStage.PINCODE_LOOKUP,
+                () -> pincodeService.findByPincode(pincode));
         if (savedPincodeInfo != null) {
             return savedPincodeInfo;
         }
-        GeocodeResponse res = callGoogleGeoCodingAPI(pincode);
-        PincodeLocation pincodeInfo = buildPincodeInfoFromGeoCodeResponse(res);
-        return pincodeService.createPincode(pincodeInfo);
+        PincodeLocation pincodeInfo = tracer.trace(TraceStage.GEOCODE, () -> callGoogleGeoCodingAPI(pincode));
+        return tracer.trace(TraceStage.PINCODE_SAVE, () -> pincodeService.createPincode(pincodeInfo));
     }
 
-    private GeocodeResponse callGoogleGeoCodingAPI(String pincode) {
-        String uriString = "https://maps.googleapis.com/maps/api/geocode/json";
-        URI uri = URI.create(uriString);
-        byte[] bytes = Base64.getDecoder().decode(googleMapsApiKey);
-        String key = new String(bytes, StandardCharsets.UTF_8);
-        Map<String, String> params = Map.of("address", pincode, "key", key);
-        return restService.callApi(uri, HttpMethod.GET, HttpHeaders.EMPTY, params, null,
-                ParameterizedTypeReference.forType(GeocodeResponse.class));
+    @Override
+    public CompletableFuture<PincodeLocation> fetchLocationDetailsAsync(String pincode) {
+        PincodeLocation savedPincodeInfo = tracer.trace(TraceStage.PINCODE_LOOKUP,
+                () -> pincodeService.findByPincode(pincode));
+        if (savedPincodeInfo != null) {
+            return CompletableFuture.completedFuture(savedPincodeInfo);
+        }
+        // The save runs on the thread completing the call, so it records into the trace captured here
+        RequestTrace trace = tracer.current();
+        CompletableFuture<PincodeLocation> call =
+                tracer.traceAsync(trace, TraceStage.GEOCODE, () -> callGoogleGeoCodingAPIAsync(pincode));
+        CompletableFuture<PincodeLocation> result = call.thenApply(location -> tracer.trace(trace,
+                TraceStage.PINCODE_SAVE, () -> pincodeService.createPincode(location)));
+        // Cancelling the lookup aborts the geocoding call
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return result;
     }
 
-    private PincodeLocation buildPincodeInfoFromGeoCodeResponse(GeocodeResponse response) {
+    private PincodeLocation callGoogleGeoCodingAPI(String pincode) {
+        return restService.callApi(geocodingUri, HttpMethod.GET, HttpHeaders.EMPTY, buildGeoCodingParams(pincode), null,
+                GeocodeResponseDecoder::decode);
+    }
 
-        Result firstResult = response.getResults().get(0);
-        // Assuming the first address component with "postal_code" type contains the pincode
-        String pincode = null;
-        for (AddressComponent component : firstResult.getAddressComponents()) {
-            if (component.getTypes().contains("postal_code")) {
-                pincode = component.getLongName();
-                break;
-            }
-        }
-        if (pincode == null) {
-            return null;
-        }
-        double latitude = firstResult.getGeometry().getLocation().getLat();
-        double longitude = firstResult.getGeometry().getLocation().getLng();
-        String address = firstResult.getFormattedAddress();
-        return new PincodeLocation(pincode, latitude, longitude, address);
+    private CompletableFuture<PincodeLocation> callGoogleGeoCodingAPIAsync(String pincode) {
+        return restService.callApiAsync(geocodingUri, HttpMethod.GET, HttpHeaders.EMPTY, buildGeoCodingParams(pincode),
+                null, GeocodeResponseDecoder::decode, null);
+    }
+
+    private Map<String, String> buildGeoCodingParams(String pincode) {
+        byte[] bytes = Base64.getDecoder().decode(googleMapsApiKey);
+        String key = new String(bytes, StandardCharsets.UTF_8);
+        return Map.of("address", pincode, "key", key);
     }
 }
@@ -1,93 +1,120 @@
 package com.mxfz.weatherservice.service;
 
+import com.mxfz.weatherservice.executor.BlockingIo;
+import com.mxfz.weatherservice.executor.ExecutorMetrics;
+import com.mxfz.weatherservice.executor.TaskRouter;
+import com.mxfz.weatherservice.util.BoundedTaskScope;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.IntStream;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Example service demonstrating how to use the ExecutorService for parallel operations.
  * This is a learning example for multi-threading.
+ * Fan-out goes through {@link BoundedTaskScope}, so concurrency is bounded and no task outlives its scope.
  */
 @Service
+@Lazy
+@BlockingIo
 @Slf4j
 public class ParallelTaskService {
 
-    private final ExecutorService taskExecutor;
+    private final ExecutorService ioExecutor;
+    private final TaskRouter taskRouter;
+    private final ExecutorMetrics executorMetrics;
 
-    public ParallelTaskService(@Qualifier("taskExecutor") ExecutorService taskExecutor) {
-        this.taskExecutor = taskExecutor;
+    @Value("${parallel.scope.max-concurrency:16}")
+    private int maxConcurrency;
+
+    @Value("${parallel.scope.default-timeout-ms:60000}")
+    private long defaultTimeoutMs;
+
+    public ParallelTaskService(TaskRouter taskRouter, ExecutorMetrics executorMetrics) {
+        this.ioExecutor = taskRouter.executorFor(ParallelTaskService.class);
+        this.taskRouter = taskRouter;
+        this.executorMetrics = executorMetrics;
     }
 
     /**
-     * Example: Execute multiple tasks in parallel
-     * Each task simulates a long-running operation (5-30 seconds)
+     * Example: Execute multiple tasks in parallel in the background
+     * Each task simulates a long-running operation (5-30 seconds). The tasks run in one bounded scope,
+     * so at most parallel.scope.max-concurrency run at once and all are cancelled at the default deadline.
      *
      * @param numberOfTasks Number of tasks to execute in parallel
-     * @return List of CompletableFuture results
+     * @return Future of the results of the tasks that completed before the deadline
      */
-    public List<CompletableFuture<String>> executeParallelTasks(int numberOfTasks) {
-        List<CompletableFuture<String>> futures = new ArrayList<>();
-
-        for (int i = 0; i < numberOfTasks; i++) {
-            final int taskId = i + 1;
-            CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
-                return executeLongRunningTask(taskId);
-            }, taskExecutor);
-
-            futures.add(future);
-        }
-
-        return futures;
+    public CompletableFuture<List<String>> executeParallelTasks(int numberOfTasks) {
+        Duration timeout = Duration.ofMillis(defaultTimeoutMs);
+        return CompletableFuture.supplyAsync(() -> {
+            try (BoundedTaskScope<String> scope = BoundedTaskScope.collecting(ioExecutor, maxConcurrency, timeout)) {
+                forkTasks(scope, numberOfTasks);
+                scope.join();
+                return scope.results();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, ioExecutor);
     }
 
     /**
      * Example: Execute tasks and wait for all to complete
+     * The first failure, or the default deadline, cancels the remaining tasks.
      *
      * @param numberOfTasks Number of tasks to execute
      * @return List of results from all tasks
      */
     public List<String> executeAndWaitForAll(int numberOfTasks) {
-        List<CompletableFuture<String>> futures = executeParallelTasks(numberOfTasks);
-
-        // Wait for all tasks to complete and collect results
-        return futures.stream()
-                .map(CompletableFuture::join)
-                .toList();
+        try (BoundedTaskScope<String> scope =
+                     BoundedTaskScope.failFast(ioExecutor, maxConcurrency, Duration.ofMillis(defaultTimeoutMs))) {
+            forkTasks(scope, numberOfTasks);
+            scope.join().throwIfFailed();
+            return scope.results();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new CompletionException(e);
+        }
     }
 
     /**
      * Example: Execute tasks with timeout
+     * Tasks still running at the timeout are interrupted before this returns, so none outlive the request.
      *
      * @param numberOfTasks Number of tasks to execute
      * @param timeoutSeconds Timeout in seconds
      * @return List of results (may be incomplete if timeout occurs)
      */
     public List<String> executeWithTimeout(int numberOfTasks, long timeoutSeconds) {
-        List<CompletableFuture<String>> futures = executeParallelTasks(numberOfTasks);
-
-        // Wait for all with timeout
-        CompletableFuture<Void> allFutures = CompletableFuture.allOf(
-                futures.toArray(new CompletableFuture[0])
-        );
+        try (BoundedTaskScope<String> scope =
+                     BoundedTaskScope.collecting(ioExecutor, maxConcurrency, Duration.ofSeconds(timeoutSeconds))) {
+            forkTasks(scope, numberOfTasks);
+            scope.join();
+            if (scope.isDeadlineExceeded()) {
+                log.warn("Timeout occurred after {} s, cancelling unfinished tasks", timeoutSeconds);
+            }
+            return scope.results();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for tasks to complete", e);
+            return List.of();
+        }
+    }
 
-        try {
-            allFutures.get(timeoutSeconds, TimeUnit.SECONDS);
-            return futures.stream()
-                    .map(CompletableFuture::join)
-                    .toList();
-        } catch (Exception e) {
-            log.error("Timeout occurred while waiting for tasks to complete", e);
-            return futures.stream()
-                    .filter(CompletableFuture::isDone)
-                    .map(CompletableFuture::join)
-                    .toList();
+    private void forkTasks(BoundedTaskScope<String> scope, int numberOfTasks) {
+        for (int i = 0; i < numberOfTasks; i++) {
+            final int taskId = i + 1;
+            scope.fork(() -> executeLongRunningTask(taskId));
         }
     }
 
@@ -98,7 +125,7 @@ public class ParallelTaskService {
      * @param taskId Task identifier
      * @return Result string
      */
-    private String executeLongRunningTask(int taskId) {
+    private String executeLongRunningTask(int taskId) throws InterruptedException {
         log.info("Task {} started on thread: {}", taskId, Thread.currentThread().getName());
 
         try {
@@ -111,44 +138,50 @@ public class ParallelTaskService {
             return result;
 
         } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Task {} was interrupted", taskId, e);
-            return String.format("Task %d was interrupted", taskId);
+            log.info("Task {} was cancelled", taskId);
+            throw e;
         }
     }
 
     /**
-     * Example: Process a list of items in parallel
+     * Example: Process a list of items in parallel, in one bounded fail-fast scope
      *
      * @param items List of items to process
      * @param processor Function to process each item
      * @param <T> Input type
      * @param <R> Result type
-     * @return List of results
+     * @return List of results, in item order
      */
-    public <T, R> List<CompletableFuture<R>> processInParallel(
+    public <T, R> List<R> processInParallel(
             List<T> items,
-            java.util.function.Function<T, R> processor) {
-
-        return items.stream()
-                .map(item -> CompletableFuture.supplyAsync(
-                        () -> processor.apply(item),
-                        taskExecutor
-                ))
-                .toList();
+            java.util.function.Function<T, R> processor) throws ExecutionException, TimeoutException, InterruptedException {
+
+        try (BoundedTaskScope<R> scope =
+                     BoundedTaskScope.failFast(ioExecutor, maxConcurrency, Duration.ofMillis(defaultTimeoutMs))) {
+            for (T item : items) {
+                scope.fork(() -> processor.apply(item));
+            }
+            scope.join().throwIfFailed();
+            return scope.results();
+        }
     }
 
     /**
      * Get executor statistics (for monitoring/debugging)
      */
     public void logExecutorStats() {
-        if (taskExecutor instanceof java.util.concurrent.ThreadPoolExecutor tpe) {
-            log.info("Executor Stats - Active: {}, Pool: {}, Queue: {}, Completed: {}",
-                    tpe.getActiveCount(),
-                    tpe.getPoolSize(),
-                    tpe.getQueue().size(),
-                    tpe.getCompletedTaskCount());
-        }
+        taskRouter.startedCpuPool().ifPresentOrElse(cpuPool ->
+                log.info("CPU Pool Stats - Active: {}, Pool: {}, Queued: {}, Steals: {}",
+                        cpuPool.getActiveThreadCount(),
+                        cpuPool.getPoolSize(),
+                        cpuPool.getQueuedSubmissionCount() + cpuPool.getQueuedTaskCount(),
+                        cpuPool.getStealCount()),
+                () -> log.info("CPU Pool Stats - not started, no CPU-bound work has been routed"));
+        executorMetrics.snapshot().stream()
+                .filter(stats -> stats.owner().equals(ParallelTaskService.class.getName()))
+                .forEach(stats -> log.info("Task Stats - Kind: {}, Submitted: {}, Completed: {}, Failed: {}, Mean: {} ms",
+                        stats.kind(), stats.submitted(), stats.completed(), stats.failed(),
+                        String.format("%.1f", stats.meanWallMs())));
     }
 }
 
@@ -0,0 +1,87 @@
+package com.mxfz.weatherservice.service;
+
+import com.mxfz.weatherservice.util.CountMinSketch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks how often each pincode is requested using a count-min sketch,
+ * and keeps a bounded candidate set of the most requested pincodes (top-K).
+ */
+@Service
+@Slf4j
+public class PincodeRequestTracker {
+
+    private final CountMinSketch sketch;
+    private final int topK;
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+    private final ReentrantLock trimLock = new ReentrantLock();
+
+    public PincodeRequestTracker(
+            @Value("${weather.prefetch.top-k:1000}") int topK,
+            @Value("${weather.prefetch.sketch.width:8192}") int sketchWidth,
+            @Value("${weather.prefetch.sketch.depth:4}") int sketchDepth) {
+        this.topK = topK;
+        this.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+    }
+
+    /**
+     * Records one request for the pincode
+     */
+    public void record(String pincode) {
+        if (pincode == null || pincode.isBlank()) {
+            return;
+        }
+        long estimate = sketch.add(pincode);
+        candidates.put(pincode, estimate);
+
+        // Let the candidate set grow to twice the target size before trimming, so trimming is rare
+        if (candidates.size() > topK * 2 && trimLock.tryLock()) {
+            try {
+                trimCandidates();
+            } finally {
+                trimLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the most requested pincodes, most frequent first
+     */
+    public List<String> getTopPincodes() {
+        return candidates.keySet().stream()
+                .map(pincode -> Map.entry(pincode, sketch.estimate(pincode)))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(topK)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Halves all frequencies so yesterday's traffic weighs less than today's
+     */
+    public void decay() {
+        sketch.halve();
+        candidates.replaceAll((pincode, count) -> sketch.estimate(pincode));
+        candidates.values().removeIf(count -> count == 0);
+        log.debug("Decayed pincode request frequencies, {} candidates remaining", candidates.size());
+    }
+
+    private void trimCandidates() {
+        List<String> evicted = candidates.keySet().stream()
+                .map(pincode -> Map.entry(pincode, sketch.estimate(pincode)))
+                .sorted(Comparator.comparingLong(Map.Entry::getValue))
+                .limit(Math.max(0, candidates.size() - topK))
+                .map(Map.Entry::getKey)
+                .toList();
+        evicted.forEach(candidates::remove);
+    }
+}
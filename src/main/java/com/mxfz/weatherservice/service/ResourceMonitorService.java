@@ -1,10 +1,14 @@
 package com.mxfz.weatherservice.service;
 
+import com.mxfz.weatherservice.executor.ExecutorKind;
+import com.mxfz.weatherservice.executor.ExecutorMetrics;
+import com.mxfz.weatherservice.executor.TaskRouter;
 import com.mxfz.weatherservice.model.ResourceMetrics;
+import com.mxfz.weatherservice.repository.MongoDriverMetrics;
 import com.sun.management.OperatingSystemMXBean;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.lang.management.GarbageCollectorMXBean;
@@ -13,17 +17,27 @@ import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryUsage;
 import java.lang.management.ThreadMXBean;
 import java.time.LocalDateTime;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Service to collect and monitor system resource metrics
+ * Service to collect and monitor system resource metrics.
+ * Lazy, so the MXBean lookups happen on the first monitoring run rather than during startup.
+ *
+ * Process CPU and physical memory come from the com.sun.management extension of the OS bean. Where the
+ * platform bean lacks it (native images, non-HotSpot JVMs) process CPU is reported as -1, system CPU is
+ * estimated from the load average and physical memory is left out.
  */
 @Service
+@Lazy
 @Slf4j
 public class ResourceMonitorService {
 
-    private final ExecutorService taskExecutor;
+    private final TaskRouter taskRouter;
+    private final ExecutorMetrics executorMetrics;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final MongoDriverMetrics mongoDriverMetrics;
+    private final java.lang.management.OperatingSystemMXBean platformOsBean;
+    // null when the platform bean has no com.sun.management extension
     private final OperatingSystemMXBean osBean;
     private final MemoryMXBean memoryBean;
     private final ThreadMXBean threadBean;
@@ -32,10 +46,20 @@ public class ResourceMonitorService {
     @Value("${resource.monitor.enabled:true}")
     private boolean monitoringEnabled;
 
-    public ResourceMonitorService(@Qualifier("taskExecutor") ExecutorService taskExecutor) {
-        this.taskExecutor = taskExecutor;
-        this.osBean = (OperatingSystemMXBean)
-                ManagementFactory.getOperatingSystemMXBean();
+    public ResourceMonitorService(TaskRouter taskRouter,
+                                  ExecutorMetrics executorMetrics,
+                                  VirtualThreadPinningMonitor pinningMonitor,
+                                  MongoDriverMetrics mongoDriverMetrics) {
+        this.taskRouter = taskRouter;
+        this.executorMetrics = executorMetrics;
+        this.pinningMonitor = pinningMonitor;
+        this.mongoDriverMetrics = mongoDriverMetrics;
+        this.platformOsBean = ManagementFactory.getOperatingSystemMXBean();
+        this.osBean = platformOsBean instanceof OperatingSystemMXBean extended ? extended : null;
+        if (osBean == null) {
+            log.info("{} has no com.sun.management extension; process CPU and physical memory are not reported",
+                    platformOsBean.getClass().getName());
+        }
         this.memoryBean = ManagementFactory.getMemoryMXBean();
         this.threadBean = ManagementFactory.getThreadMXBean();
         
@@ -74,6 +98,12 @@ public class ResourceMonitorService {
             // Thread Pool Metrics
             collectThreadPoolMetrics(builder);
 
+            // Virtual Thread Pinning
+            collectPinningMetrics(builder);
+
+            // MongoDB Connection Pool
+            collectMongoPoolMetrics(builder);
+
             return builder.build();
         } catch (Exception e) {
             log.error("Error collecting resource metrics", e);
@@ -114,6 +144,11 @@ public class ResourceMonitorService {
 
     private void collectCPUMetrics(ResourceMetrics.ResourceMetricsBuilder builder) {
         try {
+            if (osBean == null) {
+                builder.processCpuLoad(-1)
+                        .systemCpuLoad(estimateSystemCpuLoad());
+                return;
+            }
             double processCpuLoad = osBean.getProcessCpuLoad() * 100;
             double systemCpuLoad = osBean.getSystemCpuLoad() * 100;
             
@@ -124,7 +159,21 @@ public class ResourceMonitorService {
         }
     }
 
+    /**
+     * System CPU as a percentage, from the one-minute load average per processor, or -1 when unavailable
+     */
+    private double estimateSystemCpuLoad() {
+        double loadAverage = platformOsBean.getSystemLoadAverage();
+        if (loadAverage < 0) {
+            return -1;
+        }
+        return Math.min(100.0, loadAverage / platformOsBean.getAvailableProcessors() * 100);
+    }
+
     private void collectSystemMemoryMetrics(ResourceMetrics.ResourceMetricsBuilder builder) {
+        if (osBean == null) {
+            return;
+        }
         try {
             long totalMemory = osBean.getTotalPhysicalMemorySize();
             long freeMemory = osBean.getFreePhysicalMemorySize();
@@ -143,19 +192,38 @@ public class ResourceMonitorService {
     }
 
     private void collectThreadPoolMetrics(ResourceMetrics.ResourceMetricsBuilder builder) {
-        if (taskExecutor instanceof ThreadPoolExecutor tpe) {
-            // Traditional thread pool metrics
-            builder.threadPoolActiveCount(tpe.getActiveCount())
-                    .threadPoolQueueSize(tpe.getQueue().size())
-                    .threadPoolPoolSize(tpe.getPoolSize())
-                    .threadPoolCompletedTasks(tpe.getCompletedTaskCount());
-        } else {
-            // Virtual threads don't have traditional pool metrics
-            // Virtual threads are managed by the JVM and scale automatically
-            builder.threadPoolActiveCount(null)
-                    .threadPoolQueueSize(null) // Virtual threads don't use queues
-                    .threadPoolPoolSize(null) // Virtual threads don't have a fixed pool size
-                    .threadPoolCompletedTasks(null);
+        // Only the CPU pool has pool metrics; blocking work runs on virtual threads, which scale automatically.
+        // The pool is created on first CPU use, and until then it has no threads or queued work
+        builder.threadPoolCompletedTasks(executorMetrics.completedTasks(ExecutorKind.CPU));
+        taskRouter.startedCpuPool().ifPresentOrElse(pool -> {
+            long queued = pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+            builder.threadPoolActiveCount(pool.getActiveThreadCount())
+                    .threadPoolQueueSize((int) Math.min(Integer.MAX_VALUE, queued))
+                    .threadPoolPoolSize(pool.getPoolSize());
+        }, () -> builder.threadPoolActiveCount(0).threadPoolQueueSize(0).threadPoolPoolSize(0));
+    }
+
+    private void collectPinningMetrics(ResourceMetrics.ResourceMetricsBuilder builder) {
+        if (pinningMonitor.isActive()) {
+            VirtualThreadPinningMonitor.PinRate rate = pinningMonitor.recentRate();
+            builder.virtualThreadPinnedEvents(pinningMonitor.totalEvents())
+                    .virtualThreadPinnedMillis(pinningMonitor.totalPinnedMillis())
+                    .virtualThreadMaxPinnedMillis(pinningMonitor.maxPinnedMillis())
+                    .virtualThreadPinsPerMinute(rate.pinsPerMinute())
+                    .virtualThreadRecentPinnedMillis(rate.pinnedMillis());
+        }
+    }
+
+    private void collectMongoPoolMetrics(ResourceMetrics.ResourceMetricsBuilder builder) {
+        if (mongoDriverMetrics.isActive()) {
+            MongoDriverMetrics.PoolStats pool = mongoDriverMetrics.poolStats();
+            builder.mongoPoolMaxSize(pool.maxSize())
+                    .mongoPoolSize(pool.size())
+                    .mongoPoolCheckedOut(pool.checkedOut())
+                    .mongoPoolWaitQueueSize(pool.waitQueueSize())
+                    .mongoPoolCheckouts(pool.checkouts())
+                    .mongoPoolCheckoutMillis(TimeUnit.NANOSECONDS.toMillis(pool.checkoutNanos()))
+                    .mongoPoolCheckoutTimeouts(pool.checkoutTimeouts());
         }
     }
 
@@ -181,6 +249,9 @@ public class ResourceMonitorService {
      * Get current CPU usage
      */
     public double getCurrentCpuUsage() {
+        if (osBean == null) {
+            return 0.0;
+        }
         try {
             return osBean.getProcessCpuLoad() * 100;
         } catch (Exception e) {
@@ -1,8 +1,10 @@
 package com.mxfz.weatherservice.service;
 
+import com.mxfz.weatherservice.metrics.MetricsRegistry;
 import com.mxfz.weatherservice.model.ResourceMetrics;
 import com.mxfz.weatherservice.model.ResourcePrediction;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -12,6 +14,7 @@ import java.time.format.DateTimeFormatter;
  * Scheduled service that continuously monitors and predicts resource exhaustion
  * Logs metrics every 10 seconds in a well-structured format
  * Uses Java 21 features: text blocks, pattern matching, switch expressions
+ * The monitoring services are injected lazily, so they are set up by the first run instead of at startup.
  */
 @Service
 @Slf4j
@@ -19,25 +22,29 @@ public class ResourceMonitoringScheduler {
 
     private final ResourcePredictionService predictionService;
     private final ResourceMonitorService monitorService;
-    private ResourcePrediction lastPrediction;
+    private final MetricsRegistry metricsRegistry;
+    private volatile ResourcePrediction lastPrediction;
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public ResourceMonitoringScheduler(
-            ResourcePredictionService predictionService,
-            ResourceMonitorService monitorService) {
+            @Lazy ResourcePredictionService predictionService,
+            @Lazy ResourceMonitorService monitorService,
+            MetricsRegistry metricsRegistry) {
         this.predictionService = predictionService;
         this.monitorService = monitorService;
+        this.metricsRegistry = metricsRegistry;
     }
 
     /**
-     * Run monitoring and log metrics every 10 seconds
+     * Run monitoring and log metrics every 10 seconds; the sample is also what /api/resource/openmetrics serves
      */
-    @Scheduled(fixedRate = 10000)
+    @Scheduled(fixedRate = 10000, initialDelayString = "${resource.monitor.initial-delay-ms:0}")
     public void monitorAndLogMetrics() {
         try {
             ResourceMetrics metrics = monitorService.collectMetrics();
             ResourcePrediction prediction = predictionService.predict();
             lastPrediction = prediction;
+            metricsRegistry.recordSample(metrics, prediction);
 
             if (metrics != null) {
                 logStructuredMetrics(metrics, prediction);
@@ -116,7 +123,8 @@ public class ResourceMonitoringScheduler {
                 buildThreadSection(metrics),
                 buildCPUSection(metrics),
                 buildSystemMemorySection(metrics),
-                buildThreadPoolSection(metrics)
+                buildThreadPoolSection(metrics),
+                buildPinningSection(metrics)
         );
     }
 
@@ -200,7 +208,7 @@ public class ResourceMonitoringScheduler {
                        └─ Using Virtual Threads (no pool metrics available)
                     """;
             default -> """
-                    🔧 THREAD POOL METRICS
+                    🔧 CPU POOL METRICS (ForkJoinPool)
                        ├─ Active Count:     %d
                        ├─ Queue Size:       %d
                        ├─ Pool Size:        %d
@@ -214,6 +222,24 @@ public class ResourceMonitoringScheduler {
         };
     }
 
+    private String buildPinningSection(ResourceMetrics metrics) {
+        if (metrics.getVirtualThreadPinnedEvents() == null) {
+            return "";
+        }
+        return """
+                📌 VIRTUAL THREAD PINNING
+                   ├─ Pinned Events:    %d
+                   ├─ Total Pinned:     %d ms
+                   ├─ Recent Rate:      %.1f/min
+                   └─ Longest Pin:      %d ms
+                """.formatted(
+                metrics.getVirtualThreadPinnedEvents(),
+                metrics.getVirtualThreadPinnedMillis(),
+                metrics.getVirtualThreadPinsPerMinute(),
+                metrics.getVirtualThreadMaxPinnedMillis()
+        );
+    }
+
     /**
      * Formats bytes to human-readable format using Java 21 switch expressions
      */
@@ -4,6 +4,7 @@ import com.mxfz.weatherservice.model.ResourceMetrics;
 import com.mxfz.weatherservice.model.ResourcePrediction;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -14,6 +15,7 @@ import java.util.List;
  * Service to predict potential resource exhaustion and application crashes
  */
 @Service
+@Lazy
 @Slf4j
 public class ResourcePredictionService {
 
@@ -53,6 +55,24 @@ public class ResourcePredictionService {
     @Value("${resource.prediction.queue.critical:80}")
     private int queueCriticalThreshold;
 
+    @Value("${resource.prediction.pinning.rate.warning:10}")
+    private double pinningRateWarningThreshold;
+
+    @Value("${resource.prediction.pinning.rate.critical:100}")
+    private double pinningRateCriticalThreshold;
+
+    @Value("${resource.prediction.mongo-pool.utilization.warning:80.0}")
+    private double mongoPoolUtilizationWarningThreshold;
+
+    @Value("${resource.prediction.mongo-pool.utilization.critical:95.0}")
+    private double mongoPoolUtilizationCriticalThreshold;
+
+    @Value("${resource.prediction.mongo-pool.wait-queue.warning:10}")
+    private int mongoWaitQueueWarningThreshold;
+
+    @Value("${resource.prediction.mongo-pool.wait-queue.critical:100}")
+    private int mongoWaitQueueCriticalThreshold;
+
     // Historical metrics for trend analysis
     private final List<ResourceMetrics> metricsHistory = new ArrayList<>();
     private static final int MAX_HISTORY_SIZE = 10;
@@ -119,6 +139,20 @@ public class ResourcePredictionService {
         riskScore = Math.max(riskScore, threadPoolResult.riskScore());
         level = getHigherLevel(level, threadPoolResult.level());
 
+        // Analyze Virtual Thread Pinning
+        PredictionResult pinningResult = analyzePinning(currentMetrics);
+        warnings.addAll(pinningResult.warnings());
+        criticalIssues.addAll(pinningResult.criticalIssues());
+        riskScore = Math.max(riskScore, pinningResult.riskScore());
+        level = getHigherLevel(level, pinningResult.level());
+
+        // Analyze MongoDB Connection Pool
+        PredictionResult mongoPoolResult = analyzeMongoPool(currentMetrics);
+        warnings.addAll(mongoPoolResult.warnings());
+        criticalIssues.addAll(mongoPoolResult.criticalIssues());
+        riskScore = Math.max(riskScore, mongoPoolResult.riskScore());
+        level = getHigherLevel(level, mongoPoolResult.level());
+
         // Trend Analysis
         PredictionResult trendResult = analyzeTrends();
         warnings.addAll(trendResult.warnings());
@@ -173,7 +207,11 @@ public class ResourcePredictionService {
         double riskScore = 0.0;
         ResourcePrediction.PredictionLevel level = ResourcePrediction.PredictionLevel.SAFE;
 
-        double cpuUsage = metrics.getProcessCpuLoad();
+        // Process CPU is negative where the JVM cannot measure it; fall back to the machine-wide figure
+        double cpuUsage = metrics.getProcessCpuLoad() >= 0 ? metrics.getProcessCpuLoad() : metrics.getSystemCpuLoad();
+        if (cpuUsage < 0) {
+            return new PredictionResult(warnings, criticalIssues, riskScore, level);
+        }
 
         if (cpuUsage >= cpuCriticalThreshold) {
             criticalIssues.add(String.format("CPU usage at %.2f%% - High load may cause freezing", cpuUsage));
@@ -267,6 +305,91 @@ public class ResourcePredictionService {
         return new PredictionResult(warnings, criticalIssues, riskScore, level);
     }
 
+    private PredictionResult analyzePinning(ResourceMetrics metrics) {
+        List<String> warnings = new ArrayList<>();
+        List<String> criticalIssues = new ArrayList<>();
+        double riskScore = 0.0;
+        ResourcePrediction.PredictionLevel level = ResourcePrediction.PredictionLevel.SAFE;
+
+        // The monitor counts pins over a fixed sliding window, so ad hoc predictions don't shrink the interval
+        if (metrics.getVirtualThreadPinsPerMinute() == null || metrics.getVirtualThreadPinsPerMinute() <= 0) {
+            return new PredictionResult(warnings, criticalIssues, riskScore, level);
+        }
+        double pinsPerMinute = metrics.getVirtualThreadPinsPerMinute();
+        long pinnedMillis = metrics.getVirtualThreadRecentPinnedMillis();
+
+        if (pinsPerMinute >= pinningRateCriticalThreshold) {
+            criticalIssues.add(String.format("Virtual threads pinned %.1f times/min (%d ms held) - carrier threads saturating",
+                    pinsPerMinute, pinnedMillis));
+            riskScore = 0.65;
+            level = ResourcePrediction.PredictionLevel.CRITICAL;
+        } else if (pinsPerMinute >= pinningRateWarningThreshold) {
+            warnings.add(String.format("Virtual threads pinned %.1f times/min (%d ms held) - see /api/resource/pinning",
+                    pinsPerMinute, pinnedMillis));
+            riskScore = 0.35;
+            level = ResourcePrediction.PredictionLevel.WARNING;
+        } else {
+            log.debug("Virtual threads pinned {} times/min, below the warning threshold", pinsPerMinute);
+        }
+
+        return new PredictionResult(warnings, criticalIssues, riskScore, level);
+    }
+
+    private PredictionResult analyzeMongoPool(ResourceMetrics metrics) {
+        List<String> warnings = new ArrayList<>();
+        List<String> criticalIssues = new ArrayList<>();
+        double riskScore = 0.0;
+        ResourcePrediction.PredictionLevel level = ResourcePrediction.PredictionLevel.SAFE;
+
+        if (metrics.getMongoPoolMaxSize() == null || metrics.getMongoPoolMaxSize() <= 0) {
+            return new PredictionResult(warnings, criticalIssues, riskScore, level);
+        }
+
+        double utilization = metrics.getMongoPoolCheckedOut() * 100.0 / metrics.getMongoPoolMaxSize();
+        int waitQueue = metrics.getMongoPoolWaitQueueSize();
+
+        // Timeouts and checkout waits are cumulative, so compare against the previous sample
+        long newTimeouts = 0;
+        double meanCheckoutMs = 0;
+        if (metricsHistory.size() >= 2) {
+            ResourceMetrics previous = metricsHistory.get(metricsHistory.size() - 2);
+            if (previous.getMongoPoolCheckouts() != null) {
+                newTimeouts = metrics.getMongoPoolCheckoutTimeouts() - previous.getMongoPoolCheckoutTimeouts();
+                long newCheckouts = metrics.getMongoPoolCheckouts() - previous.getMongoPoolCheckouts();
+                if (newCheckouts > 0) {
+                    meanCheckoutMs = (double) (metrics.getMongoPoolCheckoutMillis()
+                            - previous.getMongoPoolCheckoutMillis()) / newCheckouts;
+                }
+            }
+        }
+
+        if (newTimeouts > 0) {
+            criticalIssues.add(String.format(
+                    "MongoDB pool checkouts timing out: %d since last sample (%d/%d connections in use)",
+                    newTimeouts, metrics.getMongoPoolCheckedOut(), metrics.getMongoPoolMaxSize()));
+            riskScore = 0.7;
+            level = ResourcePrediction.PredictionLevel.CRITICAL;
+        } else if (utilization >= mongoPoolUtilizationCriticalThreshold
+                || waitQueue >= mongoWaitQueueCriticalThreshold) {
+            criticalIssues.add(String.format(
+                    "MongoDB pool saturated: %.0f%% in use, %d waiting (%.1f ms mean checkout)",
+                    utilization, waitQueue, meanCheckoutMs));
+            riskScore = 0.65;
+            level = ResourcePrediction.PredictionLevel.CRITICAL;
+        } else if (utilization >= mongoPoolUtilizationWarningThreshold
+                || waitQueue >= mongoWaitQueueWarningThreshold) {
+            warnings.add(String.format(
+                    "MongoDB pool at %.0f%% in use, %d waiting (%.1f ms mean checkout) - see /api/resource/mongo",
+                    utilization, waitQueue, meanCheckoutMs));
+            riskScore = 0.35;
+            level = ResourcePrediction.PredictionLevel.WARNING;
+        } else {
+            riskScore = utilization / 100.0 * 0.2;
+        }
+
+        return new PredictionResult(warnings, criticalIssues, riskScore, level);
+    }
+
     private PredictionResult analyzeTrends() {
         List<String> warnings = new ArrayList<>();
         List<String> criticalIssues = new ArrayList<>();
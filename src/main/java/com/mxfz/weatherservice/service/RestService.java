@@ -1,16 +1,49 @@
 package com.mxfz.weatherservice.service;
 
 
+import com.mxfz.weatherservice.codec.ResponseDecoder;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface RestService {
 
+    /**
+     * Calls the endpoint and blocks for the response. Transient failures of calls to the paid upstreams
+     * are retried within the upstream's retry budget.
+     */
     <T> T callApi(URI endpoint, HttpMethod method, HttpHeaders requestHeaders, Map<String, ?> requestParams,
                   Object requestBody, ParameterizedTypeReference<T> responseType);
 
+    /**
+     * Same as {@link #callApi} but decodes the response body with a streaming decoder,
+     * so only the fields the caller needs are read and allocated.
+     */
+    <T> T callApi(URI endpoint, HttpMethod method, HttpHeaders requestHeaders, Map<String, ?> requestParams,
+                  Object requestBody, ResponseDecoder<T> responseDecoder);
+
+    /**
+     * Non-blocking variant of {@link #callApi}. No thread is held while the request is in flight.
+     * The returned future fails with a TimeoutException once the deadline passes, and cancelling it
+     * (or the deadline passing) aborts the underlying HTTP exchange. Waiting for an upstream rate-limit
+     * permit, and retries of transient failures with their backoff, count against the same deadline.
+     *
+     * @param timeout deadline for the whole call, or null to use the configured default
+     */
+    <T> CompletableFuture<T> callApiAsync(URI endpoint, HttpMethod method, HttpHeaders requestHeaders,
+                                          Map<String, ?> requestParams, Object requestBody,
+                                          ParameterizedTypeReference<T> responseType, Duration timeout);
+
+    /**
+     * Same as {@link #callApiAsync} but decodes the response body with a streaming decoder
+     */
+    <T> CompletableFuture<T> callApiAsync(URI endpoint, HttpMethod method, HttpHeaders requestHeaders,
+                                          Map<String, ?> requestParams, Object requestBody,
+                                          ResponseDecoder<T> responseDecoder, Duration timeout);
+
 }
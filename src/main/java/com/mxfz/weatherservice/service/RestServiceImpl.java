@@ -1,17 +1,48 @@
 package com.mxfz.weatherservice.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mxfz.weatherservice.codec.ResponseDecoder;
+import com.mxfz.weatherservice.ratelimit.UpstreamRateLimiter;
+import com.mxfz.weatherservice.upstream.DeadlineBoundRequestFactory;
+import com.mxfz.weatherservice.upstream.UpstreamHedger;
+import com.mxfz.weatherservice.upstream.UpstreamRetrier;
+import com.mxfz.weatherservice.util.BoundedTaskScope;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.util.UriBuilder;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -20,9 +51,25 @@ import java.util.function.Function;
 public class RestServiceImpl implements RestService {
 
     private final RestClient restClient;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final UpstreamRateLimiter rateLimiter;
+    private final UpstreamHedger hedger;
+    private final UpstreamRetrier retrier;
+    // ObjectReaders are immutable, so one per response type is reused across calls
+    private final Map<Type, ObjectReader> responseReaders = new ConcurrentHashMap<>();
 
-    public RestServiceImpl(RestClient restClient) {
+    @Value("${rest.async.default-timeout-ms:10000}")
+    private long defaultTimeoutMs;
+
+    public RestServiceImpl(RestClient restClient, HttpClient httpClient, ObjectMapper objectMapper,
+                           UpstreamRateLimiter rateLimiter, UpstreamHedger hedger, UpstreamRetrier retrier) {
         this.restClient = restClient;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.rateLimiter = rateLimiter;
+        this.hedger = hedger;
+        this.retrier = retrier;
     }
 
     @Override
@@ -33,24 +80,249 @@ public class RestServiceImpl implements RestService {
                          Object requestBody,
                          ParameterizedTypeReference<T> responseType) {
 
-        log.info("Hitting API: {}", endpoint);
+        if (hedger.isEnabled(endpoint, method)) {
+            return await(callApiAsync(endpoint, method, requestHeaders, requestParams, requestBody, responseType, null));
+        }
 
-        UriBuilder builder = UriComponentsBuilder.fromUri(endpoint);
-        if (!Objects.isNull(requestParams) && !requestParams.isEmpty()) {
-            for (Map.Entry<String, ?> entry : requestParams.entrySet()) {
-                builder.queryParam(entry.getKey(), entry.getValue());
+        // Per-call volume and latency are in UpstreamCallMetrics; this is only for debugging
+        log.debug("Hitting API: {}", endpoint);
+
+        URI requestUri = buildUri(endpoint, requestParams);
+        long deadlineNanos = syncDeadlineNanos();
+        return retrier.call(endpoint, method, deadlineNanos, () -> {
+            rateLimiter.acquire(endpoint, null);
+            return DeadlineBoundRequestFactory.withDeadline(deadlineNanos,
+                    () -> prepareRequest(requestUri, method, requestHeaders, requestBody)
+                            .retrieve()
+                            .body(responseType));
+        });
+    }
+
+    @Override
+    public <T> T callApi(URI endpoint,
+                         HttpMethod method,
+                         HttpHeaders requestHeaders,
+                         Map<String, ?> requestParams,
+                         Object requestBody,
+                         ResponseDecoder<T> responseDecoder) {
+
+        // Hedging needs the async client, which buffers the whole body instead of decoding it as it arrives
+        if (hedger.isEnabled(endpoint, method)) {
+            return await(callApiAsync(endpoint, method, requestHeaders, requestParams, requestBody, responseDecoder, null));
+        }
+
+        // Per-call volume and latency are in UpstreamCallMetrics; this is only for debugging
+        log.debug("Hitting API: {}", endpoint);
+
+        URI requestUri = buildUri(endpoint, requestParams);
+        long deadlineNanos = syncDeadlineNanos();
+        return retrier.call(endpoint, method, deadlineNanos, () -> {
+            rateLimiter.acquire(endpoint, null);
+            return DeadlineBoundRequestFactory.withDeadline(deadlineNanos,
+                    () -> prepareRequest(requestUri, method, requestHeaders, requestBody)
+                            .exchange((request, response) -> {
+                                HttpStatusCode status = response.getStatusCode();
+                                if (status.isError()) {
+                                    throw createStatusException(requestUri, status, response.getHeaders(),
+                                            response.getBody().readAllBytes());
+                                }
+                                InputStream body = response.getBody();
+                                try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                                    T decoded = responseDecoder.decode(parser);
+                                    // The decoder stops early; read the rest so the connection can be reused
+                                    StreamUtils.drain(body);
+                                    return decoded;
+                                }
+                            }));
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<T> callApiAsync(URI endpoint,
+                                                 HttpMethod method,
+                                                 HttpHeaders requestHeaders,
+                                                 Map<String, ?> requestParams,
+                                                 Object requestBody,
+                                                 ParameterizedTypeReference<T> responseType,
+                                                 Duration timeout) {
+
+        ObjectReader reader = responseReaders.computeIfAbsent(responseType.getType(),
+                type -> objectMapper.readerFor(objectMapper.constructType(type)));
+        return exchangeAsync(endpoint, method, requestHeaders, requestParams, requestBody, timeout,
+                reader::readValue);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> callApiAsync(URI endpoint,
+                                                 HttpMethod method,
+                                                 HttpHeaders requestHeaders,
+                                                 Map<String, ?> requestParams,
+                                                 Object requestBody,
+                                                 ResponseDecoder<T> responseDecoder,
+                                                 Duration timeout) {
+        return exchangeAsync(endpoint, method, requestHeaders, requestParams, requestBody, timeout, body -> {
+            try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                return responseDecoder.decode(parser);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> exchangeAsync(URI endpoint,
+                                                   HttpMethod method,
+                                                   HttpHeaders requestHeaders,
+                                                   Map<String, ?> requestParams,
+                                                   Object requestBody,
+                                                   Duration timeout,
+                                                   BodyReader<T> bodyReader) {
+
+        log.debug("Hitting API asynchronously: {}", endpoint);
+
+        // Inside a task scope the call never outlives the scope deadline
+        Duration deadline = BoundedTaskScope.capToDeadline(
+                Objects.isNull(timeout) ? Duration.ofMillis(defaultTimeoutMs) : timeout);
+        URI requestUri = buildUri(endpoint, requestParams);
+
+        HttpRequest request;
+        try {
+            request = buildRequest(requestUri, method, requestHeaders, requestBody, deadline);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(
+                    new RestClientException("Error serializing request body for " + requestUri, e));
+        }
+
+        // Retries, backoff and rate-limit waits all count against the same deadline as the exchange itself
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        return retrier.callAsync(endpoint, method, deadlineNanos,
+                        () -> attemptAsync(endpoint, method, request, requestUri, deadlineNanos, bodyReader))
+                .orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * One attempt of an async call: waits for a rate-limit permit, then sends the (possibly hedged) exchange.
+     * Cancelling the returned future leaves the permit queue, or aborts the exchange and releases the connection.
+     */
+    private <T> CompletableFuture<T> attemptAsync(URI endpoint, HttpMethod method, HttpRequest request, URI requestUri,
+                                                  long deadlineNanos, BodyReader<T> bodyReader) {
+        Duration remaining = Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+        CompletableFuture<Void> permit = rateLimiter.acquireAsync(endpoint, remaining);
+        AtomicReference<CompletableFuture<HttpResponse<byte[]>>> exchange = new AtomicReference<>();
+        AtomicBoolean abandoned = new AtomicBoolean();
+
+        CompletableFuture<T> result = permit
+                .thenCompose(granted -> {
+                    CompletableFuture<HttpResponse<byte[]>> sent = hedger.call(endpoint, method,
+                            () -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()));
+                    exchange.set(sent);
+                    if (abandoned.get()) {
+                        sent.cancel(true);
+                    }
+                    return sent;
+                })
+                .thenApply(response -> readResponse(requestUri, response, bodyReader));
+
+        result.whenComplete((value, error) -> {
+            if (error == null) {
+                return;
+            }
+            abandoned.set(true);
+            permit.cancel(true);
+            CompletableFuture<HttpResponse<byte[]>> sent = exchange.get();
+            if (sent != null && !sent.isDone()) {
+                sent.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private long syncDeadlineNanos() {
+        return System.nanoTime() + BoundedTaskScope.capToDeadline(Duration.ofMillis(defaultTimeoutMs)).toNanos();
+    }
+
+    /**
+     * Blocks on an async call for the synchronous API, rethrowing its failure unwrapped
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while waiting for upstream response", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
+            throw new RestClientException("Upstream call failed: " + e.getCause(), e.getCause());
         }
+    }
 
-        Function<UriBuilder, URI> uri = uriBuilder -> builder.build();
+    private RestClient.RequestHeadersSpec<?> prepareRequest(URI requestUri, HttpMethod method,
+                                                           HttpHeaders requestHeaders, Object requestBody) {
+        Function<UriBuilder, URI> uri = uriBuilder -> requestUri;
         Consumer<HttpHeaders> httpHeaders = headers -> headers.addAll(Objects.isNull(requestHeaders) ? new HttpHeaders() : requestHeaders);
 
         return restClient
                 .method(method)
                 .uri(uri)
                 .body(Objects.isNull(requestBody) ? "" : requestBody)
-                .headers(httpHeaders)
-                .retrieve()
-                .body(responseType);
+                .headers(httpHeaders);
+    }
+
+    private URI buildUri(URI endpoint, Map<String, ?> requestParams) {
+        UriBuilder builder = UriComponentsBuilder.fromUri(endpoint);
+        if (!Objects.isNull(requestParams) && !requestParams.isEmpty()) {
+            for (Map.Entry<String, ?> entry : requestParams.entrySet()) {
+                builder.queryParam(entry.getKey(), entry.getValue());
+            }
+        }
+        return builder.build();
+    }
+
+    private HttpRequest buildRequest(URI uri, HttpMethod method, HttpHeaders requestHeaders,
+                                     Object requestBody, Duration deadline) throws JsonProcessingException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(deadline);
+
+        if (!Objects.isNull(requestHeaders)) {
+            requestHeaders.forEach((name, values) -> values.forEach(value -> builder.header(name, value)));
+        }
+
+        if (Objects.isNull(requestBody)) {
+            builder.method(method.name(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            if (Objects.isNull(requestHeaders) || requestHeaders.getContentType() == null) {
+                builder.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            }
+            builder.method(method.name(),
+                    HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(requestBody)));
+        }
+        return builder.build();
+    }
+
+    private <T> T readResponse(URI uri, HttpResponse<byte[]> response, BodyReader<T> bodyReader) {
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        if (status.isError()) {
+            HttpHeaders headers = new HttpHeaders();
+            response.headers().map().forEach(headers::addAll);
+            throw createStatusException(uri, status, headers, response.body());
+        }
+
+        try {
+            return bodyReader.read(response.body());
+        } catch (IOException e) {
+            throw new RestClientException("Error decoding response from " + uri, e);
+        }
+    }
+
+    private RestClientException createStatusException(URI uri, HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        String statusText = "Error response from " + uri.getHost();
+        if (status.is4xxClientError()) {
+            return HttpClientErrorException.create(status, statusText, headers, body, StandardCharsets.UTF_8);
+        }
+        return HttpServerErrorException.create(status, statusText, headers, body, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(byte[] body) throws IOException;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,297 @@
+package com.mxfz.weatherservice.service;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Detects virtual threads pinned to their carrier (blocking inside synchronized or a native frame) by
+ * streaming the JFR jdk.VirtualThreadPinned event, and aggregates pins by call site.
+ *
+ * The call site is the first frame outside the JDK, i.e. the application or library code that blocked
+ * while pinned. Every pin holds a carrier thread, so frequent pins cap throughput at the carrier count.
+ *
+ * The pin rate is counted over a fixed sliding window (resource.pinning.rate-window-ms) in time buckets,
+ * so it doesn't depend on how often or how irregularly callers ask for it.
+ *
+ * The JFR stream is started once the application is ready, which keeps its setup cost out of startup.
+ */
+@Service
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    static final String OTHER_SITES = "(other call sites)";
+    static final int RATE_BUCKETS = 12;
+
+    private final Map<String, SiteCounters> sites = new ConcurrentHashMap<>();
+    private final LongAdder totalEvents = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    // Ring of rate buckets; bucketSlots holds the time slot each bucket currently counts
+    private final LongSupplier nanoClock;
+    private final ReentrantLock rateLock = new ReentrantLock();
+    private final long[] bucketSlots = new long[RATE_BUCKETS];
+    private final long[] bucketPins = new long[RATE_BUCKETS];
+    private final long[] bucketNanos = new long[RATE_BUCKETS];
+
+    @Value("${resource.pinning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${resource.pinning.threshold-ms:20}")
+    private long thresholdMs;
+
+    @Value("${resource.pinning.stack-depth:8}")
+    private int stackDepth;
+
+    @Value("${resource.pinning.max-sites:200}")
+    private int maxSites;
+
+    @Value("${resource.pinning.rate-window-ms:60000}")
+    private long rateWindowMs;
+
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor() {
+        this(System::nanoTime);
+    }
+
+    VirtualThreadPinningMonitor(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        Arrays.fill(bucketSlots, Long.MIN_VALUE);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Virtual thread pinning detection disabled");
+            return;
+        }
+        try {
+            RecordingStream recording = new RecordingStream();
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+            recording.onEvent(PINNED_EVENT, this::onPinned);
+            recording.startAsync();
+            stream = recording;
+            log.info("Virtual thread pinning detection started (threshold {} ms)", thresholdMs);
+        } catch (RuntimeException | Error e) {
+            // JFR is missing in some runtimes (e.g. native images without monitoring support)
+            log.warn("Virtual thread pinning detection unavailable: {}", e.toString());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    public boolean isActive() {
+        return stream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<String> frames = new ArrayList<>();
+        String callSite = null;
+        if (stackTrace != null) {
+            for (RecordedFrame frame : stackTrace.getFrames()) {
+                if (!frame.isJavaFrame()) {
+                    continue;
+                }
+                String location = describe(frame);
+                if (frames.size() < stackDepth) {
+                    frames.add(location);
+                }
+                if (callSite == null && !isJdkFrame(frame.getMethod().getType().getName())) {
+                    callSite = location;
+                }
+                if (callSite != null && frames.size() >= stackDepth) {
+                    break;
+                }
+            }
+        }
+        if (callSite == null) {
+            callSite = frames.isEmpty() ? "(unknown)" : frames.get(0);
+        }
+        // Newer JDKs say why the thread was pinned (e.g. MONITOR, NATIVE)
+        String reason = event.hasField("pinnedReason") ? event.getString("pinnedReason") : null;
+        record(callSite, frames, reason, event.getDuration().toNanos());
+    }
+
+    /**
+     * Adds one pin to the totals and to its call site. Once maxSites distinct sites are tracked,
+     * new sites are folded into a single bucket so memory stays bounded.
+     */
+    void record(String callSite, List<String> stack, String reason, long durationNanos) {
+        totalEvents.increment();
+        totalNanos.add(durationNanos);
+        maxNanos.accumulate(durationNanos);
+
+        String key = sites.containsKey(callSite) || sites.size() < maxSites ? callSite : OTHER_SITES;
+        SiteCounters counters = sites.computeIfAbsent(key,
+                site -> new SiteCounters(site.equals(OTHER_SITES) ? List.of() : List.copyOf(stack), reason));
+        counters.count.increment();
+        counters.totalNanos.add(durationNanos);
+        counters.maxNanos.accumulate(durationNanos);
+
+        long slot = currentSlot();
+        rateLock.lock();
+        try {
+            int bucket = (int) Math.floorMod(slot, (long) RATE_BUCKETS);
+            if (bucketSlots[bucket] != slot) {
+                bucketSlots[bucket] = slot;
+                bucketPins[bucket] = 0;
+                bucketNanos[bucket] = 0;
+            }
+            bucketPins[bucket]++;
+            bucketNanos[bucket] += durationNanos;
+        } finally {
+            rateLock.unlock();
+        }
+    }
+
+    public long totalEvents() {
+        return totalEvents.sum();
+    }
+
+    public long totalPinnedMillis() {
+        return totalNanos.sum() / 1_000_000;
+    }
+
+    public long maxPinnedMillis() {
+        return maxNanos.get() / 1_000_000;
+    }
+
+    /**
+     * Returns pins per minute and time held over the last rate window. The rate is always taken over the full
+     * window length, so a single pin reads as 1 per window however recently the rate was last asked for.
+     */
+    public PinRate recentRate() {
+        long slot = currentSlot();
+        long pins = 0;
+        long nanos = 0;
+        rateLock.lock();
+        try {
+            for (int i = 0; i < RATE_BUCKETS; i++) {
+                if (bucketSlots[i] > slot - RATE_BUCKETS) {
+                    pins += bucketPins[i];
+                    nanos += bucketNanos[i];
+                }
+            }
+        } finally {
+            rateLock.unlock();
+        }
+        return new PinRate(pins * 60_000.0 / rateWindowMs, nanos / 1_000_000, rateWindowMs);
+    }
+
+    private long currentSlot() {
+        long slotNanos = Math.max(1, rateWindowMs * 1_000_000 / RATE_BUCKETS);
+        return Math.floorDiv(nanoClock.getAsLong(), slotNanos);
+    }
+
+    /**
+     * Returns the call sites with the most total pinned time, highest first
+     */
+    public List<PinnedSite> topOffenders(int limit) {
+        List<PinnedSite> result = new ArrayList<>(sites.size());
+        sites.forEach((site, counters) -> {
+            long count = counters.count.sum();
+            long nanos = counters.totalNanos.sum();
+            result.add(new PinnedSite(
+                    site,
+                    counters.reason,
+                    count,
+                    nanos / 1_000_000,
+                    count == 0 ? 0.0 : nanos / 1e6 / count,
+                    counters.maxNanos.get() / 1_000_000,
+                    counters.stack));
+        });
+        result.sort(Comparator.comparingLong(PinnedSite::totalMillis)
+                .thenComparingLong(PinnedSite::count)
+                .reversed());
+        return result.size() > limit ? List.copyOf(result.subList(0, limit)) : result;
+    }
+
+    public PinningReport report(int limit) {
+        return new PinningReport(isActive(), thresholdMs, totalEvents(), totalPinnedMillis(), maxPinnedMillis(),
+                recentRate(), topOffenders(limit));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+
+    private static boolean isJdkFrame(String className) {
+        return className.startsWith("java.") || className.startsWith("jdk.") || className.startsWith("sun.")
+                || className.startsWith("com.sun.");
+    }
+
+    private static final class SiteCounters {
+        final List<String> stack;
+        final String reason;
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        SiteCounters(List<String> stack, String reason) {
+            this.stack = stack;
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * @param reason pin reason reported by the JDK, or null on JDKs that do not report it
+     * @param stack  top frames of the first pin recorded at this site
+     */
+    public record PinnedSite(String callSite,
+                             String reason,
+                             long count,
+                             long totalMillis,
+                             double meanMillis,
+                             long maxMillis,
+                             List<String> stack) {
+    }
+
+    /**
+     * @param pinnedMillis time held by the pins in the window
+     */
+    public record PinRate(double pinsPerMinute, long pinnedMillis, long windowMs) {
+    }
+
+    /**
+     * @param active false when detection is disabled or JFR is unavailable
+     */
+    public record PinningReport(boolean active,
+                                long thresholdMs,
+                                long totalEvents,
+                                long totalPinnedMillis,
+                                long maxPinnedMillis,
+                                PinRate recentRate,
+                                List<PinnedSite> topOffenders) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.mxfz.weatherservice.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for weather store hits and misses and for stale-while-revalidate: stale entries served,
+ * background refreshes, and the age of entries at the time they were refreshed
+ */
+@Service
+public class WeatherFreshnessMetrics {
+
+    private final LongAdder storeHits = new LongAdder();
+    private final LongAdder storeMisses = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder refreshesStarted = new LongAdder();
+    private final LongAdder refreshesSucceeded = new LongAdder();
+    private final LongAdder refreshesFailed = new LongAdder();
+    private final LongAdder refreshesCoalesced = new LongAdder();
+
+    private final LongAdder refreshAgeTotalMs = new LongAdder();
+    private final LongAdder refreshAgeSamples = new LongAdder();
+    private final AtomicLong lastRefreshAgeMs = new AtomicLong(-1);
+    private final AtomicLong maxRefreshAgeMs = new AtomicLong(-1);
+
+    public void recordStoreHit() {
+        storeHits.increment();
+    }
+
+    /**
+     * A lookup found nothing stored and went to the upstreams
+     */
+    public void recordStoreMiss() {
+        storeMisses.increment();
+    }
+
+    public void recordStaleServed() {
+        staleServed.increment();
+    }
+
+    public void recordRefreshStarted() {
+        refreshesStarted.increment();
+    }
+
+    /**
+     * A stale read found a refresh for the same key already in flight
+     */
+    public void recordRefreshCoalesced() {
+        refreshesCoalesced.increment();
+    }
+
+    /**
+     * @param ageMs age of the replaced entry, or -1 if unknown
+     */
+    public void recordRefreshSucceeded(long ageMs) {
+        refreshesSucceeded.increment();
+        if (ageMs >= 0) {
+            refreshAgeTotalMs.add(ageMs);
+            refreshAgeSamples.increment();
+            lastRefreshAgeMs.set(ageMs);
+            maxRefreshAgeMs.accumulateAndGet(ageMs, Math::max);
+        }
+    }
+
+    public void recordRefreshFailed() {
+        refreshesFailed.increment();
+    }
+
+    public Snapshot snapshot() {
+        long samples = refreshAgeSamples.sum();
+        double meanAgeMs = samples == 0 ? 0.0 : (double) refreshAgeTotalMs.sum() / samples;
+        return new Snapshot(storeHits.sum(), storeMisses.sum(), staleServed.sum(), refreshesStarted.sum(),
+                refreshesSucceeded.sum(), refreshesFailed.sum(), refreshesCoalesced.sum(), lastRefreshAgeMs.get(),
+                maxRefreshAgeMs.get(), meanAgeMs);
+    }
+
+    public record Snapshot(long storeHits,
+                           long storeMisses,
+                           long staleServed,
+                           long refreshesStarted,
+                           long refreshesSucceeded,
+                           long refreshesFailed,
+                           long refreshesCoalesced,
+                           long lastRefreshAgeMs,
+                           long maxRefreshAgeMs,
+                           double meanRefreshAgeMs) {
+    }
+}
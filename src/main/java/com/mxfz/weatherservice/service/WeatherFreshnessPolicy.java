@@ -0,0 +1,89 @@
+package com.mxfz.weatherservice.service;
+
+import com.mxfz.weatherservice.codec.DateCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+
+/**
+ * Decides whether a stored weather entry should be refreshed, based on the requested date relative to now (UTC).
+ *
+ * - Past dates are immutable once fetched after the day ended; an entry fetched while its date was still
+ *   today or upcoming is stale, so it gets one final refresh
+ * - Today's entries are stale after weather.freshness.today-ttl-ms
+ * - Future entries are stale after weather.freshness.future-ttl-ms
+ * - Entries stored before fetchedAt existed are immutable for past dates and stale otherwise
+ *
+ * It also picks the instant to ask OpenWeather for, so a refresh always asks for a later observation
+ * than the entry it replaces.
+ */
+@Service
+public class WeatherFreshnessPolicy {
+
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final long MILLIS_PER_DAY = SECONDS_PER_DAY * 1000L;
+
+    private final Clock clock;
+    private final long todayTtlMs;
+    private final long futureTtlMs;
+
+    @Autowired
+    public WeatherFreshnessPolicy(@Value("${weather.freshness.today-ttl-ms:1800000}") long todayTtlMs,
+                                  @Value("${weather.freshness.future-ttl-ms:10800000}") long futureTtlMs) {
+        this(Clock.systemUTC(), todayTtlMs, futureTtlMs);
+    }
+
+    WeatherFreshnessPolicy(Clock clock, long todayTtlMs, long futureTtlMs) {
+        this.clock = clock;
+        this.todayTtlMs = todayTtlMs;
+        this.futureTtlMs = futureTtlMs;
+    }
+
+    /**
+     * Returns true if an entry for the given date (yyyy-MM-dd) fetched at fetchedAt (epoch millis) is stale
+     *
+     * @throws IllegalArgumentException if the date is not a valid yyyy-MM-dd date
+     */
+    public boolean isStale(String date, Long fetchedAt) {
+        long day = DateCodec.toEpochDay(date);
+        long today = Math.floorDiv(clock.millis(), MILLIS_PER_DAY);
+
+        if (fetchedAt == null) {
+            return day >= today;
+        }
+        if (day < today) {
+            return fetchedAt < (day + 1) * MILLIS_PER_DAY;
+        }
+        long ttlMs = day == today ? todayTtlMs : futureTtlMs;
+        return ageMillis(fetchedAt) > ttlMs;
+    }
+
+    /**
+     * Returns the epoch second to query OpenWeather's timemachine endpoint at for a date (yyyy-MM-dd): the latest
+     * observed moment of that day, which is now for today, the last second of the day for past dates and the
+     * start of the day (a forecast) for future dates
+     *
+     * @throws IllegalArgumentException if the date is not a valid yyyy-MM-dd date
+     */
+    public long observationEpochSecond(String date) {
+        long startOfDay = DateCodec.toEpochSecond(date);
+        long nowSecond = Math.floorDiv(clock.millis(), 1000L);
+        return Math.max(startOfDay, Math.min(nowSecond, startOfDay + SECONDS_PER_DAY - 1));
+    }
+
+    /**
+     * Returns the age of an entry in milliseconds, or -1 if its fetch time is unknown
+     */
+    public long ageMillis(Long fetchedAt) {
+        return fetchedAt == null ? -1 : Math.max(0, clock.millis() - fetchedAt);
+    }
+
+    /**
+     * Returns the current time in epoch millis, used to stamp fetched entries
+     */
+    public long now() {
+        return clock.millis();
+    }
+}
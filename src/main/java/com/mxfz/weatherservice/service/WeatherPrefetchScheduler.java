@@ -0,0 +1,103 @@
+package com.mxfz.weatherservice.service;
+
+import com.mxfz.weatherservice.model.ResourcePrediction;
+import com.mxfz.weatherservice.ratelimit.UpstreamPriority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Scheduled service that warms the weather store for the most requested pincodes.
+ * Runs only while the resource prediction is SAFE, so prefetching never competes with user traffic.
+ */
+@Service
+@Slf4j
+public class WeatherPrefetchScheduler {
+
+    private final PincodeRequestTracker requestTracker;
+    private final WeatherService weatherService;
+    private final ResourcePredictionService predictionService;
+    private final ResourceMonitoringScheduler monitoringScheduler;
+
+    @Value("${weather.prefetch.enabled:true}")
+    private boolean prefetchEnabled;
+
+    @Value("${weather.prefetch.lookahead-days:1}")
+    private int lookaheadDays;
+
+    public WeatherPrefetchScheduler(
+            PincodeRequestTracker requestTracker,
+            WeatherService weatherService,
+            @Lazy ResourcePredictionService predictionService,
+            ResourceMonitoringScheduler monitoringScheduler) {
+        this.requestTracker = requestTracker;
+        this.weatherService = weatherService;
+        this.predictionService = predictionService;
+        this.monitoringScheduler = monitoringScheduler;
+    }
+
+    /**
+     * Fetch and persist today's and upcoming weather for the top-K pincodes
+     */
+    @Scheduled(fixedDelayString = "${weather.prefetch.interval-ms:300000}",
+            initialDelayString = "${weather.prefetch.initial-delay-ms:60000}")
+    public void prefetchHotPincodes() {
+        if (!prefetchEnabled || !isLowLoad()) {
+            return;
+        }
+
+        List<String> pincodes = requestTracker.getTopPincodes();
+        if (pincodes.isEmpty()) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        int prefetched = 0;
+        int failed = 0;
+        long start = System.currentTimeMillis();
+
+        for (String pincode : pincodes) {
+            // Re-check between pincodes so a load spike stops the run early
+            if (!isLowLoad()) {
+                log.info("Stopping weather prefetch early, resource level is no longer SAFE");
+                break;
+            }
+            for (int day = 0; day <= lookaheadDays; day++) {
+                String date = today.plusDays(day).toString();
+                try {
+                    // Prefetch only gets upstream permits that user requests leave over
+                    UpstreamPriority.supply(UpstreamPriority.BACKGROUND, () -> weatherService.fetchWeather(pincode, date));
+                    prefetched++;
+                } catch (Exception e) {
+                    failed++;
+                    log.warn("Prefetch failed for pincode {} on {}: {}", pincode, date, e.getMessage());
+                }
+            }
+        }
+
+        log.info("Weather prefetch completed in {} ms: {} entries warmed, {} failed, {} hot pincodes",
+                System.currentTimeMillis() - start, prefetched, failed, pincodes.size());
+    }
+
+    /**
+     * Decay request frequencies once a day so the hot set follows recent traffic
+     */
+    @Scheduled(cron = "${weather.prefetch.decay-cron:0 0 0 * * *}", zone = "UTC")
+    public void decayRequestFrequencies() {
+        requestTracker.decay();
+    }
+
+    private boolean isLowLoad() {
+        ResourcePrediction prediction = monitoringScheduler.getLastPrediction();
+        if (prediction == null) {
+            prediction = predictionService.predict();
+        }
+        return prediction.getLevel() == ResourcePrediction.PredictionLevel.SAFE;
+    }
+}
@@ -3,10 +3,48 @@ package com.mxfz.weatherservice.service;
 import com.mxfz.weatherservice.model.weather.WeatherInfo;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface WeatherService {
 
     WeatherInfo fetchWeather(String pincode, String date);
 
-    List<WeatherInfo> findAll();
+    /**
+     * Like {@link #fetchWeather(String, String)}, but returns only the selected fields;
+     * a stored entry is read with a Mongo projection, an empty set returns all fields
+     */
+    WeatherInfo fetchWeather(String pincode, String date, Set<String> fields);
+
+    /**
+     * Non-blocking variant of {@link #fetchWeather}: geocode and weather lookups are composed
+     * as a pipeline, and cancelling the returned future aborts whichever upstream call is in flight.
+     */
+    CompletableFuture<WeatherInfo> fetchWeatherAsync(String pincode, String date);
+
+    /**
+     * Fetches weather for several pincodes in one bounded task scope (weather.batch.*).
+     * Lookups still running at the batch deadline are cancelled; failed or cancelled pincodes are left out.
+     *
+     * @return weather info by pincode, in request order
+     */
+    Map<String, WeatherInfo> fetchWeatherBatch(List<String> pincodes, String date, Set<String> fields);
+
+    /**
+     * Returns all stored weather info with only the selected fields; an empty set returns all fields
+     */
+    List<WeatherInfo> findAll(Set<String> fields);
+
+    /**
+     * Returns stored weather info for the pincode between the two dates (both inclusive), oldest first.
+     * Reads only the store; nothing missing is fetched from upstream.
+     */
+    List<WeatherInfo> findRange(String pincode, String fromDate, String toDate, Set<String> fields);
+
+    /**
+     * Streams all stored weather info; the caller must close the stream
+     */
+    Stream<WeatherInfo> streamAll();
 }
\ No newline at end of file
@@ -1,100 +1,350 @@
 package com.mxfz.weatherservice.service;
 
+import com.mxfz.weatherservice.codec.DateCodec;
+import com.mxfz.weatherservice.codec.OpenWeatherResponseDecoder;
+import com.mxfz.weatherservice.executor.BlockingIo;
+import com.mxfz.weatherservice.executor.TaskRouter;
 import com.mxfz.weatherservice.model.PincodeLocation;
+import com.mxfz.weatherservice.model.weather.CompactWeatherInfo;
 import com.mxfz.weatherservice.model.weather.WeatherData;
+import com.mxfz.weatherservice.model.weather.WeatherFields;
 import com.mxfz.weatherservice.model.weather.WeatherInfo;
 import com.mxfz.weatherservice.model.weather.WeatherResponse;
-import com.mxfz.weatherservice.repository.WeatherRepository;
+import com.mxfz.weatherservice.ratelimit.UpstreamPriority;
+import com.mxfz.weatherservice.repository.WeatherStore;
+import com.mxfz.weatherservice.tracing.RequestTrace;
+import com.mxfz.weatherservice.tracing.TraceStage;
+import com.mxfz.weatherservice.tracing.Tracer;
+import com.mxfz.weatherservice.util.BoundedTaskScope;
+import com.mxfz.weatherservice.util.StringDictionary;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 @Service
+@BlockingIo
 @Slf4j
 public class WeatherServiceImpl implements WeatherService {
 
-    private final WeatherRepository weatherRepository;
+    private static final String OPEN_WEATHER_PATH = "/data/3.0/onecall/timemachine";
+    // OpenWeather has a few dozen condition descriptions; anything past this is kept inline
+    private static final int DESCRIPTION_DICTIONARY_CAPACITY = 256;
+
+    private final URI openWeatherUri;
+    private final WeatherStore weatherStore;
     private final RestService restService;
     private final GeoCodingService geoCodingService;
+    private final WeatherFreshnessPolicy freshnessPolicy;
+    private final WeatherFreshnessMetrics freshnessMetrics;
+    private final ExecutorService ioExecutor;
+    private final Tracer tracer;
+
+    // pincode|date keys with a background refresh in flight, so each key is refreshed at most once at a time
+    private final Set<String> refreshesInFlight = ConcurrentHashMap.newKeySet();
+    // Descriptions of compact records held by batch lookups
+    private final StringDictionary weatherDescriptions = new StringDictionary(DESCRIPTION_DICTIONARY_CAPACITY);
 
     @Value("${open.weather.api.key}")
     private String openWeatherApiKey;
 
-    public WeatherServiceImpl(RestService restService, WeatherRepository weatherRepository,
-                              GeoCodingService geoCodingService) {
+    @Value("${weather.batch.max-concurrency:8}")
+    private int batchMaxConcurrency;
+
+    @Value("${weather.batch.timeout-ms:10000}")
+    private long batchTimeoutMs;
+
+    public WeatherServiceImpl(RestService restService, WeatherStore weatherStore,
+                              GeoCodingService geoCodingService,
+                              WeatherFreshnessPolicy freshnessPolicy,
+                              WeatherFreshnessMetrics freshnessMetrics,
+                              TaskRouter taskRouter,
+                              Tracer tracer,
+                              @Value("${upstream.open-weather.base-url:https://api.openweathermap.org}")
+                              String openWeatherBaseUrl) {
+        this.openWeatherUri = URI.create(openWeatherBaseUrl.replaceAll("/+$", "") + OPEN_WEATHER_PATH);
         this.restService = restService;
-        this.weatherRepository = weatherRepository;
+        this.weatherStore = weatherStore;
         this.geoCodingService = geoCodingService;
+        this.freshnessPolicy = freshnessPolicy;
+        this.freshnessMetrics = freshnessMetrics;
+        this.ioExecutor = taskRouter.executorFor(WeatherServiceImpl.class);
+        this.tracer = tracer;
     }
 
     @Override
     public WeatherInfo fetchWeather(String pincode, String date) {
-        WeatherInfo savedWeatherData = weatherRepository.findByPincodeAndDate(pincode, date);
+        WeatherInfo savedWeatherData = tracer.trace(TraceStage.CACHE_LOOKUP,
+                () -> weatherStore.findByPincodeAndDate(pincode, date));
+
+        if (savedWeatherData != null) {
+            freshnessMetrics.recordStoreHit();
+            return revalidateIfStale(savedWeatherData, pincode, date);
+        }
+        freshnessMetrics.recordStoreMiss();
+        return fetchAndSave(pincode, date);
+    }
+
+    @Override
+    public WeatherInfo fetchWeather(String pincode, String date, Set<String> fields) {
+        if (fields.isEmpty()) {
+            return fetchWeather(pincode, date);
+        }
+        WeatherInfo savedWeatherData = tracer.trace(TraceStage.CACHE_LOOKUP,
+                () -> weatherStore.findByPincodeAndDate(pincode, date, fields));
+        if (savedWeatherData != null) {
+            freshnessMetrics.recordStoreHit();
+            return revalidateIfStale(savedWeatherData, pincode, date);
+        }
+        // The projected lookup already missed, so skip the full-document lookup
+        freshnessMetrics.recordStoreMiss();
+        return WeatherFields.project(fetchAndSave(pincode, date), fields);
+    }
 
+    @Override
+    public CompletableFuture<WeatherInfo> fetchWeatherAsync(String pincode, String date) {
+        WeatherInfo savedWeatherData = tracer.trace(TraceStage.CACHE_LOOKUP,
+                () -> weatherStore.findByPincodeAndDate(pincode, date));
         if (savedWeatherData != null) {
-            log.info("fetching weather info from db");
-            return savedWeatherData;
+            freshnessMetrics.recordStoreHit();
+            return CompletableFuture.completedFuture(revalidateIfStale(savedWeatherData, pincode, date));
+        }
+        freshnessMetrics.recordStoreMiss();
+
+        long dt = freshnessPolicy.observationEpochSecond(date);
+        // The weather call runs on whichever thread completes the geocoding call, so it carries the priority
+        // and the request's trace over
+        UpstreamPriority priority = UpstreamPriority.current();
+        RequestTrace trace = tracer.current();
+        // Tracks the upstream stage currently in flight so cancelling the pipeline aborts it
+        AtomicReference<CompletableFuture<?>> inFlight = new AtomicReference<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        CompletableFuture<PincodeLocation> locationFuture = geoCodingService.fetchLocationDetailsAsync(pincode);
+        inFlight.set(locationFuture);
+
+        CompletableFuture<WeatherInfo> result = locationFuture
+                .thenCompose(location -> {
+                    CompletableFuture<WeatherInfo> weatherFuture = UpstreamPriority.supply(priority, () ->
+                            tracer.traceAsync(trace, TraceStage.OPEN_WEATHER, () -> callOpenWeatherAPIAsync(dt,
+                                    location.getLatitude(), location.getLongitude(), pincode)));
+                    inFlight.set(weatherFuture);
+                    // The pipeline may have been cancelled while the geocoding call was completing
+                    if (cancelled.get()) {
+                        weatherFuture.cancel(true);
+                    }
+                    return weatherFuture;
+                })
+                .thenApply(weatherInfo -> tracer.trace(trace, TraceStage.SAVE,
+                        () -> weatherStore.save(stampFetched(weatherInfo))));
+
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                cancelled.set(true);
+                inFlight.get().cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Finished lookups are held as {@link CompactWeatherInfo} until the whole batch is done, and only expanded
+     * back to WeatherInfo (projected to the selected fields) for the response
+     */
+    @Override
+    public Map<String, WeatherInfo> fetchWeatherBatch(List<String> pincodes, String date, Set<String> fields) {
+        Map<String, BoundedTaskScope.Subtask<CompactWeatherInfo>> lookups = new LinkedHashMap<>();
+        try (BoundedTaskScope<CompactWeatherInfo> scope = BoundedTaskScope.collecting(ioExecutor,
+                batchMaxConcurrency, Duration.ofMillis(batchTimeoutMs))) {
+            for (String pincode : pincodes) {
+                lookups.computeIfAbsent(pincode, key -> scope.fork(tracer.wrap(UpstreamPriority.wrap(
+                        UpstreamPriority.BATCH,
+                        () -> fetchCompact(key, date)))));
+            }
+            scope.join();
+            if (scope.isDeadlineExceeded()) {
+                log.warn("Weather batch for {} pincodes on {} hit its {} ms deadline", lookups.size(), date, batchTimeoutMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+
+        Map<String, WeatherInfo> results = new LinkedHashMap<>();
+        lookups.forEach((pincode, lookup) -> {
+            if (lookup.state() == BoundedTaskScope.State.SUCCESS && lookup.get() != null) {
+                results.put(pincode, WeatherFields.project(lookup.get().toWeatherInfo(weatherDescriptions), fields));
+            } else if (lookup.state() == BoundedTaskScope.State.FAILED) {
+                log.warn("Weather batch lookup failed for pincode {} on {}: {}", pincode, date,
+                        lookup.exception().getMessage());
+            }
+        });
+        return results;
+    }
+
+    @Override
+    public List<WeatherInfo> findAll(Set<String> fields) {
+        return weatherStore.findAll(fields);
+    }
+
+    @Override
+    public List<WeatherInfo> findRange(String pincode, String fromDate, String toDate, Set<String> fields) {
+        return weatherStore.findByPincodeAndDateRange(pincode, fromDate, toDate, fields);
+    }
+
+    @Override
+    public Stream<WeatherInfo> streamAll() {
+        return weatherStore.streamAll();
+    }
+
+    /**
+     * Serves a stored entry as is; if it is stale, a refresh is started in the background
+     */
+    private WeatherInfo revalidateIfStale(WeatherInfo saved, String pincode, String date) {
+        if (freshnessPolicy.isStale(date, saved.getFetchedAt())) {
+            freshnessMetrics.recordStaleServed();
+            scheduleRefresh(pincode, date, saved.getId(), freshnessPolicy.ageMillis(saved.getFetchedAt()));
+        }
+        return saved;
+    }
+
+    private void scheduleRefresh(String pincode, String date, String id, long ageMs) {
+        String key = pincode + '|' + date;
+        if (!refreshesInFlight.add(key)) {
+            freshnessMetrics.recordRefreshCoalesced();
+            return;
+        }
+        try {
+            ioExecutor.execute(UpstreamPriority.wrap(UpstreamPriority.BACKGROUND,
+                    () -> refresh(key, pincode, date, id, ageMs)));
+            freshnessMetrics.recordRefreshStarted();
+        } catch (RejectedExecutionException e) {
+            refreshesInFlight.remove(key);
+            log.warn("Could not schedule weather refresh for pincode {} on {}: {}", pincode, date, e.getMessage());
+        }
+    }
+
+    private void refresh(String key, String pincode, String date, String id, long ageMs) {
+        try {
+            WeatherInfo fresh = fetchFromUpstream(pincode, date);
+            if (fresh == null) {
+                freshnessMetrics.recordRefreshFailed();
+                return;
+            }
+            // Keep the id so the refreshed entry replaces the stored one
+            fresh.setId(id);
+            weatherStore.save(fresh);
+            freshnessMetrics.recordRefreshSucceeded(ageMs);
+            log.info("Refreshed weather info for pincode {} on {} ({} ms old)", pincode, date, ageMs);
+        } catch (Exception e) {
+            freshnessMetrics.recordRefreshFailed();
+            log.warn("Weather refresh failed for pincode {} on {}: {}", pincode, date, e.getMessage());
+        } finally {
+            refreshesInFlight.remove(key);
+        }
+    }
+
+    private CompactWeatherInfo fetchCompact(String pincode, String date) throws Exception {
+        WeatherInfo weatherInfo = awaitCancellable(fetchWeatherAsync(pincode, date));
+        return weatherInfo == null ? null : CompactWeatherInfo.from(weatherInfo, weatherDescriptions);
+    }
+
+    /**
+     * Waits for an async lookup; interrupting the waiting thread (scope cancellation) cancels the lookup
+     */
+    private static <V> V awaitCancellable(CompletableFuture<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
         }
-        log.info("Calling GoogleGeoCodingAPI for latitude/longitude info");
+    }
+
+    /**
+     * Miss path: geocode, OpenWeather, then save the full entry
+     */
+    private WeatherInfo fetchAndSave(String pincode, String date) {
+        WeatherInfo fetched = fetchFromUpstream(pincode, date);
+        return tracer.trace(TraceStage.SAVE, () -> weatherStore.save(fetched));
+    }
+
+    private WeatherInfo fetchFromUpstream(String pincode, String date) {
+        log.debug("Calling GoogleGeoCodingAPI for latitude/longitude info");
         PincodeLocation location = geoCodingService.fetchLocationDetails(pincode);
         double latitude = location.getLatitude();
         double longitude = location.getLongitude();
-        long dt = convertToUnixTime(date);
-        WeatherResponse res = callOpenWeatherAPI(dt, latitude, longitude);
-        WeatherInfo weatherData = mapWeatherData(res, pincode);
-        return weatherRepository.save(weatherData);
+        long dt = freshnessPolicy.observationEpochSecond(date);
+        return stampFetched(tracer.trace(TraceStage.OPEN_WEATHER,
+                () -> callOpenWeatherAPI(dt, latitude, longitude, pincode)));
     }
 
-    @Override
-    public List<WeatherInfo> findAll() {
-        return weatherRepository.findAll();
+    private WeatherInfo stampFetched(WeatherInfo weatherInfo) {
+        if (weatherInfo != null) {
+            weatherInfo.setFetchedAt(freshnessPolicy.now());
+        }
+        return weatherInfo;
     }
 
-    private WeatherResponse callOpenWeatherAPI(long dt, double latitude, double longitude) {
-        log.info("Calling OpenWeatherAPI");
-        String uriString = "https://api.openweathermap.org/data/3.0/onecall/timemachine";
-        URI uri = URI.create(uriString);
-        byte[] bytes = Base64.getDecoder().decode(openWeatherApiKey);
-        String key = new String(bytes, StandardCharsets.UTF_8);
-
-        Map<String, ?> params = Map.of(
-                "lat", latitude,
-                "lon", longitude,
-                "dt", dt,
-                "appid", key
-        );
+    private WeatherInfo callOpenWeatherAPI(long dt, double latitude, double longitude, String pincode) {
+        log.debug("Calling OpenWeatherAPI");
         return restService.callApi(
-                uri,
+                openWeatherUri,
+                HttpMethod.GET,
+                HttpHeaders.EMPTY,
+                buildOpenWeatherParams(dt, latitude, longitude),
+                null,
+                OpenWeatherResponseDecoder.forPincode(pincode)
+        );
+    }
+
+    private CompletableFuture<WeatherInfo> callOpenWeatherAPIAsync(long dt, double latitude, double longitude,
+                                                                  String pincode) {
+        log.debug("Calling OpenWeatherAPI asynchronously");
+        return restService.callApiAsync(
+                openWeatherUri,
                 HttpMethod.GET,
                 HttpHeaders.EMPTY,
-                params,
+                buildOpenWeatherParams(dt, latitude, longitude),
                 null,
-                ParameterizedTypeReference.forType(WeatherResponse.class)
+                OpenWeatherResponseDecoder.forPincode(pincode),
+                null
         );
     }
 
-    private long convertToUnixTime(String dateString) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+    private Map<String, ?> buildOpenWeatherParams(long dt, double latitude, double longitude) {
+        byte[] bytes = Base64.getDecoder().decode(openWeatherApiKey);
+        String key = new String(bytes, StandardCharsets.UTF_8);
 
-        try {
-            Date date = sdf.parse(dateString);
-            return date.getTime() / 1000;
-        } catch (ParseException e) {
-            log.error("Error parsing date string: {}", dateString, e);
-            return -1;
-        }
+        return Map.of(
+                "lat", latitude,
+                "lon", longitude,
+                "dt", dt,
+                "appid", key
+        );
     }
 
+    /**
+     * Maps a fully deserialized OpenWeather response. The request path decodes with
+     * {@link OpenWeatherResponseDecoder} instead; this is kept for callers holding a {@link WeatherResponse}.
+     */
     public WeatherInfo mapWeatherData(WeatherResponse weatherResponse, String pincode) {
         if (weatherResponse.getData() == null || weatherResponse.getData().isEmpty()) {
             return null;
@@ -102,7 +352,7 @@ public class WeatherServiceImpl implements WeatherService {
 
         List<WeatherData> weatherDataList = weatherResponse.getData();
         long dt = weatherDataList.get(0).getDt();
-        String date = new SimpleDateFormat("yyyy-MM-dd").format(new Date(dt * 1000L));
+        String date = DateCodec.formatEpochSecond(dt);
 
         WeatherData firstData = weatherDataList.get(0);
         Long sunrise = firstData.getSunrise();
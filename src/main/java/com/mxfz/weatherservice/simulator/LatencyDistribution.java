@@ -0,0 +1,51 @@
+package com.mxfz.weatherservice.simulator;
+
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Response latency of a simulated upstream, described by its median and 99th percentile
+ *
+ * - fixed: always the median
+ * - uniform: uniform between 0 and twice the median
+ * - exponential: exponential with the given median (p99 is then about 6.6x the median)
+ * - lognormal: fitted so both the median and the p99 match, the usual shape of real API latency
+ */
+public record LatencyDistribution(Kind kind, double medianMs, double p99Ms) {
+
+    // 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.3263;
+
+    public enum Kind {
+        FIXED, UNIFORM, EXPONENTIAL, LOGNORMAL
+    }
+
+    public LatencyDistribution {
+        if (medianMs < 0) {
+            throw new IllegalArgumentException("median-ms must not be negative");
+        }
+        if (kind == Kind.LOGNORMAL && p99Ms < medianMs) {
+            throw new IllegalArgumentException("p99-ms must not be below median-ms for a lognormal distribution");
+        }
+    }
+
+    public static LatencyDistribution of(String kind, double medianMs, double p99Ms) {
+        return new LatencyDistribution(Kind.valueOf(kind.trim().toUpperCase(Locale.ROOT)), medianMs, p99Ms);
+    }
+
+    public long sampleMillis(RandomGenerator random) {
+        if (medianMs == 0) {
+            return 0;
+        }
+        double value = switch (kind) {
+            case FIXED -> medianMs;
+            case UNIFORM -> random.nextDouble() * 2 * medianMs;
+            case EXPONENTIAL -> -medianMs / Math.log(2) * Math.log(1 - random.nextDouble());
+            case LOGNORMAL -> {
+                double sigma = Math.log(p99Ms / medianMs) / Z_99;
+                yield Math.exp(Math.log(medianMs) + sigma * random.nextGaussian());
+            }
+        };
+        return Math.round(value);
+    }
+}
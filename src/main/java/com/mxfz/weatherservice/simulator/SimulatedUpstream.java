@@ -0,0 +1,101 @@
+package com.mxfz.weatherservice.simulator;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Behaviour of one simulated upstream: latency, injected errors and a per-second rate limit.
+ *
+ * Call n draws its latency and error from a random source seeded with (seed, n), so a run with the same
+ * seed and call order sees the same sequence of latencies and failures.
+ */
+public final class SimulatedUpstream {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final Settings settings;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ReentrantLock windowLock = new ReentrantLock();
+    private long windowSecond = -1;
+    private int windowCount;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+
+    public SimulatedUpstream(Settings settings) {
+        this.settings = settings;
+    }
+
+    public Settings settings() {
+        return settings;
+    }
+
+    /**
+     * Decides how the next call is answered. The caller waits delayMs before responding with the status.
+     */
+    public Decision nextCall() {
+        calls.increment();
+        SplittableRandom random = new SplittableRandom(settings.seed() * GOLDEN_GAMMA + sequence.getAndIncrement());
+        if (!admit()) {
+            rateLimited.increment();
+            // Real APIs reject over-limit calls quickly, without the usual processing latency
+            return new Decision(429, 0, 1);
+        }
+        long delayMs = settings.latency().sampleMillis(random);
+        if (settings.errorRate() > 0 && random.nextDouble() < settings.errorRate()) {
+            injectedErrors.increment();
+            return new Decision(503, delayMs, 0);
+        }
+        return new Decision(200, delayMs, 0);
+    }
+
+    public Stats stats() {
+        return new Stats(calls.sum(), injectedErrors.sum(), rateLimited.sum());
+    }
+
+    private boolean admit() {
+        if (settings.rateLimitPerSecond() <= 0) {
+            return true;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        windowLock.lock();
+        try {
+            if (second != windowSecond) {
+                windowSecond = second;
+                windowCount = 0;
+            }
+            return ++windowCount <= settings.rateLimitPerSecond();
+        } finally {
+            windowLock.unlock();
+        }
+    }
+
+    /**
+     * @param errorRate          fraction of admitted calls answered with 503
+     * @param rateLimitPerSecond calls admitted per wall-clock second before answering 429, 0 for no limit
+     */
+    public record Settings(LatencyDistribution latency, double errorRate, int rateLimitPerSecond, long seed) {
+
+        public Settings {
+            if (errorRate < 0 || errorRate > 1) {
+                throw new IllegalArgumentException("error-rate must be between 0 and 1");
+            }
+        }
+    }
+
+    /**
+     * @param retryAfterSeconds value of the Retry-After header, 0 to omit it
+     */
+    public record Decision(int status, long delayMs, int retryAfterSeconds) {
+
+        public boolean ok() {
+            return status == 200;
+        }
+    }
+
+    public record Stats(long calls, long injectedErrors, long rateLimited) {
+    }
+}
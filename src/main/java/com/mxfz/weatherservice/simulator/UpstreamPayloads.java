@@ -0,0 +1,155 @@
+package com.mxfz.weatherservice.simulator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.mxfz.weatherservice.config.JacksonConfig;
+import com.mxfz.weatherservice.model.geocode.AddressComponent;
+import com.mxfz.weatherservice.model.geocode.Bounds;
+import com.mxfz.weatherservice.model.geocode.GeocodeResponse;
+import com.mxfz.weatherservice.model.geocode.Geometry;
+import com.mxfz.weatherservice.model.geocode.Location;
+import com.mxfz.weatherservice.model.geocode.Result;
+import com.mxfz.weatherservice.model.geocode.Viewport;
+import com.mxfz.weatherservice.model.weather.Weather;
+import com.mxfz.weatherservice.model.weather.WeatherData;
+import com.mxfz.weatherservice.model.weather.WeatherResponse;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Builds OpenWeather timemachine and Google Geocoding responses shaped like the real APIs. Values are
+ * derived from the request (coordinates and time, or pincode), so the same request always gets the same
+ * answer and different pincodes map to different places.
+ */
+public final class UpstreamPayloads {
+
+    private static final String[][] CONDITIONS = {
+            {"800", "Clear", "clear sky", "01d"},
+            {"801", "Clouds", "few clouds", "02d"},
+            {"803", "Clouds", "broken clouds", "04d"},
+            {"701", "Mist", "mist", "50d"},
+            {"500", "Rain", "light rain", "10d"},
+            {"211", "Thunderstorm", "thunderstorm", "11d"}
+    };
+    private static final String[] LOCALITIES = {"Central", "Market Road", "Station Area", "Old Town", "Cantonment"};
+
+    // The real APIs use snake_case field names (feels_like, timezone_offset)
+    private static final ObjectMapper SNAKE_CASE_MAPPER = JacksonConfig.sharedObjectMapper().copy()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+
+    private UpstreamPayloads() {
+    }
+
+    /**
+     * Serialises a payload the way the real upstream would send it
+     */
+    public static byte[] toJson(Object payload) {
+        try {
+            return SNAKE_CASE_MAPPER.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static WeatherResponse weather(double lat, double lon, long dt) {
+        SplittableRandom random = new SplittableRandom(Double.hashCode(lat) * 31L + Double.hashCode(lon) * 17L + dt);
+        long dayStart = Math.floorDiv(dt, 86_400L) * 86_400L;
+        double temp = 288 + (30 - Math.abs(lat)) / 2 + random.nextDouble(-4, 4);
+        String[] condition = CONDITIONS[random.nextInt(CONDITIONS.length)];
+
+        Weather weather = new Weather();
+        weather.setId(Integer.parseInt(condition[0]));
+        weather.setMain(condition[1]);
+        weather.setDescription(condition[2]);
+        weather.setIcon(condition[3]);
+
+        WeatherData data = new WeatherData();
+        data.setDt(dt);
+        data.setSunrise(dayStart + 3_600 + random.nextInt(1_800));
+        data.setSunset(dayStart + 46_800 + random.nextInt(1_800));
+        data.setTemp(round(temp));
+        data.setFeelsLike(round(temp + random.nextDouble(-1.5, 2.5)));
+        data.setPressure(1_000 + random.nextInt(25));
+        data.setHumidity(30 + random.nextInt(65));
+        data.setDewPoint(round(temp - random.nextDouble(1, 8)));
+        data.setUvi(round(random.nextDouble(0, 11)));
+        data.setClouds(random.nextInt(101));
+        data.setVisibility(1_000 + random.nextInt(9_001));
+        data.setWindSpeed(round(random.nextDouble(0, 12)));
+        data.setWindDeg(random.nextInt(360));
+        data.setWeather(List.of(weather));
+
+        WeatherResponse response = new WeatherResponse();
+        response.setLat(lat);
+        response.setLon(lon);
+        response.setTimezone("Asia/Kolkata");
+        response.setTimezoneOffset(19_800);
+        response.setData(List.of(data));
+        return response;
+    }
+
+    public static GeocodeResponse geocode(String pincode) {
+        SplittableRandom random = new SplittableRandom(pincode.hashCode());
+        double lat = round6(8 + random.nextDouble(0, 27));
+        double lng = round6(69 + random.nextDouble(0, 27));
+        String locality = LOCALITIES[random.nextInt(LOCALITIES.length)];
+
+        Result result = new Result();
+        result.setAddressComponents(List.of(
+                component(pincode, pincode, "postal_code"),
+                component(locality, locality, "sublocality", "political"),
+                component("India", "IN", "country", "political")));
+        result.setFormattedAddress(locality + " " + pincode + ", India");
+        result.setGeometry(geometry(lat, lng));
+        result.setPlaceId("SIM" + Integer.toHexString(pincode.hashCode()));
+        result.setPostcodeLocalities(List.of(locality, locality + " East", locality + " West"));
+        result.setTypes(List.of("postal_code"));
+
+        GeocodeResponse response = new GeocodeResponse();
+        response.setResults(List.of(result));
+        response.setStatus("OK");
+        return response;
+    }
+
+    private static AddressComponent component(String longName, String shortName, String... types) {
+        AddressComponent component = new AddressComponent();
+        component.setLongName(longName);
+        component.setShortName(shortName);
+        component.setTypes(List.of(types));
+        return component;
+    }
+
+    private static Geometry geometry(double lat, double lng) {
+        Bounds bounds = new Bounds();
+        bounds.setNortheast(location(lat + 0.015, lng + 0.015));
+        bounds.setSouthwest(location(lat - 0.015, lng - 0.015));
+        Viewport viewport = new Viewport();
+        viewport.setNortheast(bounds.getNortheast());
+        viewport.setSouthwest(bounds.getSouthwest());
+
+        Geometry geometry = new Geometry();
+        geometry.setLocation(location(lat, lng));
+        geometry.setLocationType("APPROXIMATE");
+        geometry.setBounds(bounds);
+        geometry.setViewport(viewport);
+        return geometry;
+    }
+
+    private static Location location(double lat, double lng) {
+        Location location = new Location();
+        location.setLat(round6(lat));
+        location.setLng(round6(lng));
+        return location;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static double round6(double value) {
+        return Math.round(value * 1_000_000) / 1_000_000.0;
+    }
+}
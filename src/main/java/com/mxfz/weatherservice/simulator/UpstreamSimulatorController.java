@@ -0,0 +1,122 @@
+package com.mxfz.weatherservice.simulator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Local stand-in for OpenWeather and Google Geocoding, active with the simulator profile.
+ * application-simulator.yml points the upstream base URLs here, so the miss path runs offline with
+ * programmable latency, error rate and rate limit (see {@link SimulatedUpstream}).
+ *
+ * Behaviour can be changed at runtime with PUT /simulator/{upstream}/settings, which also resets its stats.
+ */
+@RestController
+@Profile("simulator")
+@RequestMapping("/simulator")
+@Slf4j
+public class UpstreamSimulatorController {
+
+    static final String OPEN_WEATHER = "open-weather";
+    static final String GOOGLE_GEOCODING = "google-geocoding";
+
+    private final Map<String, SimulatedUpstream> upstreams = new ConcurrentHashMap<>();
+
+    public UpstreamSimulatorController(Environment environment) {
+        upstreams.put(OPEN_WEATHER, new SimulatedUpstream(settingsFrom(environment, OPEN_WEATHER)));
+        upstreams.put(GOOGLE_GEOCODING, new SimulatedUpstream(settingsFrom(environment, GOOGLE_GEOCODING)));
+        upstreams.forEach((name, upstream) -> log.info("Simulating {} upstream: {}", name, upstream.settings()));
+    }
+
+    @GetMapping("/openweather/data/3.0/onecall/timemachine")
+    public ResponseEntity<byte[]> timemachine(@RequestParam double lat, @RequestParam double lon,
+                                              @RequestParam long dt) throws InterruptedException {
+        return respond(upstreams.get(OPEN_WEATHER), () -> UpstreamPayloads.weather(lat, lon, dt));
+    }
+
+    @GetMapping("/google/maps/api/geocode/json")
+    public ResponseEntity<byte[]> geocode(@RequestParam String address) throws InterruptedException {
+        return respond(upstreams.get(GOOGLE_GEOCODING), () -> UpstreamPayloads.geocode(address));
+    }
+
+    /**
+     * Calls, injected errors and rate-limited calls per upstream since startup or the last settings change
+     */
+    @GetMapping("/stats")
+    public Map<String, SimulatedUpstream.Stats> stats() {
+        Map<String, SimulatedUpstream.Stats> stats = new LinkedHashMap<>();
+        upstreams.forEach((name, upstream) -> stats.put(name, upstream.stats()));
+        return stats;
+    }
+
+    @PutMapping("/{upstream}/settings")
+    public SimulatedUpstream.Settings updateSettings(@PathVariable String upstream,
+                                                     @RequestBody SettingsRequest request) {
+        if (!upstreams.containsKey(upstream)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown upstream: " + upstream);
+        }
+        SimulatedUpstream.Settings settings;
+        try {
+            settings = new SimulatedUpstream.Settings(
+                    LatencyDistribution.of(request.distribution(), request.medianMs(), request.p99Ms()),
+                    request.errorRate(), request.rateLimitPerSecond(), request.seed());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid simulator settings: " + e.getMessage());
+        }
+        upstreams.put(upstream, new SimulatedUpstream(settings));
+        log.info("Simulating {} upstream: {}", upstream, settings);
+        return settings;
+    }
+
+    private static ResponseEntity<byte[]> respond(SimulatedUpstream upstream, Supplier<Object> payload)
+            throws InterruptedException {
+        SimulatedUpstream.Decision decision = upstream.nextCall();
+        if (decision.delayMs() > 0) {
+            Thread.sleep(decision.delayMs());
+        }
+        if (!decision.ok()) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(decision.status())
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (decision.retryAfterSeconds() > 0) {
+                response.header(HttpHeaders.RETRY_AFTER, Integer.toString(decision.retryAfterSeconds()));
+            }
+            String message = decision.status() == 429 ? "rate limit exceeded" : "simulated upstream failure";
+            return response.body(("{\"cod\":" + decision.status() + ",\"message\":\"" + message + "\"}")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(UpstreamPayloads.toJson(payload.get()));
+    }
+
+    private static SimulatedUpstream.Settings settingsFrom(Environment environment, String upstream) {
+        String prefix = "simulator." + upstream + ".";
+        double medianMs = environment.getProperty(prefix + "latency.median-ms", Double.class, 100.0);
+        return new SimulatedUpstream.Settings(
+                LatencyDistribution.of(environment.getProperty(prefix + "latency.distribution", "lognormal"),
+                        medianMs, environment.getProperty(prefix + "latency.p99-ms", Double.class, medianMs * 5)),
+                environment.getProperty(prefix + "error-rate", Double.class, 0.0),
+                environment.getProperty(prefix + "rate-limit-per-second", Integer.class, 0),
+                environment.getProperty("simulator.seed", Long.class, 42L));
+    }
+
+    public record SettingsRequest(String distribution, double medianMs, double p99Ms, double errorRate,
+                                  int rateLimitPerSecond, long seed) {
+    }
+}
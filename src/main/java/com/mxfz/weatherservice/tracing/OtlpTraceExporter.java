@@ -0,0 +1,237 @@
+package com.mxfz.weatherservice.tracing;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exports finished request traces as OTLP/HTTP JSON (POST /v1/traces) to a local collector, e.g. the
+ * OpenTelemetry Collector or Jaeger. Each request becomes a server span with one child span per stage.
+ *
+ * Traces are queued and sent in batches off the request path; when the queue is full, or the collector
+ * is down, traces are dropped rather than slowing requests down.
+ */
+@Component
+@Slf4j
+public class OtlpTraceExporter {
+
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int SPAN_KIND_SERVER = 2;
+    private static final int SPAN_KIND_CLIENT = 3;
+    private static final int STATUS_ERROR = 2;
+
+    private final boolean enabled;
+    private final URI endpoint;
+    private final String serviceName;
+    private final int batchSize;
+    private final Duration timeout;
+    private final JsonFactory jsonFactory;
+    private final BlockingQueue<RequestTrace> queue;
+    private final HttpClient httpClient;
+
+    private final LongAdder exportedTraces = new LongAdder();
+    private final LongAdder droppedTraces = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    public OtlpTraceExporter(ObjectMapper objectMapper,
+                             @Value("${tracing.otlp.enabled:false}") boolean enabled,
+                             @Value("${tracing.otlp.endpoint:http://localhost:4318/v1/traces}") String endpoint,
+                             @Value("${spring.application.name:weather-service}") String serviceName,
+                             @Value("${tracing.otlp.queue-capacity:2048}") int queueCapacity,
+                             @Value("${tracing.otlp.batch-size:256}") int batchSize,
+                             @Value("${tracing.otlp.timeout-ms:2000}") long timeoutMs) {
+        this.enabled = enabled;
+        this.endpoint = URI.create(endpoint);
+        this.serviceName = serviceName;
+        this.batchSize = Math.max(1, batchSize);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.jsonFactory = objectMapper.getFactory();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.httpClient = enabled ? HttpClient.newBuilder().connectTimeout(timeout).build() : null;
+        if (enabled) {
+            log.info("Exporting request traces over OTLP to {}", endpoint);
+        }
+    }
+
+    /**
+     * Queues a finished trace for export; never blocks
+     */
+    public void export(RequestTrace trace) {
+        if (enabled && !queue.offer(trace)) {
+            droppedTraces.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tracing.otlp.flush-interval-ms:5000}")
+    public void flush() {
+        List<RequestTrace.Snapshot> batch = new ArrayList<>(batchSize);
+        List<RequestTrace> drained = new ArrayList<>(batchSize);
+        // At most one queue's worth per flush, so a steady stream of traces cannot keep the flush going
+        int maxBatches = (queue.size() + queue.remainingCapacity()) / batchSize + 1;
+        for (int i = 0; i < maxBatches && queue.drainTo(drained, batchSize) > 0; i++) {
+            for (RequestTrace trace : drained) {
+                batch.add(trace.snapshot());
+            }
+            send(batch);
+            batch.clear();
+            drained.clear();
+        }
+    }
+
+    private void send(List<RequestTrace.Snapshot> batch) {
+        int traces = batch.size();
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(encode(jsonFactory, serviceName, batch)))
+                .build();
+        // Sent asynchronously so a slow collector does not hold up the shared scheduler thread
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (error == null && response.statusCode() / 100 == 2) {
+                exportedTraces.add(traces);
+                return;
+            }
+            failedBatches.increment();
+            droppedTraces.add(traces);
+            log.debug("OTLP export of {} traces to {} failed: {}", traces, endpoint,
+                    error != null ? error.getMessage() : "HTTP " + response.statusCode());
+        });
+    }
+
+    /**
+     * Encodes traces as an OTLP ExportTraceServiceRequest in the protobuf JSON mapping
+     */
+    static byte[] encode(JsonFactory jsonFactory, String serviceName, List<RequestTrace.Snapshot> traces) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512 * traces.size());
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("resourceSpans");
+            json.writeStartObject();
+            json.writeObjectFieldStart("resource");
+            json.writeArrayFieldStart("attributes");
+            writeAttribute(json, "service.name", serviceName);
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeArrayFieldStart("scopeSpans");
+            json.writeStartObject();
+            json.writeObjectFieldStart("scope");
+            json.writeStringField("name", Tracer.class.getName());
+            json.writeEndObject();
+            json.writeArrayFieldStart("spans");
+            for (RequestTrace.Snapshot snapshot : traces) {
+                writeRequestSpan(json, snapshot);
+                for (RequestTrace.Span span : snapshot.spans()) {
+                    writeStageSpan(json, snapshot, span);
+                }
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndArray();
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeRequestSpan(JsonGenerator json, RequestTrace.Snapshot snapshot) throws IOException {
+        RequestTrace trace = snapshot.trace();
+        json.writeStartObject();
+        json.writeStringField("traceId", snapshot.traceId());
+        json.writeStringField("spanId", snapshot.spanId());
+        if (trace.parentSpanId() != null) {
+            json.writeStringField("parentSpanId", trace.parentSpanId());
+        }
+        json.writeStringField("name", trace.name());
+        json.writeNumberField("kind", SPAN_KIND_SERVER);
+        // 64-bit integers are strings in the protobuf JSON mapping
+        json.writeStringField("startTimeUnixNano", Long.toString(snapshot.startEpochNanos()));
+        json.writeStringField("endTimeUnixNano", Long.toString(snapshot.endEpochNanos()));
+        json.writeArrayFieldStart("attributes");
+        writeAttribute(json, "http.response.status_code", snapshot.status());
+        if (snapshot.droppedSpans() > 0) {
+            writeAttribute(json, "weather.dropped_spans", snapshot.droppedSpans());
+        }
+        json.writeEndArray();
+        if (snapshot.status() >= 500) {
+            writeErrorStatus(json);
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeStageSpan(JsonGenerator json, RequestTrace.Snapshot snapshot, RequestTrace.Span span)
+            throws IOException {
+        json.writeStartObject();
+        json.writeStringField("traceId", snapshot.traceId());
+        json.writeStringField("spanId", RequestTrace.toHex(RequestTrace.randomId()));
+        json.writeStringField("parentSpanId", snapshot.spanId());
+        json.writeStringField("name", span.stage().metricName());
+        json.writeNumberField("kind", span.stage().isUpstream() ? SPAN_KIND_CLIENT : SPAN_KIND_INTERNAL);
+        json.writeStringField("startTimeUnixNano", Long.toString(span.startEpochNanos()));
+        json.writeStringField("endTimeUnixNano", Long.toString(span.endEpochNanos()));
+        if (span.failed()) {
+            writeErrorStatus(json);
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeErrorStatus(JsonGenerator json) throws IOException {
+        json.writeObjectFieldStart("status");
+        json.writeNumberField("code", STATUS_ERROR);
+        json.writeEndObject();
+    }
+
+    private static void writeAttribute(JsonGenerator json, String key, String value) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("key", key);
+        json.writeObjectFieldStart("value");
+        json.writeStringField("stringValue", value);
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private static void writeAttribute(JsonGenerator json, String key, long value) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("key", key);
+        json.writeObjectFieldStart("value");
+        json.writeStringField("intValue", Long.toString(value));
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    public ExportStats stats() {
+        return new ExportStats(enabled, endpoint.toString(), queue.size(), exportedTraces.sum(), droppedTraces.sum(),
+                failedBatches.sum());
+    }
+
+    /**
+     * @param droppedTraces traces lost to a full queue or a failed export
+     */
+    public record ExportStats(boolean enabled,
+                              String endpoint,
+                              int queued,
+                              long exportedTraces,
+                              long droppedTraces,
+                              long failedBatches) {
+    }
+}
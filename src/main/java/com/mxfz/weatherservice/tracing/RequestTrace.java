@@ -0,0 +1,229 @@
+package com.mxfz.weatherservice.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stage spans of one HTTP request. Spans are kept as parallel primitive arrays so recording one allocates
+ * nothing; stages may finish on other threads (async upstream calls, batch lookups), so recording takes a lock.
+ * A request records at most {@link #MAX_SPANS} spans, later ones only reach the stage histograms.
+ *
+ * The trace id follows W3C Trace Context: an incoming traceparent header is continued, otherwise a new
+ * random id is started.
+ */
+public final class RequestTrace {
+
+    public static final int MAX_SPANS = 32;
+
+    private final String name;
+    // Ids are kept as numbers and only turned into hex when exported
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final long parentSpanId;
+    private final long spanId;
+    private final long startEpochNanos;
+    private final long startNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final byte[] stages = new byte[MAX_SPANS];
+    private final long[] spanStarts = new long[MAX_SPANS];
+    private final long[] spanDurations = new long[MAX_SPANS];
+    private final boolean[] spanFailures = new boolean[MAX_SPANS];
+    private int spanCount;
+    private int droppedSpans;
+    private long durationNanos = -1;
+    private int status;
+
+    private RequestTrace(String name, long traceIdHigh, long traceIdLow, long parentSpanId, long startEpochNanos,
+                         long startNanos) {
+        this.name = name;
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.parentSpanId = parentSpanId;
+        this.spanId = randomId();
+        this.startEpochNanos = startEpochNanos;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Starts a trace, continuing the caller's trace if traceparent is a valid W3C header
+     */
+    public static RequestTrace start(String name, String traceparent) {
+        long epochNanos = System.currentTimeMillis() * 1_000_000L;
+        long nanos = System.nanoTime();
+        if (isValidTraceparent(traceparent)) {
+            return new RequestTrace(name, parseHex(traceparent, 3), parseHex(traceparent, 19),
+                    parseHex(traceparent, 36), epochNanos, nanos);
+        }
+        return new RequestTrace(name, randomId(), randomId(), 0, epochNanos, nanos);
+    }
+
+    void addSpan(TraceStage stage, long startNanos, long durationNanos, boolean failed) {
+        lock.lock();
+        try {
+            if (spanCount == MAX_SPANS) {
+                droppedSpans++;
+                return;
+            }
+            stages[spanCount] = (byte) stage.ordinal();
+            spanStarts[spanCount] = startNanos;
+            spanDurations[spanCount] = durationNanos;
+            spanFailures[spanCount] = failed;
+            spanCount++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the request as finished; spans of stages still running are recorded but not exported
+     */
+    void finish(int status) {
+        lock.lock();
+        try {
+            this.durationNanos = System.nanoTime() - startNanos;
+            this.status = status;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Server-Timing header value with the summed duration of each stage and the time since the request started,
+     * e.g. {@code cache;dur=0.412, openweather;dur=183.020, total;dur=185.731}
+     */
+    public String serverTiming() {
+        long[] perStage = new long[TraceStage.values().length];
+        boolean[] seen = new boolean[perStage.length];
+        lock.lock();
+        try {
+            for (int i = 0; i < spanCount; i++) {
+                perStage[stages[i]] += spanDurations[i];
+                seen[stages[i]] = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        StringBuilder header = new StringBuilder(128);
+        for (int i = 0; i < perStage.length; i++) {
+            if (seen[i]) {
+                appendMetric(header, TraceStage.of(i).metricName(), perStage[i]);
+            }
+        }
+        appendMetric(header, "total", System.nanoTime() - startNanos);
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String metric, long nanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        // Milliseconds with three decimals, without the cost of String.format
+        long micros = Math.max(0, nanos) / 1000;
+        long fraction = micros % 1000;
+        header.append(metric).append(";dur=").append(micros / 1000).append('.');
+        if (fraction < 100) {
+            header.append(fraction < 10 ? "00" : "0");
+        }
+        header.append(fraction);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String traceId() {
+        return toHex(traceIdHigh) + toHex(traceIdLow);
+    }
+
+    /**
+     * Span id of the request itself, the parent of all stage spans
+     */
+    public String spanId() {
+        return toHex(spanId);
+    }
+
+    /**
+     * Span id from the incoming traceparent header, null when the trace started here
+     */
+    public String parentSpanId() {
+        return parentSpanId == 0 ? null : toHex(parentSpanId);
+    }
+
+    /**
+     * Copies the finished request and its spans, with times converted to epoch nanoseconds
+     */
+    Snapshot snapshot() {
+        lock.lock();
+        try {
+            Span[] spans = new Span[spanCount];
+            for (int i = 0; i < spanCount; i++) {
+                long start = toEpochNanos(spanStarts[i]);
+                spans[i] = new Span(TraceStage.of(stages[i]), start, start + spanDurations[i], spanFailures[i]);
+            }
+            long duration = durationNanos < 0 ? System.nanoTime() - startNanos : durationNanos;
+            return new Snapshot(this, traceId(), spanId(), startEpochNanos, startEpochNanos + duration, status, spans,
+                    droppedSpans);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long toEpochNanos(long nanoTime) {
+        return startEpochNanos + (nanoTime - startNanos);
+    }
+
+    static long randomId() {
+        long id = ThreadLocalRandom.current().nextLong();
+        // All-zero ids are invalid in W3C Trace Context and OTLP
+        return id == 0 ? 1 : id;
+    }
+
+    static String toHex(long id) {
+        char[] hex = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            hex[i] = Character.forDigit((int) (id & 0xF), 16);
+            id >>>= 4;
+        }
+        return new String(hex);
+    }
+
+    private static long parseHex(String value, int offset) {
+        return Long.parseUnsignedLong(value, offset, offset + 16, 16);
+    }
+
+    private static boolean isValidTraceparent(String header) {
+        // version-traceid-parentid-flags, e.g. 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01
+        if (header == null || header.length() < 55 || header.charAt(2) != '-' || header.charAt(35) != '-'
+                || header.charAt(52) != '-' || "ff".equals(header.substring(0, 2))) {
+            return false;
+        }
+        return isHex(header, 0, 2) && isHex(header, 3, 35) && !isZero(header, 3, 35)
+                && isHex(header, 36, 52) && !isZero(header, 36, 52) && isHex(header, 53, 55);
+    }
+
+    private static boolean isHex(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    record Span(TraceStage stage, long startEpochNanos, long endEpochNanos, boolean failed) {
+    }
+
+    record Snapshot(RequestTrace trace, String traceId, String spanId, long startEpochNanos, long endEpochNanos,
+                    int status, Span[] spans, int droppedSpans) {
+    }
+}
@@ -0,0 +1,113 @@
+package com.mxfz.weatherservice.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Traces requests under tracing.path-prefix: binds a {@link RequestTrace} to the request thread, adds a
+ * Server-Timing header with the time spent per stage just before the response is committed, and hands the
+ * finished trace to the {@link OtlpTraceExporter}.
+ */
+@Component
+public class RequestTracingFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+    static final String TRACEPARENT = "traceparent";
+
+    private final Tracer tracer;
+    private final OtlpTraceExporter exporter;
+    private final String pathPrefix;
+    private final boolean serverTiming;
+
+    public RequestTracingFilter(Tracer tracer, OtlpTraceExporter exporter,
+                                @Value("${tracing.path-prefix:/api/weather/}") String pathPrefix,
+                                @Value("${tracing.server-timing:true}") boolean serverTiming) {
+        this.tracer = tracer;
+        this.exporter = exporter;
+        this.pathPrefix = pathPrefix;
+        this.serverTiming = serverTiming;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(pathPrefix);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTrace trace = tracer.begin(request.getMethod() + ' ' + request.getRequestURI(),
+                request.getHeader(TRACEPARENT));
+        ServerTimingResponse tracedResponse = serverTiming ? new ServerTimingResponse(response, trace) : null;
+        try {
+            chain.doFilter(request, tracedResponse != null ? tracedResponse : response);
+        } finally {
+            if (tracedResponse != null) {
+                // Responses without a body are not committed yet
+                tracedResponse.addServerTiming();
+            }
+            tracer.end(trace, response.getStatus());
+            exporter.export(trace);
+        }
+    }
+
+    /**
+     * Adds the Server-Timing header the first time the body is about to be written
+     */
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+        private final RequestTrace trace;
+        private boolean added;
+
+        private ServerTimingResponse(HttpServletResponse response, RequestTrace trace) {
+            super(response);
+            this.trace = trace;
+        }
+
+        private void addServerTiming() {
+            if (!added && !isCommitted()) {
+                added = true;
+                setHeader(SERVER_TIMING, trace.serverTiming());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            addServerTiming();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            addServerTiming();
+            super.sendError(status);
+        }
+    }
+}
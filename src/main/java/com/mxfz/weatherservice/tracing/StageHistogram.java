@@ -0,0 +1,108 @@
+package com.mxfz.weatherservice.tracing;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two buckets: bucket i counts durations below 2^i microseconds,
+ * the last bucket everything from about 67 s up. Percentiles are read as the upper bound of the bucket they
+ * fall in, so they are at most 2x off, which is plenty to tell a slow stage from a fast one.
+ */
+public final class StageHistogram {
+
+    public static final int BUCKETS = 28;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public StageHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos, boolean failed) {
+        long micros = Math.max(0, nanos) / 1000;
+        buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros))].increment();
+        count.increment();
+        if (failed) {
+            failures.increment();
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Exclusive upper bound of the bucket in nanoseconds, Long.MAX_VALUE for the last one
+     */
+    public static long upperBoundNanos(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) * 1000;
+    }
+
+    /**
+     * Counts per bucket; read without a lock, so the total may trail {@link #count()} by in-flight records
+     */
+    public long[] bucketCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    public StageStats stats(String stage) {
+        long[] counts = bucketCounts();
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        long max = maxNanos.get();
+        long samples = count.sum();
+        return new StageStats(stage, samples, failures.sum(), samples == 0 ? 0 : totalNanos.sum() / 1e6 / samples,
+                percentileMs(counts, total, 0.5, max), percentileMs(counts, total, 0.9, max),
+                percentileMs(counts, total, 0.99, max), max / 1e6);
+    }
+
+    private static double percentileMs(long[] counts, long total, double percentile, long maxNanos) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundNanos(i), maxNanos) / 1e6;
+            }
+        }
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * @param p50Ms percentiles are bucket upper bounds, capped at the largest duration seen
+     */
+    public record StageStats(String stage,
+                             long count,
+                             long failures,
+                             double meanMs,
+                             double p50Ms,
+                             double p90Ms,
+                             double p99Ms,
+                             double maxMs) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.mxfz.weatherservice.tracing;
+
+/**
+ * Stages of a weather lookup that are timed by {@link Tracer}, named as they appear in the Server-Timing header
+ */
+public enum TraceStage {
+
+    /**
+     * Weather store lookup by pincode and date
+     */
+    CACHE_LOOKUP("cache", false),
+
+    /**
+     * Stored pincode location lookup
+     */
+    PINCODE_LOOKUP("pincode", false),
+
+    /**
+     * Google Geocoding call, including rate-limit waits and retries
+     */
+    GEOCODE("geocode", true),
+
+    /**
+     * Saving a geocoded pincode location
+     */
+    PINCODE_SAVE("pincode-save", false),
+
+    /**
+     * OpenWeather call, including rate-limit waits, hedges and retries
+     */
+    OPEN_WEATHER("openweather", true),
+
+    /**
+     * Saving fetched weather info
+     */
+    SAVE("save", false);
+
+    private static final TraceStage[] VALUES = values();
+
+    private final String metricName;
+    private final boolean upstream;
+
+    TraceStage(String metricName, boolean upstream) {
+        this.metricName = metricName;
+        this.upstream = upstream;
+    }
+
+    public String metricName() {
+        return metricName;
+    }
+
+    /**
+     * Whether the stage is a call to a remote upstream (an OTLP client span) rather than local work
+     */
+    public boolean isUpstream() {
+        return upstream;
+    }
+
+    static TraceStage of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,83 @@
+package com.mxfz.weatherservice.upstream;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps optional extra calls (hedges, retries) to a fraction of regular calls: every regular call deposits
+ * ratio tokens, up to capacity, and every extra call withdraws one. A burst of extra calls can never exceed
+ * capacity, and sustained extra traffic never exceeds ratio times the regular traffic.
+ */
+public final class CallBudget {
+
+    private final double ratio;
+    private final double capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+
+    public CallBudget(double ratio, double capacity) {
+        this(ratio, capacity, 0);
+    }
+
+    /**
+     * @param initial extra calls available before any regular call has been made
+     */
+    public CallBudget(double ratio, double capacity, double initial) {
+        if (ratio < 0 || capacity < 0) {
+            throw new IllegalArgumentException("Call budget ratio and capacity must not be negative");
+        }
+        this.ratio = ratio;
+        this.capacity = capacity;
+        this.tokens = Math.min(capacity, Math.max(0, initial));
+    }
+
+    /**
+     * Records a regular call
+     */
+    public void deposit() {
+        lock.lock();
+        try {
+            tokens = Math.min(capacity, tokens + ratio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes budget for one extra call, if there is any
+     */
+    public boolean tryWithdraw() {
+        lock.lock();
+        try {
+            if (tokens >= 1) {
+                tokens -= 1;
+                granted.increment();
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        denied.increment();
+        return false;
+    }
+
+    public double balance() {
+        lock.lock();
+        try {
+            return tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long granted() {
+        return granted.sum();
+    }
+
+    public long denied() {
+        return denied.sum();
+    }
+}
@@ -0,0 +1,64 @@
+package com.mxfz.weatherservice.upstream;
+
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Request factory of the blocking RestClient. Connections get the configured connect and read timeouts,
+ * capped to the time left until the deadline of the attempt running on the current thread, so a synchronous
+ * upstream call does not outlive its deadline by waiting on a slow connect or a silent upstream.
+ */
+public class DeadlineBoundRequestFactory extends SimpleClientHttpRequestFactory {
+
+    private static final ThreadLocal<Long> ATTEMPT_DEADLINE = new ThreadLocal<>();
+
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    public DeadlineBoundRequestFactory(Duration connectTimeout, Duration readTimeout) {
+        this.connectTimeoutMs = (int) connectTimeout.toMillis();
+        this.readTimeoutMs = (int) readTimeout.toMillis();
+        setConnectTimeout(connectTimeoutMs);
+        setReadTimeout(readTimeoutMs);
+    }
+
+    /**
+     * Runs an attempt whose connections must give up by deadlineNanos (a System.nanoTime value)
+     */
+    public static <T> T withDeadline(long deadlineNanos, Supplier<T> attempt) {
+        Long previous = ATTEMPT_DEADLINE.get();
+        ATTEMPT_DEADLINE.set(deadlineNanos);
+        try {
+            return attempt.get();
+        } finally {
+            if (previous == null) {
+                ATTEMPT_DEADLINE.remove();
+            } else {
+                ATTEMPT_DEADLINE.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+        Long deadline = ATTEMPT_DEADLINE.get();
+        if (deadline == null) {
+            return;
+        }
+        // 0 means no timeout for HttpURLConnection, so at least 1 ms is left
+        int leftMs = (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+                TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        connection.setConnectTimeout(cap(connectTimeoutMs, leftMs));
+        connection.setReadTimeout(cap(readTimeoutMs, leftMs));
+    }
+
+    private static int cap(int timeoutMs, int leftMs) {
+        return timeoutMs <= 0 ? leftMs : Math.min(timeoutMs, leftMs);
+    }
+}
@@ -0,0 +1,69 @@
+package com.mxfz.weatherservice.upstream;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The most recent call latencies of one upstream, in a fixed-size ring. Percentiles are recomputed every
+ * eighth of the window rather than per call, since they only need to follow the trend.
+ */
+public final class LatencyWindow {
+
+    private final long[] samples;
+    private final int minSamples;
+    private final double percentile;
+    private final int refreshEvery;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int next;
+    private int count;
+    private int sinceRefresh;
+    private volatile long cachedNanos = -1;
+
+    /**
+     * @param size       samples kept
+     * @param minSamples samples needed before {@link #percentileNanos()} reports a value
+     * @param percentile tracked percentile, e.g. 0.95
+     */
+    public LatencyWindow(int size, int minSamples, double percentile) {
+        if (size < 1 || percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("Latency window needs a positive size and a percentile in (0, 1)");
+        }
+        this.samples = new long[size];
+        this.minSamples = Math.min(Math.max(1, minSamples), size);
+        this.percentile = percentile;
+        this.refreshEvery = Math.max(1, size / 8);
+    }
+
+    public void record(long nanos) {
+        lock.lock();
+        try {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            if (count >= minSamples && (++sinceRefresh >= refreshEvery || cachedNanos < 0)) {
+                sinceRefresh = 0;
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                cachedNanos = sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the tracked percentile of recent latencies, or -1 while there are fewer than minSamples
+     */
+    public long percentileNanos() {
+        return cachedNanos;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
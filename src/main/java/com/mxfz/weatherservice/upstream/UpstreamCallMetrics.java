@@ -0,0 +1,118 @@
+package com.mxfz.weatherservice.upstream;
+
+import com.mxfz.weatherservice.tracing.StageHistogram;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-upstream call counts and latencies as the caller sees them, i.e. including rate-limit waits, hedges,
+ * retries and backoff, with how many attempts each call took
+ */
+@Component
+public class UpstreamCallMetrics {
+
+    /**
+     * Calls that took this many attempts or more share the last bucket
+     */
+    static final int MAX_TRACKED_ATTEMPTS = 5;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public void recordCall(String upstream, int attempts, long nanos, boolean failed) {
+        Counters c = countersFor(upstream);
+        c.calls.increment();
+        if (failed) {
+            c.failures.increment();
+        }
+        c.attempts[Math.min(attempts, MAX_TRACKED_ATTEMPTS) - 1].increment();
+        c.totalNanos.add(nanos);
+        c.maxNanos.accumulate(nanos);
+        c.latency.record(nanos, failed);
+    }
+
+    public void recordRetry(String upstream, boolean retryAfter) {
+        Counters c = countersFor(upstream);
+        c.retries.increment();
+        if (retryAfter) {
+            c.retryAfterWaits.increment();
+        }
+    }
+
+    public void recordRetryBudgetDenied(String upstream) {
+        countersFor(upstream).budgetDenied.increment();
+    }
+
+    public List<UpstreamCallStats> snapshot() {
+        return counters.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> entry.getValue().stats(entry.getKey()))
+                .toList();
+    }
+
+    /**
+     * Call latency histograms by upstream name
+     */
+    public Map<String, StageHistogram> histograms() {
+        Map<String, StageHistogram> histograms = new TreeMap<>();
+        counters.forEach((upstream, c) -> histograms.put(upstream, c.latency));
+        return histograms;
+    }
+
+    private Counters countersFor(String upstream) {
+        return counters.computeIfAbsent(upstream, key -> new Counters());
+    }
+
+    private static final class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder retryAfterWaits = new LongAdder();
+        private final LongAdder budgetDenied = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final StageHistogram latency = new StageHistogram();
+        private final LongAdder[] attempts = new LongAdder[MAX_TRACKED_ATTEMPTS];
+
+        private Counters() {
+            for (int i = 0; i < attempts.length; i++) {
+                attempts[i] = new LongAdder();
+            }
+        }
+
+        private UpstreamCallStats stats(String upstream) {
+            long callCount = calls.sum();
+            Map<Integer, Long> byAttempts = new LinkedHashMap<>();
+            for (int i = 0; i < attempts.length; i++) {
+                byAttempts.put(i + 1, attempts[i].sum());
+            }
+            return new UpstreamCallStats(upstream, callCount, failures.sum(),
+                    callCount == 0 ? 0.0 : totalNanos.sum() / 1e6 / callCount,
+                    TimeUnit.NANOSECONDS.toMillis(maxNanos.get()),
+                    retries.sum(), retryAfterWaits.sum(), budgetDenied.sum(), byAttempts);
+        }
+    }
+
+    /**
+     * @param retryAfterWaits retries whose backoff followed the upstream's Retry-After header
+     * @param budgetDenied    failed calls that could have been retried but the retry budget was used up
+     * @param callsByAttempts calls by number of attempts taken, the last entry counting that many or more
+     */
+    public record UpstreamCallStats(String upstream,
+                                    long calls,
+                                    long failures,
+                                    double meanLatencyMs,
+                                    long maxLatencyMs,
+                                    long retries,
+                                    long retryAfterWaits,
+                                    long budgetDenied,
+                                    Map<Integer, Long> callsByAttempts) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.mxfz.weatherservice.upstream;
+
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The paid upstreams and their configured upstream.&lt;name&gt;.base-url. Per-upstream policies (rate limits,
+ * hedging) find the upstream of a call by matching its URI against the base URLs.
+ */
+@Component
+public class UpstreamEndpoints {
+
+    public static final String OPEN_WEATHER = "open-weather";
+    public static final String GOOGLE_GEOCODING = "google-geocoding";
+
+    static final List<String> UPSTREAMS = List.of(OPEN_WEATHER, GOOGLE_GEOCODING);
+
+    private final Map<String, String> baseUrls = new LinkedHashMap<>();
+
+    public UpstreamEndpoints(Environment environment) {
+        for (String upstream : UPSTREAMS) {
+            String baseUrl = environment.getProperty("upstream." + upstream + ".base-url");
+            if (baseUrl != null && !baseUrl.isBlank()) {
+                baseUrls.put(upstream, baseUrl);
+            }
+        }
+    }
+
+    /**
+     * Upstreams that have a base URL configured
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(baseUrls.keySet());
+    }
+
+    /**
+     * Base URL by upstream, for upstreams that have one configured
+     */
+    public Map<String, String> baseUrls() {
+        return Collections.unmodifiableMap(baseUrls);
+    }
+
+    /**
+     * Whether repeating a request with this method is safe, so it may be hedged or retried once sent
+     */
+    public static boolean isIdempotent(HttpMethod method) {
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)
+                || HttpMethod.PUT.equals(method) || HttpMethod.DELETE.equals(method);
+    }
+
+    /**
+     * Returns the upstream the endpoint belongs to, or null for any other host
+     */
+    public String resolve(URI endpoint) {
+        String target = endpoint.toString();
+        for (Map.Entry<String, String> entry : baseUrls.entrySet()) {
+            if (target.startsWith(entry.getValue())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+}
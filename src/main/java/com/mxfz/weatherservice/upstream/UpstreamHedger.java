@@ -0,0 +1,221 @@
+package com.mxfz.weatherservice.upstream;
+
+import com.mxfz.weatherservice.executor.BlockingIo;
+import com.mxfz.weatherservice.executor.TaskRouter;
+import com.mxfz.weatherservice.ratelimit.UpstreamPriority;
+import com.mxfz.weatherservice.ratelimit.UpstreamRateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedges idempotent upstream calls: when a call has not completed after the configured percentile of the
+ * upstream's recent latency, an identical second call is sent and whichever completes first wins; the other
+ * is cancelled. Only failures fall through to the other attempt, so the caller sees an error only when every
+ * attempt sent has failed.
+ *
+ * Hedges are extra paid calls, so they need both hedge budget (max-extra-percent of regular calls) and a
+ * rate-limit permit that is free right now; hedges never queue.
+ */
+@Component
+@BlockingIo
+@Slf4j
+public class UpstreamHedger {
+
+    private final Map<String, State> states = new LinkedHashMap<>();
+    private final UpstreamEndpoints endpoints;
+    private final UpstreamRateLimiter rateLimiter;
+    private final Executor hedgeExecutor;
+
+    public UpstreamHedger(UpstreamEndpoints endpoints, UpstreamRateLimiter rateLimiter, TaskRouter taskRouter,
+                          Environment environment) {
+        this.endpoints = endpoints;
+        this.rateLimiter = rateLimiter;
+        this.hedgeExecutor = taskRouter.executorFor(UpstreamHedger.class);
+        for (String upstream : endpoints.names()) {
+            String prefix = "upstream." + upstream + ".hedge.";
+            if (!environment.getProperty(prefix + "enabled", Boolean.class, false)) {
+                continue;
+            }
+            Settings settings = new Settings(
+                    environment.getProperty(prefix + "percentile", Double.class, 0.95),
+                    environment.getProperty(prefix + "min-delay-ms", Long.class, 50L),
+                    environment.getProperty(prefix + "max-extra-percent", Double.class, 5.0),
+                    environment.getProperty(prefix + "burst", Integer.class, 10),
+                    environment.getProperty(prefix + "window", Integer.class, 500),
+                    environment.getProperty(prefix + "min-samples", Integer.class, 100));
+            states.put(upstream, new State(upstream, settings));
+            log.info("Hedging {} calls after p{} latency (at least {} ms), at most {}% extra calls", upstream,
+                    Math.round(settings.percentile() * 100), settings.minDelayMs(), settings.maxExtraPercent());
+        }
+    }
+
+    /**
+     * Whether calls to the endpoint with this method are hedged
+     */
+    public boolean isEnabled(URI endpoint, HttpMethod method) {
+        return UpstreamEndpoints.isIdempotent(method) && stateFor(endpoint) != null;
+    }
+
+    /**
+     * Runs the call, hedging it with a second attempt if hedging is enabled for the endpoint. Cancelling the
+     * returned future cancels every attempt in flight.
+     *
+     * @param attempt starts one attempt of the call; invoked once, or twice when hedged
+     */
+    public <R> CompletableFuture<R> call(URI endpoint, HttpMethod method, Supplier<CompletableFuture<R>> attempt) {
+        State state = UpstreamEndpoints.isIdempotent(method) ? stateFor(endpoint) : null;
+        if (state == null) {
+            return attempt.get();
+        }
+        state.calls.increment();
+        state.budget.deposit();
+
+        long start = System.nanoTime();
+        CompletableFuture<R> primary = attempt.get();
+        long delayNanos = state.hedgeDelayNanos();
+        if (delayNanos < 0) {
+            // Not enough samples yet to know what slow means
+            primary.whenComplete((value, error) -> {
+                if (error == null) {
+                    state.latency.record(System.nanoTime() - start);
+                }
+            });
+            return primary;
+        }
+
+        CompletableFuture<R> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<R>> hedge = new AtomicReference<>();
+        AtomicInteger pending = new AtomicInteger(1);
+
+        primary.whenComplete((value, error) -> {
+            if (error == null) {
+                state.latency.record(System.nanoTime() - start);
+                result.complete(value);
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+
+        // The hedge starts on another thread, so it carries the caller's priority over for its permit
+        UpstreamPriority priority = UpstreamPriority.current();
+        Executor delayed = CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS, hedgeExecutor);
+        delayed.execute(UpstreamPriority.wrap(priority, () -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (!state.budget.tryWithdraw()) {
+                return;
+            }
+            if (!rateLimiter.tryAcquire(endpoint)) {
+                state.limiterDenied.increment();
+                return;
+            }
+            pending.incrementAndGet();
+            state.hedged.increment();
+            CompletableFuture<R> second = attempt.get();
+            hedge.set(second);
+            second.whenComplete((value, error) -> {
+                if (error == null) {
+                    if (result.complete(value)) {
+                        state.hedgeWins.increment();
+                    }
+                } else if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(error);
+                }
+            });
+            if (result.isDone()) {
+                second.cancel(true);
+            }
+        }));
+
+        result.whenComplete((value, error) -> {
+            if (!primary.isDone()) {
+                // Censored sample: the primary took at least this long, which keeps the percentile honest
+                state.latency.record(System.nanoTime() - start);
+                primary.cancel(true);
+            }
+            CompletableFuture<R> second = hedge.get();
+            if (second != null && !second.isDone()) {
+                second.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    public List<HedgeStats> snapshot() {
+        return states.values().stream().map(State::stats).toList();
+    }
+
+    private State stateFor(URI endpoint) {
+        String upstream = endpoints.resolve(endpoint);
+        return upstream == null ? null : states.get(upstream);
+    }
+
+    private static final class State {
+        private final String upstream;
+        private final Settings settings;
+        private final LatencyWindow latency;
+        private final CallBudget budget;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder hedged = new LongAdder();
+        private final LongAdder hedgeWins = new LongAdder();
+        private final LongAdder limiterDenied = new LongAdder();
+
+        private State(String upstream, Settings settings) {
+            this.upstream = upstream;
+            this.settings = settings;
+            this.latency = new LatencyWindow(settings.window(), settings.minSamples(), settings.percentile());
+            this.budget = new CallBudget(settings.maxExtraPercent() / 100, settings.burst());
+        }
+
+        private long hedgeDelayNanos() {
+            long percentileNanos = latency.percentileNanos();
+            return percentileNanos < 0 ? -1 : Math.max(percentileNanos, TimeUnit.MILLISECONDS.toNanos(settings.minDelayMs()));
+        }
+
+        private HedgeStats stats() {
+            long delayNanos = hedgeDelayNanos();
+            return new HedgeStats(upstream, calls.sum(), hedged.sum(), hedgeWins.sum(), budget.denied(),
+                    limiterDenied.sum(), delayNanos < 0 ? null : delayNanos / 1e6, latency.size(), budget.balance());
+        }
+    }
+
+    /**
+     * @param percentile      latency percentile after which a hedge is sent, e.g. 0.95
+     * @param minDelayMs      never hedge earlier than this, however fast the upstream has been
+     * @param maxExtraPercent hedges allowed per 100 regular calls
+     * @param burst           hedges that may be sent back to back when budget has built up
+     */
+    public record Settings(double percentile, long minDelayMs, double maxExtraPercent, int burst, int window,
+                           int minSamples) {
+    }
+
+    /**
+     * @param hedgeDelayMs current hedge delay, null until the window has min-samples latencies
+     * @param budget       hedges that could be sent right now
+     */
+    public record HedgeStats(String upstream,
+                             long calls,
+                             long hedged,
+                             long hedgeWins,
+                             long budgetDenied,
+                             long rateLimitDenied,
+                             Double hedgeDelayMs,
+                             int latencySamples,
+                             double budget) {
+    }
+}
@@ -0,0 +1,318 @@
+package com.mxfz.weatherservice.upstream;
+
+import com.mxfz.weatherservice.executor.BlockingIo;
+import com.mxfz.weatherservice.executor.TaskRouter;
+import com.mxfz.weatherservice.ratelimit.UpstreamPriority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Retries transient upstream failures: connection errors and timeouts, 502/503/504 and 429.
+ *
+ * - Requests that may have reached the upstream are only retried for idempotent methods; a refused
+ *   connection is retried for any method
+ * - Backoff is decorrelated jitter (each delay random between base-delay-ms and three times the previous one,
+ *   capped at max-delay-ms), so clients that failed together do not retry together
+ * - A Retry-After header sets the minimum delay; if it is longer than max-delay-ms, or any delay would pass
+ *   the call's deadline, the failure is returned instead
+ * - Every successful attempt earns budget-percent of a retry and every retry spends one, so during an outage
+ *   retries add at most that share on top of regular traffic
+ */
+@Component
+@BlockingIo
+@Slf4j
+public class UpstreamRetrier {
+
+    private final Map<String, State> states = new LinkedHashMap<>();
+    private final UpstreamEndpoints endpoints;
+    private final UpstreamCallMetrics metrics;
+    private final Executor retryExecutor;
+
+    public UpstreamRetrier(UpstreamEndpoints endpoints, UpstreamCallMetrics metrics, TaskRouter taskRouter,
+                           Environment environment) {
+        this.endpoints = endpoints;
+        this.metrics = metrics;
+        this.retryExecutor = taskRouter.executorFor(UpstreamRetrier.class);
+        for (String upstream : endpoints.names()) {
+            String prefix = "upstream." + upstream + ".retry.";
+            Settings settings = new Settings(
+                    Math.max(1, environment.getProperty(prefix + "max-attempts", Integer.class, 3)),
+                    environment.getProperty(prefix + "base-delay-ms", Long.class, 100L),
+                    environment.getProperty(prefix + "max-delay-ms", Long.class, 2000L),
+                    environment.getProperty(prefix + "budget-percent", Double.class, 10.0),
+                    environment.getProperty(prefix + "budget-burst", Integer.class, 10));
+            states.put(upstream, new State(upstream, settings));
+        }
+    }
+
+    /**
+     * Runs a blocking call, retrying transient failures until deadlineNanos (a System.nanoTime value)
+     */
+    public <T> T call(URI endpoint, HttpMethod method, long deadlineNanos, Supplier<T> attempt) {
+        State state = stateFor(endpoint);
+        if (state == null) {
+            return attempt.get();
+        }
+        long start = System.nanoTime();
+        long previousDelayMs = state.settings.baseDelayMs();
+        for (int attempts = 1; ; attempts++) {
+            try {
+                T value = attempt.get();
+                state.budget.deposit();
+                metrics.recordCall(state.upstream, attempts, System.nanoTime() - start, false);
+                return value;
+            } catch (RuntimeException e) {
+                Retry retry = nextRetry(state, method, e, attempts, previousDelayMs, deadlineNanos);
+                if (retry == null) {
+                    metrics.recordCall(state.upstream, attempts, System.nanoTime() - start, true);
+                    throw e;
+                }
+                previousDelayMs = retry.delayMs();
+                try {
+                    Thread.sleep(retry.delayMs());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    metrics.recordCall(state.upstream, attempts, System.nanoTime() - start, true);
+                    throw new RestClientException("Interrupted while backing off from " + state.upstream, interrupted);
+                }
+            }
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #call}: attempts are started again after the backoff without holding a
+     * thread. Cancelling the returned future cancels the attempt in flight and any retry still pending.
+     *
+     * @param attempt starts one attempt of the call
+     */
+    public <T> CompletableFuture<T> callAsync(URI endpoint, HttpMethod method, long deadlineNanos,
+                                              Supplier<CompletableFuture<T>> attempt) {
+        State state = stateFor(endpoint);
+        if (state == null) {
+            return attempt.get();
+        }
+        AsyncCall<T> call = new AsyncCall<>(state, method, deadlineNanos, attempt, UpstreamPriority.current());
+        call.next();
+        return call.result;
+    }
+
+    private State stateFor(URI endpoint) {
+        String upstream = endpoints.resolve(endpoint);
+        return upstream == null ? null : states.get(upstream);
+    }
+
+    /**
+     * Decides whether a failed attempt is retried and after how long; null means the failure is final
+     */
+    private Retry nextRetry(State state, HttpMethod method, Throwable error, int attempts, long previousDelayMs,
+                            long deadlineNanos) {
+        Throwable cause = unwrap(error);
+        if (attempts >= state.settings.maxAttempts() || !isTransient(cause)
+                || !(UpstreamEndpoints.isIdempotent(method) || isConnectFailure(cause))) {
+            return null;
+        }
+
+        Settings settings = state.settings;
+        long baseMs = Math.max(1, settings.baseDelayMs());
+        long upperMs = Math.max(baseMs + 1, previousDelayMs * 3);
+        long delayMs = Math.min(settings.maxDelayMs(), ThreadLocalRandom.current().nextLong(baseMs, upperMs + 1));
+        long retryAfterMs = retryAfterMillis(cause);
+        if (retryAfterMs > settings.maxDelayMs()) {
+            log.debug("Not retrying {}: Retry-After of {} ms is over the {} ms limit", state.upstream, retryAfterMs,
+                    settings.maxDelayMs());
+            return null;
+        }
+        delayMs = Math.max(delayMs, retryAfterMs);
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs) >= deadlineNanos) {
+            return null;
+        }
+
+        if (!state.budget.tryWithdraw()) {
+            metrics.recordRetryBudgetDenied(state.upstream);
+            return null;
+        }
+        metrics.recordRetry(state.upstream, retryAfterMs > 0);
+        log.info("Retrying {} call in {} ms after attempt {} failed: {}", state.upstream, delayMs, attempts,
+                cause.getMessage());
+        return new Retry(delayMs);
+    }
+
+    static boolean isTransient(Throwable cause) {
+        if (cause instanceof HttpStatusCodeException statusException) {
+            int status = statusException.getStatusCode().value();
+            return status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.BAD_GATEWAY.value()
+                    || status == HttpStatus.SERVICE_UNAVAILABLE.value() || status == HttpStatus.GATEWAY_TIMEOUT.value();
+        }
+        // ResourceAccessException wraps I/O errors of blocking calls; the async client fails with them directly
+        return cause instanceof ResourceAccessException || cause instanceof IOException;
+    }
+
+    private static boolean isConnectFailure(Throwable cause) {
+        for (Throwable current = cause; current != null; current = current.getCause()) {
+            if (current instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads Retry-After as delay-seconds or an HTTP date; 0 when absent or unreadable
+     */
+    static long retryAfterMillis(Throwable cause) {
+        if (!(cause instanceof HttpStatusCodeException statusException)) {
+            return 0;
+        }
+        HttpHeaders headers = statusException.getResponseHeaders();
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+            } catch (DateTimeParseException unreadable) {
+                return 0;
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private final class AsyncCall<T> {
+        private final State state;
+        private final HttpMethod method;
+        private final long deadlineNanos;
+        private final Supplier<CompletableFuture<T>> attempt;
+        private final UpstreamPriority priority;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private final long start = System.nanoTime();
+        private int attempts;
+        private long previousDelayMs;
+
+        private AsyncCall(State state, HttpMethod method, long deadlineNanos, Supplier<CompletableFuture<T>> attempt,
+                          UpstreamPriority priority) {
+            this.state = state;
+            this.method = method;
+            this.deadlineNanos = deadlineNanos;
+            this.attempt = attempt;
+            this.priority = priority;
+            this.previousDelayMs = state.settings.baseDelayMs();
+            result.whenComplete((value, error) -> {
+                // Covers callers giving up (deadline, cancellation) while an attempt or backoff is pending
+                record(error != null);
+                CompletableFuture<T> inFlight = current.get();
+                if (inFlight != null && !inFlight.isDone()) {
+                    inFlight.cancel(true);
+                }
+            });
+        }
+
+        // Attempts run one after another, so attempts and previousDelayMs are only touched by one thread at a time
+        private void next() {
+            if (result.isDone()) {
+                return;
+            }
+            attempts++;
+            CompletableFuture<T> future;
+            try {
+                future = attempt.get();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            current.set(future);
+            if (result.isDone()) {
+                future.cancel(true);
+                return;
+            }
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    state.budget.deposit();
+                    record(false);
+                    result.complete(value);
+                    return;
+                }
+                if (result.isDone()) {
+                    return;
+                }
+                Retry retry = nextRetry(state, method, error, attempts, previousDelayMs, deadlineNanos);
+                if (retry == null) {
+                    record(true);
+                    result.completeExceptionally(unwrap(error));
+                    return;
+                }
+                previousDelayMs = retry.delayMs();
+                // The retry starts on another thread, so it carries the caller's priority over for its permit
+                CompletableFuture.delayedExecutor(retry.delayMs(), TimeUnit.MILLISECONDS, retryExecutor)
+                        .execute(UpstreamPriority.wrap(priority, this::next));
+            });
+        }
+
+        private void record(boolean failed) {
+            if (recorded.compareAndSet(false, true)) {
+                metrics.recordCall(state.upstream, Math.max(1, attempts), System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private record Retry(long delayMs) {
+    }
+
+    private static final class State {
+        private final String upstream;
+        private final Settings settings;
+        private final CallBudget budget;
+
+        private State(String upstream, Settings settings) {
+            this.upstream = upstream;
+            this.settings = settings;
+            this.budget = new CallBudget(settings.budgetPercent() / 100, settings.budgetBurst(), settings.budgetBurst());
+        }
+    }
+
+    /**
+     * @param maxAttempts   attempts per call including the first, 1 disables retries
+     * @param budgetPercent retries earned per 100 successful attempts
+     * @param budgetBurst   retries available up front, and the most that can build up
+     */
+    public record Settings(int maxAttempts, long baseDelayMs, long maxDelayMs, double budgetPercent,
+                           int budgetBurst) {
+    }
+}
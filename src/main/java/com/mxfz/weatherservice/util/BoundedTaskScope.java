@@ -0,0 +1,373 @@
+package com.mxfz.weatherservice.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Structured fan-out of subtasks with bounded concurrency and a deadline, modelled on Java 21's preview
+ * StructuredTaskScope (which needs --enable-preview, so it is not used directly).
+ *
+ * - At most maxConcurrency subtasks run at once; the rest wait for a permit (cheap on virtual threads)
+ * - When the deadline passes, or the first subtask fails in a fail-fast scope, the scope shuts down
+ *   and interrupts every unfinished subtask
+ * - {@link #close()} shuts down and waits until every subtask has returned, so no work outlives the scope
+ * - Subtasks see the scope deadline through {@link #currentDeadline()}; scopes opened inside a subtask
+ *   never outlive their parent's deadline
+ *
+ * Use from a single owner thread in try-with-resources: fork, join, then read results.
+ */
+public final class BoundedTaskScope<T> implements AutoCloseable {
+
+    public enum State {
+        RUNNING, SUCCESS, FAILED, CANCELLED
+    }
+
+    private static final ThreadLocal<Instant> CURRENT_DEADLINE = new ThreadLocal<>();
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final Instant deadline;
+    private final boolean failFast;
+    private final Thread owner = Thread.currentThread();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition subtaskDone = lock.newCondition();
+    private final List<Subtask<T>> subtasks = new ArrayList<>();
+    private int pending;
+    private volatile boolean shutdown;
+    private boolean deadlineExceeded;
+    private boolean closed;
+
+    private BoundedTaskScope(ExecutorService executor, int maxConcurrency, Duration timeout, boolean failFast) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrency);
+        this.failFast = failFast;
+
+        Instant parentDeadline = CURRENT_DEADLINE.get();
+        Instant ownDeadline = timeout == null ? null : Instant.now().plus(timeout);
+        if (parentDeadline == null || (ownDeadline != null && ownDeadline.isBefore(parentDeadline))) {
+            this.deadline = ownDeadline;
+        } else {
+            this.deadline = parentDeadline;
+        }
+    }
+
+    /**
+     * Opens a scope that shuts down on the first failed subtask
+     *
+     * @param timeout time until the deadline, or null to only inherit the enclosing scope's deadline
+     */
+    public static <T> BoundedTaskScope<T> failFast(ExecutorService executor, int maxConcurrency, Duration timeout) {
+        return new BoundedTaskScope<>(executor, maxConcurrency, timeout, true);
+    }
+
+    /**
+     * Opens a scope that lets every subtask finish (or be cancelled at the deadline) and keeps partial results
+     *
+     * @param timeout time until the deadline, or null to only inherit the enclosing scope's deadline
+     */
+    public static <T> BoundedTaskScope<T> collecting(ExecutorService executor, int maxConcurrency, Duration timeout) {
+        return new BoundedTaskScope<>(executor, maxConcurrency, timeout, false);
+    }
+
+    /**
+     * Returns the deadline of the scope the current thread runs a subtask for, if any
+     */
+    public static Optional<Instant> currentDeadline() {
+        return Optional.ofNullable(CURRENT_DEADLINE.get());
+    }
+
+    /**
+     * Caps a timeout to the time left until the current scope deadline (at least 1 ms)
+     */
+    public static Duration capToDeadline(Duration timeout) {
+        Instant scopeDeadline = CURRENT_DEADLINE.get();
+        if (scopeDeadline == null) {
+            return timeout;
+        }
+        Duration remaining = Duration.between(Instant.now(), scopeDeadline);
+        if (remaining.compareTo(Duration.ofMillis(1)) < 0) {
+            remaining = Duration.ofMillis(1);
+        }
+        return timeout == null || remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    public Optional<Instant> deadline() {
+        return Optional.ofNullable(deadline);
+    }
+
+    /**
+     * Starts a subtask. After shutdown the subtask is cancelled without running.
+     */
+    public Subtask<T> fork(Callable<? extends T> task) {
+        ensureOwner();
+        Subtask<T> subtask;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Task scope is closed");
+            }
+            subtask = new Subtask<>();
+            subtasks.add(subtask);
+            pending++;
+        } finally {
+            lock.unlock();
+        }
+
+        if (shutdown) {
+            complete(subtask, State.CANCELLED, null, null);
+            return subtask;
+        }
+        try {
+            executor.execute(() -> run(subtask, task));
+        } catch (RejectedExecutionException e) {
+            complete(subtask, State.FAILED, null, e);
+        }
+        return subtask;
+    }
+
+    /**
+     * Waits until all subtasks are done, the scope shuts down, or the deadline passes (which shuts it down)
+     */
+    public BoundedTaskScope<T> join() throws InterruptedException {
+        ensureOwner();
+        lock.lock();
+        try {
+            while (pending > 0 && !shutdown) {
+                if (deadline == null) {
+                    subtaskDone.await();
+                    continue;
+                }
+                long remainingNanos = Duration.between(Instant.now(), deadline).toNanos();
+                if (remainingNanos <= 0) {
+                    deadlineExceeded = true;
+                    shutdown();
+                    break;
+                }
+                subtaskDone.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            shutdown();
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * After {@link #join()}: throws if the deadline passed or a subtask failed
+     */
+    public void throwIfFailed() throws ExecutionException, TimeoutException {
+        lock.lock();
+        try {
+            if (deadlineExceeded) {
+                throw new TimeoutException("Task scope deadline exceeded with " + pending + " subtask(s) unfinished");
+            }
+            for (Subtask<T> subtask : subtasks) {
+                if (subtask.state == State.FAILED) {
+                    throw new ExecutionException(subtask.exception);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the results of successful subtasks, in fork order
+     */
+    public List<T> results() {
+        lock.lock();
+        try {
+            List<T> results = new ArrayList<>(subtasks.size());
+            for (Subtask<T> subtask : subtasks) {
+                if (subtask.state == State.SUCCESS) {
+                    results.add(subtask.result);
+                }
+            }
+            return results;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isDeadlineExceeded() {
+        lock.lock();
+        try {
+            return deadlineExceeded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the scope: unfinished subtasks are interrupted and subtasks not yet started are cancelled
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            for (Subtask<T> subtask : subtasks) {
+                if (subtask.thread != null) {
+                    subtask.thread.interrupt();
+                }
+            }
+            subtaskDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Shuts down and waits for every subtask to return
+     */
+    @Override
+    public void close() {
+        ensureOwner();
+        shutdown();
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            closed = true;
+            while (pending > 0) {
+                try {
+                    subtaskDone.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Subtask<T> subtask, Callable<? extends T> task) {
+        Instant previousDeadline = CURRENT_DEADLINE.get();
+        boolean acquired = false;
+        lock.lock();
+        try {
+            subtask.thread = Thread.currentThread();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            CURRENT_DEADLINE.set(deadline);
+            acquired = acquirePermit();
+            if (!acquired || shutdown) {
+                complete(subtask, State.CANCELLED, null, null);
+                return;
+            }
+            T result = task.call();
+            complete(subtask, shutdown ? State.CANCELLED : State.SUCCESS, result, null);
+        } catch (Throwable e) {
+            boolean cancelled = shutdown || e instanceof InterruptedException;
+            complete(subtask, cancelled ? State.CANCELLED : State.FAILED, null, e);
+            if (!cancelled && failFast) {
+                shutdown();
+            }
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+            if (previousDeadline == null) {
+                CURRENT_DEADLINE.remove();
+            } else {
+                CURRENT_DEADLINE.set(previousDeadline);
+            }
+            lock.lock();
+            try {
+                subtask.thread = null;
+            } finally {
+                lock.unlock();
+            }
+            // Drop an interrupt that arrived after the task returned, so a pooled thread is not affected
+            Thread.interrupted();
+        }
+    }
+
+    private boolean acquirePermit() throws InterruptedException {
+        if (deadline == null) {
+            permits.acquire();
+            return true;
+        }
+        long remainingNanos = Duration.between(Instant.now(), deadline).toNanos();
+        return remainingNanos > 0 && permits.tryAcquire(remainingNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void complete(Subtask<T> subtask, State state, T result, Throwable exception) {
+        lock.lock();
+        try {
+            if (subtask.state != State.RUNNING) {
+                return;
+            }
+            subtask.state = state;
+            subtask.result = result;
+            subtask.exception = exception;
+            pending--;
+            subtaskDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureOwner() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("Task scope used outside its owner thread");
+        }
+    }
+
+    /**
+     * Handle to a forked subtask; state and result are stable once the scope has joined
+     */
+    public static final class Subtask<T> {
+
+        private volatile State state = State.RUNNING;
+        private T result;
+        private Throwable exception;
+        private Thread thread;
+
+        private Subtask() {
+        }
+
+        public State state() {
+            return state;
+        }
+
+        public T get() {
+            if (state != State.SUCCESS) {
+                throw new IllegalStateException("Subtask is " + state);
+            }
+            return result;
+        }
+
+        public Throwable exception() {
+            if (state != State.FAILED && state != State.CANCELLED) {
+                throw new IllegalStateException("Subtask is " + state);
+            }
+            return exception;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mxfz.weatherservice.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compact, thread-safe count-min sketch for approximate frequency counting.
+ * Memory is fixed at depth × width counters regardless of how many distinct keys are seen.
+ * Estimates never undercount; they may overcount by roughly (total / width) with high probability.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    /**
+     * @param width number of counters per row, rounded up to a power of two
+     * @param depth number of independent hash rows
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("width and depth must be positive");
+        }
+        int roundedWidth = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.mask = roundedWidth - 1;
+        this.counters = new AtomicLongArray(roundedWidth * depth);
+    }
+
+    /**
+     * Increments the count for the key and returns the new estimate
+     */
+    public long add(String key) {
+        long h1 = mix(key.hashCode());
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long value = counters.incrementAndGet(index(row, h1, h2));
+            estimate = Math.min(estimate, value);
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the estimated count for the key
+     */
+    public long estimate(String key) {
+        long h1 = mix(key.hashCode());
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter so that old traffic gradually loses weight against recent traffic
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            long current;
+            do {
+                current = counters.get(i);
+            } while (current != 0 && !counters.compareAndSet(i, current, current >>> 1));
+        }
+    }
+
+    private int index(int row, long h1, long h2) {
+        int column = (int) ((h1 + row * h2) & mask);
+        return row * (mask + 1) + column;
+    }
+
+    private static long mix(long h) {
+        // Stafford variant 13 of the murmur3 finalizer
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
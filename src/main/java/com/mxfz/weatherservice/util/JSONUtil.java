@@ -1,23 +1,17 @@
 package com.mxfz.weatherservice.util;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mxfz.weatherservice.config.JacksonConfig;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class JSONUtil {
 
-    private static final ObjectMapper objectMapper = createObjectMapper();
-
-    private static ObjectMapper createObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.findAndRegisterModules();
-        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        return mapper;
-    }
+    // Delegates to the application-wide mapper instead of building and classpath-scanning its own
+    private static final ObjectMapper objectMapper = JacksonConfig.sharedObjectMapper();
+    private static final ObjectWriter prettyWriter = objectMapper.writerWithDefaultPrettyPrinter();
 
     /**
      * Converts a Java object to JSON string
@@ -59,7 +53,7 @@ public class JSONUtil {
      */
     public static String convertObjectToPrettyJSON(Object object) {
         try {
-            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(object);
+            return prettyWriter.writeValueAsString(object);
         } catch (JsonProcessingException e) {
             log.error("Error converting Object to Pretty JSON: {}", e.getMessage());
             return "";
@@ -0,0 +1,81 @@
+package com.mxfz.weatherservice.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, append-only, thread-safe dictionary mapping repeated strings to dense int codes.
+ * Each distinct value is stored once, so records can hold an int instead of their own String copy.
+ * Once {@code capacity} values are assigned, new values get {@link #NO_CODE} and callers keep them inline.
+ */
+public class StringDictionary {
+
+    public static final int NO_CODE = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final String[] values;
+    private volatile int size;
+
+    public StringDictionary(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.values = new String[capacity];
+    }
+
+    /**
+     * Returns the code for the value, assigning a new one on first sight.
+     * Returns {@link #NO_CODE} for null, or for a new value once the dictionary is full.
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NO_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+
+        lock.lock();
+        try {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (size == values.length) {
+                return NO_CODE;
+            }
+            // Publish the value before its code, so anyone holding the code can decode it
+            int assigned = size;
+            values[assigned] = value;
+            size = assigned + 1;
+            codes.put(value, assigned);
+            return assigned;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the value for a code produced by {@link #encode}, or null for {@link #NO_CODE}
+     */
+    public String decode(int code) {
+        if (code == NO_CODE) {
+            return null;
+        }
+        if (code < 0 || code >= size) {
+            throw new IllegalArgumentException("Unknown dictionary code " + code);
+        }
+        return values[code];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+}
@@ -0,0 +1,55 @@
+package com.mxfz.weatherservice.warmup;
+
+/**
+ * Tells when warm-up rounds have reached steady-state timings. A round is steady when its time per operation
+ * is within the tolerance of the previous round's; timings are stable after enough steady rounds in a row.
+ * A slower or faster round (e.g. a JIT recompilation or GC pause) starts the count again.
+ */
+final class TimingStabilizer {
+
+    private final double tolerance;
+    private final int requiredSteadyRounds;
+
+    private double previousNanosPerOp = -1;
+    private int steadyRounds;
+    private int rounds;
+
+    /**
+     * @param tolerance            allowed relative change from the previous round, e.g. 0.1 for 10%
+     * @param requiredSteadyRounds steady rounds in a row needed to call timings stable
+     */
+    TimingStabilizer(double tolerance, int requiredSteadyRounds) {
+        this.tolerance = tolerance;
+        this.requiredSteadyRounds = requiredSteadyRounds;
+    }
+
+    /**
+     * Records a round and returns true once timings are stable
+     */
+    boolean record(long roundNanos, int operations) {
+        double nanosPerOp = (double) roundNanos / Math.max(1, operations);
+        if (previousNanosPerOp > 0 && Math.abs(nanosPerOp - previousNanosPerOp) <= tolerance * previousNanosPerOp) {
+            steadyRounds++;
+        } else {
+            steadyRounds = 0;
+        }
+        previousNanosPerOp = nanosPerOp;
+        rounds++;
+        return isStable();
+    }
+
+    boolean isStable() {
+        return steadyRounds >= requiredSteadyRounds;
+    }
+
+    int rounds() {
+        return rounds;
+    }
+
+    /**
+     * Time per operation of the last round, or -1 before the first
+     */
+    double lastNanosPerOp() {
+        return previousNanosPerOp;
+    }
+}
@@ -0,0 +1,300 @@
+package com.mxfz.weatherservice.warmup;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mxfz.weatherservice.codec.GeocodeResponseDecoder;
+import com.mxfz.weatherservice.codec.OpenWeatherResponseDecoder;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import com.mxfz.weatherservice.repository.WeatherStore;
+import com.mxfz.weatherservice.service.WeatherFreshnessPolicy;
+import com.mxfz.weatherservice.service.WeatherService;
+import com.mxfz.weatherservice.simulator.UpstreamPayloads;
+import com.mxfz.weatherservice.upstream.UpstreamEndpoints;
+import com.mxfz.weatherservice.util.BoundedTaskScope;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Warms the instance up before it takes traffic. Runs as an ApplicationRunner, and Spring Boot moves the readiness
+ * state to ACCEPTING_TRAFFIC only after all runners have returned, so GET /api/resource/readiness answers 503
+ * until warm-up is over.
+ *
+ * - Opens a connection to each configured upstream from both the blocking and the async HTTP client
+ * - Replays the most recently fetched (pincode, date) entries through {@link WeatherService#fetchWeather}.
+ *   Only entries that are still fresh are replayed, so no lookup goes upstream; stale entries, and the
+ *   synthetic pincodes when the store is empty, are looked up in the store only
+ * - Serializes the looked-up entries as the weather endpoints do, and decodes simulated upstream payloads
+ *
+ * Rounds repeat until the time per operation has settled (warmup.tolerance for warmup.stable-rounds rounds
+ * in a row), warmup.max-rounds have run or warmup.max-duration-ms has passed. A failed warm-up is logged and
+ * the instance takes traffic cold rather than not at all.
+ */
+@Component
+@Slf4j
+public class WarmupRunner implements ApplicationRunner {
+
+    public enum State {PENDING, RUNNING, DONE, FAILED, DISABLED}
+
+    // Enough to build the key and judge freshness; the stores always add fetchedAt
+    private static final Set<String> SAMPLE_FIELDS = Set.of("pincode", "date");
+
+    private final WeatherService weatherService;
+    private final WeatherStore weatherStore;
+    private final WeatherFreshnessPolicy freshnessPolicy;
+    private final UpstreamEndpoints upstreamEndpoints;
+    private final RestClient restClient;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final JavaType weatherInfoListType;
+    private final ExecutorService virtualTaskExecutor;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.sample-size:200}")
+    private int sampleSize;
+
+    @Value("${warmup.synthetic-pincodes:110001,400001,560001,600001,700001}")
+    private List<String> syntheticPincodes;
+
+    @Value("${warmup.concurrency:8}")
+    private int concurrency;
+
+    @Value("${warmup.tolerance:0.1}")
+    private double tolerance;
+
+    @Value("${warmup.stable-rounds:3}")
+    private int stableRounds;
+
+    @Value("${warmup.max-rounds:50}")
+    private int maxRounds;
+
+    @Value("${warmup.max-duration-ms:30000}")
+    private long maxDurationMs;
+
+    private volatile State state = State.PENDING;
+    private volatile int rounds;
+    private volatile boolean stable;
+    private volatile int replayedKeys;
+    private volatile int storeOnlyKeys;
+    private volatile int upstreamConnections;
+    private volatile double nanosPerOp = -1;
+    private volatile long durationMs;
+
+    public WarmupRunner(WeatherService weatherService, WeatherStore weatherStore,
+                        WeatherFreshnessPolicy freshnessPolicy, UpstreamEndpoints upstreamEndpoints,
+                        RestClient restClient, HttpClient httpClient, ObjectMapper objectMapper,
+                        @Qualifier("virtualTaskExecutor") ExecutorService virtualTaskExecutor) {
+        this.weatherService = weatherService;
+        this.weatherStore = weatherStore;
+        this.freshnessPolicy = freshnessPolicy;
+        this.upstreamEndpoints = upstreamEndpoints;
+        this.restClient = restClient;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.weatherInfoListType = objectMapper.getTypeFactory().constructCollectionType(List.class, WeatherInfo.class);
+        this.virtualTaskExecutor = virtualTaskExecutor;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+        state = State.RUNNING;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+        try {
+            upstreamConnections = openUpstreamConnections(deadline);
+            Sample sample = loadSample();
+            replayedKeys = sample.replay().size();
+            storeOnlyKeys = sample.storeOnly().size();
+            byte[] weatherPayload = UpstreamPayloads.toJson(
+                    UpstreamPayloads.weather(28.61, 77.21, Instant.now().getEpochSecond()));
+            byte[] geocodePayload = UpstreamPayloads.toJson(UpstreamPayloads.geocode(syntheticPincode()));
+
+            TimingStabilizer stabilizer = new TimingStabilizer(tolerance, stableRounds);
+            while (!stable && stabilizer.rounds() < maxRounds && System.nanoTime() < deadline) {
+                long roundStart = System.nanoTime();
+                int operations = runRound(sample, weatherPayload, geocodePayload, deadline);
+                stable = stabilizer.record(System.nanoTime() - roundStart, operations);
+                rounds = stabilizer.rounds();
+                nanosPerOp = stabilizer.lastNanosPerOp();
+            }
+            state = State.DONE;
+            log.info("Warm-up done in {} rounds ({}), {} keys replayed, {} looked up in the store only, "
+                            + "{} upstream connections opened, {} us per operation", rounds,
+                    stable ? "stable" : "not yet stable", replayedKeys, storeOnlyKeys, upstreamConnections,
+                    Math.round(nanosPerOp / 1000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = State.FAILED;
+        } catch (Exception e) {
+            state = State.FAILED;
+            log.warn("Warm-up failed after {} rounds, taking traffic cold: {}", rounds, e.getMessage());
+        } finally {
+            durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    public WarmupReport report() {
+        return new WarmupReport(state.name(), rounds, stable, replayedKeys, storeOnlyKeys, upstreamConnections,
+                nanosPerOp < 0 ? -1 : nanosPerOp / 1000, durationMs);
+    }
+
+    /**
+     * Sends a HEAD request to each upstream base URL from both HTTP clients, so their first real calls find
+     * a connection (and TLS session) ready. The requests carry no API key and are not metered.
+     *
+     * @return upstreams reached by both clients
+     */
+    private int openUpstreamConnections(long deadline) throws InterruptedException {
+        int opened = 0;
+        for (Map.Entry<String, String> upstream : upstreamEndpoints.baseUrls().entrySet()) {
+            URI baseUrl = URI.create(upstream.getValue());
+            try {
+                headBlocking(baseUrl, deadline);
+                httpClient.send(HttpRequest.newBuilder(baseUrl)
+                                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                                .timeout(timeLeft(deadline))
+                                .build(),
+                        HttpResponse.BodyHandlers.discarding());
+                opened++;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Warm-up could not reach upstream {}: {}", upstream.getKey(), e.getMessage());
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * The blocking client takes no per-request timeout, so its HEAD runs on a virtual thread that is
+     * abandoned (interrupted) at the warm-up deadline
+     */
+    private void headBlocking(URI baseUrl, long deadline) throws InterruptedException, IOException {
+        Future<HttpStatusCode> head = virtualTaskExecutor.submit(() -> restClient.head().uri(baseUrl)
+                .exchange((request, response) -> response.getStatusCode()));
+        try {
+            head.get(timeLeft(deadline).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException("no response before the warm-up deadline");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            head.cancel(true);
+        }
+    }
+
+    private Sample loadSample() {
+        Set<WarmupKey> replay = new LinkedHashSet<>();
+        Set<WarmupKey> storeOnly = new LinkedHashSet<>();
+        for (WeatherInfo entry : weatherStore.findRecentlyFetched(sampleSize, SAMPLE_FIELDS)) {
+            if (entry.getPincode() == null || entry.getDate() == null) {
+                continue;
+            }
+            WarmupKey key = new WarmupKey(entry.getPincode(), entry.getDate());
+            if (freshnessPolicy.isStale(entry.getDate(), entry.getFetchedAt())) {
+                storeOnly.add(key);
+            } else {
+                replay.add(key);
+            }
+        }
+        if (replay.isEmpty() && storeOnly.isEmpty()) {
+            String today = LocalDate.now(ZoneOffset.UTC).toString();
+            syntheticPincodes.forEach(pincode -> storeOnly.add(new WarmupKey(pincode, today)));
+        }
+        storeOnly.removeAll(replay);
+        return new Sample(List.copyOf(replay), List.copyOf(storeOnly));
+    }
+
+    /**
+     * Runs every lookup of the sample on up to warmup.concurrency virtual threads, so the Mongo pool opens
+     * as many connections, then serializes what was found and decodes the upstream payloads
+     *
+     * @return operations in the round
+     */
+    private int runRound(Sample sample, byte[] weatherPayload, byte[] geocodePayload, long deadline)
+            throws InterruptedException, IOException {
+        List<WeatherInfo> found;
+        try (BoundedTaskScope<WeatherInfo> scope =
+                     BoundedTaskScope.collecting(virtualTaskExecutor, concurrency, timeLeft(deadline))) {
+            for (WarmupKey key : sample.replay()) {
+                scope.fork(() -> weatherService.fetchWeather(key.pincode(), key.date()));
+            }
+            for (WarmupKey key : sample.storeOnly()) {
+                scope.fork(() -> weatherStore.findByPincodeAndDate(key.pincode(), key.date()));
+            }
+            found = new ArrayList<>(scope.join().results());
+        }
+        found.removeIf(Objects::isNull);
+
+        // Written the way Spring MVC's Jackson converter writes weather responses: typed only for containers
+        ObjectWriter writer = objectMapper.writer();
+        for (WeatherInfo weatherInfo : found) {
+            writer.writeValueAsBytes(weatherInfo);
+        }
+        writer.forType(weatherInfoListType).writeValueAsBytes(found);
+        try (JsonParser parser = objectMapper.getFactory().createParser(weatherPayload)) {
+            OpenWeatherResponseDecoder.decode(parser, syntheticPincode());
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(geocodePayload)) {
+            GeocodeResponseDecoder.decode(parser);
+        }
+        return sample.replay().size() + sample.storeOnly().size() + found.size() + 3;
+    }
+
+    private String syntheticPincode() {
+        return syntheticPincodes.isEmpty() ? "110001" : syntheticPincodes.get(0);
+    }
+
+    private static Duration timeLeft(long deadline) {
+        return Duration.ofNanos(Math.max(TimeUnit.MILLISECONDS.toNanos(1), deadline - System.nanoTime()));
+    }
+
+    private record WarmupKey(String pincode, String date) {
+    }
+
+    private record Sample(List<WarmupKey> replay, List<WarmupKey> storeOnly) {
+    }
+
+    public record WarmupReport(
+            String state,
+            int rounds,
+            boolean stable,
+            int replayedKeys,
+            int storeOnlyKeys,
+            int upstreamConnections,
+            double microsPerOperation,
+            long durationMs
+    ) {}
+}
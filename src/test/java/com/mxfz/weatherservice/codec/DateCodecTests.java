@@ -0,0 +1,49 @@
+package com.mxfz.weatherservice.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DateCodecTests {
+
+	@Test
+	void matchesJavaTimeAcrossCenturies() {
+		for (LocalDate date = LocalDate.of(1599, 1, 1); date.getYear() < 2401; date = date.plusDays(1)) {
+			String text = date.toString();
+			assertEquals(date.toEpochDay(), DateCodec.toEpochDay(text), text);
+			assertEquals(text, DateCodec.formatEpochDay(date.toEpochDay()));
+		}
+		assertEquals("0000-01-01", DateCodec.formatEpochDay(LocalDate.of(0, 1, 1).toEpochDay()));
+		assertEquals("9999-12-31", DateCodec.formatEpochDay(DateCodec.toEpochDay("9999-12-31")));
+	}
+
+	@Test
+	void usesUtcDays() {
+		long noon = LocalDate.of(2020, 10, 15).atTime(12, 0).toEpochSecond(ZoneOffset.UTC);
+		assertEquals("2020-10-15", DateCodec.formatEpochSecond(noon));
+		assertEquals("2020-10-15", DateCodec.formatEpochSecond(noon + 43_199));
+		assertEquals("2020-10-16", DateCodec.formatEpochSecond(noon + 43_200));
+		assertEquals("1969-12-31", DateCodec.formatEpochSecond(-1));
+		assertEquals(noon - 43_200, DateCodec.toEpochSecond("2020-10-15"));
+	}
+
+	@Test
+	void rejectsMalformedDates() {
+		assertTrue(DateCodec.isValid("2024-02-29"));
+		assertTrue(DateCodec.isValid("2000-02-29"));
+		for (String invalid : new String[] {"1900-02-29", "2023-02-29", "2020-04-31", "2020-13-01", "2020-00-10",
+				"2020-01-00", "2020-1-15", "2020/01/15", "20-01-2020", "2020-01-1a", "+020-01-15", "", "2020-01-150"}) {
+			assertFalse(DateCodec.isValid(invalid), invalid);
+			assertThrows(IllegalArgumentException.class, () -> DateCodec.toEpochSecond(invalid), invalid);
+		}
+		assertFalse(DateCodec.isValid(null));
+		assertThrows(IllegalArgumentException.class, () -> DateCodec.toEpochDay(null));
+		assertThrows(IllegalArgumentException.class, () -> DateCodec.formatEpochDay(LocalDate.of(10000, 1, 1).toEpochDay()));
+	}
+}
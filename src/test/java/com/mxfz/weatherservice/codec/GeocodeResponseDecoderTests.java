@@ -0,0 +1,80 @@
+package com.mxfz.weatherservice.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.mxfz.weatherservice.model.PincodeLocation;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GeocodeResponseDecoderTests {
+
+	private static final JsonFactory JSON = new JsonFactory();
+
+	@Test
+	void decodesFirstResult() throws IOException {
+		PincodeLocation location = decode("""
+				{"results": [
+				   {"address_components": [
+				      {"long_name": "New Delhi", "short_name": "New Delhi", "types": ["locality", "political"]},
+				      {"long_name": "110001", "short_name": "110001", "types": ["postal_code"]}],
+				    "formatted_address": "New Delhi, Delhi 110001, India",
+				    "geometry": {"bounds": {"northeast": {"lat": 28.65, "lng": 77.25}},
+				                 "location": {"lat": 28.6304, "lng": 77.2177},
+				                 "location_type": "APPROXIMATE"},
+				    "place_id": "abc"},
+				   {"address_components": [], "geometry": {"location": {"lat": 1.0, "lng": 2.0}}}],
+				 "status": "OK"}
+				""");
+
+		assertEquals("110001", location.getPincode());
+		assertEquals("New Delhi, Delhi 110001, India", location.getAddress());
+		assertEquals(28.6304, location.getLatitude());
+		assertEquals(77.2177, location.getLongitude());
+	}
+
+	@Test
+	void returnsNullForZeroResults() throws IOException {
+		assertNull(decode("""
+				{"results": [], "status": "ZERO_RESULTS"}
+				"""));
+		assertNull(decode("""
+				{"status": "ZERO_RESULTS"}
+				"""));
+	}
+
+	@Test
+	void returnsNullWithoutPostalCode() throws IOException {
+		assertNull(decode("""
+				{"results": [{"address_components": [{"long_name": "Delhi", "types": ["locality"]}],
+				              "geometry": {"location": {"lat": 28.6, "lng": 77.2}}}]}
+				"""));
+	}
+
+	@Test
+	void skipsUnknownNestedValues() throws IOException {
+		PincodeLocation location = decode("""
+				{"plus_code": {"global_code": "7JWVJ5", "nested": [{"a": [1, {"b": 2}]}]},
+				 "results": [
+				   {"navigation_points": [{"location": {"latitude": 0, "longitude": 0}}],
+				    "address_components": ["odd", {"long_name": "400001", "extra": {"x": 1},
+				                                    "types": [{"odd": true}, "postal_code"]}],
+				    "geometry": {"viewport": {"southwest": {"lat": 0, "lng": 0}},
+				                 "location": {"lat": 18.94, "alt": {"m": 14}, "lng": 72.83}}}]}
+				""");
+
+		assertEquals("400001", location.getPincode());
+		assertNull(location.getAddress());
+		assertEquals(18.94, location.getLatitude());
+		assertEquals(72.83, location.getLongitude());
+	}
+
+	private static PincodeLocation decode(String json) throws IOException {
+		try (JsonParser parser = JSON.createParser(json)) {
+			return GeocodeResponseDecoder.decode(parser);
+		}
+	}
+}
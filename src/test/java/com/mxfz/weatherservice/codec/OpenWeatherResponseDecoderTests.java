@@ -0,0 +1,95 @@
+package com.mxfz.weatherservice.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OpenWeatherResponseDecoderTests {
+
+	private static final JsonFactory JSON = new JsonFactory();
+
+	@Test
+	void decodesFirstDataEntryAndCoordinates() throws IOException {
+		WeatherInfo info = decode("""
+				{"lat": 28.61, "lon": 77.21, "timezone": "Asia/Kolkata", "timezone_offset": 19800,
+				 "data": [
+				   {"dt": 1602763200, "sunrise": 1602722520, "sunset": 1602764040, "temp": 303.15,
+				    "feels_like": 305.2, "pressure": 1010, "humidity": 62, "dew_point": 295.1, "clouds": 20,
+				    "visibility": 10000, "wind_speed": 3.6, "wind_deg": 270,
+				    "weather": [{"id": 801, "main": "Clouds", "description": "few clouds", "icon": "02d"}]},
+				   {"dt": 1602849600, "temp": 1.0}
+				 ]}
+				""");
+
+		assertEquals("110001", info.getPincode());
+		assertEquals("2020-10-15", info.getDate());
+		assertEquals(28.61, info.getLatitude());
+		assertEquals(77.21, info.getLongitude());
+		assertEquals(1602722520L, info.getSunrise());
+		assertEquals(1602764040L, info.getSunset());
+		assertEquals(303.15, info.getTemp());
+		assertEquals(305.2, info.getFeelsLike());
+		assertEquals(1010, info.getPressure());
+		assertEquals(62, info.getHumidity());
+		assertEquals(295.1, info.getDewPoint());
+		assertEquals(20, info.getClouds());
+		assertEquals(10000, info.getVisibility());
+		assertEquals(3.6, info.getWindSpeed());
+		assertEquals(270, info.getWindDeg());
+		assertEquals("few clouds", info.getWeatherDescription());
+	}
+
+	@Test
+	void returnsNullWithoutDataEntries() throws IOException {
+		assertNull(decode("""
+				{"lat": 28.61, "lon": 77.21, "timezone": "Asia/Kolkata"}
+				"""));
+		assertNull(decode("""
+				{"lat": 28.61, "lon": 77.21, "data": []}
+				"""));
+	}
+
+	@Test
+	void readsCoordinatesAfterData() throws IOException {
+		WeatherInfo info = decode("""
+				{"timezone": "Asia/Kolkata",
+				 "data": [{"dt": 1602763200, "temp": 303.15}, {"dt": 1602849600, "temp": 1.0}],
+				 "lat": 28.61, "lon": 77.21}
+				""");
+
+		assertEquals(303.15, info.getTemp());
+		assertEquals(28.61, info.getLatitude());
+		assertEquals(77.21, info.getLongitude());
+	}
+
+	@Test
+	void skipsUnknownNestedValues() throws IOException {
+		WeatherInfo info = decode("""
+				{"alerts": [{"event": "Heat", "tags": ["a", {"nested": [1, 2, {"deep": null}]}]}],
+				 "lat": 28.61,
+				 "data": [{"rain": {"1h": 0.5, "extra": {"x": [1, 2]}}, "dt": 1602763200,
+				           "weather": [{"extra": {"y": 1}, "description": "light rain"}, {"description": "ignored"}],
+				           "pressure": null, "humidity": 80}],
+				 "meta": {"lon": 1.0},
+				 "lon": 77.21}
+				""");
+
+		assertEquals("light rain", info.getWeatherDescription());
+		assertEquals(80, info.getHumidity());
+		assertNull(info.getPressure());
+		assertEquals(28.61, info.getLatitude());
+		assertEquals(77.21, info.getLongitude());
+	}
+
+	private static WeatherInfo decode(String json) throws IOException {
+		try (JsonParser parser = JSON.createParser(json)) {
+			return OpenWeatherResponseDecoder.decode(parser, "110001");
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.mxfz.weatherservice.executor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskRouterTests {
+
+	private final ForkJoinPool cpuPool = new ForkJoinPool(2);
+	private final ExecutorService ioPool = Executors.newVirtualThreadPerTaskExecutor();
+	private final ExecutorMetrics metrics = new ExecutorMetrics();
+	private final TaskRouter router = new TaskRouter(cpuPool, ioPool, metrics);
+
+	TaskRouterTests() {
+		ReflectionTestUtils.setField(router, "blockingRatio", 0.5);
+		ReflectionTestUtils.setField(router, "blockingMinMs", 10L);
+	}
+
+	@AfterEach
+	void shutdownPools() {
+		cpuPool.shutdownNow();
+		ioPool.shutdownNow();
+	}
+
+	@Test
+	void routesByAnnotation() {
+		assertEquals(ExecutorKind.CPU, TaskRouter.kindOf(Computation.class));
+		assertEquals(ExecutorKind.IO, TaskRouter.kindOf(Lookup.class));
+		assertEquals(ExecutorKind.IO, TaskRouter.kindOf(Object.class));
+		assertSame(router.executorFor(Computation.class), router.executorFor(Computation.class));
+	}
+
+	@Test
+	void shuttingDownAViewLeavesTheSharedExecutorRunning() throws Exception {
+		ExecutorService executor = router.executorFor(Lookup.class);
+		executor.shutdown();
+		assertTrue(executor.shutdownNow().isEmpty());
+		executor.close();
+
+		assertFalse(ioPool.isShutdown());
+		assertEquals("ok", executor.submit(() -> "ok").get(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void countsMisroutedRequests() {
+		router.executorFor(Lookup.class, ExecutorKind.CPU);
+		router.executorFor(Lookup.class, ExecutorKind.IO);
+
+		ExecutorMetrics.ClassStats stats = statsFor(Lookup.class, ExecutorKind.CPU);
+		assertEquals(1, stats.misrouted());
+		assertTrue(metrics.snapshot().stream()
+				.noneMatch(other -> other.kind() == ExecutorKind.IO && other.misrouted() > 0));
+	}
+
+	@Test
+	void flagsBlockingOnCpuPool() throws Exception {
+		ExecutorService executor = router.executorFor(Computation.class);
+		executor.submit(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}).get(5, TimeUnit.SECONDS);
+
+		// The task's future completes just before the wrapper records it
+		ExecutorMetrics.ClassStats stats = awaitCompleted(Computation.class, ExecutorKind.CPU);
+		assertEquals(1, stats.completed());
+		assertEquals(1, stats.blockingSuspected());
+	}
+
+	@Test
+	void invokesForkJoinTasksOnCpuPool() {
+		long sum = router.invoke(Computation.class, new SumTask(0, 10_000));
+
+		assertEquals(49_995_000L, sum);
+		assertEquals(1, metrics.completedTasks(ExecutorKind.CPU));
+	}
+
+	@Test
+	void createsTheCpuPoolOnFirstCpuUse() {
+		AtomicInteger created = new AtomicInteger();
+		TaskRouter lazyRouter = new TaskRouter(() -> {
+			created.incrementAndGet();
+			return cpuPool;
+		}, ioPool, metrics);
+
+		lazyRouter.executorFor(Lookup.class);
+		assertTrue(lazyRouter.startedCpuPool().isEmpty());
+		assertEquals(0, created.get());
+
+		assertEquals(49_995_000L, lazyRouter.invoke(Computation.class, new SumTask(0, 10_000)));
+		lazyRouter.executorFor(Computation.class);
+		assertSame(cpuPool, lazyRouter.startedCpuPool().orElseThrow());
+		assertEquals(1, created.get());
+	}
+
+	private ExecutorMetrics.ClassStats awaitCompleted(Class<?> owner, ExecutorKind kind) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		ExecutorMetrics.ClassStats stats = statsFor(owner, kind);
+		while (stats.completed() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+			stats = statsFor(owner, kind);
+		}
+		return stats;
+	}
+
+	private ExecutorMetrics.ClassStats statsFor(Class<?> owner, ExecutorKind kind) {
+		return metrics.snapshot().stream()
+				.filter(stats -> stats.owner().equals(owner.getName()) && stats.kind() == kind)
+				.findFirst()
+				.orElseThrow();
+	}
+
+	@CpuBound
+	private static final class Computation {
+	}
+
+	@BlockingIo
+	private static final class Lookup {
+	}
+
+	private static final class SumTask extends RecursiveTask<Long> {
+
+		private final int from;
+		private final int to;
+
+		SumTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute() {
+			if (to - from <= 1_000) {
+				long sum = 0;
+				for (int i = from; i < to; i++) {
+					sum += i;
+				}
+				return sum;
+			}
+			int middle = (from + to) >>> 1;
+			SumTask left = new SumTask(from, middle);
+			left.fork();
+			return new SumTask(middle, to).compute() + left.join();
+		}
+	}
+}
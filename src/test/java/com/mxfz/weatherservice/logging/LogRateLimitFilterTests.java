@@ -0,0 +1,68 @@
+package com.mxfz.weatherservice.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogRateLimitFilterTests {
+
+	private final LoggerContext context = new LoggerContext();
+	private final AtomicLong nanos = new AtomicLong();
+	private final LogRateLimitFilter filter = new LogRateLimitFilter(nanos::get);
+
+	LogRateLimitFilterTests() {
+		filter.setContext(context);
+		filter.addLimit("com.mxfz.weatherservice.service=2");
+		filter.addLimit("com.mxfz.weatherservice.service.WeatherServiceImpl=1");
+		filter.start();
+		context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+	}
+
+	@Test
+	void limitsEachMessageTemplateOfTheLongestMatchingLogger() {
+		Logger tracker = context.getLogger("com.mxfz.weatherservice.service.PincodeRequestTracker");
+		assertEquals(FilterReply.NEUTRAL, decide(tracker, Level.INFO, "first {}"));
+		assertEquals(FilterReply.NEUTRAL, decide(tracker, Level.INFO, "first {}"));
+		assertEquals(FilterReply.DENY, decide(tracker, Level.WARN, "first {}"));
+		// Another template has its own budget
+		assertEquals(FilterReply.NEUTRAL, decide(tracker, Level.INFO, "second {}"));
+
+		Logger weather = context.getLogger("com.mxfz.weatherservice.service.WeatherServiceImpl");
+		assertEquals(FilterReply.NEUTRAL, decide(weather, Level.INFO, "first {}"));
+		assertEquals(FilterReply.DENY, decide(weather, Level.INFO, "first {}"));
+
+		List<LogRateLimitFilter.LimitStats> stats = filter.stats();
+		assertEquals(new LogRateLimitFilter.LimitStats("com.mxfz.weatherservice.service", 2, 3, 1), stats.get(0));
+		assertEquals(1, stats.get(1).suppressed());
+
+		// The budget is per second
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertEquals(FilterReply.NEUTRAL, decide(weather, Level.INFO, "first {}"));
+	}
+
+	@Test
+	void neverLimitsErrorsDisabledLevelsOrOtherLoggers() {
+		Logger weather = context.getLogger("com.mxfz.weatherservice.service.WeatherServiceImpl");
+		for (int i = 0; i < 5; i++) {
+			assertEquals(FilterReply.NEUTRAL, decide(weather, Level.ERROR, "failed {}"));
+			// DEBUG is off, so it neither passes nor uses up the budget
+			assertEquals(FilterReply.NEUTRAL, decide(weather, Level.DEBUG, "detail {}"));
+			assertEquals(FilterReply.NEUTRAL, decide(context.getLogger("com.mxfz.weatherservice.services"),
+					Level.INFO, "other {}"));
+		}
+		assertEquals(FilterReply.NEUTRAL, decide(weather, Level.INFO, "detail {}"));
+		assertEquals(0, filter.stats().get(1).suppressed());
+	}
+
+	private FilterReply decide(Logger logger, Level level, String format) {
+		return filter.decide(null, logger, level, format, null, null);
+	}
+}
@@ -0,0 +1,62 @@
+package com.mxfz.weatherservice.metrics;
+
+import com.mxfz.weatherservice.tracing.StageHistogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenMetricsWriterTests {
+
+	@Test
+	void writesFamiliesWithTypeSuffixesAndEscapedLabels() {
+		String page = new OpenMetricsWriter(256)
+				.counter("upstream_calls", "Upstream calls")
+				.sample(3, "upstream", "open-weather")
+				.gauge("resource_risk_score", "Risk")
+				.sample(0.25)
+				.stateset("resource_prediction_level", "Level")
+				.state("SAFE", true)
+				.state("WARNING", false)
+				.gauge("log_async_queued_events", "Queued")
+				.sample(2.0, "appender", "a\"b\\c\nd")
+				.finish();
+
+		assertEquals("""
+				# TYPE upstream_calls counter
+				# HELP upstream_calls Upstream calls
+				upstream_calls_total{upstream="open-weather"} 3
+				# TYPE resource_risk_score gauge
+				# HELP resource_risk_score Risk
+				resource_risk_score 0.25
+				# TYPE resource_prediction_level stateset
+				# HELP resource_prediction_level Level
+				resource_prediction_level{resource_prediction_level="SAFE"} 1
+				resource_prediction_level{resource_prediction_level="WARNING"} 0
+				# TYPE log_async_queued_events gauge
+				# HELP log_async_queued_events Queued
+				log_async_queued_events{appender="a\\"b\\\\c\\nd"} 2
+				# EOF
+				""", page);
+	}
+
+	@Test
+	void writesCumulativeHistogramBucketsInSeconds() {
+		StageHistogram histogram = new StageHistogram();
+		histogram.record(1_500_000, false);  // 1.5 ms
+		histogram.record(1_600_000, false);
+		histogram.record(40_000_000, true);  // 40 ms
+
+		String page = new OpenMetricsWriter(4096)
+				.histogram("weather_stage_duration_seconds", "Stages")
+				.stageHistogram(histogram, "stage", "openweather")
+				.finish();
+
+		assertTrue(page.contains("weather_stage_duration_seconds_bucket{stage=\"openweather\",le=\"0.002048\"} 2\n"), page);
+		assertTrue(page.contains("weather_stage_duration_seconds_bucket{stage=\"openweather\",le=\"0.065536\"} 3\n"), page);
+		assertTrue(page.contains("weather_stage_duration_seconds_bucket{stage=\"openweather\",le=\"+Inf\"} 3\n"), page);
+		assertTrue(page.contains("weather_stage_duration_seconds_count{stage=\"openweather\"} 3\n"), page);
+		assertTrue(page.contains("weather_stage_duration_seconds_sum{stage=\"openweather\"} 0.0431\n"), page);
+		assertEquals(StageHistogram.BUCKETS, page.lines().filter(line -> line.contains("_bucket")).count());
+	}
+}
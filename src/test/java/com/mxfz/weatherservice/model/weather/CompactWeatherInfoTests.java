@@ -0,0 +1,79 @@
+package com.mxfz.weatherservice.model.weather;
+
+import com.mxfz.weatherservice.util.StringDictionary;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CompactWeatherInfoTests {
+
+	@Test
+	void roundTripsAllFields() {
+		StringDictionary descriptions = new StringDictionary(8);
+		WeatherInfo info = new WeatherInfo("560001", 12.9716, 77.5946, "2020-10-15", 1602721955L, 1602764620L,
+				294.31, 295.42, 1012, 88, 292.21, 75, 6000, 2.1, 250, "broken clouds");
+		info.setFetchedAt(1602770000000L);
+
+		CompactWeatherInfo compact = CompactWeatherInfo.from(info, descriptions);
+
+		assertEquals(info, compact.toWeatherInfo(descriptions));
+		assertEquals(18550, compact.getEpochDay());
+	}
+
+	@Test
+	void keepsMissingValuesMissing() {
+		StringDictionary descriptions = new StringDictionary(8);
+		WeatherInfo info = new WeatherInfo("EC1A 1BB", null, null, null, null, null,
+				null, null, null, null, null, null, null, null, null, null);
+		info.setId("legacy-id");
+
+		WeatherInfo restored = CompactWeatherInfo.from(info, descriptions).toWeatherInfo(descriptions);
+
+		assertEquals(info, restored);
+		assertEquals("legacy-id", restored.getId());
+		assertEquals("EC1A 1BB", restored.getPincode());
+		assertNull(restored.getWindDeg());
+		assertNull(restored.getFetchedAt());
+		assertEquals(0, descriptions.size());
+	}
+
+	@Test
+	void sharesDescriptionsAndKeepsOverflowInline() {
+		StringDictionary descriptions = new StringDictionary(1);
+		WeatherInfo clouds = weather("110001", "few clouds");
+		WeatherInfo moreClouds = weather("110002", "few clouds");
+		WeatherInfo rain = weather("110003", "light rain");
+
+		CompactWeatherInfo compactClouds = CompactWeatherInfo.from(clouds, descriptions);
+		CompactWeatherInfo compactMoreClouds = CompactWeatherInfo.from(moreClouds, descriptions);
+		CompactWeatherInfo compactRain = CompactWeatherInfo.from(rain, descriptions);
+
+		assertEquals(1, descriptions.size());
+		assertEquals(clouds, compactClouds.toWeatherInfo(descriptions));
+		assertEquals(moreClouds, compactMoreClouds.toWeatherInfo(descriptions));
+		assertEquals(rain, compactRain.toWeatherInfo(descriptions));
+	}
+
+	@Test
+	void keepsPincodesWithLeadingZerosInline() {
+		StringDictionary descriptions = new StringDictionary(8);
+		WeatherInfo info = weather("012345", null);
+
+		assertEquals("012345", CompactWeatherInfo.from(info, descriptions).getPincode());
+	}
+
+	@Test
+	void rejectsInvalidDates() {
+		WeatherInfo info = weather("560001", null);
+		info.setDate("2020-02-30");
+
+		assertThrows(IllegalArgumentException.class, () -> CompactWeatherInfo.from(info, new StringDictionary(8)));
+	}
+
+	private static WeatherInfo weather(String pincode, String description) {
+		return new WeatherInfo(pincode, 28.63, 77.22, "2020-10-15", null, null, 303.15, null, 1010, 62,
+				null, 20, null, 3.6, null, description);
+	}
+}
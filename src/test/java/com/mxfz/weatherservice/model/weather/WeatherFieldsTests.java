@@ -0,0 +1,69 @@
+package com.mxfz.weatherservice.model.weather;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mxfz.weatherservice.config.JacksonConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeatherFieldsTests {
+
+	@Test
+	void parsesFieldListAndRejectsUnknownNames() {
+		assertTrue(WeatherFields.parse(null).isEmpty());
+		assertTrue(WeatherFields.parse(" ").isEmpty());
+		assertEquals(List.of("temp", "humidity"), List.copyOf(WeatherFields.parse(" temp,,humidity ")));
+		assertThrows(IllegalArgumentException.class, () -> WeatherFields.parse("temp,rain"));
+	}
+
+	@Test
+	void projectsOnlySelectedFields() {
+		WeatherInfo info = new WeatherInfo("560001", 12.9716, 77.5946, "2020-10-15", 1602721955L, 1602764620L,
+				294.31, 295.42, 1012, 88, 292.21, 75, 6000, 2.1, 250, "broken clouds");
+
+		WeatherInfo projected = WeatherFields.project(info, Set.of("temp", "humidity"));
+
+		assertEquals(info.getId(), projected.getId());
+		assertEquals(294.31, projected.getTemp());
+		assertEquals(88, projected.getHumidity());
+		assertNull(projected.getPincode());
+		assertNull(projected.getSunrise());
+		assertInstanceOf(ProjectedWeatherInfo.class, projected);
+		assertSame(info, WeatherFields.project(info, Set.of()));
+	}
+
+	@Test
+	void onlyProjectedResponsesOmitNullFields() throws JsonProcessingException {
+		ObjectMapper mapper = JacksonConfig.sharedObjectMapper();
+		WeatherInfo info = new WeatherInfo("560001", 12.9716, 77.5946, "2020-10-15", null, null,
+				294.31, null, 1012, 88, null, 75, 6000, 2.1, null, "broken clouds");
+		WeatherInfo projected = WeatherFields.project(info, Set.of("temp", "sunrise"));
+
+		assertTrue(mapper.writeValueAsString(info).contains("\"sunrise\":null"));
+		String projectedJson = mapper.writeValueAsString(projected);
+		assertTrue(projectedJson.contains("\"temp\":294.31"));
+		assertFalse(projectedJson.contains("sunrise"));
+		assertFalse(projectedJson.contains("pincode"));
+
+		// MVC writes lists and maps with their declared element type, like this
+		String listJson = mapper.writerFor(new TypeReference<List<WeatherInfo>>() { })
+				.writeValueAsString(List.of(info, projected));
+		assertTrue(listJson.contains("\"sunrise\":null,"));
+		assertEquals(1, listJson.split("sunrise", -1).length - 1);
+		String mapJson = mapper.writerFor(new TypeReference<Map<String, WeatherInfo>>() { })
+				.writeValueAsString(Map.of("560001", projected));
+		assertFalse(mapJson.contains("sunrise"));
+	}
+}
@@ -0,0 +1,115 @@
+package com.mxfz.weatherservice.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+	private final AtomicLong nanos = new AtomicLong();
+	private final Clock clock = Clock.fixed(Instant.parse("2024-06-01T10:00:00Z"), ZoneOffset.UTC);
+
+	@Test
+	void allowsBurstThenRefillsAtRate() {
+		TokenBucket bucket = bucket(new TokenBucket.Settings(10, 3, 0, 0, 1000));
+
+		assertTrue(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+		assertTrue(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+		assertTrue(bucket.tryAcquire(UpstreamPriority.BATCH));
+		assertFalse(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+
+		nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		assertTrue(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+		assertFalse(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+
+		// Idle time refills up to the burst, never beyond
+		nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		assertEquals(3.0, bucket.stats().tokens(), 1e-9);
+		assertEquals(3, bucket.stats().granted().get(UpstreamPriority.INTERACTIVE));
+		assertEquals(1, bucket.stats().granted().get(UpstreamPriority.BATCH));
+	}
+
+	@Test
+	void keepsQuotaReserveForInteractiveCalls() {
+		TokenBucket bucket = bucket(new TokenBucket.Settings(1000, 1000, 10, 0.2, 1000));
+
+		for (int i = 0; i < 8; i++) {
+			assertTrue(bucket.tryAcquire(UpstreamPriority.BACKGROUND));
+		}
+		UpstreamRateLimitedException rejected = assertThrows(UpstreamRateLimitedException.class,
+				() -> bucket.tryAcquire(UpstreamPriority.BATCH));
+		assertEquals(UpstreamRateLimitedException.Reason.QUOTA, rejected.getReason());
+
+		assertTrue(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+		assertTrue(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+		assertThrows(UpstreamRateLimitedException.class, () -> bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+		assertEquals(10, bucket.stats().usedToday());
+		assertEquals(2, bucket.stats().rejectedQuota());
+	}
+
+	@Test
+	void failsFastWhenDeadlineIsTooClose() {
+		TokenBucket bucket = bucket(new TokenBucket.Settings(1, 1, 0, 0, 1000));
+		assertTrue(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+
+		// The next token is a second away, so a 100 ms deadline is rejected without queueing
+		UpstreamRateLimitedException rejected = assertThrows(UpstreamRateLimitedException.class,
+				() -> bucket.acquire(UpstreamPriority.INTERACTIVE, nanos.get() + TimeUnit.MILLISECONDS.toNanos(100)));
+		assertEquals(UpstreamRateLimitedException.Reason.DEADLINE, rejected.getReason());
+		assertEquals(0, bucket.stats().queued());
+		assertEquals(1, bucket.stats().rejectedDeadline());
+	}
+
+	@Test
+	void servesQueuedCallersByPriority() throws Exception {
+		TokenBucket bucket = new TokenBucket("test", new TokenBucket.Settings(5, 1, 0, 0, 5000));
+		assertTrue(bucket.tryAcquire(UpstreamPriority.INTERACTIVE));
+
+		StringBuffer order = new StringBuffer();
+		CountDownLatch done = new CountDownLatch(2);
+		Thread background = new Thread(() -> acquireAndRecord(bucket, UpstreamPriority.BACKGROUND, order, done));
+		background.start();
+		awaitQueued(bucket, 1);
+		// Arrives later, but the next token (200 ms away) goes to it first
+		Thread interactive = new Thread(() -> acquireAndRecord(bucket, UpstreamPriority.INTERACTIVE, order, done));
+		interactive.start();
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		background.join();
+		interactive.join();
+		assertEquals("INTERACTIVE,BACKGROUND,", order.toString());
+	}
+
+	private TokenBucket bucket(TokenBucket.Settings settings) {
+		return new TokenBucket("test", settings, nanos::get, clock);
+	}
+
+	private static void acquireAndRecord(TokenBucket bucket, UpstreamPriority priority, StringBuffer order,
+										 CountDownLatch done) {
+		try {
+			bucket.acquire(priority, System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+			order.append(priority).append(',');
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			done.countDown();
+		}
+	}
+
+	private static void awaitQueued(TokenBucket bucket, int queued) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (bucket.stats().queued() < queued && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.mxfz.weatherservice.service;
+
+import com.mxfz.weatherservice.codec.ResponseDecoder;
+import com.mxfz.weatherservice.model.PincodeLocation;
+import com.mxfz.weatherservice.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GeoCodingServiceImplTests {
+
+	private static final String PINCODE = "110001";
+	private static final PincodeLocation LOCATION = new PincodeLocation(PINCODE, 28.63, 77.22, "New Delhi");
+
+	private final PincodeService pincodeService = mock(PincodeService.class);
+	private final RestService restService = mock(RestService.class);
+	private GeoCodingServiceImpl geoCodingService;
+
+	@BeforeEach
+	void createService() {
+		geoCodingService = new GeoCodingServiceImpl(pincodeService, restService, new Tracer(), "http://geocode.test");
+		ReflectionTestUtils.setField(geoCodingService, "googleMapsApiKey", "a2V5");
+		when(pincodeService.createPincode(any(PincodeLocation.class)))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	@Test
+	void storedPincodeSkipsTheUpstream() throws Exception {
+		when(pincodeService.findByPincode(PINCODE)).thenReturn(LOCATION);
+
+		assertSame(LOCATION, geoCodingService.fetchLocationDetailsAsync(PINCODE).get(1, TimeUnit.SECONDS));
+		verify(restService, never()).callApiAsync(any(), any(), any(), any(), any(),
+				any(ResponseDecoder.class), any());
+	}
+
+	@Test
+	void geocodedLocationIsSaved() throws Exception {
+		when(callGeocoding()).thenReturn(CompletableFuture.completedFuture(LOCATION));
+
+		assertSame(LOCATION, geoCodingService.fetchLocationDetailsAsync(PINCODE).get(1, TimeUnit.SECONDS));
+		verify(pincodeService).createPincode(LOCATION);
+	}
+
+	@Test
+	void upstreamFailureFailsTheLookupWithoutSaving() {
+		when(callGeocoding()).thenReturn(CompletableFuture.failedFuture(
+				new HttpServerErrorException(HttpStatus.BAD_GATEWAY)));
+
+		ExecutionException failure = assertThrows(ExecutionException.class,
+				() -> geoCodingService.fetchLocationDetailsAsync(PINCODE).get(1, TimeUnit.SECONDS));
+
+		assertInstanceOf(HttpServerErrorException.class, failure.getCause());
+		verify(pincodeService, never()).createPincode(any(PincodeLocation.class));
+	}
+
+	@Test
+	void cancellingTheLookupCancelsTheGeocodingCall() {
+		CompletableFuture<PincodeLocation> call = new CompletableFuture<>();
+		when(callGeocoding()).thenReturn(call);
+
+		geoCodingService.fetchLocationDetailsAsync(PINCODE).cancel(true);
+
+		assertTrue(call.isCancelled());
+		verify(pincodeService, never()).createPincode(any(PincodeLocation.class));
+	}
+
+	private CompletableFuture<PincodeLocation> callGeocoding() {
+		return restService.callApiAsync(any(), any(), any(), any(), any(),
+				any(ResponseDecoder.class), any());
+	}
+}
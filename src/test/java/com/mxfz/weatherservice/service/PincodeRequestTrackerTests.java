@@ -0,0 +1,66 @@
+package com.mxfz.weatherservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PincodeRequestTrackerTests {
+
+	@Test
+	void ranksPincodesByRequests() {
+		PincodeRequestTracker tracker = new PincodeRequestTracker(2, 1024, 4);
+		record(tracker, "110001", 2);
+		record(tracker, "400001", 5);
+		record(tracker, "560001", 1);
+		tracker.record(null);
+		tracker.record(" ");
+
+		assertEquals(List.of("400001", "110001"), tracker.getTopPincodes());
+	}
+
+	@Test
+	void decayHalvesCountsAndDropsColdPincodes() {
+		PincodeRequestTracker tracker = new PincodeRequestTracker(10, 1024, 4);
+		record(tracker, "110001", 4);
+		record(tracker, "400001", 1);
+
+		tracker.decay();
+		assertEquals(List.of("110001"), tracker.getTopPincodes());
+		assertEquals(Set.of("110001"), candidates(tracker).keySet());
+
+		// 2 requests left after decay, so 2 new ones make 560001 the most requested
+		record(tracker, "560001", 3);
+		assertEquals(List.of("560001", "110001"), tracker.getTopPincodes());
+	}
+
+	@Test
+	void evictsLeastRequestedCandidatesAtCapacity() {
+		PincodeRequestTracker tracker = new PincodeRequestTracker(2, 1024, 4);
+		record(tracker, "110001", 3);
+		record(tracker, "400001", 3);
+		record(tracker, "560001", 1);
+		record(tracker, "600001", 1);
+		assertEquals(4, candidates(tracker).size());
+
+		// Candidates may grow to twice top-k; one more trims them back to top-k
+		record(tracker, "700001", 1);
+		assertEquals(Set.of("110001", "400001"), candidates(tracker).keySet());
+		assertEquals(List.of("110001", "400001"), tracker.getTopPincodes().stream().sorted().toList());
+	}
+
+	private static void record(PincodeRequestTracker tracker, String pincode, int requests) {
+		for (int i = 0; i < requests; i++) {
+			tracker.record(pincode);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Long> candidates(PincodeRequestTracker tracker) {
+		return (Map<String, Long>) ReflectionTestUtils.getField(tracker, "candidates");
+	}
+}
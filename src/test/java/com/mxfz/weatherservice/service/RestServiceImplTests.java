@@ -0,0 +1,165 @@
+package com.mxfz.weatherservice.service;
+
+import com.mxfz.weatherservice.codec.OpenWeatherResponseDecoder;
+import com.mxfz.weatherservice.codec.ResponseDecoder;
+import com.mxfz.weatherservice.config.JacksonConfig;
+import com.mxfz.weatherservice.executor.ExecutorMetrics;
+import com.mxfz.weatherservice.executor.TaskRouter;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import com.mxfz.weatherservice.ratelimit.UpstreamRateLimiter;
+import com.mxfz.weatherservice.upstream.UpstreamCallMetrics;
+import com.mxfz.weatherservice.upstream.UpstreamEndpoints;
+import com.mxfz.weatherservice.upstream.UpstreamHedger;
+import com.mxfz.weatherservice.upstream.UpstreamRetrier;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestServiceImplTests {
+
+	private static final String PATH = "/data/3.0/onecall/timemachine";
+	private static final String WEATHER = """
+			{"lat": 28.61, "lon": 77.21,
+			 "data": [{"dt": 1602763200, "temp": 303.15, "weather": [{"description": "few clouds"}]}]}
+			""";
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private final ForkJoinPool cpuPool = new ForkJoinPool(1);
+	private final ExecutorService ioPool = Executors.newVirtualThreadPerTaskExecutor();
+	private final CountDownLatch requestReceived = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private HttpServer server;
+	private URI endpoint;
+	private RestServiceImpl restService;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(ioPool);
+		server.createContext(PATH, exchange -> {
+			requestReceived.countDown();
+			String query = exchange.getRequestURI().getQuery();
+			if (query.contains("dt=404")) {
+				respond(exchange, 404, "{\"cod\": 404}");
+			} else if (query.contains("dt=slow")) {
+				await(release);
+				respond(exchange, 200, WEATHER);
+			} else {
+				respond(exchange, 200, WEATHER);
+			}
+		});
+		server.start();
+
+		String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+		endpoint = URI.create(baseUrl + PATH);
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("upstream.open-weather.base-url", baseUrl)
+				.withProperty("upstream.open-weather.retry.max-attempts", "1");
+		UpstreamEndpoints endpoints = new UpstreamEndpoints(environment);
+		TaskRouter taskRouter = new TaskRouter(cpuPool, ioPool, new ExecutorMetrics());
+		UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(endpoints, environment, taskRouter);
+		restService = new RestServiceImpl(RestClient.create(),
+				HttpClient.newBuilder().executor(ioPool).build(), JacksonConfig.sharedObjectMapper(), rateLimiter,
+				new UpstreamHedger(endpoints, rateLimiter, taskRouter, environment),
+				new UpstreamRetrier(endpoints, new UpstreamCallMetrics(), taskRouter, environment));
+	}
+
+	@AfterEach
+	void stopServer() {
+		release.countDown();
+		server.stop(0);
+		cpuPool.shutdownNow();
+		ioPool.shutdownNow();
+	}
+
+	@Test
+	void decodesTheResponse() throws Exception {
+		WeatherInfo weather = call("1602720000", OpenWeatherResponseDecoder.forPincode("110001"))
+				.get(5, TimeUnit.SECONDS);
+
+		assertEquals("110001", weather.getPincode());
+		assertEquals(303.15, weather.getTemp());
+		assertEquals(28.61, weather.getLatitude());
+		assertEquals("few clouds", weather.getWeatherDescription());
+	}
+
+	@Test
+	void errorStatusFailsTheCall() {
+		ExecutionException failure = assertThrows(ExecutionException.class,
+				() -> call("404", OpenWeatherResponseDecoder.forPincode("110001")).get(5, TimeUnit.SECONDS));
+
+		HttpClientErrorException error = assertInstanceOf(HttpClientErrorException.class, failure.getCause());
+		assertEquals(HttpStatus.NOT_FOUND, error.getStatusCode());
+	}
+
+	@Test
+	void cancellingAbandonsTheExchange() throws Exception {
+		AtomicInteger decoded = new AtomicInteger();
+		CompletableFuture<WeatherInfo> result = call("slow", parser -> {
+			decoded.incrementAndGet();
+			return OpenWeatherResponseDecoder.decode(parser, "110001");
+		});
+		assertTrue(requestReceived.await(5, TimeUnit.SECONDS));
+
+		assertTrue(result.cancel(true));
+		release.countDown();
+		Thread.sleep(200);
+
+		assertTrue(result.isCancelled());
+		assertEquals(0, decoded.get());
+	}
+
+	private <T> CompletableFuture<T> call(String dt, ResponseDecoder<T> decoder) {
+		return restService.callApiAsync(endpoint, HttpMethod.GET, HttpHeaders.EMPTY, Map.of("dt", dt), null,
+				decoder, TIMEOUT);
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, "application/json");
+		try (OutputStream out = exchange.getResponseBody()) {
+			exchange.sendResponseHeaders(status, bytes.length);
+			out.write(bytes);
+		} catch (IOException e) {
+			// The client may have given up on the exchange
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.mxfz.weatherservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class VirtualThreadPinningMonitorTests {
+
+	private static final long MS = 1_000_000;
+	private static final long SECOND = 1000 * MS;
+
+	private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+	private final VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(now::get);
+
+	VirtualThreadPinningMonitorTests() {
+		ReflectionTestUtils.setField(monitor, "maxSites", 2);
+		ReflectionTestUtils.setField(monitor, "rateWindowMs", 60_000L);
+	}
+
+	@Test
+	void aggregatesPinsByCallSite() {
+		monitor.record("com.example.Cache.get:42", List.of("com.example.Cache.get:42"), null, 30 * MS);
+		monitor.record("com.example.Cache.get:42", List.of("com.example.Cache.get:42"), null, 50 * MS);
+		monitor.record("com.example.Log.append:7", List.of("com.example.Log.append:7"), "MONITOR", 25 * MS);
+
+		assertEquals(3, monitor.totalEvents());
+		assertEquals(105, monitor.totalPinnedMillis());
+		assertEquals(50, monitor.maxPinnedMillis());
+
+		List<VirtualThreadPinningMonitor.PinnedSite> top = monitor.topOffenders(10);
+		assertEquals(2, top.size());
+		VirtualThreadPinningMonitor.PinnedSite worst = top.get(0);
+		assertEquals("com.example.Cache.get:42", worst.callSite());
+		assertEquals(2, worst.count());
+		assertEquals(80, worst.totalMillis());
+		assertEquals(40.0, worst.meanMillis(), 0.001);
+		assertEquals(50, worst.maxMillis());
+		assertEquals("MONITOR", top.get(1).reason());
+	}
+
+	@Test
+	void foldsSitesBeyondLimitIntoOneBucket() {
+		monitor.record("a", List.of("a"), null, 10 * MS);
+		monitor.record("b", List.of("b"), null, 10 * MS);
+		monitor.record("c", List.of("c"), null, 10 * MS);
+		monitor.record("d", List.of("d"), null, 10 * MS);
+
+		List<VirtualThreadPinningMonitor.PinnedSite> top = monitor.topOffenders(10);
+		assertEquals(3, top.size());
+		assertEquals(VirtualThreadPinningMonitor.OTHER_SITES, top.get(0).callSite());
+		assertEquals(2, top.get(0).count());
+		assertEquals(1, monitor.topOffenders(1).size());
+	}
+
+	@Test
+	void rateIsTakenOverTheFullWindow() {
+		monitor.record("a", List.of("a"), null, 30 * MS);
+
+		// Asked for right after the pin, one pin is still one per minute rather than one per elapsed instant
+		now.addAndGet(MS);
+		assertEquals(1.0, monitor.recentRate().pinsPerMinute(), 0.001);
+		assertEquals(30, monitor.recentRate().pinnedMillis());
+
+		for (int i = 0; i < 19; i++) {
+			monitor.record("a", List.of("a"), null, 30 * MS);
+		}
+		assertEquals(20.0, monitor.recentRate().pinsPerMinute(), 0.001);
+	}
+
+	@Test
+	void pinsLeaveTheRateOnceOutsideTheWindow() {
+		monitor.record("a", List.of("a"), null, 30 * MS);
+		now.addAndGet(30 * SECOND);
+		monitor.record("b", List.of("b"), null, 30 * MS);
+		assertEquals(2.0, monitor.recentRate().pinsPerMinute(), 0.001);
+
+		now.addAndGet(45 * SECOND);
+		assertEquals(1.0, monitor.recentRate().pinsPerMinute(), 0.001);
+
+		now.addAndGet(60 * SECOND);
+		assertEquals(0.0, monitor.recentRate().pinsPerMinute(), 0.001);
+		assertEquals(2, monitor.totalEvents());
+	}
+
+	@Test
+	void reportsInactiveWhenNotStarted() {
+		assertFalse(monitor.report(5).active());
+	}
+}
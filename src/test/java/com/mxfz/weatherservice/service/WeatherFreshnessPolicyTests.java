@@ -0,0 +1,44 @@
+package com.mxfz.weatherservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeatherFreshnessPolicyTests {
+
+	private static final Instant NOW = Instant.parse("2024-06-15T12:00:00Z");
+	private static final long TODAY_TTL_MS = 30 * 60 * 1000L;
+	private static final long FUTURE_TTL_MS = 3 * 60 * 60 * 1000L;
+
+	private final WeatherFreshnessPolicy policy =
+			new WeatherFreshnessPolicy(Clock.fixed(NOW, ZoneOffset.UTC), TODAY_TTL_MS, FUTURE_TTL_MS);
+
+	@Test
+	void todayIsStaleAfterTtl() {
+		assertFalse(policy.isStale("2024-06-15", NOW.toEpochMilli() - TODAY_TTL_MS));
+		assertTrue(policy.isStale("2024-06-15", NOW.toEpochMilli() - TODAY_TTL_MS - 1));
+		assertFalse(policy.isStale("2024-06-16", NOW.toEpochMilli() - TODAY_TTL_MS - 1));
+		assertTrue(policy.isStale("2024-06-16", NOW.toEpochMilli() - FUTURE_TTL_MS - 1));
+	}
+
+	@Test
+	void pastIsFinalOnceFetchedAfterTheDayEnded() {
+		assertFalse(policy.isStale("2024-06-14", Instant.parse("2024-06-15T00:00:00Z").toEpochMilli()));
+		assertTrue(policy.isStale("2024-06-14", Instant.parse("2024-06-14T23:00:00Z").toEpochMilli()));
+		assertFalse(policy.isStale("2024-06-14", null));
+		assertTrue(policy.isStale("2024-06-15", null));
+	}
+
+	@Test
+	void queriesTheLatestObservedMomentOfTheDate() {
+		assertEquals(NOW.getEpochSecond(), policy.observationEpochSecond("2024-06-15"));
+		assertEquals(Instant.parse("2024-06-14T23:59:59Z").getEpochSecond(), policy.observationEpochSecond("2024-06-14"));
+		assertEquals(Instant.parse("2024-06-16T00:00:00Z").getEpochSecond(), policy.observationEpochSecond("2024-06-16"));
+	}
+}
@@ -0,0 +1,205 @@
+package com.mxfz.weatherservice.service;
+
+import com.mxfz.weatherservice.codec.ResponseDecoder;
+import com.mxfz.weatherservice.executor.ExecutorMetrics;
+import com.mxfz.weatherservice.executor.TaskRouter;
+import com.mxfz.weatherservice.model.PincodeLocation;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import com.mxfz.weatherservice.repository.WeatherStore;
+import com.mxfz.weatherservice.tracing.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WeatherServiceImplTests {
+
+	private static final String PINCODE = "110001";
+	private static final String DATE = "2020-10-15";
+	private static final Instant NOW = Instant.parse("2024-06-15T12:00:00Z");
+	private static final PincodeLocation LOCATION = new PincodeLocation(PINCODE, 28.63, 77.22, "New Delhi");
+
+	private final ForkJoinPool cpuPool = new ForkJoinPool(1);
+	private final ExecutorService ioPool = Executors.newVirtualThreadPerTaskExecutor();
+	private final RestService restService = mock(RestService.class);
+	private final WeatherStore weatherStore = mock(WeatherStore.class);
+	private final GeoCodingService geoCodingService = mock(GeoCodingService.class);
+	private WeatherServiceImpl weatherService;
+
+	@BeforeEach
+	void createService() {
+		weatherService = new WeatherServiceImpl(restService, weatherStore, geoCodingService,
+				new WeatherFreshnessPolicy(Clock.fixed(NOW, ZoneOffset.UTC), 1_800_000, 10_800_000),
+				new WeatherFreshnessMetrics(),
+				new TaskRouter(cpuPool, ioPool, new ExecutorMetrics()), new Tracer(), "http://weather.test");
+		ReflectionTestUtils.setField(weatherService, "openWeatherApiKey", "a2V5");
+		ReflectionTestUtils.setField(weatherService, "batchMaxConcurrency", 4);
+		ReflectionTestUtils.setField(weatherService, "batchTimeoutMs", 5000L);
+		when(weatherStore.findByPincodeAndDate(anyString(), anyString())).thenReturn(null);
+		when(weatherStore.save(any(WeatherInfo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	@AfterEach
+	void shutdownPools() {
+		cpuPool.shutdownNow();
+		ioPool.shutdownNow();
+	}
+
+	@Test
+	void missIsFetchedAndSaved() throws Exception {
+		WeatherInfo fetched = weatherInfo();
+		when(geoCodingService.fetchLocationDetailsAsync(PINCODE)).thenReturn(CompletableFuture.completedFuture(LOCATION));
+		when(callOpenWeather()).thenReturn(CompletableFuture.completedFuture(fetched));
+
+		WeatherInfo result = weatherService.fetchWeatherAsync(PINCODE, DATE).get(1, TimeUnit.SECONDS);
+
+		assertSame(fetched, result);
+		assertNotNull(result.getFetchedAt());
+		verify(weatherStore).save(fetched);
+	}
+
+	@Test
+	void projectedMissGoesUpstreamWithoutASecondStoreLookup() {
+		WeatherInfo fetched = weatherInfo();
+		when(geoCodingService.fetchLocationDetails(PINCODE)).thenReturn(LOCATION);
+		when(restService.callApi(any(), any(), any(), any(), any(), any(ResponseDecoder.class))).thenReturn(fetched);
+
+		WeatherInfo result = weatherService.fetchWeather(PINCODE, DATE, Set.of("temp"));
+
+		assertEquals(303.15, result.getTemp());
+		assertNull(result.getHumidity());
+		verify(weatherStore).findByPincodeAndDate(PINCODE, DATE, Set.of("temp"));
+		verify(weatherStore, never()).findByPincodeAndDate(PINCODE, DATE);
+		verify(weatherStore).save(fetched);
+	}
+
+	@Test
+	void batchReturnsEveryLookupThroughCompactRecords() {
+		WeatherInfo stored = weatherInfo();
+		stored.setFetchedAt(1602770000000L);
+		WeatherInfo other = new WeatherInfo("560001", 12.97, 77.59, DATE, null, null, 294.31, null, 1012, 88,
+				null, 75, null, 2.1, null, "few clouds");
+		other.setFetchedAt(1602770000000L);
+		when(weatherStore.findByPincodeAndDate(PINCODE, DATE)).thenReturn(stored);
+		when(weatherStore.findByPincodeAndDate("560001", DATE)).thenReturn(other);
+
+		Map<String, WeatherInfo> batch = weatherService.fetchWeatherBatch(List.of(PINCODE, "560001"), DATE, Set.of());
+
+		assertEquals(List.of(PINCODE, "560001"), List.copyOf(batch.keySet()));
+		assertEquals(stored, batch.get(PINCODE));
+		assertEquals(other, batch.get("560001"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void refreshOfTodayQueriesALaterMomentThanTheStoredEntry() {
+		String today = "2024-06-15";
+		long fetchedAt = NOW.minusSeconds(3600).toEpochMilli();
+		WeatherInfo stored = weatherInfo();
+		stored.setDate(today);
+		stored.setFetchedAt(fetchedAt);
+		when(weatherStore.findByPincodeAndDate(PINCODE, today)).thenReturn(stored);
+		when(geoCodingService.fetchLocationDetails(PINCODE)).thenReturn(LOCATION);
+		when(restService.callApi(any(), any(), any(), any(), any(), any(ResponseDecoder.class))).thenReturn(weatherInfo());
+
+		assertSame(stored, weatherService.fetchWeather(PINCODE, today));
+
+		ArgumentCaptor<Map<String, ?>> params = ArgumentCaptor.forClass(Map.class);
+		verify(restService, timeout(1000)).callApi(any(), any(), any(), params.capture(), any(),
+				any(ResponseDecoder.class));
+		long dt = (Long) params.getValue().get("dt");
+		assertEquals(NOW.getEpochSecond(), dt);
+		assertTrue(dt > fetchedAt / 1000);
+		verify(weatherStore, timeout(1000)).save(any(WeatherInfo.class));
+	}
+
+	@Test
+	void upstreamFailureFailsTheLookupWithoutSaving() {
+		when(geoCodingService.fetchLocationDetailsAsync(PINCODE)).thenReturn(CompletableFuture.completedFuture(LOCATION));
+		when(callOpenWeather()).thenReturn(CompletableFuture.failedFuture(
+				new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE)));
+
+		ExecutionException failure = assertThrows(ExecutionException.class,
+				() -> weatherService.fetchWeatherAsync(PINCODE, DATE).get(1, TimeUnit.SECONDS));
+
+		assertInstanceOf(HttpServerErrorException.class, failure.getCause());
+		verify(weatherStore, never()).save(any(WeatherInfo.class));
+	}
+
+	@Test
+	void cancellingDuringGeocodingCancelsTheGeocodingCall() {
+		CompletableFuture<PincodeLocation> geocoding = new CompletableFuture<>();
+		when(geoCodingService.fetchLocationDetailsAsync(PINCODE)).thenReturn(geocoding);
+
+		CompletableFuture<WeatherInfo> result = weatherService.fetchWeatherAsync(PINCODE, DATE);
+		result.cancel(true);
+
+		assertTrue(geocoding.isCancelled());
+		verify(restService, never()).callApiAsync(any(), any(), any(), any(), any(),
+				any(ResponseDecoder.class), any());
+	}
+
+	@Test
+	void cancellingWhileGeocodingCompletesCancelsTheWeatherCall() {
+		// Completes anyway, like a call that was already delivering its response when cancelled
+		CompletableFuture<PincodeLocation> geocoding = new CompletableFuture<>() {
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+				return false;
+			}
+		};
+		CompletableFuture<WeatherInfo> weatherCall = new CompletableFuture<>();
+		when(geoCodingService.fetchLocationDetailsAsync(PINCODE)).thenReturn(geocoding);
+		when(callOpenWeather()).thenReturn(weatherCall);
+
+		CompletableFuture<WeatherInfo> result = weatherService.fetchWeatherAsync(PINCODE, DATE);
+		result.cancel(true);
+		geocoding.complete(LOCATION);
+
+		assertTrue(weatherCall.isCancelled());
+		assertThrows(CancellationException.class, result::join);
+		verify(weatherStore, never()).save(any(WeatherInfo.class));
+	}
+
+	private CompletableFuture<WeatherInfo> callOpenWeather() {
+		return restService.callApiAsync(any(), any(), any(), any(), any(),
+				any(ResponseDecoder.class), any());
+	}
+
+	private static WeatherInfo weatherInfo() {
+		return new WeatherInfo(PINCODE, 28.63, 77.22, DATE, 1602722520L, 1602764040L, 303.15, 305.2, 1010, 62,
+				295.1, 20, 10000, 3.6, 270, "few clouds");
+	}
+}
@@ -0,0 +1,86 @@
+package com.mxfz.weatherservice.simulator;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.mxfz.weatherservice.codec.GeocodeResponseDecoder;
+import com.mxfz.weatherservice.codec.OpenWeatherResponseDecoder;
+import com.mxfz.weatherservice.config.JacksonConfig;
+import com.mxfz.weatherservice.model.PincodeLocation;
+import com.mxfz.weatherservice.model.weather.WeatherInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimulatedUpstreamTests {
+
+	@Test
+	void lognormalLatencyMatchesMedianAndP99() {
+		LatencyDistribution distribution = LatencyDistribution.of("lognormal", 100, 500);
+		SplittableRandom random = new SplittableRandom(7);
+		long[] samples = new long[20_000];
+		for (int i = 0; i < samples.length; i++) {
+			samples[i] = distribution.sampleMillis(random);
+		}
+		Arrays.sort(samples);
+
+		assertEquals(100, samples[samples.length / 2], 10);
+		assertEquals(500, samples[(int) (samples.length * 0.99)], 75);
+	}
+
+	@Test
+	void sameSeedGivesSameSequence() {
+		SimulatedUpstream.Settings settings = new SimulatedUpstream.Settings(
+				LatencyDistribution.of("exponential", 50, 0), 0.2, 0, 11);
+		SimulatedUpstream first = new SimulatedUpstream(settings);
+		SimulatedUpstream second = new SimulatedUpstream(settings);
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals(first.nextCall(), second.nextCall());
+		}
+		assertEquals(first.stats(), second.stats());
+	}
+
+	@Test
+	void rejectsCallsOverRateLimit() {
+		SimulatedUpstream upstream = new SimulatedUpstream(new SimulatedUpstream.Settings(
+				LatencyDistribution.of("fixed", 0, 0), 0, 5, 1));
+
+		int rejected = 0;
+		for (int i = 0; i < 8; i++) {
+			SimulatedUpstream.Decision decision = upstream.nextCall();
+			if (decision.status() == 429) {
+				rejected++;
+				assertEquals(1, decision.retryAfterSeconds());
+			}
+		}
+		// All calls normally fall in one second; a second boundary in between admits a few more
+		assertTrue(rejected >= 1 && rejected <= 3, "rejected " + rejected);
+		assertEquals(rejected, upstream.stats().rateLimited());
+	}
+
+	@Test
+	void payloadsDecodeWithUpstreamDecoders() throws Exception {
+		byte[] geocode = UpstreamPayloads.toJson(UpstreamPayloads.geocode("560001"));
+		PincodeLocation location;
+		try (JsonParser parser = JacksonConfig.sharedObjectMapper().createParser(geocode)) {
+			location = GeocodeResponseDecoder.decode(parser);
+		}
+		assertNotNull(location);
+		assertEquals("560001", location.getPincode());
+
+		byte[] weather = UpstreamPayloads.toJson(
+				UpstreamPayloads.weather(location.getLatitude(), location.getLongitude(), 1_700_000_000L));
+		WeatherInfo info;
+		try (JsonParser parser = JacksonConfig.sharedObjectMapper().createParser(weather)) {
+			info = OpenWeatherResponseDecoder.decode(parser, "560001");
+		}
+		assertNotNull(info);
+		assertEquals("2023-11-14", info.getDate());
+		assertNotNull(info.getFeelsLike());
+		assertNotNull(info.getWeatherDescription());
+	}
+}
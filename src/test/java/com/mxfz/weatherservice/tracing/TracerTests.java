@@ -0,0 +1,125 @@
+package com.mxfz.weatherservice.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TracerTests {
+
+	private final Tracer tracer = new Tracer();
+
+	@Test
+	void recordsStagesIntoHistogramsAndTheCurrentRequest() {
+		assertEquals("x", tracer.trace(TraceStage.CACHE_LOOKUP, () -> "x"));
+		assertEquals(1, tracer.histogram(TraceStage.CACHE_LOOKUP).count());
+
+		RequestTrace trace = tracer.begin("GET /api/weather/weather-for-date-pincode", null);
+		try {
+			tracer.trace(TraceStage.CACHE_LOOKUP, () -> null);
+			assertThrows(IllegalStateException.class, () -> tracer.trace(TraceStage.OPEN_WEATHER, () -> {
+				throw new IllegalStateException("upstream down");
+			}));
+			tracer.trace(TraceStage.CACHE_LOOKUP, () -> null);
+		} finally {
+			tracer.end(trace, 500);
+		}
+		assertNull(tracer.current());
+
+		String serverTiming = trace.serverTiming();
+		assertTrue(serverTiming.matches("cache;dur=\\d+\\.\\d{3}, openweather;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"),
+				serverTiming);
+		RequestTrace.Snapshot snapshot = trace.snapshot();
+		assertEquals(3, snapshot.spans().length);
+		assertTrue(snapshot.spans()[1].failed());
+		assertEquals(3, tracer.histogram(TraceStage.CACHE_LOOKUP).count());
+		assertEquals(1, tracer.snapshot().get(TraceStage.OPEN_WEATHER.ordinal()).failures());
+	}
+
+	@Test
+	void carriesTheTraceToOtherThreads() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			RequestTrace trace = tracer.begin("GET /api/weather/weather-batch", null);
+			Callable<RequestTrace> forked = tracer.wrap(() -> {
+				tracer.trace(TraceStage.PINCODE_LOOKUP, () -> null);
+				return tracer.current();
+			});
+			CompletableFuture<String> upstream = new CompletableFuture<>();
+			CompletableFuture<String> traced = tracer.traceAsync(TraceStage.GEOCODE, () -> upstream);
+			tracer.end(trace, 200);
+
+			assertSame(trace, executor.submit(forked).get(1, TimeUnit.SECONDS));
+			executor.submit(() -> upstream.complete("ok")).get(1, TimeUnit.SECONDS);
+			assertEquals("ok", traced.get());
+
+			RequestTrace.Span[] spans = trace.snapshot().spans();
+			assertEquals(2, spans.length);
+			assertEquals(TraceStage.PINCODE_LOOKUP, spans[0].stage());
+			assertEquals(TraceStage.GEOCODE, spans[1].stage());
+			assertNull(executor.submit(tracer::current).get(1, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void estimatesPercentilesFromBuckets() {
+		StageHistogram histogram = new StageHistogram();
+		for (int i = 0; i < 98; i++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(300), false);
+		}
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(40), false);
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(45), true);
+
+		StageHistogram.StageStats stats = histogram.stats("cache");
+		assertEquals(100, stats.count());
+		assertEquals(1, stats.failures());
+		// 300 us falls in the [256, 512) us bucket
+		assertEquals(0.512, stats.p50Ms());
+		assertEquals(0.512, stats.p90Ms());
+		// Capped at the largest duration seen rather than the 65.5 ms bucket bound
+		assertEquals(45.0, stats.p99Ms());
+		assertEquals(45.0, stats.maxMs());
+	}
+
+	@Test
+	void continuesIncomingTraceAndEncodesOtlp() throws Exception {
+		String traceparent = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+		RequestTrace trace = tracer.begin("GET /api/weather/weather-for-date-pincode", traceparent);
+		tracer.trace(TraceStage.GEOCODE, () -> null);
+		tracer.end(trace, 200);
+		assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", trace.traceId());
+		assertEquals("00f067aa0ba902b7", trace.parentSpanId());
+		assertFalse(RequestTrace.start("x", "00-00000000000000000000000000000000-00f067aa0ba902b7-01").traceId()
+				.startsWith("0000000000000000"));
+
+		ObjectMapper mapper = new ObjectMapper();
+		byte[] body = OtlpTraceExporter.encode(mapper.getFactory(), "weather-service", List.of(trace.snapshot()));
+		JsonNode resourceSpans = mapper.readTree(body).get("resourceSpans").get(0);
+		assertEquals("weather-service",
+				resourceSpans.get("resource").get("attributes").get(0).get("value").get("stringValue").asText());
+		JsonNode spans = resourceSpans.get("scopeSpans").get(0).get("spans");
+		assertEquals(2, spans.size());
+		assertEquals(2, spans.get(0).get("kind").asInt());
+		assertEquals("00f067aa0ba902b7", spans.get(0).get("parentSpanId").asText());
+		assertEquals("geocode", spans.get(1).get("name").asText());
+		assertEquals(3, spans.get(1).get("kind").asInt());
+		assertEquals(trace.spanId(), spans.get(1).get("parentSpanId").asText());
+		assertTrue(Long.parseLong(spans.get(1).get("startTimeUnixNano").asText())
+				>= Long.parseLong(spans.get(0).get("startTimeUnixNano").asText()));
+	}
+}
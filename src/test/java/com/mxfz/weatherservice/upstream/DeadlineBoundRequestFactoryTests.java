@@ -0,0 +1,64 @@
+package com.mxfz.weatherservice.upstream;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineBoundRequestFactoryTests {
+
+	private final DeadlineBoundRequestFactory factory =
+			new DeadlineBoundRequestFactory(Duration.ofSeconds(5), Duration.ofSeconds(10));
+
+	@Test
+	void usesConfiguredTimeoutsOutsideAnAttempt() throws Exception {
+		HttpURLConnection connection = openConnection();
+		factory.prepareConnection(connection, "GET");
+
+		assertEquals(5_000, connection.getConnectTimeout());
+		assertEquals(10_000, connection.getReadTimeout());
+	}
+
+	@Test
+	void capsTimeoutsToTheAttemptDeadline() throws Exception {
+		HttpURLConnection connection = openConnection();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		DeadlineBoundRequestFactory.withDeadline(deadline, () -> {
+			try {
+				factory.prepareConnection(connection, "GET");
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return null;
+		});
+
+		assertTrue(connection.getConnectTimeout() > 0 && connection.getConnectTimeout() <= 2_000);
+		assertTrue(connection.getReadTimeout() > 0 && connection.getReadTimeout() <= 2_000);
+	}
+
+	@Test
+	void passedDeadlineLeavesTheShortestTimeoutNotNone() throws Exception {
+		HttpURLConnection connection = openConnection();
+		DeadlineBoundRequestFactory.withDeadline(System.nanoTime() - 1, () -> {
+			try {
+				factory.prepareConnection(connection, "GET");
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return null;
+		});
+
+		assertEquals(1, connection.getConnectTimeout());
+		assertEquals(1, connection.getReadTimeout());
+	}
+
+	private static HttpURLConnection openConnection() throws Exception {
+		// Opening does not connect
+		return (HttpURLConnection) URI.create("http://localhost:1/").toURL().openConnection();
+	}
+}
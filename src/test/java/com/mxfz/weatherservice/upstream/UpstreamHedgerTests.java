@@ -0,0 +1,127 @@
+package com.mxfz.weatherservice.upstream;
+
+import com.mxfz.weatherservice.executor.ExecutorMetrics;
+import com.mxfz.weatherservice.executor.TaskRouter;
+import com.mxfz.weatherservice.ratelimit.UpstreamRateLimiter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpstreamHedgerTests {
+
+	private static final URI ENDPOINT = URI.create("http://weather.test/data/3.0/onecall/timemachine");
+
+	private final ForkJoinPool cpuPool = new ForkJoinPool(1);
+	private final ExecutorService ioPool = Executors.newVirtualThreadPerTaskExecutor();
+	private final MockEnvironment environment = new MockEnvironment()
+			.withProperty("upstream.open-weather.base-url", "http://weather.test")
+			.withProperty("upstream.open-weather.hedge.enabled", "true")
+			.withProperty("upstream.open-weather.hedge.min-delay-ms", "20")
+			.withProperty("upstream.open-weather.hedge.max-extra-percent", "10")
+			.withProperty("upstream.open-weather.hedge.burst", "1")
+			.withProperty("upstream.open-weather.hedge.min-samples", "20");
+
+	@AfterEach
+	void shutdownPools() {
+		cpuPool.shutdownNow();
+		ioPool.shutdownNow();
+	}
+
+	@Test
+	void hedgeWinsWhenPrimaryIsSlow() throws Exception {
+		UpstreamHedger hedger = hedger();
+		warmUp(hedger, 20);
+
+		List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+		CompletableFuture<String> result = hedger.call(ENDPOINT, HttpMethod.GET,
+				attempts(attempts, new CompletableFuture<>(), CompletableFuture.completedFuture("hedge")));
+
+		assertEquals("hedge", result.get(1, TimeUnit.SECONDS));
+		assertEquals(2, attempts.size());
+		assertTrue(attempts.get(0).isCancelled());
+		UpstreamHedger.HedgeStats stats = hedger.snapshot().get(0);
+		assertEquals(1, stats.hedged());
+		assertEquals(1, stats.hedgeWins());
+	}
+
+	@Test
+	void budgetCapsHedges() throws Exception {
+		UpstreamHedger hedger = hedger();
+		warmUp(hedger, 20);
+
+		CompletableFuture<String> first = hedger.call(ENDPOINT, HttpMethod.GET,
+				attempts(new CopyOnWriteArrayList<>(), new CompletableFuture<>(), CompletableFuture.completedFuture("hedge")));
+		assertEquals("hedge", first.get(1, TimeUnit.SECONDS));
+
+		// The burst of one hedge is spent, and one more call only earns a tenth of a hedge
+		List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+		CompletableFuture<String> second = hedger.call(ENDPOINT, HttpMethod.GET,
+				attempts(attempts, new CompletableFuture<>(), CompletableFuture.completedFuture("hedge")));
+		Thread.sleep(200);
+		assertFalse(second.isDone());
+		assertEquals(1, attempts.size());
+		assertEquals(1, hedger.snapshot().get(0).budgetDenied());
+		second.cancel(true);
+		assertTrue(attempts.get(0).isCancelled());
+	}
+
+	@Test
+	void doesNotHedgeBeforeLatencyIsKnownOrNonIdempotentCalls() throws Exception {
+		UpstreamHedger hedger = hedger();
+		warmUp(hedger, 5);
+		List<CompletableFuture<String>> earlyAttempts = new CopyOnWriteArrayList<>();
+		CompletableFuture<String> tooEarly = hedger.call(ENDPOINT, HttpMethod.GET,
+				attempts(earlyAttempts, new CompletableFuture<>(), CompletableFuture.completedFuture("hedge")));
+
+		warmUp(hedger, 20);
+		assertFalse(hedger.isEnabled(ENDPOINT, HttpMethod.POST));
+		List<CompletableFuture<String>> postAttempts = new CopyOnWriteArrayList<>();
+		CompletableFuture<String> post = hedger.call(ENDPOINT, HttpMethod.POST,
+				attempts(postAttempts, new CompletableFuture<>(), CompletableFuture.completedFuture("hedge")));
+
+		Thread.sleep(200);
+		assertFalse(tooEarly.isDone());
+		assertFalse(post.isDone());
+		assertEquals(1, earlyAttempts.size());
+		assertEquals(1, postAttempts.size());
+		assertEquals(0, hedger.snapshot().get(0).hedged());
+	}
+
+	private UpstreamHedger hedger() {
+		UpstreamEndpoints endpoints = new UpstreamEndpoints(environment);
+		TaskRouter router = new TaskRouter(cpuPool, ioPool, new ExecutorMetrics());
+		return new UpstreamHedger(endpoints, new UpstreamRateLimiter(endpoints, environment, router), router,
+				environment);
+	}
+
+	private static void warmUp(UpstreamHedger hedger, int calls) throws Exception {
+		for (int i = 0; i < calls; i++) {
+			hedger.call(ENDPOINT, HttpMethod.GET, () -> CompletableFuture.completedFuture("fast")).get();
+		}
+	}
+
+	@SafeVarargs
+	private static Supplier<CompletableFuture<String>> attempts(List<CompletableFuture<String>> started,
+																CompletableFuture<String>... results) {
+		return () -> {
+			CompletableFuture<String> next = results[started.size() % results.length];
+			started.add(next);
+			return next;
+		};
+	}
+}
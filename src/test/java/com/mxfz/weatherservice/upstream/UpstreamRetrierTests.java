@@ -0,0 +1,144 @@
+package com.mxfz.weatherservice.upstream;
+
+import com.mxfz.weatherservice.executor.ExecutorMetrics;
+import com.mxfz.weatherservice.executor.TaskRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UpstreamRetrierTests {
+
+	private static final URI ENDPOINT = URI.create("http://weather.test/data/3.0/onecall/timemachine");
+
+	private final ForkJoinPool cpuPool = new ForkJoinPool(1);
+	private final ExecutorService ioPool = Executors.newVirtualThreadPerTaskExecutor();
+	private final UpstreamCallMetrics metrics = new UpstreamCallMetrics();
+	private final MockEnvironment environment = new MockEnvironment()
+			.withProperty("upstream.open-weather.base-url", "http://weather.test")
+			.withProperty("upstream.open-weather.retry.max-attempts", "3")
+			.withProperty("upstream.open-weather.retry.base-delay-ms", "1")
+			.withProperty("upstream.open-weather.retry.max-delay-ms", "20");
+
+	@AfterEach
+	void shutdownPools() {
+		cpuPool.shutdownNow();
+		ioPool.shutdownNow();
+	}
+
+	@Test
+	void retriesTransientFailuresUntilSuccess() {
+		AtomicInteger attempts = new AtomicInteger();
+		String value = retrier().call(ENDPOINT, HttpMethod.GET, deadline(), () -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw status(HttpStatus.SERVICE_UNAVAILABLE, null);
+			}
+			return "ok";
+		});
+
+		assertEquals("ok", value);
+		UpstreamCallMetrics.UpstreamCallStats stats = metrics.snapshot().get(0);
+		assertEquals(2, stats.retries());
+		assertEquals(1, stats.callsByAttempts().get(3));
+		assertEquals(0, stats.failures());
+	}
+
+	@Test
+	void retriesOnlyWhatIsSafeAndTransient() {
+		UpstreamRetrier retrier = retrier();
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThrows(HttpClientErrorException.class, () -> retrier.call(ENDPOINT, HttpMethod.GET, deadline(), () -> {
+			attempts.incrementAndGet();
+			throw status(HttpStatus.BAD_REQUEST, null);
+		}));
+		assertEquals(1, attempts.getAndSet(0));
+
+		// A POST may have been processed already, unless the connection was never made
+		assertThrows(HttpServerErrorException.class, () -> retrier.call(ENDPOINT, HttpMethod.POST, deadline(), () -> {
+			attempts.incrementAndGet();
+			throw status(HttpStatus.BAD_GATEWAY, null);
+		}));
+		assertEquals(1, attempts.getAndSet(0));
+		assertThrows(ResourceAccessException.class, () -> retrier.call(ENDPOINT, HttpMethod.POST, deadline(), () -> {
+			attempts.incrementAndGet();
+			throw new ResourceAccessException("refused", new ConnectException("Connection refused"));
+		}));
+		assertEquals(3, attempts.get());
+	}
+
+	@Test
+	void givesUpOnLongRetryAfterAndEmptyBudget() {
+		environment.withProperty("upstream.open-weather.retry.budget-percent", "0")
+				.withProperty("upstream.open-weather.retry.budget-burst", "1");
+		UpstreamRetrier retrier = retrier();
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThrows(HttpClientErrorException.class, () -> retrier.call(ENDPOINT, HttpMethod.GET, deadline(), () -> {
+			attempts.incrementAndGet();
+			throw status(HttpStatus.TOO_MANY_REQUESTS, "60");
+		}));
+		assertEquals(1, attempts.getAndSet(0));
+
+		assertThrows(HttpServerErrorException.class, () -> retrier.call(ENDPOINT, HttpMethod.GET, deadline(), () -> {
+			attempts.incrementAndGet();
+			throw status(HttpStatus.SERVICE_UNAVAILABLE, "0");
+		}));
+		// One retry from the initial budget, then no budget is left
+		assertEquals(2, attempts.get());
+		UpstreamCallMetrics.UpstreamCallStats stats = metrics.snapshot().get(0);
+		assertEquals(1, stats.retries());
+		assertEquals(1, stats.budgetDenied());
+		assertEquals(2, stats.failures());
+	}
+
+	@Test
+	void retriesAsyncCallsWithoutBlocking() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		CompletableFuture<String> result = retrier().callAsync(ENDPOINT, HttpMethod.GET, deadline(),
+				() -> attempts.incrementAndGet() < 2
+						? CompletableFuture.failedFuture(new IOException("Connection reset"))
+						: CompletableFuture.completedFuture("ok"));
+
+		assertEquals("ok", result.get(1, TimeUnit.SECONDS));
+		assertEquals(2, attempts.get());
+		assertEquals(1, metrics.snapshot().get(0).callsByAttempts().get(2));
+	}
+
+	private UpstreamRetrier retrier() {
+		return new UpstreamRetrier(new UpstreamEndpoints(environment), metrics,
+				new TaskRouter(cpuPool, ioPool, new ExecutorMetrics()), environment);
+	}
+
+	private static long deadline() {
+		return System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+	}
+
+	private static RuntimeException status(HttpStatus status, String retryAfter) {
+		HttpHeaders headers = new HttpHeaders();
+		if (retryAfter != null) {
+			headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+		}
+		return status.is4xxClientError()
+				? HttpClientErrorException.create(status, status.getReasonPhrase(), headers, null, null)
+				: HttpServerErrorException.create(status, status.getReasonPhrase(), headers, null, null);
+	}
+}
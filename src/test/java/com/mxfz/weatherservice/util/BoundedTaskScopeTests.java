@@ -0,0 +1,106 @@
+package com.mxfz.weatherservice.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedTaskScopeTests {
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	@AfterEach
+	void shutdownExecutor() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void limitsConcurrency() throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		try (BoundedTaskScope<Integer> scope = BoundedTaskScope.failFast(executor, 3, Duration.ofSeconds(10))) {
+			for (int i = 0; i < 20; i++) {
+				int value = i;
+				scope.fork(() -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					Thread.sleep(10);
+					running.decrementAndGet();
+					return value;
+				});
+			}
+			scope.join().throwIfFailed();
+
+			assertEquals(20, scope.results().size());
+			assertTrue(maxRunning.get() <= 3);
+		}
+	}
+
+	@Test
+	void cancelsUnfinishedSubtasksAtDeadline() throws Exception {
+		AtomicInteger interrupted = new AtomicInteger();
+
+		try (BoundedTaskScope<String> scope = BoundedTaskScope.collecting(executor, 10, Duration.ofMillis(100))) {
+			scope.fork(() -> "fast");
+			BoundedTaskScope.Subtask<String> slow = scope.fork(() -> {
+				try {
+					Thread.sleep(10_000);
+				} catch (InterruptedException e) {
+					interrupted.incrementAndGet();
+					throw e;
+				}
+				return "slow";
+			});
+			scope.join();
+
+			assertEquals(List.of("fast"), scope.results());
+			assertThrows(TimeoutException.class, scope::throwIfFailed);
+			scope.close();
+			assertEquals(BoundedTaskScope.State.CANCELLED, slow.state());
+			assertEquals(1, interrupted.get());
+		}
+	}
+
+	@Test
+	void failFastCancelsSiblings() throws Exception {
+		try (BoundedTaskScope<String> scope = BoundedTaskScope.failFast(executor, 10, null)) {
+			scope.fork(() -> {
+				throw new IllegalStateException("upstream down");
+			});
+			BoundedTaskScope.Subtask<String> sibling = scope.fork(() -> {
+				Thread.sleep(10_000);
+				return "late";
+			});
+			scope.join();
+			scope.close();
+
+			assertEquals(BoundedTaskScope.State.CANCELLED, sibling.state());
+			ExecutionException failure = assertThrows(ExecutionException.class, scope::throwIfFailed);
+			assertEquals("upstream down", failure.getCause().getMessage());
+		}
+	}
+
+	@Test
+	void nestedScopeInheritsEarlierDeadline() throws Exception {
+		try (BoundedTaskScope<Boolean> outer = BoundedTaskScope.failFast(executor, 1, Duration.ofSeconds(1))) {
+			BoundedTaskScope.Subtask<Boolean> nested = outer.fork(() -> {
+				try (BoundedTaskScope<Object> inner = BoundedTaskScope.failFast(executor, 1, Duration.ofMinutes(1))) {
+					return inner.deadline().equals(BoundedTaskScope.currentDeadline());
+				}
+			});
+			outer.join().throwIfFailed();
+
+			assertTrue(nested.get());
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.mxfz.weatherservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTests {
+
+	@Test
+	void neverUndercounts() {
+		// Far more keys than counters, so most of them collide
+		CountMinSketch sketch = new CountMinSketch(16, 3);
+		Map<String, Long> counts = new HashMap<>();
+		for (int i = 0; i < 500; i++) {
+			String key = String.valueOf(560001 + i % 200);
+			sketch.add(key);
+			counts.merge(key, 1L, Long::sum);
+		}
+
+		counts.forEach((key, count) -> assertTrue(sketch.estimate(key) >= count, key));
+	}
+
+	@Test
+	void addReturnsTheNewEstimate() {
+		CountMinSketch sketch = new CountMinSketch(1024, 4);
+
+		assertEquals(1, sketch.add("110001"));
+		assertEquals(2, sketch.add("110001"));
+		assertEquals(2, sketch.estimate("110001"));
+		assertEquals(0, sketch.estimate("400001"));
+	}
+
+	@Test
+	void halvingHalvesEveryCount() {
+		CountMinSketch sketch = new CountMinSketch(1024, 4);
+		for (int i = 0; i < 10; i++) {
+			sketch.add("110001");
+		}
+		sketch.add("400001");
+
+		sketch.halve();
+		assertEquals(5, sketch.estimate("110001"));
+		assertEquals(0, sketch.estimate("400001"));
+
+		sketch.halve();
+		assertEquals(2, sketch.estimate("110001"));
+	}
+
+	@Test
+	void rejectsNonPositiveSizes() {
+		assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 4));
+		assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(1024, 0));
+	}
+}
@@ -0,0 +1,43 @@
+package com.mxfz.weatherservice.warmup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingStabilizerTests {
+
+	@Test
+	void isStableAfterEnoughSteadyRoundsInARow() {
+		TimingStabilizer stabilizer = new TimingStabilizer(0.1, 2);
+
+		assertFalse(stabilizer.record(10_000, 10));  // 1000 ns/op, cold
+		assertFalse(stabilizer.record(5_000, 10));   // 500, still speeding up
+		assertFalse(stabilizer.record(4_800, 10));   // 480, first steady round
+		assertTrue(stabilizer.record(4_900, 10));    // 490, second steady round
+
+		assertEquals(4, stabilizer.rounds());
+		assertEquals(490.0, stabilizer.lastNanosPerOp());
+	}
+
+	@Test
+	void outlierRoundStartsTheCountAgain() {
+		TimingStabilizer stabilizer = new TimingStabilizer(0.1, 2);
+		stabilizer.record(1_000, 1);
+		stabilizer.record(1_000, 1);
+
+		assertFalse(stabilizer.record(3_000, 1));  // e.g. a GC pause
+		assertFalse(stabilizer.record(1_000, 1));
+		assertFalse(stabilizer.record(1_000, 1));
+		assertTrue(stabilizer.record(1_050, 1));
+	}
+
+	@Test
+	void comparesTimePerOperation() {
+		TimingStabilizer stabilizer = new TimingStabilizer(0.1, 1);
+		stabilizer.record(1_000, 10);
+
+		assertTrue(stabilizer.record(2_000, 20));
+	}
+}